@@ -52,6 +52,39 @@ public class DownloadUtils {
     return concatUrlPaths(baseUrl, String.format(DOWNLOAD_LINK_FMT, downloadId, extension));
   }
 
+  /**
+   * Replaces each delimiter matched by {@link #DELIMETERS_MATCH} with a space, producing the same result than
+   * {@code DELIMETERS_MATCH_PATTERN.matcher(value).replaceAll(" ")} without using regular expressions.
+   * The same instance is returned if the value doesn't contain delimiters.
+   */
+  public static String cleanDelimiters(String value) {
+    if (value == null) {
+      return null;
+    }
+    int length = value.length();
+    int i = 0;
+    while (i < length && !isDelimiter(value.charAt(i))) {
+      i++;
+    }
+    if (i == length) {
+      return value;
+    }
+    char[] chars = value.toCharArray();
+    for (; i < length; i++) {
+      if (isDelimiter(chars[i])) {
+        chars[i] = ' ';
+      }
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Is the character one of the delimiters matched by {@link #DELIMETERS_MATCH}?
+   */
+  private static boolean isDelimiter(char c) {
+    return (c <= '\r' && (c >= '\t' || c == '\u0000')) || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
   public static String downloadToWorkflowId(String downloadId) {
     return downloadId + OOZIE_SUFFIX;
   }
@@ -0,0 +1,525 @@
+package org.gbif.occurrence.common.download;
+
+import org.gbif.api.model.occurrence.predicate.CompoundPredicate;
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.IsNotNullPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanPredicate;
+import org.gbif.api.model.occurrence.predicate.LikePredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.predicate.SimplePredicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites download predicates into smaller equivalent predicates, applying these rules:
+ * <ul>
+ *   <li>flattening: nested conjunctions (disjunctions) are merged into their parent conjunction (disjunction) and
+ *   compound predicates of a single predicate are replaced by it</li>
+ *   <li>deduplication: repeated predicates of a compound predicate are removed</li>
+ *   <li>absorption: {@code A AND (A OR B)} is rewritten to {@code A} and {@code A OR (A AND B)} to {@code A}</li>
+ *   <li>range merging: the bounds, equals and in predicates of a conjunction on the same numeric parameter are
+ *   merged into the tightest ones</li>
+ *   <li>contradiction detection: conjunctions of disjoint values or ranges, or of a predicate and its negation,
+ *   can't match any record</li>
+ *   <li>ordering: the predicates of a compound predicate are sorted by an estimation of their cost, cheapest first</li>
+ * </ul>
+ * The rewritten predicate matches the same records as the original one, null values included, in both Hive and
+ * Elasticsearch. A predicate proven not to match any record is still rewritten, and can still be queried.
+ */
+public class PredicateRewriter {
+
+  // Parameters stored as single numbers, whose predicates can be compared and merged.
+  // The taxon keys are excluded since they match any level of the classification.
+  private static final Set<OccurrenceSearchParameter> NUMERIC_PARAMETERS =
+    EnumSet.of(OccurrenceSearchParameter.YEAR,
+               OccurrenceSearchParameter.MONTH,
+               OccurrenceSearchParameter.DECIMAL_LATITUDE,
+               OccurrenceSearchParameter.DECIMAL_LONGITUDE,
+               OccurrenceSearchParameter.ELEVATION,
+               OccurrenceSearchParameter.DEPTH);
+
+  // Parameters that are expanded into several columns or fields by the query visitors
+  private static final Set<OccurrenceSearchParameter> EXPANDED_PARAMETERS =
+    EnumSet.of(OccurrenceSearchParameter.TAXON_KEY, OccurrenceSearchParameter.GADM_GID);
+
+  private static final Comparator<Predicate> BY_COST = Comparator.comparingInt(PredicateRewriter::cost);
+
+  private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+  /**
+   * Private constructor.
+   */
+  private PredicateRewriter() {
+    //do nothing
+  }
+
+  /**
+   * Rewrites a predicate, null predicates are returned as they are.
+   */
+  public static Predicate rewrite(Predicate predicate) {
+    return predicate == null ? null : visit(predicate, true).predicate;
+  }
+
+  /**
+   * Determines if a predicate has been proven not to match any record, a false result doesn't prove the opposite.
+   */
+  public static boolean isUnsatisfiable(Predicate predicate) {
+    return predicate != null && visit(predicate, true).unsatisfiable;
+  }
+
+  /**
+   * Canonical representation of a predicate, equal predicates have the same key.
+   * Predicates of compound predicates and values of in predicates are kept in their order.
+   */
+  public static String key(Predicate predicate) {
+    StringBuilder key = new StringBuilder();
+    appendKey(predicate, key);
+    return key.toString();
+  }
+
+  /**
+   * Key of a predicate that doesn't depend on how it was written: the predicate is rewritten, the predicates of
+   * compound predicates and the values of in predicates are sorted and the values are normalized as the query
+   * visitors do, enumeration values in uppercase and case insensitive strings in lowercase.
+   * Predicates with the same canonical key match the same records.
+   */
+  public static String canonicalKey(Predicate predicate) {
+    return predicate == null ? "" : canonicalKey0(rewrite(predicate));
+  }
+
+  /**
+   * Rough estimation of the cost of evaluating a predicate, used to evaluate cheap predicates first.
+   */
+  static int cost(Predicate predicate) {
+    switch (PredicateType.of(predicate)) {
+      case IS_NOT_NULL:
+        return 1;
+      case EQUALS:
+        return EXPANDED_PARAMETERS.contains(((EqualsPredicate) predicate).getKey()) ? 4 : 1;
+      case IN:
+        return EXPANDED_PARAMETERS.contains(((InPredicate) predicate).getKey()) ? 6 : 2;
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUALS:
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUALS:
+        return 2;
+      case LIKE:
+        return 5;
+      case NOT:
+        return 1 + cost(((NotPredicate) predicate).getPredicate());
+      case CONJUNCTION:
+      case DISJUNCTION:
+        return 1 + ((CompoundPredicate) predicate).getPredicates().stream().mapToInt(PredicateRewriter::cost).sum();
+      case WITHIN:
+        return 50;
+      default:
+        throw new IllegalArgumentException("Unknown Predicate");
+    }
+  }
+
+  /**
+   * Rewrites a predicate, positive is false for predicates negated an odd number of times.
+   * Hive evaluates comparisons with null values to NULL, a predicate that is never true can be NULL instead of FALSE
+   * and can only be dropped when it isn't negated, where NULL and FALSE both exclude the record.
+   */
+  private static Rewritten visit(Predicate predicate, boolean positive) {
+    switch (PredicateType.of(predicate)) {
+      case CONJUNCTION:
+        return visitConjunction((ConjunctionPredicate) predicate, positive);
+      case DISJUNCTION:
+        return visitDisjunction((DisjunctionPredicate) predicate, positive);
+      case NOT:
+        Rewritten negated = visit(((NotPredicate) predicate).getPredicate(), !positive);
+        // NOT NOT A is A, also for null values since NOT NULL is NULL
+        if (negated.predicate instanceof NotPredicate) {
+          return visit(((NotPredicate) negated.predicate).getPredicate(), positive);
+        }
+        // the negation of an unsatisfiable predicate doesn't match records with null values, so it is kept
+        return new Rewritten(new NotPredicate(negated.predicate), false);
+      default:
+        return new Rewritten(predicate, false);
+    }
+  }
+
+  private static Rewritten visitConjunction(ConjunctionPredicate conjunction, boolean positive) {
+    boolean unsatisfiable = false;
+    Map<String, Predicate> predicates = new LinkedHashMap<>();
+    for (Predicate child : conjunction.getPredicates()) {
+      Rewritten rewritten = visit(child, positive);
+      unsatisfiable |= rewritten.unsatisfiable;
+      if (rewritten.predicate instanceof ConjunctionPredicate) {
+        ((ConjunctionPredicate) rewritten.predicate).getPredicates().forEach(p -> predicates.putIfAbsent(key(p), p));
+      } else {
+        predicates.putIfAbsent(key(rewritten.predicate), rewritten.predicate);
+      }
+    }
+
+    // A AND (A OR B) is A, A AND NOT A can't be true
+    List<Predicate> absorbed = new ArrayList<>();
+    for (Predicate predicate : predicates.values()) {
+      if (predicate instanceof DisjunctionPredicate
+          && ((DisjunctionPredicate) predicate).getPredicates().stream().anyMatch(p -> predicates.containsKey(key(p)))) {
+        continue;
+      }
+      if (predicate instanceof NotPredicate && predicates.containsKey(key(((NotPredicate) predicate).getPredicate()))) {
+        unsatisfiable = true;
+      }
+      absorbed.add(predicate);
+    }
+
+    RangeMerger merger = new RangeMerger();
+    List<Predicate> merged = merger.merge(absorbed);
+    unsatisfiable |= merger.unsatisfiable;
+
+    merged.sort(BY_COST);
+    return new Rewritten(merged.size() == 1 ? merged.get(0) : new ConjunctionPredicate(merged), unsatisfiable);
+  }
+
+  private static Rewritten visitDisjunction(DisjunctionPredicate disjunction, boolean positive) {
+    Map<String, Predicate> predicates = new LinkedHashMap<>();
+    Map<String, Predicate> unsatisfiable = new LinkedHashMap<>();
+    boolean allUnsatisfiable = true;
+    for (Predicate child : disjunction.getPredicates()) {
+      Rewritten rewritten = visit(child, positive);
+      allUnsatisfiable &= rewritten.unsatisfiable;
+      Map<String, Predicate> target = rewritten.unsatisfiable && positive ? unsatisfiable : predicates;
+      if (rewritten.predicate instanceof DisjunctionPredicate) {
+        ((DisjunctionPredicate) rewritten.predicate).getPredicates().forEach(p -> target.putIfAbsent(key(p), p));
+      } else {
+        target.putIfAbsent(key(rewritten.predicate), rewritten.predicate);
+      }
+    }
+
+    // predicates that can't match any record are dropped, unless all of them are like that
+    if (predicates.isEmpty()) {
+      List<Predicate> kept = new ArrayList<>(unsatisfiable.values());
+      return new Rewritten(kept.size() == 1 ? kept.get(0) : new DisjunctionPredicate(kept), true);
+    }
+
+    // A OR (A AND B) is A
+    List<Predicate> absorbed = predicates.values().stream()
+      .filter(predicate -> !(predicate instanceof ConjunctionPredicate)
+                           || ((ConjunctionPredicate) predicate).getPredicates().stream()
+                             .noneMatch(p -> predicates.containsKey(key(p))))
+      .sorted(BY_COST)
+      .collect(Collectors.toList());
+    return new Rewritten(absorbed.size() == 1 ? absorbed.get(0) : new DisjunctionPredicate(absorbed),
+                         allUnsatisfiable);
+  }
+
+  private static String canonicalKey0(Predicate predicate) {
+    PredicateType type = PredicateType.of(predicate);
+    switch (type) {
+      case CONJUNCTION:
+      case DISJUNCTION:
+        return ((CompoundPredicate) predicate).getPredicates().stream()
+          .map(PredicateRewriter::canonicalKey0)
+          .sorted()
+          .collect(Collectors.joining(",", type.name() + '(', ")"));
+      case NOT:
+        return type.name() + '(' + canonicalKey0(((NotPredicate) predicate).getPredicate()) + ')';
+      case IN:
+        InPredicate in = (InPredicate) predicate;
+        boolean matchCase = Boolean.TRUE.equals(in.isMatchCase());
+        StringBuilder key = new StringBuilder(type.name()).append('(').append(in.getKey()).append(',').append(matchCase);
+        in.getValues().stream()
+          .map(value -> normalize(in.getKey(), value, matchCase))
+          .collect(Collectors.toCollection(() -> new TreeSet<>(NULLS_FIRST)))
+          .forEach(value -> appendValue(value, key.append(',')));
+        return key.append(')').toString();
+      case EQUALS:
+      case LIKE:
+        SimplePredicate simple = (SimplePredicate) predicate;
+        StringBuilder simpleKey = new StringBuilder(type.name()).append('(').append(simple.getKey()).append(',')
+          .append(simple.isMatchCase()).append(',');
+        appendValue(normalize(simple.getKey(), simple.getValue(), simple.isMatchCase()), simpleKey);
+        return simpleKey.append(')').toString();
+      default:
+        return key(predicate);
+    }
+  }
+
+  /**
+   * Normalizes a value the way both query visitors compare it.
+   */
+  private static String normalize(OccurrenceSearchParameter parameter, String value, boolean matchCase) {
+    if (value == null) {
+      return null;
+    }
+    if (Enum.class.isAssignableFrom(parameter.type())) {
+      return value.toUpperCase();
+    }
+    if (String.class.isAssignableFrom(parameter.type()) && OccurrenceSearchParameter.GEOMETRY != parameter
+        && !matchCase) {
+      return value.toLowerCase();
+    }
+    return value;
+  }
+
+  private static void appendKey(Predicate predicate, StringBuilder key) {
+    PredicateType type = PredicateType.of(predicate);
+    key.append(type.name()).append('(');
+    switch (type) {
+      case CONJUNCTION:
+      case DISJUNCTION:
+        boolean first = true;
+        for (Predicate child : ((CompoundPredicate) predicate).getPredicates()) {
+          if (!first) {
+            key.append(',');
+          }
+          appendKey(child, key);
+          first = false;
+        }
+        break;
+      case NOT:
+        appendKey(((NotPredicate) predicate).getPredicate(), key);
+        break;
+      case IN:
+        InPredicate in = (InPredicate) predicate;
+        key.append(in.getKey()).append(',').append(Boolean.TRUE.equals(in.isMatchCase()));
+        in.getValues().forEach(value -> appendValue(value, key.append(',')));
+        break;
+      case IS_NOT_NULL:
+        key.append(((IsNotNullPredicate) predicate).getParameter());
+        break;
+      case WITHIN:
+        appendValue(((WithinPredicate) predicate).getGeometry(), key);
+        break;
+      default:
+        SimplePredicate simple = (SimplePredicate) predicate;
+        key.append(simple.getKey()).append(',').append(simple.isMatchCase()).append(',');
+        appendValue(simple.getValue(), key);
+        break;
+    }
+    key.append(')');
+  }
+
+  private static void appendValue(String value, StringBuilder key) {
+    key.append('"');
+    if (value != null) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"' || c == '\\') {
+          key.append('\\');
+        }
+        key.append(c);
+      }
+    }
+    key.append('"');
+  }
+
+  /**
+   * Parses the value of numeric parameters, ranges and other values are not parsed.
+   * Trailing zeros are removed so equal values, e.g. 2000 and 2000.0, are also equal in sets of values.
+   */
+  private static BigDecimal toNumber(OccurrenceSearchParameter parameter, String value) {
+    if (!NUMERIC_PARAMETERS.contains(parameter) || value == null) {
+      return null;
+    }
+    try {
+      return new BigDecimal(value.trim()).stripTrailingZeros();
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A rewritten predicate and whether it has been proven not to match any record.
+   */
+  private static class Rewritten {
+
+    private final Predicate predicate;
+    private final boolean unsatisfiable;
+
+    Rewritten(Predicate predicate, boolean unsatisfiable) {
+      this.predicate = predicate;
+      this.unsatisfiable = unsatisfiable;
+    }
+  }
+
+  /**
+   * Merges the predicates of a conjunction on the same numeric parameter.
+   */
+  private static class RangeMerger {
+
+    private final Map<OccurrenceSearchParameter, Range> ranges = new LinkedHashMap<>();
+    private boolean unsatisfiable;
+
+    List<Predicate> merge(List<Predicate> predicates) {
+      // the merged predicates of a parameter replace the first predicate of the parameter
+      List<Object> slots = new ArrayList<>();
+      for (Predicate predicate : predicates) {
+        OccurrenceSearchParameter parameter = mergeableParameter(predicate);
+        if (parameter == null) {
+          slots.add(predicate);
+        } else {
+          Range range = ranges.get(parameter);
+          if (range == null) {
+            range = new Range();
+            ranges.put(parameter, range);
+            slots.add(parameter);
+          }
+          range.add(predicate);
+        }
+      }
+
+      List<Predicate> merged = new ArrayList<>();
+      for (Object slot : slots) {
+        if (slot instanceof OccurrenceSearchParameter) {
+          Range range = ranges.get(slot);
+          merged.addAll(range.predicates());
+          unsatisfiable |= range.isEmpty();
+        } else {
+          merged.add((Predicate) slot);
+        }
+      }
+      return merged;
+    }
+
+    /**
+     * Parameter of the predicates that can be merged.
+     */
+    private static OccurrenceSearchParameter mergeableParameter(Predicate predicate) {
+      if (predicate instanceof InPredicate) {
+        InPredicate in = (InPredicate) predicate;
+        return in.getValues().stream().allMatch(value -> toNumber(in.getKey(), value) != null) ? in.getKey() : null;
+      }
+      if (predicate instanceof EqualsPredicate || predicate instanceof GreaterThanPredicate
+          || predicate instanceof GreaterThanOrEqualsPredicate || predicate instanceof LessThanPredicate
+          || predicate instanceof LessThanOrEqualsPredicate) {
+        SimplePredicate simple = (SimplePredicate) predicate;
+        return toNumber(simple.getKey(), simple.getValue()) != null ? simple.getKey() : null;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Tightest bounds and allowed values of a numeric parameter.
+   */
+  private static class Range {
+
+    private SimplePredicate lower;
+    private BigDecimal lowerValue;
+    private SimplePredicate upper;
+    private BigDecimal upperValue;
+    // allowed values and a predicate that allows them, if there is an equals or in predicate
+    private Set<BigDecimal> values;
+    private Predicate valuesPredicate;
+    private final List<Predicate> all = new ArrayList<>();
+
+    void add(Predicate predicate) {
+      all.add(predicate);
+      if (predicate instanceof InPredicate) {
+        InPredicate in = (InPredicate) predicate;
+        restrict(in.getValues().stream()
+                   .map(value -> toNumber(in.getKey(), value))
+                   .collect(Collectors.toCollection(LinkedHashSet::new)), predicate);
+        return;
+      }
+      SimplePredicate simple = (SimplePredicate) predicate;
+      BigDecimal value = toNumber(simple.getKey(), simple.getValue());
+      if (predicate instanceof EqualsPredicate) {
+        Set<BigDecimal> equalsValues = new LinkedHashSet<>();
+        equalsValues.add(value);
+        restrict(equalsValues, predicate);
+      } else if (predicate instanceof GreaterThanPredicate || predicate instanceof GreaterThanOrEqualsPredicate) {
+        int comparison = lower == null ? 1 : value.compareTo(lowerValue);
+        if (comparison > 0 || (comparison == 0 && predicate instanceof GreaterThanPredicate)) {
+          lower = simple;
+          lowerValue = value;
+        }
+      } else {
+        int comparison = upper == null ? -1 : value.compareTo(upperValue);
+        if (comparison < 0 || (comparison == 0 && predicate instanceof LessThanPredicate)) {
+          upper = simple;
+          upperValue = value;
+        }
+      }
+    }
+
+    private void restrict(Set<BigDecimal> allowed, Predicate predicate) {
+      if (values == null) {
+        values = allowed;
+        valuesPredicate = predicate;
+      } else {
+        values.retainAll(allowed);
+        // the smallest set of values is kept, as it implies the others
+        if (allowed.size() < PredicateRewriter.size(valuesPredicate)) {
+          valuesPredicate = predicate;
+        }
+      }
+    }
+
+    private boolean inRange(BigDecimal value) {
+      return (lower == null || value.compareTo(lowerValue) > 0
+              || (value.compareTo(lowerValue) == 0 && lower instanceof GreaterThanOrEqualsPredicate))
+             && (upper == null || value.compareTo(upperValue) < 0
+                 || (value.compareTo(upperValue) == 0 && upper instanceof LessThanOrEqualsPredicate));
+    }
+
+    boolean isEmpty() {
+      if (values != null) {
+        return values.stream().noneMatch(this::inRange);
+      }
+      if (lower != null && upper != null) {
+        int comparison = lowerValue.compareTo(upperValue);
+        return comparison > 0
+               || (comparison == 0
+                   && (lower instanceof GreaterThanPredicate || upper instanceof LessThanPredicate));
+      }
+      return false;
+    }
+
+    Collection<Predicate> predicates() {
+      if (isEmpty()) {
+        // kept as they are, the query won't match any record anyway
+        return all;
+      }
+      List<Predicate> predicates = new ArrayList<>();
+      if (values != null) {
+        // values in the bounds imply the bounds
+        if (values.stream().allMatch(this::inRange) && size(valuesPredicate) == values.size()) {
+          predicates.add(valuesPredicate);
+        } else {
+          return all;
+        }
+      } else {
+        if (lower != null) {
+          predicates.add(lower);
+        }
+        if (upper != null) {
+          predicates.add(upper);
+        }
+      }
+      return predicates;
+    }
+  }
+
+  /**
+   * Number of values of an equals or in predicate.
+   */
+  private static int size(Predicate predicate) {
+    return predicate instanceof InPredicate ? new LinkedHashSet<>(((InPredicate) predicate).getValues()).size() : 1;
+  }
+}
@@ -0,0 +1,72 @@
+package org.gbif.occurrence.common.download;
+
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.IsNotNullPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanPredicate;
+import org.gbif.api.model.occurrence.predicate.LikePredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Concrete predicate classes of the download API, used by the predicate visitors to dispatch a node to its visit
+ * method with a switch instead of looking the method up by reflection.
+ * A predicate is mapped by its exact class, subclasses are unknown predicates as they were for the reflective lookup.
+ */
+public enum PredicateType {
+
+  CONJUNCTION(ConjunctionPredicate.class),
+  DISJUNCTION(DisjunctionPredicate.class),
+  EQUALS(EqualsPredicate.class),
+  GREATER_THAN_OR_EQUALS(GreaterThanOrEqualsPredicate.class),
+  GREATER_THAN(GreaterThanPredicate.class),
+  IN(InPredicate.class),
+  IS_NOT_NULL(IsNotNullPredicate.class),
+  LESS_THAN_OR_EQUALS(LessThanOrEqualsPredicate.class),
+  LESS_THAN(LessThanPredicate.class),
+  LIKE(LikePredicate.class),
+  NOT(NotPredicate.class),
+  WITHIN(WithinPredicate.class);
+
+  private static final Map<Class<?>, PredicateType> BY_CLASS = new IdentityHashMap<>();
+
+  static {
+    for (PredicateType type : values()) {
+      BY_CLASS.put(type.predicateClass, type);
+    }
+  }
+
+  private final Class<?> predicateClass;
+
+  PredicateType(Class<?> predicateClass) {
+    this.predicateClass = predicateClass;
+  }
+
+  /**
+   * @return the class of the predicates of this type
+   */
+  public Class<?> getPredicateClass() {
+    return predicateClass;
+  }
+
+  /**
+   * Type of a predicate.
+   *
+   * @throws IllegalArgumentException if the predicate is not one of the known classes
+   */
+  public static PredicateType of(Object predicate) {
+    PredicateType type = predicate == null ? null : BY_CLASS.get(predicate.getClass());
+    if (type == null) {
+      throw new IllegalArgumentException("Unknown Predicate");
+    }
+    return type;
+  }
+}
@@ -15,4 +15,24 @@ public class DownloadUtilsTest {
     String testStr = "test";
     Assertions.assertEquals(testStr, DownloadUtils.DELIMETERS_MATCH_PATTERN.matcher(testStr + NUL_CHAR).replaceAll(""));
   }
+
+  @Test
+  public void testCleanDelimiters() {
+    String clean = "Puma concolor (Linnaeus, 1771) \"cougar\" \uD83D\uDC3E";
+    Assertions.assertSame(clean, DownloadUtils.cleanDelimiters(clean));
+    Assertions.assertNull(DownloadUtils.cleanDelimiters(null));
+
+    String[] values = {"", "a\tb", "a\nb", "a\rb", "a\r\nb", "\n\r", "a\u000Bb\u000Cc", "a\u0085b\u2028c\u2029d",
+      "test" + NUL_CHAR, "\u0008\u000E\u0084\u2027\u202A"};
+    for (String value : values) {
+      Assertions.assertEquals(DownloadUtils.DELIMETERS_MATCH_PATTERN.matcher(value).replaceAll(" "),
+                              DownloadUtils.cleanDelimiters(value));
+    }
+    // every char of the BMP must be handled as the regular expression does
+    for (char c = 0; c < Character.MAX_VALUE; c++) {
+      String value = "x" + c;
+      Assertions.assertEquals(DownloadUtils.DELIMETERS_MATCH_PATTERN.matcher(value).replaceAll(" "),
+                              DownloadUtils.cleanDelimiters(value));
+    }
+  }
 }
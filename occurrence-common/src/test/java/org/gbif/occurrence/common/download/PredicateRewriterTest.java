@@ -0,0 +1,182 @@
+package org.gbif.occurrence.common.download;
+
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.GreaterThanPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.IsNotNullPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanOrEqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.LessThanPredicate;
+import org.gbif.api.model.occurrence.predicate.LikePredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link PredicateRewriter}.
+ */
+public class PredicateRewriterTest {
+
+  private static final Predicate CATALOG_NUMBER =
+    new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "value_1", false);
+  private static final Predicate INSTITUTION_CODE =
+    new EqualsPredicate(OccurrenceSearchParameter.INSTITUTION_CODE, "value_2", false);
+  private static final Predicate LIKE =
+    new LikePredicate(OccurrenceSearchParameter.SCIENTIFIC_NAME, "Puma%", false);
+  private static final Predicate WITHIN = new WithinPredicate("POLYGON ((30 10, 10 20, 20 40, 40 40, 30 10))");
+
+  private static Predicate and(Predicate... predicates) {
+    return new ConjunctionPredicate(Arrays.asList(predicates));
+  }
+
+  private static Predicate or(Predicate... predicates) {
+    return new DisjunctionPredicate(Arrays.asList(predicates));
+  }
+
+  private static void assertRewritten(Predicate expected, Predicate predicate) {
+    Assertions.assertEquals(PredicateRewriter.key(expected), PredicateRewriter.key(PredicateRewriter.rewrite(predicate)));
+  }
+
+  @Test
+  public void testFlattenAndDeduplicate() {
+    assertRewritten(and(CATALOG_NUMBER, INSTITUTION_CODE, LIKE),
+                    and(CATALOG_NUMBER, and(INSTITUTION_CODE, and(CATALOG_NUMBER, LIKE))));
+    assertRewritten(or(CATALOG_NUMBER, INSTITUTION_CODE),
+                    or(or(CATALOG_NUMBER), or(INSTITUTION_CODE, CATALOG_NUMBER)));
+    assertRewritten(CATALOG_NUMBER, and(or(CATALOG_NUMBER, CATALOG_NUMBER)));
+    assertRewritten(CATALOG_NUMBER, new NotPredicate(new NotPredicate(CATALOG_NUMBER)));
+    Assertions.assertNull(PredicateRewriter.rewrite(null));
+  }
+
+  @Test
+  public void testAbsorption() {
+    assertRewritten(and(CATALOG_NUMBER, LIKE), and(LIKE, or(INSTITUTION_CODE, CATALOG_NUMBER), CATALOG_NUMBER));
+    assertRewritten(or(CATALOG_NUMBER, LIKE), or(LIKE, and(INSTITUTION_CODE, CATALOG_NUMBER), CATALOG_NUMBER));
+  }
+
+  @Test
+  public void testCheapFiltersFirst() {
+    Predicate taxonKey = new EqualsPredicate(OccurrenceSearchParameter.TAXON_KEY, "212", false);
+    Predicate notNull = new IsNotNullPredicate(OccurrenceSearchParameter.RECORDED_BY);
+    assertRewritten(and(CATALOG_NUMBER, notNull, taxonKey, LIKE, WITHIN),
+                    and(WITHIN, LIKE, CATALOG_NUMBER, taxonKey, notNull));
+    assertRewritten(or(INSTITUTION_CODE, and(CATALOG_NUMBER, LIKE), WITHIN),
+                    or(WITHIN, and(LIKE, CATALOG_NUMBER), INSTITUTION_CODE));
+  }
+
+  @Test
+  public void testRangeMerging() {
+    Predicate from1990 = new GreaterThanOrEqualsPredicate(OccurrenceSearchParameter.YEAR, "1990");
+    Predicate after1995 = new GreaterThanPredicate(OccurrenceSearchParameter.YEAR, "1995");
+    Predicate upTo2000 = new LessThanOrEqualsPredicate(OccurrenceSearchParameter.YEAR, "2000");
+    Predicate before2010 = new LessThanPredicate(OccurrenceSearchParameter.YEAR, "2010");
+    assertRewritten(and(after1995, upTo2000), and(from1990, before2010, after1995, upTo2000));
+
+    // values in the range imply it
+    Predicate in = new InPredicate(OccurrenceSearchParameter.YEAR, Arrays.asList("1996", "1999"), false);
+    assertRewritten(in, and(from1990, in, upTo2000));
+    Predicate year1999 = new EqualsPredicate(OccurrenceSearchParameter.YEAR, "1999", false);
+    assertRewritten(year1999, and(in, from1990, year1999));
+
+    // taxon keys match several levels of the classification, they are never merged
+    Predicate taxon1 = new EqualsPredicate(OccurrenceSearchParameter.TAXON_KEY, "1", false);
+    Predicate taxon2 = new EqualsPredicate(OccurrenceSearchParameter.TAXON_KEY, "2", false);
+    assertRewritten(and(taxon1, taxon2), and(taxon1, taxon2));
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(and(taxon1, taxon2)));
+
+    // ranges in values are not parsed
+    Predicate range = new EqualsPredicate(OccurrenceSearchParameter.YEAR, "1990,2000", false);
+    assertRewritten(and(range, from1990), and(range, from1990));
+  }
+
+  /**
+   * Values are compared as numbers, regardless of their scale.
+   */
+  @Test
+  public void testMixedScaleValues() {
+    Predicate year2000 = new EqualsPredicate(OccurrenceSearchParameter.YEAR, "2000", false);
+    Predicate in = new InPredicate(OccurrenceSearchParameter.YEAR, Arrays.asList("2000.0", "2001"), false);
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(and(year2000, in)));
+    assertRewritten(year2000, and(year2000, in));
+
+    Predicate latitude = new EqualsPredicate(OccurrenceSearchParameter.DECIMAL_LATITUDE, "10.50", false);
+    Predicate inLatitudes =
+      new InPredicate(OccurrenceSearchParameter.DECIMAL_LATITUDE, Collections.singletonList("1.05E1"), false);
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(and(latitude, inLatitudes)));
+  }
+
+  @Test
+  public void testContradictions() {
+    Predicate after2000 = new GreaterThanPredicate(OccurrenceSearchParameter.YEAR, "2000");
+    Predicate upTo2000 = new LessThanOrEqualsPredicate(OccurrenceSearchParameter.YEAR, "2000");
+    Predicate contradiction = and(CATALOG_NUMBER, after2000, upTo2000);
+    Assertions.assertTrue(PredicateRewriter.isUnsatisfiable(contradiction));
+    // still a valid query
+    assertRewritten(contradiction, contradiction);
+
+    Assertions.assertTrue(PredicateRewriter.isUnsatisfiable(
+      and(new EqualsPredicate(OccurrenceSearchParameter.MONTH, "1", false),
+          new EqualsPredicate(OccurrenceSearchParameter.MONTH, "2", false))));
+    Assertions.assertTrue(PredicateRewriter.isUnsatisfiable(
+      and(new InPredicate(OccurrenceSearchParameter.MONTH, Arrays.asList("1", "2"), false),
+          new GreaterThanPredicate(OccurrenceSearchParameter.MONTH, "2"))));
+    Assertions.assertTrue(PredicateRewriter.isUnsatisfiable(and(LIKE, new NotPredicate(LIKE))));
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(and(LIKE, upTo2000)));
+
+    // predicates that can't match any record are dropped from disjunctions
+    assertRewritten(LIKE, or(LIKE, contradiction));
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(or(LIKE, contradiction)));
+    Assertions.assertTrue(PredicateRewriter.isUnsatisfiable(or(contradiction, and(LIKE, new NotPredicate(LIKE)))));
+
+    // but not when negated, as they don't match null values either
+    Predicate negated = new NotPredicate(or(LIKE, contradiction));
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(negated));
+    assertRewritten(negated, negated);
+    Assertions.assertFalse(PredicateRewriter.isUnsatisfiable(new NotPredicate(contradiction)));
+  }
+
+  @Test
+  public void testKey() {
+    Assertions.assertEquals(PredicateRewriter.key(and(CATALOG_NUMBER, INSTITUTION_CODE)),
+                            PredicateRewriter.key(and(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER,
+                                                                          "value_1", false), INSTITUTION_CODE)));
+    Assertions.assertNotEquals(PredicateRewriter.key(CATALOG_NUMBER),
+                               PredicateRewriter.key(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER,
+                                                                         "value_1", true)));
+    Assertions.assertNotEquals(PredicateRewriter.key(and(CATALOG_NUMBER, INSTITUTION_CODE)),
+                               PredicateRewriter.key(or(CATALOG_NUMBER, INSTITUTION_CODE)));
+    Assertions.assertNotEquals(
+      PredicateRewriter.key(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "a\",\"b", false)),
+      PredicateRewriter.key(new InPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, Arrays.asList("a", "b"), false)));
+  }
+
+  @Test
+  public void testCanonicalKey() {
+    Assertions.assertEquals(PredicateRewriter.canonicalKey(and(CATALOG_NUMBER, or(LIKE, INSTITUTION_CODE))),
+                            PredicateRewriter.canonicalKey(and(or(INSTITUTION_CODE, LIKE, LIKE), CATALOG_NUMBER)));
+    Assertions.assertEquals(
+      PredicateRewriter.canonicalKey(new InPredicate(OccurrenceSearchParameter.COUNTRY, Arrays.asList("dk", "SE"), false)),
+      PredicateRewriter.canonicalKey(new InPredicate(OccurrenceSearchParameter.COUNTRY, Arrays.asList("se", "DK", "se"),
+                                                     false)));
+    Assertions.assertEquals(
+      PredicateRewriter.canonicalKey(CATALOG_NUMBER),
+      PredicateRewriter.canonicalKey(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "VALUE_1", false)));
+
+    // case sensitive values and conjunctions and disjunctions are kept apart
+    Assertions.assertNotEquals(
+      PredicateRewriter.canonicalKey(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "value_1", true)),
+      PredicateRewriter.canonicalKey(new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "VALUE_1", true)));
+    Assertions.assertNotEquals(PredicateRewriter.canonicalKey(and(CATALOG_NUMBER, INSTITUTION_CODE)),
+                               PredicateRewriter.canonicalKey(or(CATALOG_NUMBER, INSTITUTION_CODE)));
+    Assertions.assertEquals("", PredicateRewriter.canonicalKey(null));
+  }
+}
@@ -0,0 +1,31 @@
+package org.gbif.occurrence.common.download;
+
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link PredicateType}.
+ */
+public class PredicateTypeTest {
+
+  @Test
+  public void testOf() {
+    Predicate equals = new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "value", false);
+    Assertions.assertEquals(PredicateType.EQUALS, PredicateType.of(equals));
+    Assertions.assertEquals(PredicateType.NOT, PredicateType.of(new NotPredicate(equals)));
+    for (PredicateType type : PredicateType.values()) {
+      Assertions.assertTrue(Predicate.class.isAssignableFrom(type.getPredicateClass()));
+    }
+  }
+
+  @Test
+  public void testUnknownPredicate() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PredicateType.of("equals"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> PredicateType.of(null));
+  }
+}
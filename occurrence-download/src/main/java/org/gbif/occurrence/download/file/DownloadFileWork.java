@@ -3,6 +3,8 @@ package org.gbif.occurrence.download.file;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.gbif.wrangler.lock.Lock;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Objects;
 import com.google.common.primitives.Ints;
 
@@ -32,16 +34,27 @@ public class DownloadFileWork implements Comparable<DownloadFileWork> {
 
   private final String esIndex;
 
+  private final Long searchAfter;
+
 
   /**
    * Default constructor.
    */
   public DownloadFileWork(int from, int to, String baseDataFileName, int jobId, String query, Lock lock,
                           RestHighLevelClient esClient, String esIndex) {
+    this(from, to, null, baseDataFileName, jobId, query, lock, esClient, esIndex);
+  }
+
+  /**
+   * Creates a work unit that resumes the search right after the record identified by the searchAfter key.
+   */
+  public DownloadFileWork(int from, int to, @Nullable Long searchAfter, String baseDataFileName, int jobId,
+                          String query, Lock lock, RestHighLevelClient esClient, String esIndex) {
     checkArgument(to >= from, "'to' parameter should be greater than the 'from' argument");
     this.query = query;
     this.from = from;
     this.to = to;
+    this.searchAfter = searchAfter;
     this.baseDataFileName = baseDataFileName;
     this.jobId = jobId;
     this.lock = lock;
@@ -80,6 +93,17 @@ public class DownloadFileWork implements Comparable<DownloadFileWork> {
     return from;
   }
 
+  /**
+   * Sort key (gbifId) of the last record preceding this chunk, the search resumes right after it.
+   * If it is null the first page is located using the 'from' offset.
+   *
+   * @return the searchAfter cursor
+   */
+  @Nullable
+  public Long getSearchAfter() {
+    return searchAfter;
+  }
+
   /**
    * Search query.
    *
@@ -129,7 +153,7 @@ public class DownloadFileWork implements Comparable<DownloadFileWork> {
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(baseDataFileName, jobId, query, from, to);
+    return Objects.hashCode(baseDataFileName, jobId, query, from, to, searchAfter);
   }
 
   @Override
@@ -146,7 +170,8 @@ public class DownloadFileWork implements Comparable<DownloadFileWork> {
            && Objects.equal(this.jobId, that.jobId)
            && Objects.equal(this.query, that.query)
            && Objects.equal(this.from, that.from)
-           && Objects.equal(this.to, that.to);
+           && Objects.equal(this.to, that.to)
+           && Objects.equal(this.searchAfter, that.searchAfter);
   }
 
   @Override
@@ -154,6 +179,7 @@ public class DownloadFileWork implements Comparable<DownloadFileWork> {
     return Objects.toStringHelper(this)
       .add("from", from)
       .add("to", to)
+      .add("searchAfter", searchAfter)
       .add("baseDataFileName", baseDataFileName)
       .add("jobId", jobId)
       .add("query", query)
@@ -0,0 +1,209 @@
+package org.gbif.occurrence.download.file;
+
+import org.gbif.api.model.occurrence.DownloadFormat;
+import org.gbif.api.vocabulary.License;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local record of the chunks of a small download and of their completion state.
+ * A download that is restarted after a failure uses it to repeat only the chunks that weren't completed, the part
+ * files of completed chunks are re-used if their checksums haven't changed.
+ */
+@Data
+@NoArgsConstructor
+public class DownloadManifest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DownloadManifest.class);
+
+  private static final ObjectMapper OBJECT_MAPPER =
+    new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private String query;
+
+  private int nrOfRecords;
+
+  private DownloadFormat downloadFormat;
+
+  private List<ChunkState> chunks = Lists.newArrayList();
+
+  public DownloadManifest(String query, int nrOfRecords, DownloadFormat downloadFormat) {
+    this.query = query;
+    this.nrOfRecords = nrOfRecords;
+    this.downloadFormat = downloadFormat;
+  }
+
+  /**
+   * Is this manifest describing the execution of the same download?
+   */
+  public boolean matches(String query, int nrOfRecords, DownloadFormat downloadFormat) {
+    return Objects.equals(this.query, query) && this.nrOfRecords == nrOfRecords
+           && this.downloadFormat == downloadFormat;
+  }
+
+  /**
+   * Reads a manifest file.
+   *
+   * @return the manifest or null if the file doesn't exist or can't be read
+   */
+  public static DownloadManifest load(File manifestFile) {
+    if (!manifestFile.exists()) {
+      return null;
+    }
+    try {
+      return OBJECT_MAPPER.readValue(manifestFile, DownloadManifest.class);
+    } catch (IOException ex) {
+      LOG.warn("Error reading download manifest {}, it will be ignored", manifestFile, ex);
+      return null;
+    }
+  }
+
+  /**
+   * Writes this manifest, the file is replaced atomically so a crash can't leave a partially written manifest.
+   */
+  public void save(File manifestFile) throws IOException {
+    File tmpFile = new File(manifestFile.getPath() + ".tmp");
+    OBJECT_MAPPER.writeValue(tmpFile, this);
+    Files.move(tmpFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Prepares the temporary directory of a download to be resumed: chunks whose part files are missing or changed are
+   * reset to be processed again and every file that isn't a part file of a re-usable chunk is deleted, e.g.: the
+   * aggregated output of an interrupted merge or part files left by a chunk that failed.
+   */
+  public void prepareResume(File downloadTempDir) {
+    Set<Path> reusablePartFiles = Sets.newHashSet();
+    for (ChunkState chunk : chunks) {
+      if (chunk.isReusable()) {
+        chunk.getChecksums().keySet().forEach(partFile -> reusablePartFiles.add(normalize(new File(partFile))));
+      } else {
+        chunk.reset();
+      }
+    }
+    File[] files = downloadTempDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!reusablePartFiles.contains(normalize(file))) {
+          LOG.info("Deleting {} left by a previous execution", file);
+          if (file.isDirectory()) {
+            FileUtils.deleteDirectoryRecursively(file);
+          } else {
+            file.delete();
+          }
+        }
+      }
+    }
+  }
+
+  private static Path normalize(File file) {
+    return file.toPath().toAbsolutePath().normalize();
+  }
+
+  /**
+   * CRC32 checksum of a part file.
+   */
+  public static long checksum(File file) throws IOException {
+    return com.google.common.io.Files.hash(file, Hashing.crc32()).padToLong();
+  }
+
+  /**
+   * Completion state of a chunk: its position in the results, its part files and the usages collected from it.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class ChunkState {
+
+    private int jobId;
+
+    private int from;
+
+    private int to;
+
+    private Long searchAfter;
+
+    private boolean completed;
+
+    // part file name -> CRC32
+    private Map<String, Long> checksums = Maps.newHashMap();
+
+    private Map<UUID, Long> datasetUsages;
+
+    private Set<License> datasetLicenses;
+
+    public ChunkState(int jobId, int from, int to, Long searchAfter) {
+      this.jobId = jobId;
+      this.from = from;
+      this.to = to;
+      this.searchAfter = searchAfter;
+    }
+
+    /**
+     * Marks the chunk as completed and stores the checksums of its part files and the usages of its result.
+     */
+    public void complete(Result result, List<String> partFiles) throws IOException {
+      checksums.clear();
+      for (String partFile : partFiles) {
+        checksums.put(partFile, checksum(new File(partFile)));
+      }
+      datasetUsages = result.getDatasetUsages();
+      datasetLicenses = result.getDatasetLicenses();
+      completed = true;
+    }
+
+    /**
+     * Clears the completion state of the chunk so it is processed again.
+     */
+    public void reset() {
+      checksums.clear();
+      datasetUsages = null;
+      datasetLicenses = null;
+      completed = false;
+    }
+
+    /**
+     * A chunk can be re-used if it was completed and its part files are intact.
+     */
+    @JsonIgnore
+    public boolean isReusable() {
+      if (!completed || checksums.isEmpty()) {
+        return false;
+      }
+      try {
+        for (Map.Entry<String, Long> partChecksum : checksums.entrySet()) {
+          File partFile = new File(partChecksum.getKey());
+          if (!partFile.exists() || checksum(partFile) != partChecksum.getValue()) {
+            return false;
+          }
+        }
+        return true;
+      } catch (IOException ex) {
+        LOG.warn("Error verifying the part files of chunk {}", jobId, ex);
+        return false;
+      }
+    }
+  }
+}
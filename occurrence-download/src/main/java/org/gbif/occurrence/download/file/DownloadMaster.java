@@ -11,7 +11,10 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.gbif.api.model.occurrence.DownloadFormat;
 import org.gbif.occurrence.download.conf.WorkflowConfiguration;
+import org.gbif.occurrence.download.file.common.GbifIdRangePartitioner;
+import org.gbif.occurrence.download.file.common.SearchQueryProcessor;
 import org.gbif.occurrence.download.file.dwca.DownloadDwcaActor;
+import org.gbif.occurrence.download.file.dwca.TableSuffixes;
 import org.gbif.occurrence.download.file.simplecsv.SimpleCsvDownloadActor;
 import org.gbif.occurrence.download.file.specieslist.SpeciesListDownloadActor;
 import org.gbif.occurrence.download.inject.DownloadWorkflowModule;
@@ -22,8 +25,10 @@ import org.gbif.wrangler.lock.zookeeper.ZooKeeperLockFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import akka.actor.Actor;
@@ -49,6 +54,9 @@ public class DownloadMaster extends UntypedActor {
 
   private static final Logger LOG = LoggerFactory.getLogger(DownloadMaster.class);
   private static final String FINISH_MSG_FMT = "Time elapsed %d minutes and %d seconds";
+  private static final String MANIFEST_EXTENSION = ".manifest.json";
+  // Formats that produce part files and can be resumed from a manifest
+  private static final Set<DownloadFormat> RESUMABLE_FORMATS = EnumSet.of(DownloadFormat.SIMPLE_CSV, DownloadFormat.DWCA);
   private final RestHighLevelClient esClient;
   private final String esIndex;
   private final MasterConfiguration conf;
@@ -59,6 +67,7 @@ public class DownloadMaster extends UntypedActor {
   private List<Result> results = Lists.newArrayList();
   private int calcNrOfWorkers;
   private int nrOfResults;
+  private DownloadManifest manifest;
 
   /**
    * Default constructor.
@@ -89,6 +98,11 @@ public class DownloadMaster extends UntypedActor {
    */
   private void aggregateAndShutdown() {
     aggregator.aggregate(results);
+    // the download is complete, nothing to resume
+    File manifestFile = getManifestFile();
+    if (manifestFile.exists()) {
+      manifestFile.delete();
+    }
     shutdown();
   }
 
@@ -119,17 +133,122 @@ public class DownloadMaster extends UntypedActor {
     if (message instanceof Start) {
       runActors();
     } else if (message instanceof Result) {
+      checkpoint((Result) message);
       results.add((Result) message);
       nrOfResults += 1;
       if (nrOfResults == calcNrOfWorkers) {
         aggregateAndShutdown();
       }
     } else if (message instanceof Exception) {
-      LOG.error("Received an exception from a worker. Aborting.", message);
+      LOG.error("Received an exception from a worker. Aborting, completed chunks are kept to resume the download.", message);
       shutdown();
     }
   }
 
+  /**
+   * Local file where the state of the chunks is kept.
+   */
+  private File getManifestFile() {
+    return new File(jobConfiguration.getSourceDir(), jobConfiguration.getDownloadKey() + MANIFEST_EXTENSION);
+  }
+
+  /**
+   * Part files written by the work of a chunk.
+   */
+  private List<String> getPartFiles(DownloadFileWork work) {
+    if (DownloadFormat.DWCA == jobConfiguration.getDownloadFormat()) {
+      return Lists.newArrayList(work.getJobDataFileName() + TableSuffixes.INTERPRETED_SUFFIX,
+                                work.getJobDataFileName() + TableSuffixes.VERBATIM_SUFFIX,
+                                work.getJobDataFileName() + TableSuffixes.MULTIMEDIA_SUFFIX);
+    }
+    return Lists.newArrayList(work.getJobDataFileName());
+  }
+
+  /**
+   * Records a completed chunk in the manifest.
+   * Errors are not propagated, in the worst case the chunk is repeated if the download is resumed.
+   */
+  private void checkpoint(Result result) {
+    if (manifest != null) {
+      DownloadFileWork work = result.getDownloadFileWork();
+      try {
+        manifest.getChunks().get(work.getJobId()).complete(result, getPartFiles(work));
+        manifest.save(getManifestFile());
+      } catch (Exception ex) {
+        LOG.warn("Error recording the completion of job {} in the manifest", work.getJobId(), ex);
+      }
+    }
+  }
+
+  /**
+   * Deletes and re-creates the temporary directory of the download.
+   */
+  private void cleanDownloadTempDir() {
+    File downloadTempDir = new File(jobConfiguration.getDownloadTempDir());
+    if (downloadTempDir.exists()) {
+      FileUtils.deleteDirectoryRecursively(downloadTempDir);
+    }
+    downloadTempDir.mkdirs();
+  }
+
+  /**
+   * Gets the chunks of a previous execution of the same download from the manifest, or splits the results in new
+   * chunks if there's no previous execution to resume.
+   */
+  private List<DownloadManifest.ChunkState> loadOrCreateChunks(String query, int nrOfRecords, int nrOfWorkers) {
+    DownloadFormat downloadFormat = jobConfiguration.getDownloadFormat();
+    boolean resumable = RESUMABLE_FORMATS.contains(downloadFormat);
+    if (resumable) {
+      DownloadManifest previousManifest = DownloadManifest.load(getManifestFile());
+      if (previousManifest != null && previousManifest.matches(query, nrOfRecords, downloadFormat)
+          && new File(jobConfiguration.getDownloadTempDir()).exists()) {
+        LOG.info("Resuming download {} from manifest {}", jobConfiguration.getDownloadKey(), getManifestFile());
+        manifest = previousManifest;
+        manifest.prepareResume(new File(jobConfiguration.getDownloadTempDir()));
+        try {
+          manifest.save(getManifestFile());
+        } catch (IOException ex) {
+          LOG.warn("Error saving the download manifest, the download won't be resumable", ex);
+          manifest = null;
+        }
+        return previousManifest.getChunks();
+      }
+    }
+
+    cleanDownloadTempDir();
+    List<DownloadManifest.ChunkState> chunks = getChunks(query, nrOfRecords, nrOfWorkers);
+    if (resumable) {
+      manifest = new DownloadManifest(query, nrOfRecords, downloadFormat);
+      manifest.setChunks(chunks);
+      try {
+        manifest.save(getManifestFile());
+      } catch (IOException ex) {
+        LOG.warn("Error saving the download manifest, the download won't be resumable", ex);
+        manifest = null;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Creates the work of a chunk.
+   */
+  private DownloadFileWork createWork(DownloadManifest.ChunkState chunk, Lock lock) {
+    return new DownloadFileWork(chunk.getFrom(),
+                                chunk.getTo(),
+                                chunk.getSearchAfter(),
+                                jobConfiguration.getSourceDir()
+                                + Path.SEPARATOR
+                                + jobConfiguration.getDownloadKey()
+                                + Path.SEPARATOR
+                                + jobConfiguration.getDownloadTableName(),
+                                chunk.getJobId(),
+                                jobConfiguration.getSearchQuery(),
+                                lock,
+                                esClient,
+                                esIndex);
+  }
+
   /**
    * Creates and gets a reference to a Lock.
    */
@@ -157,72 +276,138 @@ public class DownloadMaster extends UntypedActor {
   }
 
   /**
-   * Run the list of jobs. The amount of records is assigned evenly among the worker threads.
-   * If the amount of records is not divisible by the calcNrOfWorkers the remaining records are assigned "evenly" among
-   * the first jobs.
+   * Splits the results in chunks of disjoint gbifId ranges, each chunk is read independently starting after the
+   * exclusive upper key of its range.
+   * The number of records of the last chunks is truncated if the results exceed nrOfRecords.
+   */
+  private List<DownloadManifest.ChunkState> rangeChunks(String query, int nrOfRecords, int nrOfWorkers)
+    throws IOException {
+    List<DownloadManifest.ChunkState> chunks = Lists.newArrayList();
+    int from = 0;
+    for (GbifIdRangePartitioner.GbifIdRange range : GbifIdRangePartitioner.partition(esClient, esIndex, query, nrOfWorkers)) {
+      if (from >= nrOfRecords) {
+        break;
+      }
+      int to = (int) Math.min(from + range.getCount(), nrOfRecords);
+      chunks.add(new DownloadManifest.ChunkState(chunks.size(), from, to, range.getUpperKey()));
+      from = to;
+    }
+    return chunks;
+  }
+
+  /**
+   * Splits the results in chunks of the same size, each chunk resumes the search from the sort key where the previous
+   * one ends.
+   * If the amount of records is not divisible by the nrOfWorkers the remaining records are assigned "evenly" among
+   * the first chunks.
+   */
+  private List<DownloadManifest.ChunkState> offsetChunks(String query, int nrOfRecords, int nrOfWorkers) {
+    // Number of records that will be assigned to each job
+    int sizeOfChunks = Math.max(nrOfRecords / nrOfWorkers, 1);
+
+    // Remaining jobs, that are not assigned to a job yet
+    int remaining = nrOfRecords - (sizeOfChunks * nrOfWorkers);
+
+    // How many of the remaining jobs will be assigned to one job
+    int remainingPerJob = remaining > 0 ? Math.max(remaining / nrOfWorkers, 1) : 0;
+    int[] froms = new int[nrOfWorkers];
+    int[] tos = new int[nrOfWorkers];
+    int to = 0;
+    int additionalJobsCnt = 0;
+    for (int i = 0; i < nrOfWorkers; i++) {
+      int from = i == 0 ? 0 : to;
+      to = from + sizeOfChunks + remainingPerJob;
+      froms[i] = from;
+      tos[i] = to;
+
+      // Calculates the remaining jobs that will be assigned to the new FileJob.
+      additionalJobsCnt += remainingPerJob;
+      if (remainingPerJob != 0 && additionalJobsCnt > remaining) {
+        remainingPerJob = additionalJobsCnt - remaining;
+      } else if (additionalJobsCnt == remaining) {
+        remainingPerJob = 0;
+      }
+    }
+
+    Long[] cursors = getChunkCursors(query, froms);
+    List<DownloadManifest.ChunkState> chunks = Lists.newArrayList();
+    for (int i = 0; i < nrOfWorkers; i++) {
+      chunks.add(new DownloadManifest.ChunkState(i, froms[i], tos[i], cursors[i]));
+    }
+    return chunks;
+  }
+
+  /**
+   * Splits the results in chunks, one per worker.
+   * Disjoint gbifId ranges are used when possible, otherwise the records are assigned evenly by offset.
+   */
+  private List<DownloadManifest.ChunkState> getChunks(String query, int nrOfRecords, int nrOfWorkers) {
+    try {
+      List<DownloadManifest.ChunkState> chunks = rangeChunks(query, nrOfRecords, nrOfWorkers);
+      if (!chunks.isEmpty()) {
+        return chunks;
+      }
+      LOG.warn("No gbifId ranges found, falling back to offsets");
+    } catch (Exception e) {
+      LOG.warn("Error calculating gbifId ranges, falling back to offsets", e);
+    }
+    return offsetChunks(query, nrOfRecords, nrOfWorkers);
+  }
+
+  /**
+   * Calculates the search_after cursors of each chunk.
+   * If the cursors can't be calculated, each chunk falls back to locate its first page using its offset.
+   */
+  private Long[] getChunkCursors(String query, int[] offsets) {
+    try {
+      return SearchQueryProcessor.calculateCursors(esClient, esIndex, query, offsets);
+    } catch (Exception e) {
+      LOG.warn("Error calculating chunk cursors, falling back to offsets", e);
+      return new Long[offsets.length];
+    }
+  }
+
+  /**
+   * Run the list of jobs. The records are split in disjoint chunks that are read independently by each worker thread.
+   * Chunks completed by a previous execution of the same download are not repeated.
    */
   private void runActors() {
     StopWatch stopwatch = new StopWatch();
     stopwatch.start();
     LOG.info("Acquiring Search Index Read Lock");
-    File downloadTempDir = new File(jobConfiguration.getDownloadTempDir());
-    if (downloadTempDir.exists()) {
-      FileUtils.deleteDirectoryRecursively(downloadTempDir);
-    }
-    downloadTempDir.mkdirs();
 
     int recordCount = getSearchCount(jobConfiguration.getSearchQuery()).intValue();
     if (recordCount <= 0) { // no work to do: shutdown the system
+      cleanDownloadTempDir();
       aggregateAndShutdown();
     } else  {
       int nrOfRecords = Math.min(recordCount, conf.maximumNrOfRecords);
       // Calculates the required workers.
-      calcNrOfWorkers =
+      int nrOfWorkers =
         conf.minNrOfRecords >= nrOfRecords ? 1 : Math.min(conf.nrOfWorkers, nrOfRecords / conf.minNrOfRecords);
 
+      List<DownloadManifest.ChunkState> chunks =
+        loadOrCreateChunks(jobConfiguration.getSearchQuery(), nrOfRecords, nrOfWorkers);
+      calcNrOfWorkers = chunks.size();
+
       ActorRef workerRouter =
         getContext().actorOf(new Props(new DownloadActorsFactory(jobConfiguration.getDownloadFormat())).withRouter(new RoundRobinRouter(
           calcNrOfWorkers)), "downloadWorkerRouter");
 
-      // Number of records that will be assigned to each job
-      int sizeOfChunks = Math.max(nrOfRecords / calcNrOfWorkers, 1);
-
-      // Remaining jobs, that are not assigned to a job yet
-      int remaining = nrOfRecords - (sizeOfChunks * calcNrOfWorkers);
-
-      // How many of the remaining jobs will be assigned to one job
-      int remainingPerJob = remaining > 0 ? Math.max(remaining / calcNrOfWorkers, 1) : 0;
-      int to = 0;
-      int additionalJobsCnt = 0;
-      for (int i = 0; i < calcNrOfWorkers; i++) {
-        int from = i == 0 ? 0 : to;
-        to = from + sizeOfChunks + remainingPerJob;
-
-        // Calculates the remaining jobs that will be assigned to the new FileJob.
-        additionalJobsCnt += remainingPerJob;
-        if (remainingPerJob != 0 && additionalJobsCnt > remaining) {
-          remainingPerJob = additionalJobsCnt - remaining;
-        } else if (additionalJobsCnt == remaining) {
-          remainingPerJob = 0;
+      for (DownloadManifest.ChunkState chunk : chunks) {
+        if (manifest != null && chunk.isCompleted()) {
+          LOG.info("Job {} was completed by a previous execution", chunk.getJobId());
+          results.add(new Result(createWork(chunk, null), chunk.getDatasetUsages(), chunk.getDatasetLicenses()));
+          nrOfResults += 1;
+          continue;
         }
         // Awaits for an available thread
         Lock lock = getLock();
-        DownloadFileWork work = new DownloadFileWork(from,
-                                                     to,
-                                                     jobConfiguration.getSourceDir()
-                                                     + Path.SEPARATOR
-                                                     + jobConfiguration.getDownloadKey()
-                                                     + Path.SEPARATOR
-                                                     + jobConfiguration.getDownloadTableName(),
-                                                     i,
-                                                     jobConfiguration.getSearchQuery(),
-                                                     lock,
-                                                     esClient,
-                                                     esIndex);
-
-        LOG.info("Requesting a lock for job {}, detail: {}", i, work.toString());
+        DownloadFileWork work = createWork(chunk, lock);
+
+        LOG.info("Requesting a lock for job {}, detail: {}", chunk.getJobId(), work.toString());
         lock.lock();
-        LOG.info("Lock granted for job {}, detail: {}", i, work.toString());
+        LOG.info("Lock granted for job {}, detail: {}", chunk.getJobId(), work.toString());
         // Adds the Job to the list. The file name is the output file name + the sequence i
         workerRouter.tell(work, getSelf());
       }
@@ -230,6 +415,10 @@ public class DownloadMaster extends UntypedActor {
       stopwatch.stop();
       long timeInSeconds = TimeUnit.MILLISECONDS.toSeconds(stopwatch.getTime());
       LOG.info(String.format(FINISH_MSG_FMT, TimeUnit.SECONDS.toMinutes(timeInSeconds), timeInSeconds % 60));
+
+      if (nrOfResults == calcNrOfWorkers) { // all chunks were completed by a previous execution
+        aggregateAndShutdown();
+      }
     }
   }
 
@@ -4,20 +4,23 @@ import java.net.URI;
 import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
-import java.util.function.Function;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
+import org.gbif.api.model.common.MediaObject;
 import org.gbif.api.model.occurrence.AgentIdentifier;
 import org.gbif.api.model.occurrence.GadmFeature;
 import org.gbif.api.model.occurrence.Occurrence;
 import org.gbif.api.util.ClassificationUtils;
 import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.MediaType;
 import org.gbif.api.vocabulary.OccurrenceIssue;
 import org.gbif.api.vocabulary.Rank;
 import org.gbif.dwc.terms.DcTerm;
@@ -32,13 +35,13 @@ import org.gbif.occurrence.download.hive.DownloadTerms;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
-import static org.gbif.occurrence.common.download.DownloadUtils.DELIMETERS_MATCH_PATTERN;
-
 /**
  * Reads a occurrence record from Elasticsearch and return it in a Map<String,Object>.
+ * Writers of download files use the {@link OccurrenceRow} variants, which fill a reusable row instead.
  */
 public class OccurrenceMapReader {
 
@@ -60,140 +63,192 @@ public class OccurrenceMapReader {
 
   private static final ImmutableSet<Term> INTERPRETED_SOURCE_TERMS = ImmutableSet.copyOf(TermUtils.interpretedSourceTerms());
 
+  private static final ImmutableList<Term> VERBATIM_TERMS = ImmutableList.copyOf(TermUtils.verbatimTerms());
+
+  private static final String VERBATIM_SCIENTIFIC_NAME = verbatimColumn(DwcTerm.scientificName);
+
+  private static final String VERBATIM_SCIENTIFIC_NAME_AUTHORSHIP = verbatimColumn(DwcTerm.scientificNameAuthorship);
 
-  public static Map<String, String> buildInterpretedOccurrenceMap(Occurrence occurrence) {
 
+  public static Map<String, String> buildInterpretedOccurrenceMap(Occurrence occurrence) {
     Map<String,String> interpretedOccurrence = new HashMap<>();
+    populateInterpretedOccurrence(occurrence, interpretedOccurrence::put);
+    return interpretedOccurrence;
+  }
+
+  /**
+   * Fills a row with the interpreted values of an occurrence, it produces the same values than
+   * {@link #buildInterpretedOccurrenceMap(Occurrence)} without creating a Map per record.
+   */
+  public static void buildInterpretedOccurrenceRow(Occurrence occurrence, OccurrenceRow row) {
+    row.clear();
+    populateInterpretedOccurrence(occurrence, row::put);
+  }
+
+  /**
+   * Passes each interpreted value of the occurrence to the put function, values set later replace earlier ones.
+   */
+  private static void populateInterpretedOccurrence(Occurrence occurrence, BiConsumer<String, String> put) {
 
     //Basic record terms
-    interpretedOccurrence.put(GbifTerm.gbifID.simpleName(), getSimpleValue(occurrence.getKey()));
-    interpretedOccurrence.put(DwcTerm.basisOfRecord.simpleName(), getSimpleValue(occurrence.getBasisOfRecord()));
-    interpretedOccurrence.put(DwcTerm.establishmentMeans.simpleName(), getSimpleValue(occurrence.getEstablishmentMeans()));
-    interpretedOccurrence.put(DwcTerm.individualCount.simpleName(), getSimpleValue(occurrence.getIndividualCount()));
-    interpretedOccurrence.put(DwcTerm.lifeStage.simpleName(), getSimpleValue(occurrence.getLifeStage()));
-    interpretedOccurrence.put(DcTerm.references.simpleName(), getSimpleValue(occurrence.getReferences()));
-    interpretedOccurrence.put(DwcTerm.sex.simpleName(), getSimpleValue(occurrence.getSex()));
-    interpretedOccurrence.put(DwcTerm.typeStatus.simpleName(), getSimpleValue(occurrence.getTypeStatus()));
-    interpretedOccurrence.put(GbifTerm.typifiedName.simpleName(), occurrence.getTypifiedName());
-    interpretedOccurrence.put(GbifTerm.lastParsed.simpleName(), getSimpleValue(occurrence.getLastParsed()));
-    interpretedOccurrence.put(GbifTerm.lastInterpreted.simpleName(), getSimpleValue(occurrence.getLastInterpreted()));
-    interpretedOccurrence.put(DwcTerm.occurrenceStatus.simpleName(), getSimpleValue(occurrence.getOccurrenceStatus()));
-
-    Optional.ofNullable(occurrence.getVerbatimField(DcTerm.identifier))
-      .ifPresent(x -> interpretedOccurrence.put(DcTerm.identifier.simpleName(), x));
+    put.accept(GbifTerm.gbifID.simpleName(), getSimpleValue(occurrence.getKey()));
+    put.accept(DwcTerm.basisOfRecord.simpleName(), getSimpleValue(occurrence.getBasisOfRecord()));
+    put.accept(DwcTerm.establishmentMeans.simpleName(), getSimpleValue(occurrence.getEstablishmentMeans()));
+    put.accept(DwcTerm.individualCount.simpleName(), getSimpleValue(occurrence.getIndividualCount()));
+    put.accept(DwcTerm.lifeStage.simpleName(), getSimpleValue(occurrence.getLifeStage()));
+    put.accept(DcTerm.references.simpleName(), getSimpleValue(occurrence.getReferences()));
+    put.accept(DwcTerm.sex.simpleName(), getSimpleValue(occurrence.getSex()));
+    put.accept(DwcTerm.typeStatus.simpleName(), getSimpleValue(occurrence.getTypeStatus()));
+    put.accept(GbifTerm.typifiedName.simpleName(), occurrence.getTypifiedName());
+    put.accept(GbifTerm.lastParsed.simpleName(), getSimpleValue(occurrence.getLastParsed()));
+    put.accept(GbifTerm.lastInterpreted.simpleName(), getSimpleValue(occurrence.getLastInterpreted()));
+    put.accept(DwcTerm.occurrenceStatus.simpleName(), getSimpleValue(occurrence.getOccurrenceStatus()));
+
+    String identifier = occurrence.getVerbatimField(DcTerm.identifier);
+    if (identifier != null) {
+      put.accept(DcTerm.identifier.simpleName(), identifier);
+    }
 
     //Dataset Metadata
-    interpretedOccurrence.put(GbifInternalTerm.crawlId.simpleName(), getSimpleValue(occurrence.getCrawlId()));
-    interpretedOccurrence.put(GbifTerm.datasetKey.simpleName(), getSimpleValue(occurrence.getDatasetKey()));
-    interpretedOccurrence.put(GbifTerm.publishingCountry.simpleName(), getCountryCode(occurrence.getPublishingCountry()));
-    interpretedOccurrence.put(GbifInternalTerm.installationKey.simpleName(), getSimpleValue(occurrence.getInstallationKey()));
-    interpretedOccurrence.put(DcTerm.license.simpleName(), getSimpleValue(occurrence.getLicense()));
-    interpretedOccurrence.put(GbifTerm.protocol.simpleName(), getSimpleValue(occurrence.getProtocol()));
-    interpretedOccurrence.put(GbifInternalTerm.networkKey.simpleName(), joinUUIDs(occurrence.getNetworkKeys()));
-    interpretedOccurrence.put(GbifInternalTerm.publishingOrgKey.simpleName(), getSimpleValue(occurrence.getPublishingOrgKey()));
-    interpretedOccurrence.put(GbifTerm.lastCrawled.simpleName(), getSimpleValue(occurrence.getLastCrawled()));
+    put.accept(GbifInternalTerm.crawlId.simpleName(), getSimpleValue(occurrence.getCrawlId()));
+    put.accept(GbifTerm.datasetKey.simpleName(), getSimpleValue(occurrence.getDatasetKey()));
+    put.accept(GbifTerm.publishingCountry.simpleName(), getCountryCode(occurrence.getPublishingCountry()));
+    put.accept(GbifInternalTerm.installationKey.simpleName(), getSimpleValue(occurrence.getInstallationKey()));
+    put.accept(DcTerm.license.simpleName(), getSimpleValue(occurrence.getLicense()));
+    put.accept(GbifTerm.protocol.simpleName(), getSimpleValue(occurrence.getProtocol()));
+    put.accept(GbifInternalTerm.networkKey.simpleName(), joinUUIDs(occurrence.getNetworkKeys()));
+    put.accept(GbifInternalTerm.publishingOrgKey.simpleName(), getSimpleValue(occurrence.getPublishingOrgKey()));
+    put.accept(GbifTerm.lastCrawled.simpleName(), getSimpleValue(occurrence.getLastCrawled()));
 
     //Temporal fields
-    interpretedOccurrence.put(DwcTerm.dateIdentified.simpleName(), getLocalDateValue(occurrence.getDateIdentified()));
-    interpretedOccurrence.put(DcTerm.modified.simpleName(),getSimpleValue(occurrence.getModified()));
-    interpretedOccurrence.put(DwcTerm.day.simpleName(), getSimpleValue(occurrence.getDay()));
-    interpretedOccurrence.put(DwcTerm.month.simpleName(), getSimpleValue(occurrence.getMonth()));
-    interpretedOccurrence.put(DwcTerm.year.simpleName(), getSimpleValue(occurrence.getYear()));
-    interpretedOccurrence.put(DwcTerm.eventDate.simpleName(), getLocalDateValue(occurrence.getEventDate()));
+    put.accept(DwcTerm.dateIdentified.simpleName(), getLocalDateValue(occurrence.getDateIdentified()));
+    put.accept(DcTerm.modified.simpleName(),getSimpleValue(occurrence.getModified()));
+    put.accept(DwcTerm.day.simpleName(), getSimpleValue(occurrence.getDay()));
+    put.accept(DwcTerm.month.simpleName(), getSimpleValue(occurrence.getMonth()));
+    put.accept(DwcTerm.year.simpleName(), getSimpleValue(occurrence.getYear()));
+    put.accept(DwcTerm.eventDate.simpleName(), getLocalDateValue(occurrence.getEventDate()));
 
     // taxonomy terms
-    interpretedOccurrence.put(GbifTerm.taxonKey.simpleName(), getSimpleValue(occurrence.getTaxonKey()));
-    interpretedOccurrence.put(GbifTerm.acceptedTaxonKey.simpleName(), getSimpleValue(occurrence.getAcceptedTaxonKey()));
-    interpretedOccurrence.put(DwcTerm.scientificName.simpleName(), occurrence.getScientificName());
-    interpretedOccurrence.put(GbifTerm.acceptedScientificName.simpleName(), occurrence.getAcceptedScientificName());
-    interpretedOccurrence.put(GbifTerm.verbatimScientificName.simpleName(), occurrence.getVerbatimScientificName());
-    interpretedOccurrence.put(GbifTerm.genericName.simpleName(), occurrence.getGenericName());
-    interpretedOccurrence.put(GbifTerm.subgenusKey.simpleName(), getSimpleValue(occurrence.getSubgenusKey()));
-    interpretedOccurrence.put(DwcTerm.specificEpithet.simpleName(), occurrence.getSpecificEpithet());
-    interpretedOccurrence.put(DwcTerm.infraspecificEpithet.simpleName(), occurrence.getInfraspecificEpithet());
-    interpretedOccurrence.put(DwcTerm.taxonRank.simpleName(), getSimpleValue(occurrence.getTaxonRank()));
-    interpretedOccurrence.put(DwcTerm.taxonomicStatus.simpleName(), getSimpleValue(occurrence.getTaxonomicStatus()));
-    interpretedOccurrence.put(GbifTerm.genericName.simpleName(), getSimpleValue(occurrence.getGenericName()));
-    Rank.DWC_RANKS.forEach(rank -> {
-                              Optional.ofNullable(ClassificationUtils.getHigherRankKey(occurrence, rank))
-                                .ifPresent(rankKey -> interpretedOccurrence.put(rank2KeyTerm.get(rank).simpleName(), rankKey.toString()));
-                              Optional.ofNullable(ClassificationUtils.getHigherRank(occurrence, rank))
-                                .ifPresent(rankClassification -> interpretedOccurrence.put(rank2Term.get(rank).simpleName(), rankClassification));
-                           });
+    put.accept(GbifTerm.taxonKey.simpleName(), getSimpleValue(occurrence.getTaxonKey()));
+    put.accept(GbifTerm.acceptedTaxonKey.simpleName(), getSimpleValue(occurrence.getAcceptedTaxonKey()));
+    put.accept(DwcTerm.scientificName.simpleName(), occurrence.getScientificName());
+    put.accept(GbifTerm.acceptedScientificName.simpleName(), occurrence.getAcceptedScientificName());
+    put.accept(GbifTerm.verbatimScientificName.simpleName(), occurrence.getVerbatimScientificName());
+    put.accept(GbifTerm.genericName.simpleName(), occurrence.getGenericName());
+    put.accept(GbifTerm.subgenusKey.simpleName(), getSimpleValue(occurrence.getSubgenusKey()));
+    put.accept(DwcTerm.specificEpithet.simpleName(), occurrence.getSpecificEpithet());
+    put.accept(DwcTerm.infraspecificEpithet.simpleName(), occurrence.getInfraspecificEpithet());
+    put.accept(DwcTerm.taxonRank.simpleName(), getSimpleValue(occurrence.getTaxonRank()));
+    put.accept(DwcTerm.taxonomicStatus.simpleName(), getSimpleValue(occurrence.getTaxonomicStatus()));
+    put.accept(GbifTerm.genericName.simpleName(), getSimpleValue(occurrence.getGenericName()));
+    for (Rank rank : Rank.DWC_RANKS) {
+      Integer rankKey = ClassificationUtils.getHigherRankKey(occurrence, rank);
+      if (rankKey != null) {
+        put.accept(rank2KeyTerm.get(rank).simpleName(), rankKey.toString());
+      }
+      String rankClassification = ClassificationUtils.getHigherRank(occurrence, rank);
+      if (rankClassification != null) {
+        put.accept(rank2Term.get(rank).simpleName(), rankClassification);
+      }
+    }
 
     //location fields
-    interpretedOccurrence.put(DwcTerm.countryCode.simpleName(), getCountryCode(occurrence.getCountry()));
-    interpretedOccurrence.put(DwcTerm.continent.simpleName(), getSimpleValue(occurrence.getContinent()));
-    interpretedOccurrence.put(DwcTerm.decimalLatitude.simpleName(), getSimpleValue(occurrence.getDecimalLatitude()));
-    interpretedOccurrence.put(DwcTerm.decimalLongitude.simpleName(), getSimpleValue(occurrence.getDecimalLongitude()));
-    interpretedOccurrence.put(DwcTerm.coordinatePrecision.simpleName(), getSimpleValue(occurrence.getCoordinatePrecision()));
-    interpretedOccurrence.put(DwcTerm.coordinateUncertaintyInMeters.simpleName(), getSimpleValue(occurrence.getCoordinateUncertaintyInMeters()));
-    interpretedOccurrence.put(GbifTerm.depth.simpleName(), getSimpleValue(occurrence.getDepth()));
-    interpretedOccurrence.put(GbifTerm.depthAccuracy.simpleName(), getSimpleValue(occurrence.getDepthAccuracy()));
-    interpretedOccurrence.put(GbifTerm.elevation.simpleName(), getSimpleValue(occurrence.getElevation()));
-    interpretedOccurrence.put(GbifTerm.elevationAccuracy.simpleName(), getSimpleValue(occurrence.getElevationAccuracy()));
-    interpretedOccurrence.put(DwcTerm.stateProvince.simpleName(), occurrence.getStateProvince());
-    interpretedOccurrence.put(DwcTerm.waterBody.simpleName(), occurrence.getWaterBody());
-    interpretedOccurrence.put(GbifTerm.hasGeospatialIssues.simpleName(), Boolean.toString(occurrence.hasSpatialIssue()));
-    interpretedOccurrence.put(GbifTerm.hasCoordinate.simpleName(), Boolean.toString(occurrence.getDecimalLatitude() != null && occurrence.getDecimalLongitude() != null));
-    interpretedOccurrence.put(GbifTerm.coordinateAccuracy.simpleName(), getSimpleValue(occurrence.getCoordinateAccuracy()));
-    getRepatriated(occurrence).ifPresent(repatriated -> interpretedOccurrence.put(GbifTerm.repatriated.simpleName(), repatriated));
-    interpretedOccurrence.put(DwcTerm.geodeticDatum.simpleName(), occurrence.getGeodeticDatum());
-    putGadmFeature(interpretedOccurrence, GadmTerm.level0Name, GadmTerm.level0Gid, occurrence.getGadm().getLevel0());
-    putGadmFeature(interpretedOccurrence, GadmTerm.level1Name, GadmTerm.level1Gid, occurrence.getGadm().getLevel1());
-    putGadmFeature(interpretedOccurrence, GadmTerm.level2Name, GadmTerm.level2Gid, occurrence.getGadm().getLevel2());
-    putGadmFeature(interpretedOccurrence, GadmTerm.level3Name, GadmTerm.level3Gid, occurrence.getGadm().getLevel3());
-
-    extractOccurrenceIssues(occurrence)
-      .ifPresent(issues -> interpretedOccurrence.put(GbifTerm.issue.simpleName(), issues));
-    extractMediaTypes(occurrence)
-      .ifPresent(mediaTypes -> interpretedOccurrence.put(GbifTerm.mediaType.simpleName(), mediaTypes));
-    extractAgentIds(occurrence.getRecordedByIds())
-      .ifPresent(uids -> interpretedOccurrence.put(GbifTerm.recordedByID.simpleName(), uids));
-    extractAgentIds(occurrence.getIdentifiedByIds())
-      .ifPresent(uids -> interpretedOccurrence.put(GbifTerm.identifiedByID.simpleName(), uids));
+    put.accept(DwcTerm.countryCode.simpleName(), getCountryCode(occurrence.getCountry()));
+    put.accept(DwcTerm.continent.simpleName(), getSimpleValue(occurrence.getContinent()));
+    put.accept(DwcTerm.decimalLatitude.simpleName(), getSimpleValue(occurrence.getDecimalLatitude()));
+    put.accept(DwcTerm.decimalLongitude.simpleName(), getSimpleValue(occurrence.getDecimalLongitude()));
+    put.accept(DwcTerm.coordinatePrecision.simpleName(), getSimpleValue(occurrence.getCoordinatePrecision()));
+    put.accept(DwcTerm.coordinateUncertaintyInMeters.simpleName(), getSimpleValue(occurrence.getCoordinateUncertaintyInMeters()));
+    put.accept(GbifTerm.depth.simpleName(), getSimpleValue(occurrence.getDepth()));
+    put.accept(GbifTerm.depthAccuracy.simpleName(), getSimpleValue(occurrence.getDepthAccuracy()));
+    put.accept(GbifTerm.elevation.simpleName(), getSimpleValue(occurrence.getElevation()));
+    put.accept(GbifTerm.elevationAccuracy.simpleName(), getSimpleValue(occurrence.getElevationAccuracy()));
+    put.accept(DwcTerm.stateProvince.simpleName(), occurrence.getStateProvince());
+    put.accept(DwcTerm.waterBody.simpleName(), occurrence.getWaterBody());
+    put.accept(GbifTerm.hasGeospatialIssues.simpleName(), Boolean.toString(occurrence.hasSpatialIssue()));
+    put.accept(GbifTerm.hasCoordinate.simpleName(), Boolean.toString(occurrence.getDecimalLatitude() != null && occurrence.getDecimalLongitude() != null));
+    put.accept(GbifTerm.coordinateAccuracy.simpleName(), getSimpleValue(occurrence.getCoordinateAccuracy()));
+    if (occurrence.getPublishingCountry() != null && occurrence.getCountry() != null) {
+      put.accept(GbifTerm.repatriated.simpleName(), Boolean.toString(occurrence.getCountry() != occurrence.getPublishingCountry()));
+    }
+    put.accept(DwcTerm.geodeticDatum.simpleName(), occurrence.getGeodeticDatum());
+    putGadmFeature(put, GadmTerm.level0Name, GadmTerm.level0Gid, occurrence.getGadm().getLevel0());
+    putGadmFeature(put, GadmTerm.level1Name, GadmTerm.level1Gid, occurrence.getGadm().getLevel1());
+    putGadmFeature(put, GadmTerm.level2Name, GadmTerm.level2Gid, occurrence.getGadm().getLevel2());
+    putGadmFeature(put, GadmTerm.level3Name, GadmTerm.level3Gid, occurrence.getGadm().getLevel3());
+
+    if (occurrence.getIssues() != null) {
+      put.accept(GbifTerm.issue.simpleName(), extractOccurrenceIssues(occurrence.getIssues()));
+    }
+    if (occurrence.getMedia() != null) {
+      put.accept(GbifTerm.mediaType.simpleName(), extractMediaTypes(occurrence.getMedia()));
+    }
+    if (occurrence.getRecordedByIds() != null) {
+      put.accept(GbifTerm.recordedByID.simpleName(), extractAgentIds(occurrence.getRecordedByIds()));
+    }
+    if (occurrence.getIdentifiedByIds() != null) {
+      put.accept(GbifTerm.identifiedByID.simpleName(), extractAgentIds(occurrence.getIdentifiedByIds()));
+    }
 
     // Sampling
-    interpretedOccurrence.put(DwcTerm.sampleSizeUnit.simpleName(), occurrence.getSampleSizeUnit());
-    interpretedOccurrence.put(DwcTerm.sampleSizeValue.simpleName(), getSimpleValue(occurrence.getSampleSizeValue()));
-    interpretedOccurrence.put(DwcTerm.organismQuantity.simpleName(), getSimpleValue(occurrence.getOrganismQuantity()));
-    interpretedOccurrence.put(DwcTerm.organismQuantityType.simpleName(), occurrence.getOrganismQuantityType());
-    interpretedOccurrence.put(GbifTerm.relativeOrganismQuantity.simpleName(), getSimpleValue(occurrence.getRelativeOrganismQuantity()));
-
-    occurrence.getVerbatimFields().forEach( (term, value) -> {
-      if (!INTERPRETED_SOURCE_TERMS.contains(term)) {
-       interpretedOccurrence.put(term.simpleName(), value);
+    put.accept(DwcTerm.sampleSizeUnit.simpleName(), occurrence.getSampleSizeUnit());
+    put.accept(DwcTerm.sampleSizeValue.simpleName(), getSimpleValue(occurrence.getSampleSizeValue()));
+    put.accept(DwcTerm.organismQuantity.simpleName(), getSimpleValue(occurrence.getOrganismQuantity()));
+    put.accept(DwcTerm.organismQuantityType.simpleName(), occurrence.getOrganismQuantityType());
+    put.accept(GbifTerm.relativeOrganismQuantity.simpleName(), getSimpleValue(occurrence.getRelativeOrganismQuantity()));
+
+    for (Map.Entry<Term, String> verbatimField : occurrence.getVerbatimFields().entrySet()) {
+      if (!INTERPRETED_SOURCE_TERMS.contains(verbatimField.getKey())) {
+        put.accept(verbatimField.getKey().simpleName(), verbatimField.getValue());
       }
-    });
-
-    return interpretedOccurrence;
+    }
   }
 
   /**
    * Populate two verbatim fields for CSV downloads
    */
   public static void populateVerbatimCsvFields(Map<String, String> map, Occurrence occurrence) {
-    Function<Term, String> keyFn =
-      t -> "verbatim" + Character.toUpperCase(t.simpleName().charAt(0)) + t.simpleName().substring(1);
-
-    Map<Term, String> verbatimFields = occurrence.getVerbatimFields();
+    populateVerbatimCsvFields(occurrence, map::put);
+  }
 
-    Optional.ofNullable(verbatimFields.get(DwcTerm.scientificName))
-      .ifPresent(x -> map.put(keyFn.apply(DwcTerm.scientificName), x));
-    Optional.ofNullable(verbatimFields.get(DwcTerm.scientificNameAuthorship))
-      .ifPresent(x -> map.put(keyFn.apply(DwcTerm.scientificNameAuthorship), x));
+  /**
+   * Populate two verbatim fields of a CSV download row.
+   */
+  public static void populateVerbatimCsvFields(OccurrenceRow row, Occurrence occurrence) {
+    populateVerbatimCsvFields(occurrence, row::putColumn);
   }
 
+  private static void populateVerbatimCsvFields(Occurrence occurrence, BiConsumer<String, String> put) {
+    String scientificName = occurrence.getVerbatimField(DwcTerm.scientificName);
+    if (scientificName != null) {
+      put.accept(VERBATIM_SCIENTIFIC_NAME, scientificName);
+    }
+    String scientificNameAuthorship = occurrence.getVerbatimField(DwcTerm.scientificNameAuthorship);
+    if (scientificNameAuthorship != null) {
+      put.accept(VERBATIM_SCIENTIFIC_NAME_AUTHORSHIP, scientificNameAuthorship);
+    }
+  }
 
   /**
    * Builds Map that contains a lists of terms.
    */
   public static Map<String, String> buildInterpretedOccurrenceMap(Occurrence occurrence, Collection<Pair<DownloadTerms.Group, Term>> terms) {
-    return  buildInterpretedOccurrenceMap(occurrence).entrySet().stream()
-              .filter(entry -> terms.stream().anyMatch(term -> term.getRight().simpleName().equals(entry.getKey())))
-              .collect(HashMap::new, (m,v) -> m.put(v.getKey(), v.getValue()), HashMap::putAll);
+    Set<String> names = terms.stream().map(term -> term.getRight().simpleName()).collect(Collectors.toSet());
+    Map<String,String> interpretedOccurrence = new HashMap<>();
+    populateInterpretedOccurrence(occurrence, (name, value) -> {
+      if (names.contains(name)) {
+        interpretedOccurrence.put(name, value);
+      }
+    });
+    return interpretedOccurrence;
   }
 
+  /**
+   * Name of the column of a verbatim value in CSV downloads.
+   */
+  private static String verbatimColumn(Term term) {
+    return "verbatim" + Character.toUpperCase(term.simpleName().charAt(0)) + term.simpleName().substring(1);
+  }
 
   /**
    * Joins a collection of UUIDs into String.
@@ -244,56 +299,50 @@ public class OccurrenceMapReader {
     return null;
   }
 
-  /**
-   * Validates if the occurrence record it's a repatriated record.
-   */
-  private static Optional<String> getRepatriated(Occurrence occurrence) {
-    Country publishingCountry = occurrence.getPublishingCountry();
-    Country countryCode = occurrence.getCountry();
-
-    if (publishingCountry != null && countryCode != null) {
-      return Optional.of(Boolean.toString(countryCode != publishingCountry));
-    }
-    return Optional.empty();
-  }
-
   /**
    * If present, populates the GADM gid and name.
    */
-  private static void putGadmFeature(Map<String,String> interpretedOccurrence, GadmTerm nameTerm, GadmTerm gidTerm, GadmFeature gadmFeature) {
-    Optional.ofNullable(gadmFeature).ifPresent(gf -> {
-      interpretedOccurrence.put(nameTerm.simpleName(), gf.getName());
-      interpretedOccurrence.put(gidTerm.simpleName(), gf.getGid());
-    });
+  private static void putGadmFeature(BiConsumer<String, String> put, GadmTerm nameTerm, GadmTerm gidTerm, GadmFeature gadmFeature) {
+    if (gadmFeature != null) {
+      put.accept(nameTerm.simpleName(), gadmFeature.getName());
+      put.accept(gidTerm.simpleName(), gadmFeature.getGid());
+    }
   }
 
   /**
    * Extracts the agentIdentifier types from the record.
    */
-  private static Optional<String> extractAgentIds(List<AgentIdentifier> agents) {
-    return Optional.ofNullable(agents)
-      .map(a -> a.stream().map(AgentIdentifier::getValue)
-        .collect(Collectors.joining(";")));
+  private static String extractAgentIds(List<AgentIdentifier> agents) {
+    StringJoiner joiner = new StringJoiner(";");
+    for (AgentIdentifier agent : agents) {
+      joiner.add(agent.getValue());
+    }
+    return joiner.toString();
   }
 
   /**
    * Extracts the media types from the record.
    */
-  private static Optional<String> extractMediaTypes(Occurrence occurrence) {
-    return  Optional.ofNullable(occurrence.getMedia())
-              .map(media -> media.stream().filter(mediaObject -> Objects.nonNull(mediaObject.getType()))
-                              .map(mediaObject -> mediaObject.getType().name())
-                              .distinct()
-                              .collect(Collectors.joining(";")));
+  private static String extractMediaTypes(List<MediaObject> media) {
+    StringJoiner joiner = new StringJoiner(";");
+    EnumSet<MediaType> mediaTypes = EnumSet.noneOf(MediaType.class);
+    for (MediaObject mediaObject : media) {
+      if (mediaObject.getType() != null && mediaTypes.add(mediaObject.getType())) {
+        joiner.add(mediaObject.getType().name());
+      }
+    }
+    return joiner.toString();
   }
 
   /**
    * Extracts the spatial issues from the record.
    */
-  private static Optional<String> extractOccurrenceIssues(Occurrence occurrence) {
-    return  Optional.ofNullable(occurrence.getIssues())
-                .map(issues -> issues.stream().map(OccurrenceIssue::name)
-                                 .collect(Collectors.joining(";")));
+  private static String extractOccurrenceIssues(Collection<OccurrenceIssue> issues) {
+    StringJoiner joiner = new StringJoiner(";");
+    for (OccurrenceIssue issue : issues) {
+      joiner.add(issue.name());
+    }
+    return joiner.toString();
   }
 
 
@@ -306,12 +355,22 @@ public class OccurrenceMapReader {
     return verbatimMap;
   }
 
+  /**
+   * Fills a row with the verbatim data, it produces the same values than {@link #buildVerbatimOccurrenceMap(Occurrence)}.
+   */
+  public static void buildVerbatimOccurrenceRow(Occurrence occurrence, OccurrenceRow row) {
+    row.clear();
+    for (Term term : VERBATIM_TERMS) {
+      row.put(term.simpleName(), cleanString(occurrence.getVerbatimField(term)));
+    }
+  }
+
 
   /**
    * Removes all delimiters in a string.
    */
   private static String cleanString(String value) {
-    return Optional.ofNullable(value).map(v -> DELIMETERS_MATCH_PATTERN.matcher(v).replaceAll(" ")).orElse(value);
+    return DownloadUtils.cleanDelimiters(value);
   }
 
   /**
@@ -0,0 +1,134 @@
+package org.gbif.occurrence.download.file;
+
+import org.gbif.dwc.terms.Term;
+import org.gbif.occurrence.download.hive.DownloadTerms;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Reusable row of a download file, the values are stored in the order of the columns of the file.
+ * The position of each column is calculated once, so rows can be filled without building a Map per record.
+ * Writing the values of a row produces the same output as writing a Map<String,String>, containing the same values,
+ * with the column names of this row: if a name is used by several columns, all of them receive its value.
+ * Instances are not thread safe, each writer must use its own row.
+ */
+public class OccurrenceRow {
+
+  private static final int[] NO_POSITIONS = new int[0];
+
+  private final String[] columns;
+
+  // Positions of the columns filled from the interpreted occurrence
+  private final Map<String, int[]> interpretedPositions;
+
+  // Positions of all the columns
+  private final Map<String, int[]> columnPositions;
+
+  private final String[] values;
+
+  /**
+   * Creates a row with the column names, all of them are filled from the interpreted occurrence.
+   */
+  public OccurrenceRow(String[] columns) {
+    this(columns, null);
+  }
+
+  /**
+   * Creates a row with the columns of a list of download terms.
+   * Only the columns named after a term of the list are filled from the interpreted occurrence, the same filter
+   * applied by {@link OccurrenceMapReader#buildInterpretedOccurrenceMap(org.gbif.api.model.occurrence.Occurrence,
+   * Collection)}.
+   */
+  public OccurrenceRow(Collection<Pair<DownloadTerms.Group, Term>> terms) {
+    this(terms.stream().map(DownloadTerms::simpleName).toArray(String[]::new), termNames(terms));
+  }
+
+  private OccurrenceRow(String[] columns, Set<String> interpretedNames) {
+    this.columns = columns;
+    columnPositions = positions(columns, null);
+    interpretedPositions = interpretedNames == null ? columnPositions : positions(columns, interpretedNames);
+    values = new String[columns.length];
+  }
+
+  /**
+   * Positions of each column name, optionally only for the names in the filter.
+   */
+  private static Map<String, int[]> positions(String[] columns, Set<String> filter) {
+    Map<String, int[]> positions = new HashMap<>();
+    for (int i = 0; i < columns.length; i++) {
+      if (filter == null || filter.contains(columns[i])) {
+        int[] current = positions.getOrDefault(columns[i], NO_POSITIONS);
+        int[] columnPositions = Arrays.copyOf(current, current.length + 1);
+        columnPositions[current.length] = i;
+        positions.put(columns[i], columnPositions);
+      }
+    }
+    return positions;
+  }
+
+  private static Set<String> termNames(Collection<Pair<DownloadTerms.Group, Term>> terms) {
+    Set<String> names = new HashSet<>();
+    terms.forEach(term -> names.add(term.getRight().simpleName()));
+    return names;
+  }
+
+  /**
+   * Removes the values of the previous record.
+   */
+  public void clear() {
+    Arrays.fill(values, null);
+  }
+
+  /**
+   * Sets an interpreted value, it is ignored if this row doesn't have a column for it.
+   */
+  public void put(String name, String value) {
+    int[] positions = interpretedPositions.get(name);
+    if (positions != null) {
+      for (int position : positions) {
+        values[position] = value;
+      }
+    }
+  }
+
+  /**
+   * Sets the value of a column regardless of its source, it is ignored if this row doesn't have the column.
+   */
+  public void putColumn(String column, String value) {
+    int[] positions = columnPositions.get(column);
+    if (positions != null) {
+      for (int position : positions) {
+        values[position] = value;
+      }
+    }
+  }
+
+  /**
+   * Value of a column, or null if it is empty or this row doesn't have the column.
+   */
+  public String get(String column) {
+    int[] positions = columnPositions.get(column);
+    return positions != null ? values[positions[0]] : null;
+  }
+
+  /**
+   * @return the column names
+   */
+  public String[] getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the values of the current record, in the column order. The array is re-used by the next record.
+   */
+  public String[] getValues() {
+    return values;
+  }
+}
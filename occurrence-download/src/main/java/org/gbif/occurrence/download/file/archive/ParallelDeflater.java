@@ -0,0 +1,161 @@
+package org.gbif.occurrence.download.file.archive;
+
+import org.gbif.hadoop.compress.d2.D2CombineInputStream;
+import org.gbif.hadoop.compress.d2.D2Utils;
+import org.gbif.hadoop.compress.d2.zip.ModalZipOutputStream;
+import org.gbif.hadoop.compress.d2.zip.ZipEntry;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deflates files into a zip entry using several threads, in the style of pigz.
+ * The input is split in blocks that are compressed independently, in the hadoop-compress D2 format, by a pool of
+ * threads; the compressed blocks are then stitched together by {@link D2CombineInputStream}, which also combines the
+ * CRC32 of the blocks, and written as a single pre-deflated entry readable by any unzip tool.
+ */
+public class ParallelDeflater {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelDeflater.class);
+
+  // Uncompressed size of each block
+  public static final int DEFAULT_BLOCK_SIZE = 16 * 1024 * 1024;
+
+  private final int parallelism;
+
+  private final int blockSize;
+
+  /**
+   * Creates a deflater that uses a thread per available processor.
+   */
+  public ParallelDeflater() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE);
+  }
+
+  public ParallelDeflater(int parallelism, int blockSize) {
+    this.parallelism = Math.max(1, parallelism);
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Writes the concatenation of the input files as a single zip entry.
+   *
+   * @param zos       zip stream
+   * @param entryName name of the entry in the zip file
+   * @param inputs    files to compress, in order
+   * @param workDir   directory where the compressed blocks are temporarily stored
+   */
+  public void putEntry(ModalZipOutputStream zos, String entryName, List<File> inputs, File workDir)
+    throws IOException {
+    File blocksDir = Files.createTempDirectory(workDir.toPath(), ".deflate").toFile();
+    try {
+      List<File> blocks = deflateBlocks(inputs, blocksDir);
+      // the streams of the blocks are closed even if opening a later one or starting the entry fails
+      Closer closer = Closer.create();
+      try {
+        List<InputStream> parts = new ArrayList<>(blocks.size());
+        for (File block : blocks) {
+          parts.add(closer.register(new FileInputStream(block)));
+        }
+        ZipEntry ze = new ZipEntry(entryName);
+        zos.putNextEntry(ze, ModalZipOutputStream.MODE.PRE_DEFLATED);
+        try (D2CombineInputStream in = new D2CombineInputStream(parts)) {
+          ByteStreams.copy(in, zos);
+          in.close(); // required to get the sizes
+          ze.setSize(in.getUncompressedLength()); // important to set the sizes and CRC
+          ze.setCompressedSize(in.getCompressedLength());
+          ze.setCrc(in.getCrc32());
+        } finally {
+          zos.closeEntry();
+        }
+      } catch (Throwable t) {
+        throw closer.rethrow(t);
+      } finally {
+        closer.close();
+      }
+    } finally {
+      FileUtils.deleteDirectoryRecursively(blocksDir);
+    }
+  }
+
+  /**
+   * Compresses the blocks of the input files in parallel, each block is stored in a file of blocksDir.
+   *
+   * @return the compressed blocks in the order of the input
+   */
+  private List<File> deflateBlocks(List<File> inputs, File blocksDir) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Future<File>> blocks = new ArrayList<>();
+      for (File input : inputs) {
+        long length = input.length();
+        for (long offset = 0; offset < length; offset += blockSize) {
+          File block = new File(blocksDir, blocks.size() + D2Utils.FILE_EXTENSION);
+          long start = offset;
+          long count = Math.min(blockSize, length - offset);
+          blocks.add(executor.submit(() -> deflateBlock(input, start, count, block)));
+        }
+      }
+      if (blocks.isEmpty()) {
+        // an empty entry still needs a valid deflate stream
+        File block = new File(blocksDir, 0 + D2Utils.FILE_EXTENSION);
+        try (OutputStream out = new FileOutputStream(block)) {
+          D2Utils.compress(new ByteArrayInputStream(new byte[0]), out);
+        }
+        return Collections.singletonList(block);
+      }
+      LOG.info("Deflating {} blocks using {} threads", blocks.size(), parallelism);
+
+      List<File> deflated = new ArrayList<>(blocks.size());
+      for (Future<File> block : blocks) {
+        deflated.add(block.get());
+      }
+      return deflated;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted deflating blocks");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Compresses count bytes of the input, starting at offset, into the block file.
+   */
+  private static File deflateBlock(File input, long offset, long count, File block) throws IOException {
+    try (FileChannel channel = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+         OutputStream out = new BufferedOutputStream(new FileOutputStream(block))) {
+      channel.position(offset);
+      D2Utils.compress(ByteStreams.limit(Channels.newInputStream(channel), count), out);
+    }
+    return block;
+  }
+}
@@ -0,0 +1,124 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.gbif.occurrence.download.file.DownloadFileWork;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import akka.actor.ActorContext;
+import akka.actor.ActorRef;
+import akka.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retries the processing of a chunk of a small download, waiting an exponentially growing, bounded, time between
+ * attempts.
+ * Transient errors, like Elasticsearch timeouts, are then handled by repeating a single chunk instead of the whole
+ * download. The retries are scheduled as messages to the actor itself, so the actor doesn't block its dispatcher
+ * thread while it waits.
+ */
+public final class ChunkRetryPolicy {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ChunkRetryPolicy.class);
+
+  // Maximum number of times a chunk is processed
+  public static final int MAX_ATTEMPTS = 3;
+
+  private static final long INITIAL_BACKOFF_MS = 1000L;
+
+  private static final long MAX_BACKOFF_MS = 30000L;
+
+  /**
+   * Hidden constructor.
+   */
+  private ChunkRetryPolicy() {
+    //empty constructor
+  }
+
+  /**
+   * Executes an attempt of the chunkProcessor and sends its result to the master.
+   * If it fails and the attempts are not exhausted, the next attempt is sent to the actor after a backoff, otherwise the
+   * error is sent to the master. The lock of the work is released once there are no more attempts.
+   * The chunkProcessor must be idempotent, e.g.: truncating its part files when they are opened.
+   *
+   * @param context        context of the actor processing the chunk
+   * @param attempt        attempt to execute
+   * @param chunkProcessor processes the chunk and produces its result
+   * @throws Exception the error of the last attempt
+   */
+  public static void execute(ActorContext context, Attempt attempt, Callable<?> chunkProcessor) throws Exception {
+    DownloadFileWork work = attempt.getWork();
+    boolean retrying = false;
+    try {
+      attempt.getMaster().tell(chunkProcessor.call(), context.self());
+    } catch (Exception ex) {
+      if (!attempt.canRetry()) {
+        LOG.error("Chunk failed after {} attempts, job detail: {}", attempt.getNumber(), work, ex);
+        attempt.getMaster().tell(ex, context.self()); // inform our master
+        throw ex;
+      }
+      long backoff = backoff(attempt.getNumber());
+      LOG.warn("Chunk failed in attempt {}, retrying in {} ms, job detail: {}", attempt.getNumber(), backoff, work, ex);
+      context.system().scheduler().scheduleOnce(Duration.create(backoff, TimeUnit.MILLISECONDS), context.self(),
+                                                attempt.next());
+      retrying = true;
+    } finally {
+      if (!retrying) {
+        // Release the lock
+        work.getLock().unlock();
+        LOG.info("Lock released, job detail: {} ", work);
+      }
+    }
+  }
+
+  /**
+   * Time to wait after a failed attempt.
+   */
+  static long backoff(int attempt) {
+    return Math.min(INITIAL_BACKOFF_MS << Math.min(attempt - 1, 20), MAX_BACKOFF_MS);
+  }
+
+  /**
+   * Attempt of processing a chunk, the master is kept since scheduled messages don't have a sender.
+   */
+  public static final class Attempt {
+
+    private final DownloadFileWork work;
+    private final int number;
+    private final ActorRef master;
+
+    private Attempt(DownloadFileWork work, int number, ActorRef master) {
+      this.work = work;
+      this.number = number;
+      this.master = master;
+    }
+
+    /**
+     * First attempt of a work sent by the master.
+     */
+    public static Attempt first(DownloadFileWork work, ActorRef master) {
+      return new Attempt(work, 1, master);
+    }
+
+    Attempt next() {
+      return new Attempt(work, number + 1, master);
+    }
+
+    boolean canRetry() {
+      return number < MAX_ATTEMPTS;
+    }
+
+    public DownloadFileWork getWork() {
+      return work;
+    }
+
+    public int getNumber() {
+      return number;
+    }
+
+    public ActorRef getMaster() {
+      return master;
+    }
+  }
+}
@@ -2,13 +2,22 @@ package org.gbif.occurrence.download.file.common;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.fs.FileStatus;
@@ -17,7 +26,6 @@ import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.common.base.Throwables;
-import com.google.common.io.ByteStreams;
 
 /**
  * Utility class for file operation in occurrence downloads.
@@ -37,17 +45,75 @@ public final class DownloadFileUtils {
   }
 
   /**
-   * Appends a result file to the output file.
+   * Concatenates the input files, in the order of the list, into the output file and deletes them.
+   * The position of each input file in the output is calculated from the file sizes, so the output file is
+   * pre-allocated and the input files are copied concurrently using positional zero-copy transfers.
+   * The input files are deleted only if all of them were copied.
+   *
+   * @param inputFileNames files to concatenate
+   * @param outputFileName output file, it is created if it doesn't exist and the input files are appended after its
+   *                       current content, e.g.: the header row
    */
-  public static void appendAndDelete(String inputFileName, OutputStream outputFileStreamWriter) throws IOException {
-    File inputFile = new File(inputFileName);
-    try (FileInputStream fileReader = new FileInputStream(inputFile)) {
-      ByteStreams.copy(fileReader, outputFileStreamWriter);
-    } catch (FileNotFoundException e) {
-      LOG.info("Error creating occurrence files", e);
-      throw Throwables.propagate(e);
-    } finally {
-      inputFile.delete();
+  public static void mergeAndDelete(List<String> inputFileNames, String outputFileName) throws IOException {
+    mergeAndDelete(inputFileNames, outputFileName, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Concatenates the input files into the output file using up to parallelism threads, and deletes them.
+   */
+  public static void mergeAndDelete(List<String> inputFileNames, String outputFileName, int parallelism)
+    throws IOException {
+    try (RandomAccessFile outputFile = new RandomAccessFile(outputFileName, "rw")) {
+      long[] positions = new long[inputFileNames.size()];
+      long size = outputFile.length();
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = size;
+        size += Files.size(Paths.get(inputFileNames.get(i)));
+      }
+      outputFile.setLength(size);
+
+      FileChannel outputChannel = outputFile.getChannel();
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, positions.length)));
+      try {
+        List<Future<?>> transfers = new ArrayList<>(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+          String inputFileName = inputFileNames.get(i);
+          long position = positions[i];
+          transfers.add(executor.submit(() -> {
+            transfer(inputFileName, outputChannel, position);
+            return null;
+          }));
+        }
+        for (Future<?> transfer : transfers) {
+          transfer.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted merging files into " + outputFileName);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+        throw Throwables.propagate(e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    inputFileNames.forEach(inputFileName -> new File(inputFileName).delete());
+  }
+
+  /**
+   * Copies a file into the output channel starting at position, the channel is shared by concurrent transfers.
+   */
+  private static void transfer(String inputFileName, FileChannel outputChannel, long position) throws IOException {
+    try (FileChannel inputChannel = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ)) {
+      long size = inputChannel.size();
+      long transferred = 0;
+      while (transferred < size) {
+        long count = outputChannel.transferFrom(inputChannel, position + transferred, size - transferred);
+        if (count <= 0) {
+          throw new IOException("File " + inputFileName + " changed while being merged");
+        }
+        transferred += count;
+      }
     }
   }
   
@@ -0,0 +1,226 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.gbif.occurrence.search.es.OccurrenceEsField;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.range.Range;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.aggregations.metrics.min.Min;
+import org.elasticsearch.search.aggregations.metrics.percentiles.Percentiles;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Splits the results of a search query into disjoint ranges of gbifIds.
+ * Each range can be read by a worker independently of the others: it starts right after its exclusive upper key and
+ * contains an exact number of records, so no worker has to skip the records read by other workers.
+ * Range boundaries are calculated from the min/max and percentiles of the gbifId values, this gives ranges of a
+ * similar size even when the keys are not uniformly distributed.
+ */
+public class GbifIdRangePartitioner {
+
+  private static final String KEY_FIELD = OccurrenceEsField.GBIF_ID.getFieldName();
+
+  private static final String MIN_AGG = "minKey";
+
+  private static final String MAX_AGG = "maxKey";
+
+  private static final String PERCENTILES_AGG = "keyPercentiles";
+
+  private static final String RANGES_AGG = "keyRanges";
+
+  /**
+   * Calculates up to nrOfPartitions ranges of gbifIds for the records that match the query.
+   * Ranges are returned in descending key order, i.e.: the same order used to sort the download results, empty ranges
+   * are discarded.
+   *
+   * @param esClient        ES client
+   * @param esIndex         index to query
+   * @param query           search query
+   * @param nrOfPartitions  maximum number of ranges
+   * @return list of disjoint ranges that cover all the query results
+   */
+  public static List<GbifIdRange> partition(RestHighLevelClient esClient, String esIndex, String query,
+                                            int nrOfPartitions) throws IOException {
+    SearchSourceBuilder statsSource = createSearchQuery(query)
+      .aggregation(AggregationBuilders.min(MIN_AGG).field(KEY_FIELD))
+      .aggregation(AggregationBuilders.max(MAX_AGG).field(KEY_FIELD));
+    if (nrOfPartitions > 1) {
+      statsSource.aggregation(AggregationBuilders.percentiles(PERCENTILES_AGG)
+                                .field(KEY_FIELD)
+                                .percentiles(percents(nrOfPartitions)));
+    }
+    SearchResponse statsResponse =
+      esClient.search(new SearchRequest().indices(esIndex).source(statsSource), RequestOptions.DEFAULT);
+    if (statsResponse.getHits().getTotalHits() == 0) {
+      return Collections.emptyList();
+    }
+
+    Aggregations stats = statsResponse.getAggregations();
+    long[] boundaries = calculateBoundaries((long) ((Min) stats.get(MIN_AGG)).getValue(),
+                                            (long) ((Max) stats.get(MAX_AGG)).getValue(),
+                                            nrOfPartitions > 1 ? quantiles(stats.get(PERCENTILES_AGG), nrOfPartitions) :
+                                              new double[0]);
+
+    // Exact number of records of each range
+    RangeAggregationBuilder rangesAgg = AggregationBuilders.range(RANGES_AGG).field(KEY_FIELD);
+    for (int i = 0; i < boundaries.length - 1; i++) {
+      rangesAgg.addRange(boundaries[i], boundaries[i + 1]);
+    }
+    SearchResponse rangesResponse =
+      esClient.search(new SearchRequest().indices(esIndex).source(createSearchQuery(query).aggregation(rangesAgg)),
+                      RequestOptions.DEFAULT);
+    List<? extends Range.Bucket> buckets = ((Range) rangesResponse.getAggregations().get(RANGES_AGG)).getBuckets();
+
+    // Buckets are in ascending order
+    List<GbifIdRange> ranges = new ArrayList<>(buckets.size());
+    for (int i = buckets.size() - 1; i >= 0; i--) {
+      long count = buckets.get(i).getDocCount();
+      if (count > 0) {
+        ranges.add(new GbifIdRange(boundaries[i], boundaries[i + 1], count));
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Calculates the ascending and strictly increasing list of boundaries of the ranges.
+   * The first element is the min key (inclusive) and the last one is max + 1 (exclusive), quantiles that are out of
+   * bounds or that would produce empty ranges are ignored.
+   */
+  static long[] calculateBoundaries(long min, long max, double[] quantiles) {
+    long[] boundaries = new long[quantiles.length + 2];
+    int size = 0;
+    boundaries[size++] = min;
+    for (double quantile : quantiles) {
+      long boundary = (long) Math.ceil(quantile);
+      if (boundary > boundaries[size - 1] && boundary <= max) {
+        boundaries[size++] = boundary;
+      }
+    }
+    boundaries[size++] = max + 1;
+    return Arrays.copyOf(boundaries, size);
+  }
+
+  /**
+   * Evenly distributed percents that split the results in nrOfPartitions.
+   */
+  private static double[] percents(int nrOfPartitions) {
+    double[] percents = new double[nrOfPartitions - 1];
+    for (int i = 1; i < nrOfPartitions; i++) {
+      percents[i - 1] = 100.0 * i / nrOfPartitions;
+    }
+    return percents;
+  }
+
+  /**
+   * Reads the values of the percentiles aggregation in ascending order.
+   */
+  private static double[] quantiles(Percentiles percentiles, int nrOfPartitions) {
+    double[] percents = percents(nrOfPartitions);
+    double[] quantiles = new double[percents.length];
+    for (int i = 0; i < percents.length; i++) {
+      quantiles[i] = percentiles.percentile(percents[i]);
+    }
+    return quantiles;
+  }
+
+  /**
+   * Search that only returns aggregations.
+   */
+  private static SearchSourceBuilder createSearchQuery(String query) {
+    SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().size(0);
+    if (!Strings.isNullOrEmpty(query)) {
+      searchSourceBuilder.query(QueryBuilders.wrapperQuery(query));
+    } else {
+      searchSourceBuilder.query(QueryBuilders.matchAllQuery());
+    }
+    return searchSourceBuilder;
+  }
+
+  /**
+   * Hidden constructor.
+   */
+  private GbifIdRangePartitioner() {
+    //empty constructor
+  }
+
+  /**
+   * Range of gbifIds [lowerKey, upperKey) and the number of records of it.
+   */
+  public static class GbifIdRange {
+
+    private final long lowerKey;
+
+    private final long upperKey;
+
+    private final long count;
+
+    public GbifIdRange(long lowerKey, long upperKey, long count) {
+      this.lowerKey = lowerKey;
+      this.upperKey = upperKey;
+      this.count = count;
+    }
+
+    /**
+     * @return inclusive lower key
+     */
+    public long getLowerKey() {
+      return lowerKey;
+    }
+
+    /**
+     * @return exclusive upper key, since results are sorted in descending order it is also the search_after cursor
+     */
+    public long getUpperKey() {
+      return upperKey;
+    }
+
+    /**
+     * @return number of records in the range
+     */
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(lowerKey, upperKey, count);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof GbifIdRange)) {
+        return false;
+      }
+      GbifIdRange that = (GbifIdRange) obj;
+      return lowerKey == that.lowerKey && upperKey == that.upperKey && count == that.count;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toStringHelper(this)
+        .add("lowerKey", lowerKey)
+        .add("upperKey", upperKey)
+        .add("count", count)
+        .toString();
+    }
+  }
+}
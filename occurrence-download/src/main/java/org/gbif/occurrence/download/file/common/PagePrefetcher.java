@@ -0,0 +1,130 @@
+package org.gbif.occurrence.download.file.common;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Fetches the pages of a query ahead of their consumer, so waiting for the next page overlaps with processing the
+ * current one.
+ * Pages are fetched in order by a single thread, which pauses while the given number of pages are waiting to be
+ * consumed. A failed fetch is thrown to the consumer when it reaches that page, and closing the prefetcher stops the
+ * fetching, e.g.: when the consumer fails.
+ *
+ * @param <P> type of the pages
+ */
+public class PagePrefetcher<P> implements Closeable {
+
+  /**
+   * Source of the pages, it is only called from the fetching thread.
+   */
+  @FunctionalInterface
+  public interface PageSource<P> {
+
+    /**
+     * @return the next page or null if there are no more pages
+     */
+    P next() throws IOException;
+  }
+
+  // marks the end of the pages
+  private static final Object END = new Object();
+
+  private final BlockingQueue<Object> pages;
+  private final ExecutorService executor;
+  private boolean finished;
+
+  /**
+   * Starts fetching the pages.
+   *
+   * @param source   source of the pages
+   * @param capacity maximum number of fetched pages waiting to be consumed
+   */
+  public PagePrefetcher(PageSource<P> source, int capacity) {
+    pages = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("page-prefetcher-%d")
+                                                   .setDaemon(true)
+                                                   .build());
+    executor.execute(() -> fetch(source));
+  }
+
+  private void fetch(PageSource<P> source) {
+    try {
+      try {
+        P page;
+        while ((page = source.next()) != null) {
+          pages.put(page);
+        }
+        pages.put(END);
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Throwable e) {
+        // errors are passed too, otherwise the consumer would wait forever for the next page
+        pages.put(new Failure(e));
+      }
+    } catch (InterruptedException e) {
+      // closed by the consumer
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the next page.
+   *
+   * @return the next page or null if there are no more pages
+   * @throws IOException the error fetching the page, other exceptions and errors are rethrown unchecked
+   */
+  @SuppressWarnings("unchecked")
+  public P next() throws IOException {
+    if (finished) {
+      return null;
+    }
+    Object page;
+    try {
+      page = pages.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for the next page");
+    }
+    if (page == END) {
+      finished = true;
+      return null;
+    }
+    if (page instanceof Failure) {
+      finished = true;
+      Throwable cause = ((Failure) page).cause;
+      Throwables.propagateIfInstanceOf(cause, IOException.class);
+      throw Throwables.propagate(cause);
+    }
+    return (P) page;
+  }
+
+  /**
+   * Stops fetching pages, pages that are not consumed yet are discarded.
+   */
+  @Override
+  public void close() {
+    finished = true;
+    executor.shutdownNow();
+    pages.clear();
+  }
+
+  /**
+   * Error of the fetching thread, passed to the consumer in place of the page.
+   */
+  private static class Failure {
+
+    private final Throwable cause;
+
+    Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+}
@@ -4,6 +4,8 @@ import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import org.elasticsearch.action.search.*;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -17,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -27,52 +30,152 @@ public class SearchQueryProcessor {
   // Default page size for queries.
   private static final int LIMIT = 300;
 
+  // Page size used to read sort keys only
+  private static final int CURSOR_LIMIT = 5000;
+
+  // Pages fetched ahead of the one being processed
+  private static final int PREFETCH_PAGES = 2;
+
+  private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+
   private static final String KEY_FIELD = OccurrenceEsField.GBIF_ID.getFieldName();
 
   private static final Logger LOG = LoggerFactory.getLogger(SearchQueryProcessor.class);
 
   /**
    * Executes a query and applies the predicate to each result.
+   * Pages are fetched using the search_after of the last hit of the previous page, so the cost of each page doesn't
+   * depend on how deep in the result set it is. If the work has no cursor, the first page is located using its offset.
+   * The next pages are fetched and parsed in the background while the predicate processes the current one.
    *
    * @param downloadFileWork it's used to determine how to page through the results and the search query to be used
-   * @param downloadFileWork it's used to determine how to page through the results and the search query to be used
    * @param resultHandler    predicate that process each result, receives as parameter the occurrence key
    */
   public static void processQuery(DownloadFileWork downloadFileWork, Consumer<Occurrence> resultHandler) {
+    try (PagePrefetcher<List<Occurrence>> pages =
+           new PagePrefetcher<>(new QueryPageSource(downloadFileWork), PREFETCH_PAGES)) {
+      List<Occurrence> page;
+      while ((page = pages.next()) != null) {
+        page.forEach(resultHandler);
+      }
+    } catch (IOException ex) {
+      throw Throwables.propagate(ex);
+    }
+  }
 
-    // Calculates the amount of output records
-    int nrOfOutputRecords = downloadFileWork.getTo() - downloadFileWork.getFrom();
+  /**
+   * Calculates the search_after cursors that correspond to the offsets of a list of chunks.
+   * The cursor of a chunk is the sort key of the record right before its first record, the first chunk (offset 0) has
+   * a null cursor.
+   * The keys are read using a scroll context that only fetches sort values, i.e.: no document source is loaded.
+   *
+   * @param esClient ES client
+   * @param esIndex  index to query
+   * @param query    search query
+   * @param offsets  ascending list of chunk offsets
+   * @return a cursor for each offset, null for 0 or for offsets beyond the end of the result set
+   */
+  public static Long[] calculateCursors(RestHighLevelClient esClient, String esIndex, String query, int[] offsets)
+    throws IOException {
+    Long[] cursors = new Long[offsets.length];
+    int lastOffset = offsets.length > 0 ? offsets[offsets.length - 1] : 0;
+    if (lastOffset <= 0) {
+      return cursors;
+    }
 
+    SearchSourceBuilder searchSourceBuilder = createSearchQuery(query).size(CURSOR_LIMIT).fetchSource(false);
+    SearchRequest searchRequest = new SearchRequest().indices(esIndex).source(searchSourceBuilder).scroll(SCROLL_KEEP_ALIVE);
+    SearchResponse searchResponse = esClient.search(searchRequest, RequestOptions.DEFAULT);
+    String scrollId = searchResponse.getScrollId();
     try {
+      int position = 0;
+      int offsetIdx = 0;
+      SearchHit[] searchHits = searchResponse.getHits().getHits();
+      while (searchHits.length > 0 && offsetIdx < offsets.length) {
+        for (SearchHit searchHit : searchHits) {
+          position++;
+          // skips the offsets that do not require a cursor
+          while (offsetIdx < offsets.length && offsets[offsetIdx] <= 0) {
+            offsetIdx++;
+          }
+          if (offsetIdx < offsets.length && offsets[offsetIdx] == position) {
+            cursors[offsetIdx++] = ((Number) searchHit.getSortValues()[0]).longValue();
+          }
+        }
+        if (position >= lastOffset) {
+          break;
+        }
+        searchResponse = esClient.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+        scrollId = searchResponse.getScrollId();
+        searchHits = searchResponse.getHits().getHits();
+      }
+    } finally {
+      clearScroll(esClient, scrollId);
+    }
+    return cursors;
+  }
 
-      int recordCount = 0;
-      // Creates a search request instance using the search request that comes in the fileJob
-      SearchSourceBuilder searchSourceBuilder = createSearchQuery(downloadFileWork.getQuery());
-
+  /**
+   * Releases the scroll context, errors are ignored since the context expires eventually.
+   */
+  private static void clearScroll(RestHighLevelClient esClient, String scrollId) {
+    try {
+      ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+      clearScrollRequest.addScrollId(scrollId);
+      esClient.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+    } catch (Exception ex) {
+      LOG.warn("Error clearing scroll context {}", scrollId, ex);
+    }
+  }
 
-      while (recordCount < nrOfOutputRecords) {
+  /**
+   * Pages of the results of a download work, fetched in sequence since each page starts after the last hit of the
+   * previous one.
+   */
+  private static class QueryPageSource implements PagePrefetcher.PageSource<List<Occurrence>> {
 
-        searchSourceBuilder.size(recordCount + LIMIT > nrOfOutputRecords ? nrOfOutputRecords - recordCount : LIMIT);
-        searchSourceBuilder.from(downloadFileWork.getFrom() + recordCount);
-        searchSourceBuilder.fetchSource(null, "all"); //All field is not needed in the response
-        SearchRequest searchRequest = new SearchRequest().indices(downloadFileWork.getEsIndex()).source(searchSourceBuilder);
+    private final DownloadFileWork downloadFileWork;
+    private final SearchSourceBuilder searchSourceBuilder;
+    // Calculates the amount of output records
+    private final int nrOfOutputRecords;
+    private int recordCount;
+    private Object[] searchAfter;
 
-        SearchResponse searchResponse = downloadFileWork.getEsClient().search(searchRequest, RequestOptions.DEFAULT);
-        consume(searchResponse, resultHandler);
+    QueryPageSource(DownloadFileWork downloadFileWork) {
+      this.downloadFileWork = downloadFileWork;
+      nrOfOutputRecords = downloadFileWork.getTo() - downloadFileWork.getFrom();
+      // Creates a search request instance using the search request that comes in the fileJob
+      searchSourceBuilder = createSearchQuery(downloadFileWork.getQuery());
+      searchSourceBuilder.fetchSource(null, "all"); //All field is not needed in the response
+      searchAfter = downloadFileWork.getSearchAfter() != null ? new Object[]{downloadFileWork.getSearchAfter()} : null;
+    }
 
-        SearchHit[] searchHits = searchResponse.getHits().getHits();
-        recordCount += searchHits.length;
+    @Override
+    public List<Occurrence> next() throws IOException {
+      if (recordCount >= nrOfOutputRecords) {
+        return null;
+      }
+      searchSourceBuilder.size(recordCount + LIMIT > nrOfOutputRecords ? nrOfOutputRecords - recordCount : LIMIT);
+      if (searchAfter != null) {
+        searchSourceBuilder.from(0);
+        searchSourceBuilder.searchAfter(searchAfter);
+      } else {
+        searchSourceBuilder.from(downloadFileWork.getFrom());
+      }
+      SearchRequest searchRequest = new SearchRequest().indices(downloadFileWork.getEsIndex()).source(searchSourceBuilder);
 
+      SearchResponse searchResponse = downloadFileWork.getEsClient().search(searchRequest, RequestOptions.DEFAULT);
+      SearchHit[] searchHits = searchResponse.getHits().getHits();
+      if (searchHits.length == 0) {
+        LOG.warn("No more results after {} records of {} expected, work: {}", recordCount, nrOfOutputRecords, downloadFileWork);
+        return null;
       }
-    } catch (IOException ex) {
-      throw Throwables.propagate(ex);
+      recordCount += searchHits.length;
+      searchAfter = searchHits[searchHits.length - 1].getSortValues();
+      return EsResponseParser.buildDownloadResponse(searchResponse, new PagingRequest(0, searchHits.length)).getResults();
     }
   }
 
-  private static void consume(SearchResponse searchResponse, Consumer<Occurrence> consumer) {
-    EsResponseParser.buildDownloadResponse(searchResponse, new PagingRequest(0, searchResponse.getHits().getHits().length))
-      .getResults().forEach(consumer);
-  }
   /**
    * Creates a search query that contains the query parameter as the filter query value.
    */
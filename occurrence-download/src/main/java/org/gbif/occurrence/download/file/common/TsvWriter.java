@@ -0,0 +1,172 @@
+package org.gbif.occurrence.download.file.common;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes rows of tab separated values encoded in UTF-8.
+ * The output is byte-identical to the output of the SuperCSV writers using {@code CsvPreference.TAB_PREFERENCE}:
+ * values containing tabs, quotes or line breaks are quoted, quotes are doubled, line breaks are normalized to '\n'
+ * and null values are written as empty values.
+ * Characters are copied into a reusable buffer and encoded in blocks, so writing a row doesn't create objects.
+ * Instances are not thread safe.
+ */
+public class TsvWriter implements Closeable, Flushable {
+
+  private static final char DELIMITER = '\t';
+
+  private static final char QUOTE = '"';
+
+  private static final char END_OF_LINE = '\n';
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OutputStream out;
+
+  // same error handling as OutputStreamWriter
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+  private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+  private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+
+  /**
+   * Creates a writer that truncates and writes the file.
+   */
+  public TsvWriter(String fileName) throws IOException {
+    this(new FileOutputStream(fileName));
+  }
+
+  public TsvWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes a row, null values are written as empty values.
+   */
+  public void write(String... values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        put(DELIMITER);
+      }
+      if (values[i] != null) {
+        writeValue(values[i]);
+      }
+    }
+    put(END_OF_LINE);
+  }
+
+  /**
+   * Writes a value, quoting it only if it contains a delimiter, a quote or a line break.
+   */
+  private void writeValue(String value) throws IOException {
+    int length = value.length();
+    boolean quoted = false;
+    for (int i = 0; i < length && !quoted; i++) {
+      quoted = requiresQuotes(value.charAt(i));
+    }
+    if (!quoted) {
+      append(value);
+      return;
+    }
+
+    put(QUOTE);
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == QUOTE) {
+        put(QUOTE);
+        put(QUOTE);
+      } else if (c == '\r') {
+        put(END_OF_LINE);
+        // a \r\n sequence is a single line break
+        if (i + 1 < length && value.charAt(i + 1) == '\n') {
+          i++;
+        }
+      } else if (c == '\n') {
+        put(END_OF_LINE);
+      } else {
+        put(c);
+      }
+    }
+    put(QUOTE);
+  }
+
+  private static boolean requiresQuotes(char c) {
+    return c == DELIMITER || c == QUOTE || c == '\n' || c == '\r';
+  }
+
+  private void put(char c) throws IOException {
+    if (!chars.hasRemaining()) {
+      encode(false);
+    }
+    chars.put(c);
+  }
+
+  /**
+   * Copies a value into the buffer in blocks.
+   */
+  private void append(String value) throws IOException {
+    int offset = 0;
+    int length = value.length();
+    while (offset < length) {
+      if (!chars.hasRemaining()) {
+        encode(false);
+      }
+      int count = Math.min(chars.remaining(), length - offset);
+      value.getChars(offset, offset + count, chars.array(), chars.arrayOffset() + chars.position());
+      chars.position(chars.position() + count);
+      offset += count;
+    }
+  }
+
+  /**
+   * Encodes the buffered chars, an incomplete surrogate pair at the end of the buffer is kept for the next block.
+   */
+  private void encode(boolean endOfInput) throws IOException {
+    chars.flip();
+    CoderResult result;
+    while ((result = encoder.encode(chars, bytes, endOfInput)).isOverflow()) {
+      writeBytes();
+    }
+    if (result.isError()) {
+      result.throwException();
+    }
+    chars.compact();
+  }
+
+  private void writeBytes() throws IOException {
+    out.write(bytes.array(), bytes.arrayOffset(), bytes.position());
+    bytes.clear();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    encode(false);
+    writeBytes();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      encode(true);
+      while (encoder.flush(bytes).isOverflow()) {
+        writeBytes();
+      }
+      writeBytes();
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,280 @@
+package org.gbif.occurrence.download.file.dwca;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.service.registry.DatasetService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the metadata and EML documents of the constituent datasets of a download from the registry using a bounded
+ * number of concurrent requests.
+ * Datasets are cached in memory, shared by all the downloads built in the same JVM, and on disk, shared by all the
+ * downloads built in the same node, during {@link #DEFAULT_TTL_MINUTES}. EML documents are stored on disk by dataset
+ * key and modified date, so they are fetched again only when the dataset changes, and the documents of older versions
+ * of the dataset are then deleted.
+ * The requests of all the instances run in a shared pool of {@link #DEFAULT_PARALLELISM} threads.
+ * Cached datasets are stored serialized, each call returns new instances that can be modified by the caller.
+ */
+public class DatasetMetadataFetcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetMetadataFetcher.class);
+
+  // Maximum number of concurrent requests to the registry
+  public static final int DEFAULT_PARALLELISM = 10;
+
+  public static final long DEFAULT_TTL_MINUTES = 60;
+
+  private static final int MAX_CACHED_DATASETS = 100_000;
+
+  private static final String DATASET_EXTENSION = ".json";
+
+  private static final String EML_EXTENSION = ".xml";
+
+  private static final ObjectMapper OBJECT_MAPPER =
+    new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final Cache<UUID, byte[]> SHARED_DATASETS = newDatasetsCache(DEFAULT_TTL_MINUTES);
+
+  private static final ExecutorService SHARED_EXECUTOR =
+    Executors.newFixedThreadPool(DEFAULT_PARALLELISM, new ThreadFactoryBuilder().setNameFormat("registry-metadata-%d")
+                                                        .setDaemon(true)
+                                                        .build());
+
+  private final DatasetService datasetService;
+
+  private final File cacheDir;
+
+  private final ExecutorService executor;
+
+  private final long ttlMillis;
+
+  private final Cache<UUID, byte[]> datasets;
+
+  /**
+   * Creates a fetcher that uses the in-memory cache and the thread pool shared by all the instances.
+   *
+   * @param cacheDir directory of the on-disk cache, created if it doesn't exist
+   */
+  public DatasetMetadataFetcher(DatasetService datasetService, File cacheDir) {
+    this(datasetService, cacheDir, SHARED_EXECUTOR, DEFAULT_TTL_MINUTES, SHARED_DATASETS);
+  }
+
+  @VisibleForTesting
+  DatasetMetadataFetcher(DatasetService datasetService, File cacheDir, ExecutorService executor, long ttlMinutes,
+                         Cache<UUID, byte[]> datasets) {
+    this.datasetService = datasetService;
+    this.cacheDir = cacheDir;
+    this.executor = executor;
+    ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+    this.datasets = datasets;
+    cacheDir.mkdirs();
+  }
+
+  @VisibleForTesting
+  static Cache<UUID, byte[]> newDatasetsCache(long ttlMinutes) {
+    return CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_DATASETS)
+      .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+      .build();
+  }
+
+  /**
+   * Gets the datasets, datasets that can't be retrieved are logged and left out of the result.
+   *
+   * @return datasets by key, in the iteration order of the keys
+   */
+  public Map<UUID, Dataset> getDatasets(Collection<UUID> keys) throws IOException {
+    List<Dataset> results = invokeAll(keys, this::getDataset);
+    Map<UUID, Dataset> found = new LinkedHashMap<>();
+    for (Dataset dataset : results) {
+      if (dataset != null) {
+        found.put(dataset.getKey(), dataset);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Copies the EML document of each dataset into the directory as datasetKey.xml.
+   * Documents that can't be retrieved are logged and skipped.
+   */
+  public void copyEmlFiles(Collection<Dataset> constituents, File emlDir) throws IOException {
+    invokeAll(constituents, dataset -> copyEmlFile(dataset, emlDir));
+  }
+
+  /**
+   * Copies the EML document of the dataset, it is fetched again if the cached document is deleted while it is copied.
+   */
+  private File copyEmlFile(Dataset dataset, File emlDir) throws IOException {
+    File target = new File(emlDir, dataset.getKey() + EML_EXTENSION);
+    for (int attempt = 1; ; attempt++) {
+      File emlFile = getEmlFile(dataset);
+      if (emlFile == null) {
+        return null;
+      }
+      try {
+        Files.copy(emlFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return emlFile;
+      } catch (NoSuchFileException ex) {
+        // a concurrent download fetched a newer version of the dataset and deleted this one
+        if (attempt > 1) {
+          throw ex;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets a dataset from the in-memory cache, the on-disk cache or the registry, in that order.
+   */
+  private Dataset getDataset(UUID key) {
+    try {
+      byte[] json = datasets.getIfPresent(key);
+      if (json == null) {
+        File datasetFile = new File(cacheDir, key + DATASET_EXTENSION);
+        if (datasetFile.lastModified() > System.currentTimeMillis() - ttlMillis) {
+          json = Files.readAllBytes(datasetFile.toPath());
+        } else {
+          Dataset dataset = datasetService.get(key);
+          if (dataset == null) {
+            LOG.error("Dataset {} not found", key);
+            return null;
+          }
+          json = OBJECT_MAPPER.writeValueAsBytes(dataset);
+          writeCacheFile(datasetFile, json);
+        }
+        datasets.put(key, json);
+      }
+      return OBJECT_MAPPER.readValue(json, Dataset.class);
+    } catch (Exception ex) {
+      LOG.error("Error retrieving dataset {}", key, ex);
+      return null;
+    }
+  }
+
+  /**
+   * Gets the cached EML document of the dataset, fetching it if it doesn't exist.
+   */
+  private File getEmlFile(Dataset dataset) {
+    long modified = dataset.getModified() == null ? 0 : dataset.getModified().getTime();
+    File emlFile = new File(cacheDir, dataset.getKey() + "-" + modified + EML_EXTENSION);
+    if (emlFile.exists()) {
+      return emlFile;
+    }
+    try (InputStream in = datasetService.getMetadataDocument(dataset.getKey())) {
+      if (in == null) {
+        LOG.error("Found no EML for datasetId {}", dataset.getKey());
+        return null;
+      }
+      File tmpFile = File.createTempFile(dataset.getKey().toString(), null, cacheDir);
+      try {
+        Files.copy(in, tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpFile.toPath(), emlFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile.toPath());
+      }
+      deleteOlderEmlFiles(dataset.getKey(), modified);
+      return emlFile;
+    } catch (IOException ex) {
+      LOG.error("Error creating eml file", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Deletes the cached EML documents of the versions of the dataset modified before the given date.
+   */
+  private void deleteOlderEmlFiles(UUID key, long modified) {
+    String prefix = key + "-";
+    File[] emlFiles = cacheDir.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(EML_EXTENSION));
+    if (emlFiles == null) {
+      return;
+    }
+    for (File emlFile : emlFiles) {
+      String name = emlFile.getName();
+      try {
+        if (Long.parseLong(name.substring(prefix.length(), name.length() - EML_EXTENSION.length())) < modified) {
+          LOG.debug("Deleting cached EML document {}", emlFile);
+          emlFile.delete();
+        }
+      } catch (NumberFormatException ex) {
+        LOG.debug("Ignoring unknown file {} in the registry cache", emlFile);
+      }
+    }
+  }
+
+  /**
+   * Writes a cache file atomically, so concurrent downloads never read incomplete files.
+   */
+  private void writeCacheFile(File file, byte[] content) throws IOException {
+    File tmpFile = File.createTempFile(file.getName(), null, cacheDir);
+    try {
+      Files.write(tmpFile.toPath(), content);
+      Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile.toPath());
+    }
+  }
+
+  /**
+   * Applies the function to all the inputs using the threads of the executor.
+   *
+   * @return the results in the order of the inputs
+   */
+  private <T, R> List<R> invokeAll(Collection<T> inputs, CacheFunction<T, R> function) throws IOException {
+    List<Future<R>> futures = new ArrayList<>(inputs.size());
+    try {
+      for (T input : inputs) {
+        futures.add(executor.submit(() -> function.apply(input)));
+      }
+      List<R> results = new ArrayList<>(futures.size());
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted fetching registry metadata");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      // the pending requests of a failed or interrupted call are cancelled, the executor is shared
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  @FunctionalInterface
+  private interface CacheFunction<T, R> {
+    R apply(T input) throws IOException;
+  }
+}
@@ -2,242 +2,127 @@ package org.gbif.occurrence.download.file.dwca;
 
 import org.gbif.api.model.common.MediaObject;
 import org.gbif.api.model.occurrence.Occurrence;
-import org.gbif.api.vocabulary.MediaType;
 import org.gbif.dwc.terms.Term;
 import org.gbif.occurrence.common.TermUtils;
 import org.gbif.occurrence.common.download.DownloadUtils;
 import org.gbif.occurrence.download.file.DownloadFileWork;
 import org.gbif.occurrence.download.file.OccurrenceMapReader;
+import org.gbif.occurrence.download.file.OccurrenceRow;
 import org.gbif.occurrence.download.file.Result;
+import org.gbif.occurrence.download.file.common.ChunkRetryPolicy;
 import org.gbif.occurrence.download.file.common.DatasetUsagesCollector;
 import org.gbif.occurrence.download.file.common.SearchQueryProcessor;
+import org.gbif.occurrence.download.file.common.TsvWriter;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.time.ZoneOffset;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import akka.actor.UntypedActor;
-import com.google.common.base.Charsets;
-import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.beanutils.ConvertUtils;
-import org.apache.commons.beanutils.converters.DateConverter;
-import org.apache.commons.io.output.FileWriterWithEncoding;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.supercsv.cellprocessor.constraint.NotNull;
-import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.CsvBeanWriter;
-import org.supercsv.io.CsvMapWriter;
-import org.supercsv.io.ICsvBeanWriter;
-import org.supercsv.io.ICsvMapWriter;
-import org.supercsv.prefs.CsvPreference;
-import org.supercsv.util.CsvContext;
-
-import static org.gbif.occurrence.common.download.DownloadUtils.DELIMETERS_MATCH_PATTERN;
 
 /**
  * Actor that creates part files of for the DwcA download format.
  */
 public class DownloadDwcaActor extends UntypedActor {
 
-  private static final Logger LOG = LoggerFactory.getLogger(DownloadDwcaActor.class);
-
-  static {
-    //https://issues.apache.org/jira/browse/BEANUTILS-387
-    ConvertUtils.register(new DateConverter(null), Date.class);
-  }
-
   private static final String[] INT_COLUMNS =
     Lists.transform(Lists.newArrayList(TermUtils.interpretedTerms()), Term::simpleName).toArray(new String[0]);
   private static final String[] VERB_COLUMNS =
     Lists.transform(Lists.newArrayList(TermUtils.verbatimTerms()), Term::simpleName).toArray(new String[0]);
-  private static final String[] MULTIMEDIA_COLUMNS =
-    Lists.transform(Lists.newArrayList(TermUtils.multimediaTerms()), Term::simpleName).toArray(new String[0]);
-  private static final CellProcessor[] MEDIA_CELL_PROCESSORS = {
-    new NotNull(), // coreid
-    new MediaTypeProcessor(), // type
-    new CleanStringProcessor(), // format
-    new URIProcessor(), // identifier
-    new URIProcessor(), // references
-    new CleanStringProcessor(), // title
-    new CleanStringProcessor(), // description
-    new CleanStringProcessor(), // source
-    new CleanStringProcessor(), // audience
-    new DateProcessor(), // created
-    new CleanStringProcessor(), // creator
-    new CleanStringProcessor(), // contributor
-    new CleanStringProcessor(), // publisher
-    new CleanStringProcessor(), // license
-    new CleanStringProcessor() // rightsHolder
-  };
+  private static final int MULTIMEDIA_COLUMNS = Iterables.size(TermUtils.multimediaTerms());
 
   /**
-   * Writes the multimedia objects into the file referenced by multimediaCsvWriter.
+   * Writes the multimedia objects into the file referenced by multimediaWriter.
+   * The values of mediaRow are written in the order of TermUtils.multimediaTerms().
    */
-  private static void writeMediaObjects(ICsvBeanWriter multimediaCsvWriter, Occurrence occurrence) throws IOException {
+  private static void writeMediaObjects(TsvWriter multimediaWriter, String[] mediaRow, Occurrence occurrence)
+    throws IOException {
     List<MediaObject> multimedia = occurrence.getMedia();
     if (multimedia != null) {
+      String coreId = occurrence.getKey().toString();
       for (MediaObject mediaObject : multimedia) {
-        multimediaCsvWriter.write(new InnerMediaObject(mediaObject, occurrence.getKey()),
-                                  MULTIMEDIA_COLUMNS,
-                                  MEDIA_CELL_PROCESSORS);
+        mediaRow[0] = coreId;
+        mediaRow[1] = mediaObject.getType() != null ? mediaObject.getType().name() : null;
+        mediaRow[2] = DownloadUtils.cleanDelimiters(mediaObject.getFormat());
+        mediaRow[3] = toString(mediaObject.getIdentifier());
+        mediaRow[4] = toString(mediaObject.getReferences());
+        mediaRow[5] = DownloadUtils.cleanDelimiters(mediaObject.getTitle());
+        mediaRow[6] = DownloadUtils.cleanDelimiters(mediaObject.getDescription());
+        mediaRow[7] = DownloadUtils.cleanDelimiters(mediaObject.getSource());
+        mediaRow[8] = DownloadUtils.cleanDelimiters(mediaObject.getAudience());
+        mediaRow[9] = toISO8601Date(mediaObject.getCreated());
+        mediaRow[10] = DownloadUtils.cleanDelimiters(mediaObject.getCreator());
+        mediaRow[11] = DownloadUtils.cleanDelimiters(mediaObject.getContributor());
+        mediaRow[12] = DownloadUtils.cleanDelimiters(mediaObject.getPublisher());
+        mediaRow[13] = DownloadUtils.cleanDelimiters(mediaObject.getLicense());
+        mediaRow[14] = DownloadUtils.cleanDelimiters(mediaObject.getRightsHolder());
+        multimediaWriter.write(mediaRow);
       }
     }
   }
 
+  private static String toString(URI uri) {
+    return uri != null ? uri.toString() : null;
+  }
+
+  private static String toISO8601Date(Date date) {
+    return date != null ? DownloadUtils.ISO_8601_ZONED.format(date.toInstant().atZone(ZoneOffset.UTC)) : null;
+  }
+
   /**
    * Executes the job.query and creates a data file that will contains the records from job.from to job.to positions.
+   * Failed attempts are retried, the part files are re-created on each attempt.
    */
-  public void doWork(DownloadFileWork work) throws IOException {
+  public void doWork(ChunkRetryPolicy.Attempt attempt) throws Exception {
+    ChunkRetryPolicy.execute(getContext(), attempt, () -> writeChunk(attempt.getWork()));
+  }
+
+  /**
+   * Writes the interpreted, verbatim and multimedia part files of a chunk.
+   */
+  private static Result writeChunk(DownloadFileWork work) throws IOException {
 
     DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
+    OccurrenceRow interpretedRow = new OccurrenceRow(INT_COLUMNS);
+    OccurrenceRow verbatimRow = new OccurrenceRow(VERB_COLUMNS);
+    String[] mediaRow = new String[MULTIMEDIA_COLUMNS];
 
-    try (
-      ICsvMapWriter intCsvWriter = new CsvMapWriter(new FileWriterWithEncoding(work.getJobDataFileName()
-                                                                               + TableSuffixes.INTERPRETED_SUFFIX,
-                                                                               Charsets.UTF_8),
-                                                    CsvPreference.TAB_PREFERENCE);
-      ICsvMapWriter verbCsvWriter = new CsvMapWriter(new FileWriterWithEncoding(work.getJobDataFileName()
-                                                                                + TableSuffixes.VERBATIM_SUFFIX,
-                                                                                Charsets.UTF_8),
-                                                     CsvPreference.TAB_PREFERENCE);
-      ICsvBeanWriter multimediaCsvWriter = new CsvBeanWriter(new FileWriterWithEncoding(work.getJobDataFileName()
-                                                                                        + TableSuffixes.MULTIMEDIA_SUFFIX,
-                                                                                        Charsets.UTF_8),
-                                                             CsvPreference.TAB_PREFERENCE)) {
+    try (TsvWriter intWriter = new TsvWriter(work.getJobDataFileName() + TableSuffixes.INTERPRETED_SUFFIX);
+         TsvWriter verbWriter = new TsvWriter(work.getJobDataFileName() + TableSuffixes.VERBATIM_SUFFIX);
+         TsvWriter multimediaWriter = new TsvWriter(work.getJobDataFileName() + TableSuffixes.MULTIMEDIA_SUFFIX)) {
       SearchQueryProcessor.processQuery(work, occurrence -> {
           try {
-            // Writes the occurrence record obtained from Elasticsearch as Map<String,Object>.
+            // Writes the occurrence record obtained from Elasticsearch using rows re-used by all records.
 
             if (occurrence != null) {
               datasetUsagesCollector.incrementDatasetUsage(occurrence.getDatasetKey().toString());
-              intCsvWriter.write(OccurrenceMapReader.buildInterpretedOccurrenceMap(occurrence), INT_COLUMNS);
-              verbCsvWriter.write(OccurrenceMapReader.buildVerbatimOccurrenceMap(occurrence), VERB_COLUMNS);
-              writeMediaObjects(multimediaCsvWriter, occurrence);
+              OccurrenceMapReader.buildInterpretedOccurrenceRow(occurrence, interpretedRow);
+              intWriter.write(interpretedRow.getValues());
+              OccurrenceMapReader.buildVerbatimOccurrenceRow(occurrence, verbatimRow);
+              verbWriter.write(verbatimRow.getValues());
+              writeMediaObjects(multimediaWriter, mediaRow, occurrence);
             }
           } catch (Exception e) {
-            getSender().tell(e, getSelf()); // inform our master
             throw Throwables.propagate(e);
           }
         });
-
-      getSender().tell(new Result(work, datasetUsagesCollector.getDatasetUsages()), getSelf());
-    } finally {
-      // Unlock the assigned lock.
-      work.getLock().unlock();
-      LOG.info("Lock released, job detail: {} ", work);
     }
+    return new Result(work, datasetUsagesCollector.getDatasetUsages());
   }
 
   @Override
   public void onReceive(Object message) throws Exception {
     if (message instanceof DownloadFileWork) {
-      doWork((DownloadFileWork) message);
+      doWork(ChunkRetryPolicy.Attempt.first((DownloadFileWork) message, getSender()));
+    } else if (message instanceof ChunkRetryPolicy.Attempt) {
+      doWork((ChunkRetryPolicy.Attempt) message);
     } else {
       unhandled(message);
     }
   }
-
-  /**
-   * Inner class used to export data into multimedia.txt files.
-   * The structure must match the headers defined in MULTIMEDIA_COLUMNS.
-   */
-  public static class InnerMediaObject extends MediaObject {
-
-    private Long gbifID;
-
-    /**
-     * Default constructor.
-     * Required by CVS serialization.
-     */
-    public InnerMediaObject() {
-      // default constructor
-    }
-
-    /**
-     * Default constructor.
-     * Copies the fields of the media object parameter and assigns the coreid.
-     */
-    public InnerMediaObject(MediaObject mediaObject, Long gbifID) {
-      try {
-        BeanUtils.copyProperties(this, mediaObject);
-        this.gbifID = gbifID;
-      } catch (IllegalAccessException | InvocationTargetException e) {
-        throw Throwables.propagate(e);
-      }
-    }
-
-    @Override
-    public String toString() {
-      return Objects.toStringHelper(this).addValue(super.toString()).add("gbifID", gbifID).toString();
-    }
-
-    /**
-     * Id column for the multimedia.txt file.
-     */
-    public Long getGbifID() {
-      return gbifID;
-    }
-
-    public void setGbifID(Long gbifID) {
-      this.gbifID = gbifID;
-    }
-
-  }
-
-  /**
-   * Produces a MediaType instance.
-   */
-  private static class MediaTypeProcessor implements CellProcessor {
-
-    @Override
-    public String execute(Object value, CsvContext context) {
-      return value != null ? ((MediaType) value).name() : "";
-    }
-
-  }
-
-  /**
-   * Produces a String instance clean of delimiter.
-   * If the value is null an empty string is returned.
-   */
-  private static class CleanStringProcessor implements CellProcessor {
-
-    @Override
-    public String execute(Object value, CsvContext context) {
-      return value != null ? DELIMETERS_MATCH_PATTERN.matcher((String) value).replaceAll(" ") : "";
-    }
-
-  }
-
-  /**
-   * Produces a URI instance.
-   */
-  private static class URIProcessor implements CellProcessor {
-
-    @Override
-    public String execute(Object value, CsvContext context) {
-      return value != null ? ((URI) value).toString() : "";
-    }
-
-  }
-
-  /**
-   * Produces a date instance.
-   */
-  private static class DateProcessor implements CellProcessor {
-
-    @Override
-    public String execute(Object value, CsvContext context) {
-      return value != null ? DownloadUtils.ISO_8601_ZONED.format(((Date) value).toInstant().atZone(ZoneOffset.UTC)) : "";
-    }
-  }
 }
@@ -18,6 +18,7 @@ import org.gbif.hadoop.compress.d2.D2Utils;
 import org.gbif.hadoop.compress.d2.zip.ModalZipOutputStream;
 import org.gbif.occurrence.common.download.DownloadException;
 import org.gbif.occurrence.download.conf.WorkflowConfiguration;
+import org.gbif.occurrence.download.file.archive.ParallelDeflater;
 import org.gbif.occurrence.download.file.DownloadJobConfiguration;
 import org.gbif.occurrence.download.license.LicenseSelector;
 import org.gbif.occurrence.download.license.LicenseSelectors;
@@ -27,7 +28,6 @@ import org.gbif.occurrence.query.HumanPredicateBuilder;
 import org.gbif.occurrence.query.TitleLookupService;
 import org.gbif.occurrence.query.TitleLookupServiceFactory;
 import org.gbif.registry.metadata.EMLWriter;
-import org.gbif.utils.file.CompressionUtil;
 import org.gbif.utils.file.FileUtils;
 
 import java.io.BufferedOutputStream;
@@ -35,23 +35,22 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
@@ -59,6 +58,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Objects;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -102,8 +102,15 @@ public class DwcaArchiveBuilder {
   private static final String DATA_DESC_FORMAT = "Darwin Core Archive";
   private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults();
   private static final EMLWriter EML_WRITER = EMLWriter.newInstance(true);
+  // Directory, inside the temp dir, of the registry metadata cache shared by the downloads of a node
+  private static final String REGISTRY_CACHE_DIR = "registry-cache";
+  // Extension of the zip file while it is being written
+  private static final String PART_EXTENSION = ".part";
+  // Data files of small downloads
+  private static final Set<String> DATA_FILENAMES =
+    ImmutableSet.of(INTERPRETED_FILENAME, VERBATIM_FILENAME, MULTIMEDIA_FILENAME);
 
-  private final DatasetService datasetService;
+  private final DatasetMetadataFetcher datasetMetadataFetcher;
 
   private final OccurrenceDownloadService occurrenceDownloadService;
   private final TitleLookupService titleLookup;
@@ -149,7 +156,7 @@ public class DwcaArchiveBuilder {
                                                           titleLookup,
                                                           configuration,
                                                           workflowConfiguration);
-    generator.buildArchive(new File(tmpDir, configuration.getDownloadKey() + ".zip"));
+    generator.buildArchive(new Path(workflowConfiguration.getHdfsOutputPath(), configuration.getDownloadKey() + ".zip"));
   }
 
   private static void writeCitation(Writer citationWriter, Dataset dataset)
@@ -183,7 +190,8 @@ public class DwcaArchiveBuilder {
   protected DwcaArchiveBuilder(DatasetService datasetService, OccurrenceDownloadService occurrenceDownloadService,
                                FileSystem sourceFs, FileSystem targetFs, File archiveDir, TitleLookupService titleLookup,
                                DownloadJobConfiguration configuration, WorkflowConfiguration workflowConfiguration) {
-    this.datasetService = datasetService;
+    datasetMetadataFetcher =
+      new DatasetMetadataFetcher(datasetService, new File(workflowConfiguration.getTempDir(), REGISTRY_CACHE_DIR));
     this.occurrenceDownloadService = occurrenceDownloadService;
     this.sourceFs = sourceFs;
     this.targetFs = targetFs;
@@ -195,16 +203,15 @@ public class DwcaArchiveBuilder {
 
   /**
    * Main method to assemble the dwc archive and do all the work until we have a final zip file.
+   * The archive is written in a single pass into the target filesystem, a temporary name is used until it is
+   * complete.
    *
-   * @param zipFile the final zip file holding the entire archive
+   * @param outputPath the final zip file holding the entire archive, in the target filesystem
    */
-  public void buildArchive(File zipFile) throws DownloadException {
-    LOG.info("Start building the archive {} ", zipFile.getPath());
+  public void buildArchive(Path outputPath) throws DownloadException {
+    LOG.info("Start building the archive {} ", outputPath);
 
     try {
-      if (zipFile.exists()) {
-        zipFile.delete();
-      }
       if (!configuration.isSmallDownload()) {
         // oozie might try several times to run this job, so make sure our filesystem is clean
         cleanupFS();
@@ -227,14 +234,7 @@ public class DwcaArchiveBuilder {
 
       // zip up
       LOG.info("Zipping archive {}", archiveDir);
-      CompressionUtil.zipDir(archiveDir, zipFile, true);
-
-      // add the large download data files to the zip stream
-      if (!configuration.isSmallDownload()) {
-        appendPreCompressedFiles(zipFile);
-      }
-      targetFs.moveFromLocalFile(new Path(zipFile.getPath()),
-                                 new Path(workflowConfiguration.getHdfsOutputPath(), zipFile.getName()));
+      writeArchive(outputPath);
 
     } catch (IOException e) {
       throw new DownloadException(e);
@@ -246,19 +246,26 @@ public class DwcaArchiveBuilder {
 
   }
 
-  public void createEmlFile(UUID constituentId, File emlDir) {
-    try (InputStream in = datasetService.getMetadataDocument(constituentId)) {
-      // store dataset EML as constituent metadata
-      if (in != null) {
-        // copy into archive, reading stream from registry services
-        try(OutputStream out = new FileOutputStream(new File(emlDir, constituentId + ".xml"))) {
-          ByteStreams.copy(in, out);
-        }
-      } else {
-        LOG.error("Found no EML for datasetId {}", constituentId);
+  /**
+   * Writes the archive directory and, for big downloads, the pre-compressed data files into the zip file.
+   * The zip is renamed to outputPath once it is complete.
+   */
+  private void writeArchive(Path outputPath) throws IOException {
+    Path partPath = outputPath.suffix(PART_EXTENSION);
+    try (ModalZipOutputStream zos =
+           new ModalZipOutputStream(new BufferedOutputStream(targetFs.create(partPath, true)))) {
+      zipArchiveDir(zos);
+
+      // add the large download data files to the zip stream
+      if (!configuration.isSmallDownload()) {
+        appendPreCompressedFiles(zos);
       }
-    } catch (IOException ex) {
-      LOG.error("Error creating eml file", ex);
+    }
+    if (targetFs.exists(outputPath)) {
+      targetFs.delete(outputPath, false);
+    }
+    if (!targetFs.rename(partPath, outputPath)) {
+      throw new IOException("Unable to rename " + partPath + " to " + outputPath);
     }
   }
 
@@ -300,54 +307,49 @@ public class DwcaArchiveBuilder {
   }
 
   /**
-   * Rewrites the zip file by opening the original and appending the pre-compressed content on the fly.
+   * Zips the content of the archive directory, including its subdirectories.
+   * The data files of small downloads are deflated in parallel.
    */
-  private void appendPreCompressedFiles(File zipFile) throws IOException {
-
-    LOG.info("Appending pre-compressed occurrence content to the Zip: {}", zipFile.getAbsolutePath());
-
-    File tempZip = new File(archiveDir, zipFile.getName() + ".part");
-    boolean renameOk = zipFile.renameTo(tempZip);
-    if (renameOk) {
-      try (ZipInputStream zin = new ZipInputStream(new FileInputStream(tempZip));
-           ModalZipOutputStream out = new ModalZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)))
-      ) {
-
-        // copy existing entries
-        ZipEntry entry = zin.getNextEntry();
-        while (entry != null) {
-          out.putNextEntry(new org.gbif.hadoop.compress.d2.zip.ZipEntry(entry.getName()),
-                           ModalZipOutputStream.MODE.DEFAULT);
-          ByteStreams.copy(zin, out);
-          entry = zin.getNextEntry();
-        }
-
-        // NOTE: hive lowercases all the paths
-        appendPreCompressedFile(out,
-                                new Path(configuration.getInterpretedDataFileName()),
-                                INTERPRETED_FILENAME,
-                                HeadersFileUtil.getInterpretedTableHeader());
-        appendPreCompressedFile(out,
-                                new Path(configuration.getVerbatimDataFileName()),
-                                VERBATIM_FILENAME,
-                                HeadersFileUtil.getVerbatimTableHeader());
-        appendPreCompressedFile(out,
-                                new Path(configuration.getMultimediaDataFileName()),
-                                MULTIMEDIA_FILENAME,
-                                HeadersFileUtil.getMultimediaTableHeader());
-
-      } finally {
-        // we've rewritten so remove the original
-        if (tempZip != null) {
-          tempZip.delete();
-        }
+  private void zipArchiveDir(ModalZipOutputStream zos) throws IOException {
+    java.nio.file.Path root = archiveDir.toPath();
+    List<java.nio.file.Path> files;
+    try (Stream<java.nio.file.Path> paths = Files.walk(root)) {
+      files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+    ParallelDeflater deflater = new ParallelDeflater();
+    for (java.nio.file.Path file : files) {
+      String entryName = root.relativize(file).toString().replace(File.separatorChar, '/');
+      if (DATA_FILENAMES.contains(entryName)) {
+        deflater.putEntry(zos, entryName, Collections.singletonList(file.toFile()), archiveDir.getParentFile());
+      } else {
+        zos.putNextEntry(new org.gbif.hadoop.compress.d2.zip.ZipEntry(entryName), ModalZipOutputStream.MODE.DEFAULT);
+        Files.copy(file, zos);
+        zos.closeEntry();
       }
-
-    } else {
-      throw new IllegalStateException("Unable to rename existing zip, to allow appending occurrence data");
     }
   }
 
+  /**
+   * Appends the pre-compressed occurrence content, produced by Hive, to the zip stream.
+   */
+  private void appendPreCompressedFiles(ModalZipOutputStream out) throws IOException {
+    LOG.info("Appending pre-compressed occurrence content to the Zip");
+
+    // NOTE: hive lowercases all the paths
+    appendPreCompressedFile(out,
+                            new Path(configuration.getInterpretedDataFileName()),
+                            INTERPRETED_FILENAME,
+                            HeadersFileUtil.getInterpretedTableHeader());
+    appendPreCompressedFile(out,
+                            new Path(configuration.getVerbatimDataFileName()),
+                            VERBATIM_FILENAME,
+                            HeadersFileUtil.getVerbatimTableHeader());
+    appendPreCompressedFile(out,
+                            new Path(configuration.getMultimediaDataFileName()),
+                            MULTIMEDIA_FILENAME,
+                            HeadersFileUtil.getMultimediaTableHeader());
+  }
+
   /**
    * Appends the compressed files found within the directory to the zip stream as the named file
    */
@@ -409,6 +411,9 @@ public class DwcaArchiveBuilder {
     File emlDir = new File(archiveDir, "dataset");
     if (!constituents.isEmpty()) {
       emlDir.mkdir();
+      // eml files
+      datasetMetadataFetcher.copyEmlFiles(constituents.stream().map(Constituent::getDataset)
+                                            .collect(Collectors.toList()), emlDir);
     }
 
     try(Writer rightsWriter = FileUtils.startNewUtf8File(new File(archiveDir, RIGHTS_FILENAME));
@@ -428,9 +433,6 @@ public class DwcaArchiveBuilder {
             writeCitation(citationWriter, constituent.getDataset());
             // rights
             writeRights(rightsWriter, constituent.getDataset());
-            // eml file
-            createEmlFile(dataset.getKey(), emlDir);
-
             // add original author as content provider to main dataset description
             DwcaContactsUtil.getContentProviderContact(constituent.getDataset())
               .ifPresent(provider -> dataset.getContacts().add(provider));
@@ -530,10 +532,11 @@ public class DwcaArchiveBuilder {
 
   /**
    * Creates Map with dataset UUIDs and its record counts.
+   * The datasets are retrieved from the registry concurrently once all the citation files are read.
    */
   private Set<Constituent> loadCitations(Path citationSrc) throws IOException {
-    // the hive query result is a directory with one or more files - read them all into a uuid set
-    Set<Constituent> datasets = Sets.newTreeSet(); // list of constituents datasets
+    // the hive query result is a directory with one or more files - read them all into a uuid map
+    Map<UUID, Long> counts = Maps.newLinkedHashMap();
     FileStatus[] citFiles = sourceFs.listStatus(citationSrc);
     int invalidUuids = 0;
     for (FileStatus fs : citFiles) {
@@ -550,8 +553,7 @@ public class DwcaArchiveBuilder {
                 // play safe and make sure we got a uuid - even though our api doesnt require it
                 UUID key = UUID.fromString(iter.next());
                 long count = Long.parseLong(iter.next());
-                datasets.add(new Constituent(key, count, datasetService.get(key)));
-                citations.put(key, count);
+                counts.put(key, count);
               } catch (Exception e) {
                 // ignore invalid UUIDs
                 LOG.info("Found invalid UUID as datasetId {}", line);
@@ -563,6 +565,19 @@ public class DwcaArchiveBuilder {
         }
       }
     }
+
+    Set<Constituent> datasets = Sets.newTreeSet(); // list of constituents datasets
+    Map<UUID, Dataset> found = datasetMetadataFetcher.getDatasets(counts.keySet());
+    for (Map.Entry<UUID, Long> count : counts.entrySet()) {
+      Dataset dataset = found.get(count.getKey());
+      if (dataset != null) {
+        datasets.add(new Constituent(count.getKey(), count.getValue(), dataset));
+        citations.put(count.getKey(), count.getValue());
+      } else {
+        LOG.info("Found invalid UUID as datasetId {}", count.getKey());
+        invalidUuids++;
+      }
+    }
     if (invalidUuids > 0) {
       LOG.info("Found {} invalid dataset UUIDs", invalidUuids);
     } else {
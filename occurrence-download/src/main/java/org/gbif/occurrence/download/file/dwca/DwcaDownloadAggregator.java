@@ -11,9 +11,9 @@ import org.gbif.occurrence.download.util.HeadersFileUtil;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Throwables;
 import org.slf4j.Logger;
@@ -50,16 +50,12 @@ public class DwcaDownloadAggregator implements DownloadAggregator {
   }
 
   /**
-   * Appends the result files to the output file.
+   * Appends the part files of the results, with the suffix, to the output file.
    */
-  private static void appendResult(Result result, OutputStream interpretedFileWriter, OutputStream verbatimFileWriter,
-                                   OutputStream multimediaFileWriter) throws IOException {
-    DownloadFileUtils.appendAndDelete(result.getDownloadFileWork().getJobDataFileName()
-                                      + TableSuffixes.INTERPRETED_SUFFIX, interpretedFileWriter);
-    DownloadFileUtils.appendAndDelete(result.getDownloadFileWork().getJobDataFileName() + TableSuffixes.VERBATIM_SUFFIX,
-                                      verbatimFileWriter);
-    DownloadFileUtils.appendAndDelete(result.getDownloadFileWork().getJobDataFileName()
-                                      + TableSuffixes.MULTIMEDIA_SUFFIX, multimediaFileWriter);
+  private static void appendResults(List<Result> results, String suffix, String outputFileName) throws IOException {
+    DownloadFileUtils.mergeAndDelete(results.stream()
+                                       .map(result -> result.getDownloadFileWork().getJobDataFileName() + suffix)
+                                       .collect(Collectors.toList()), outputFileName);
   }
 
   public DwcaDownloadAggregator(DownloadJobConfiguration configuration,
@@ -81,22 +77,26 @@ public class DwcaDownloadAggregator implements DownloadAggregator {
   @Override
   public void aggregate(List<Result> results) {
     init();
-    try (
-      FileOutputStream interpretedFileWriter = new FileOutputStream(configuration.getInterpretedDataFileName(), true);
-      FileOutputStream verbatimFileWriter = new FileOutputStream(configuration.getVerbatimDataFileName(), true);
-      FileOutputStream multimediaFileWriter = new FileOutputStream(configuration.getMultimediaDataFileName(), true)) {
-
-      HeadersFileUtil.appendInterpretedHeaders(interpretedFileWriter);
-      HeadersFileUtil.appendVerbatimHeaders(verbatimFileWriter);
-      HeadersFileUtil.appendMultimediaHeaders(multimediaFileWriter);
+    try {
+      try (
+        FileOutputStream interpretedFileWriter = new FileOutputStream(configuration.getInterpretedDataFileName(), true);
+        FileOutputStream verbatimFileWriter = new FileOutputStream(configuration.getVerbatimDataFileName(), true);
+        FileOutputStream multimediaFileWriter = new FileOutputStream(configuration.getMultimediaDataFileName(), true)) {
+
+        HeadersFileUtil.appendInterpretedHeaders(interpretedFileWriter);
+        HeadersFileUtil.appendVerbatimHeaders(verbatimFileWriter);
+        HeadersFileUtil.appendMultimediaHeaders(multimediaFileWriter);
+      }
       if (!results.isEmpty()) {
         // Results are sorted to respect the original ordering
         Collections.sort(results);
         DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
         for (Result result : results) {
           datasetUsagesCollector.sumUsages(result.getDatasetUsages());
-          appendResult(result, interpretedFileWriter, verbatimFileWriter, multimediaFileWriter);
         }
+        appendResults(results, TableSuffixes.INTERPRETED_SUFFIX, configuration.getInterpretedDataFileName());
+        appendResults(results, TableSuffixes.VERBATIM_SUFFIX, configuration.getVerbatimDataFileName());
+        appendResults(results, TableSuffixes.MULTIMEDIA_SUFFIX, configuration.getMultimediaDataFileName());
         CitationsFileWriter.createCitationFile(datasetUsagesCollector.getDatasetUsages(),
                                                configuration.getCitationDataFileName(),
                                                occurrenceDownloadService,
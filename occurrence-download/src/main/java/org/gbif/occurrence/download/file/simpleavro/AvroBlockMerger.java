@@ -0,0 +1,194 @@
+package org.gbif.occurrence.download.file.simpleavro;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Concatenates Avro data files, with the same schema, into a single deflate compressed Avro data file.
+ * Records are never decoded: the data blocks of deflate compressed files, the codec used by the Hive download
+ * queries, are copied as they are by {@link DataFileWriter#appendAllFrom(DataFileStream, boolean)}.
+ * Files using other codecs are recompressed to deflate block by block into temporary files by a pool of threads, a few
+ * files ahead of the single writer that copies the blocks of every file in order.
+ */
+public class AvroBlockMerger {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AvroBlockMerger.class);
+
+  // Prefix of the metadata keys reserved by Avro, they are written by the DataFileWriter
+  private static final String RESERVED_META_PREFIX = "avro.";
+
+  private final int level;
+  private final int parallelism;
+
+  /**
+   * Creates a merger that uses the default deflate level and a thread per processor to recompress files.
+   */
+  public AvroBlockMerger() {
+    this(Deflater.DEFAULT_COMPRESSION, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param level       deflate level of the recompressed blocks
+   * @param parallelism maximum number of files recompressed at the same time, and ahead of the writer
+   */
+  public AvroBlockMerger(int level, int parallelism) {
+    this.level = level;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Writes the data blocks of the input files, in order, into out.
+   * The user metadata of the first file is kept. Nothing is written if there are no input files; out is flushed but
+   * not closed.
+   */
+  public void merge(FileSystem fs, List<Path> inputs, OutputStream out) throws IOException {
+    if (inputs.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                                                            new ThreadFactoryBuilder()
+                                                              .setNameFormat("avro-recompress-%d")
+                                                              .setDaemon(true)
+                                                              .build());
+    // recompressed copies of the inputs, null for the inputs that are copied as they are
+    List<Future<File>> recompressions = new ArrayList<>(inputs.size());
+    int appended = 0;
+    try {
+      DataFileWriter<GenericRecord> writer = newWriter();
+      for (Path input : inputs) {
+        while (recompressions.size() < Math.min(inputs.size(), appended + 1 + parallelism)) {
+          Path next = inputs.get(recompressions.size());
+          recompressions.add(executor.submit(() -> recompress(fs, next)));
+        }
+        File recompressed = get(recompressions.get(appended));
+        try (InputStream in = recompressed == null ? fs.open(input) : new FileInputStream(recompressed);
+             DataFileStream<GenericRecord> reader = new DataFileStream<>(in, new GenericDatumReader<GenericRecord>())) {
+          if (appended == 0) {
+            copyMeta(reader, writer);
+            writer.create(reader.getSchema(), out);
+          }
+          // the codecs match so the blocks are copied
+          writer.appendAllFrom(reader, false);
+        } finally {
+          if (recompressed != null) {
+            recompressed.delete();
+          }
+        }
+        appended++;
+      }
+      // the writer isn't closed because that would close out
+      writer.flush();
+    } finally {
+      executor.shutdownNow();
+      deleteRecompressed(executor,
+                         recompressions.subList(Math.min(appended + 1, recompressions.size()), recompressions.size()));
+    }
+  }
+
+  private DataFileWriter<GenericRecord> newWriter() {
+    DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>());
+    writer.setCodec(CodecFactory.deflateCodec(level));
+    writer.setFlushOnEveryBlock(false);
+    return writer;
+  }
+
+  /**
+   * Recompresses the blocks of a file that isn't deflate compressed into a temporary file.
+   *
+   * @return the temporary file or null if the file is deflate compressed
+   */
+  private File recompress(FileSystem fs, Path input) throws IOException {
+    try (InputStream in = fs.open(input);
+         DataFileStream<GenericRecord> reader = new DataFileStream<>(in, new GenericDatumReader<GenericRecord>())) {
+      String codec = reader.getMetaString(DataFileConstants.CODEC);
+      if (DataFileConstants.DEFLATE_CODEC.equals(codec)) {
+        return null;
+      }
+      LOG.info("Recompressing blocks of {}, codec {}", input, codec);
+      File recompressed = File.createTempFile("avro-recompress", ".avro");
+      try (DataFileWriter<GenericRecord> writer = newWriter()) {
+        copyMeta(reader, writer);
+        writer.create(reader.getSchema(), recompressed);
+        writer.appendAllFrom(reader, true);
+      } catch (IOException | RuntimeException e) {
+        recompressed.delete();
+        throw e;
+      }
+      return recompressed;
+    }
+  }
+
+  private static void copyMeta(DataFileStream<GenericRecord> reader, DataFileWriter<GenericRecord> writer) {
+    for (String key : reader.getMetaKeys()) {
+      if (!key.startsWith(RESERVED_META_PREFIX)) {
+        writer.setMeta(key, reader.getMeta(key));
+      }
+    }
+  }
+
+  private static File get(Future<File> recompression) throws IOException {
+    try {
+      return recompression.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted recompressing Avro files");
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Deletes the temporary files of recompressions that were not appended, after a failure.
+   */
+  private static void deleteRecompressed(ExecutorService executor, List<Future<File>> recompressions) {
+    if (recompressions.isEmpty()) {
+      return;
+    }
+    try {
+      // running recompressions are interrupted, queued ones never run
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (Future<File> recompression : recompressions) {
+      if (recompression.isDone()) {
+        try {
+          File recompressed = Futures.getUnchecked(recompression);
+          if (recompressed != null) {
+            recompressed.delete();
+          }
+        } catch (RuntimeException e) {
+          // the failed recompression deleted its file
+        }
+      }
+    }
+  }
+}
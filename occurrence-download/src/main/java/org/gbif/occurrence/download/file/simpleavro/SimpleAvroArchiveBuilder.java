@@ -1,13 +1,6 @@
 package org.gbif.occurrence.download.file.simpleavro;
 
 import com.google.common.base.Throwables;
-import org.apache.avro.file.CodecFactory;
-import org.apache.avro.file.DataFileStream;
-import org.apache.avro.file.DataFileWriter;
-import org.apache.avro.generic.GenericContainer;
-import org.apache.avro.reflect.ReflectDatumReader;
-import org.apache.avro.reflect.ReflectDatumWriter;
-import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -17,8 +10,11 @@ import org.gbif.utils.file.properties.PropertiesUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -31,45 +27,27 @@ public class SimpleAvroArchiveBuilder {
   // Occurrences file name
   private static final String AVRO_EXTENSION = ".avro";
 
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
   /**
    * Merges the content of sourceFS:sourcePath into targetFS:outputPath in a file called downloadKey.avro.
+   * The data blocks are copied without decoding the records, see {@link AvroBlockMerger}.
    */
   public static void mergeToSingleAvro(final FileSystem sourceFS, FileSystem targetFS, String sourcePath,
                                        String targetPath, String downloadKey) throws IOException {
 
     Path outputPath = new Path(targetPath, downloadKey + AVRO_EXTENSION);
 
-    ReflectDatumWriter<GenericContainer> rdw = new ReflectDatumWriter<>(GenericContainer.class);
-    ReflectDatumReader<GenericContainer> rdr = new ReflectDatumReader<>(GenericContainer.class);
-    boolean first = false;
-
-    try (
-      FSDataOutputStream zipped = targetFS.create(outputPath, true);
-      DataFileWriter<GenericContainer> dfw = new DataFileWriter<>(rdw)
-    ) {
+    try (OutputStream out = new BufferedOutputStream(targetFS.create(outputPath, true), BUFFER_SIZE)) {
 
       final Path inputPath = new Path(sourcePath);
 
-      FileStatus[] hdfsFiles = sourceFS.listStatus(inputPath);
-
-      for (FileStatus fs : hdfsFiles) {
-        try(InputStream is = sourceFS.open(fs.getPath());
-            DataFileStream<GenericContainer> dfs = new DataFileStream<>(is, rdr)) {
-          if (!first) {
-            dfw.setCodec(CodecFactory.deflateCodec(-1));
-            dfw.setFlushOnEveryBlock(false);
-            dfw.create(dfs.getSchema(), zipped);
-            first = true;
-          }
-
-          dfw.appendAllFrom(dfs, false);
-        }
-
+      List<Path> inputs = new ArrayList<>();
+      for (FileStatus fs : sourceFS.listStatus(inputPath)) {
+        inputs.add(fs.getPath());
       }
 
-      dfw.flush();
-      dfw.close();
-      zipped.flush();
+      new AvroBlockMerger().merge(sourceFS, inputs, out);
 
     } catch (Exception ex) {
       LOG.error("Error combining Avro files", ex);
@@ -7,6 +7,7 @@ import org.gbif.hadoop.compress.d2.D2CombineInputStream;
 import org.gbif.hadoop.compress.d2.D2Utils;
 import org.gbif.hadoop.compress.d2.zip.ModalZipOutputStream;
 import org.gbif.hadoop.compress.d2.zip.ZipEntry;
+import org.gbif.occurrence.download.file.archive.ParallelDeflater;
 import org.gbif.occurrence.download.file.common.DownloadFileUtils;
 import org.gbif.occurrence.download.hive.DownloadTerms;
 import org.gbif.occurrence.download.inject.DownloadWorkflowModule;
@@ -15,14 +16,12 @@ import org.gbif.utils.file.properties.PropertiesUtil;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.zip.ZipOutputStream;
 
 import com.google.common.base.Throwables;
 import com.google.common.io.ByteStreams;
@@ -87,28 +86,22 @@ public class SimpleCsvArchiveBuilder {
   }
 
   /**
-   * Merges the file using the standard java libraries java.util.zip.
+   * Merges the uncompressed files of a local directory, they are deflated in parallel into a single entry.
    */
   private void zipDefault(final FileSystem sourceFS, final FileSystem targetFS, String sourcePath,
                                  Path outputPath,String downloadKey) {
     try (
       FSDataOutputStream zipped = targetFS.create(outputPath, true);
-      ZipOutputStream zos = new ZipOutputStream(zipped)
+      ModalZipOutputStream zos = new ModalZipOutputStream(new BufferedOutputStream(zipped))
     ) {
       //appends the header file
       appendHeaderFile(sourceFS, new Path(sourcePath), ModalZipOutputStream.MODE.DEFAULT);
-      java.util.zip.ZipEntry ze = new java.util.zip.ZipEntry(Paths.get(downloadKey + CSV_EXTENSION).toString());
-      zos.putNextEntry(ze);
       //files are sorted by name
-      File[] files = new File(sourcePath).listFiles();
+      File sourceDir = new File(sourcePath);
+      File[] files = sourceDir.listFiles();
       Arrays.sort(files);
-      for (File fileInZip : files) {
-        FileInputStream fileInZipInputStream = new FileInputStream(fileInZip);
-        ByteStreams.copy(fileInZipInputStream, zos);
-        zos.flush();
-        fileInZipInputStream.close();
-      }
-      zos.closeEntry();
+      new ParallelDeflater().putEntry(zos, Paths.get(downloadKey + CSV_EXTENSION).toString(), Arrays.asList(files),
+                                      sourceDir);
     } catch (Exception ex) {
       LOG.error(ERROR_ZIP_MSG, ex);
       throw Throwables.propagate(ex);
@@ -3,28 +3,23 @@ package org.gbif.occurrence.download.file.simplecsv;
 import org.gbif.dwc.terms.DcTerm;
 import org.gbif.dwc.terms.GbifTerm;
 import org.gbif.occurrence.download.file.DownloadFileWork;
+import org.gbif.occurrence.download.file.OccurrenceRow;
 import org.gbif.occurrence.download.file.Result;
+import org.gbif.occurrence.download.file.common.ChunkRetryPolicy;
 import org.gbif.occurrence.download.file.common.DatasetUsagesCollector;
 import org.gbif.occurrence.download.file.common.SearchQueryProcessor;
+import org.gbif.occurrence.download.file.common.TsvWriter;
 import org.gbif.occurrence.download.hive.DownloadTerms;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.Map;
 
 import akka.actor.UntypedActor;
 import com.google.common.base.Throwables;
 import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.converters.DateConverter;
-import org.apache.commons.io.output.FileWriterWithEncoding;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.supercsv.io.CsvMapWriter;
-import org.supercsv.io.ICsvMapWriter;
-import org.supercsv.prefs.CsvPreference;
 
-import static org.gbif.occurrence.download.file.OccurrenceMapReader.buildInterpretedOccurrenceMap;
+import static org.gbif.occurrence.download.file.OccurrenceMapReader.buildInterpretedOccurrenceRow;
 import static org.gbif.occurrence.download.file.OccurrenceMapReader.populateVerbatimCsvFields;
 
 /**
@@ -32,21 +27,17 @@ import static org.gbif.occurrence.download.file.OccurrenceMapReader.populateVerb
  */
 public class SimpleCsvDownloadActor extends UntypedActor {
 
-  private static final Logger LOG = LoggerFactory.getLogger(SimpleCsvDownloadActor.class);
-
   static {
     //https://issues.apache.org/jira/browse/BEANUTILS-387
     ConvertUtils.register(new DateConverter(null), Date.class);
   }
 
-  private static final String[] COLUMNS = DownloadTerms.SIMPLE_DOWNLOAD_TERMS.stream()
-    .map(DownloadTerms::simpleName)
-    .toArray(String[]::new);
-
   @Override
   public void onReceive(Object message) throws Exception {
     if (message instanceof DownloadFileWork) {
-      doWork((DownloadFileWork) message);
+      doWork(ChunkRetryPolicy.Attempt.first((DownloadFileWork) message, getSender()));
+    } else if (message instanceof ChunkRetryPolicy.Attempt) {
+      doWork((ChunkRetryPolicy.Attempt) message);
     } else {
       unhandled(message);
     }
@@ -54,40 +45,40 @@ public class SimpleCsvDownloadActor extends UntypedActor {
 
   /**
    * Executes the job.query and creates a data file that will contains the records from job.from to job.to positions.
+   * Failed attempts are retried, the part file is re-created on each attempt.
    */
-  private void doWork(DownloadFileWork work) throws IOException {
+  private void doWork(ChunkRetryPolicy.Attempt attempt) throws Exception {
+    ChunkRetryPolicy.execute(getContext(), attempt, () -> writeChunk(attempt.getWork()));
+  }
+
+  /**
+   * Writes the part file of a chunk.
+   */
+  private static Result writeChunk(DownloadFileWork work) throws IOException {
 
     final DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
+    final OccurrenceRow occurrenceRow = new OccurrenceRow(DownloadTerms.SIMPLE_DOWNLOAD_TERMS);
 
-    try (ICsvMapWriter csvMapWriter = new CsvMapWriter(new FileWriterWithEncoding(work.getJobDataFileName(),
-                                                                                  StandardCharsets.UTF_8),
-                                                       CsvPreference.TAB_PREFERENCE)) {
+    try (TsvWriter csvWriter = new TsvWriter(work.getJobDataFileName())) {
 
       SearchQueryProcessor.processQuery(work, occurrence -> {
           try {
-            Map<String, String> occurrenceRecordMap = buildInterpretedOccurrenceMap(occurrence, DownloadTerms.SIMPLE_DOWNLOAD_TERMS);
-            populateVerbatimCsvFields(occurrenceRecordMap, occurrence);
+            buildInterpretedOccurrenceRow(occurrence, occurrenceRow);
+            populateVerbatimCsvFields(occurrenceRow, occurrence);
 
             //collect usages
-            datasetUsagesCollector.collectDatasetUsage(occurrenceRecordMap.get(GbifTerm.datasetKey.simpleName()),
-                    occurrenceRecordMap.get(DcTerm.license.simpleName()));
+            datasetUsagesCollector.collectDatasetUsage(occurrenceRow.get(GbifTerm.datasetKey.simpleName()),
+                    occurrenceRow.get(DcTerm.license.simpleName()));
             //write results
-            csvMapWriter.write(occurrenceRecordMap, COLUMNS);
+            csvWriter.write(occurrenceRow.getValues());
 
           } catch (Exception e) {
-            getSender().tell(e, getSelf()); // inform our master
             throw Throwables.propagate(e);
           }
         }
       );
-
-      getSender().tell(new Result(work, datasetUsagesCollector.getDatasetUsages(),
-        datasetUsagesCollector.getDatasetLicenses()), getSelf());
-    } finally {
-      // Release the lock
-      work.getLock().unlock();
-      LOG.info("Lock released, job detail: {} ", work);
     }
+    return new Result(work, datasetUsagesCollector.getDatasetUsages(), datasetUsagesCollector.getDatasetLicenses());
   }
 
 }
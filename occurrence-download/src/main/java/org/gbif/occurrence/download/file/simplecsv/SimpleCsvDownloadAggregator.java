@@ -15,9 +15,9 @@ import org.gbif.occurrence.download.license.LicenseSelector;
 import org.gbif.occurrence.download.license.LicenseSelectors;
 import org.gbif.utils.file.FileUtils;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -85,15 +85,17 @@ public class SimpleCsvDownloadAggregator implements DownloadAggregator {
    * Merges the files of each job into a single CSV file.
    */
   private void mergeResults(List<Result> results) {
-    try (FileOutputStream outputFileWriter = new FileOutputStream(outputFileName, true)) {
+    try {
       // Results are sorted to respect the original ordering
       Collections.sort(results);
       DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
+      List<String> partFileNames = new ArrayList<>(results.size());
       for (Result result : results) {
         datasetUsagesCollector.sumUsages(result.getDatasetUsages());
         datasetUsagesCollector.mergeLicenses(result.getDatasetLicenses());
-        DownloadFileUtils.appendAndDelete(result.getDownloadFileWork().getJobDataFileName(), outputFileWriter);
+        partFileNames.add(result.getDownloadFileWork().getJobDataFileName());
       }
+      DownloadFileUtils.mergeAndDelete(partFileNames, outputFileName);
       occurrenceDownloadService.createUsages(configuration.getDownloadKey(), datasetUsagesCollector.getDatasetUsages());
       persistDownloadLicense(configuration.getDownloadKey(), datasetUsagesCollector.getDatasetLicenses());
     } catch (Exception e) {
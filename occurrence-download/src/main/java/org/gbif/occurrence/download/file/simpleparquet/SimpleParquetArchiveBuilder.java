@@ -0,0 +1,104 @@
+package org.gbif.occurrence.download.file.simpleparquet;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.gbif.occurrence.download.file.common.DownloadFileUtils;
+import org.gbif.occurrence.download.inject.DownloadWorkflowModule;
+import org.gbif.utils.file.properties.PropertiesUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Utility class that creates a zip file from a directory that stores Parquet data (of a Hive table).
+ * Each data file is added as an entry of the occurrence.parquet directory, Parquet pages are already compressed so
+ * the entries are stored without compressing them again.
+ */
+public class SimpleParquetArchiveBuilder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SimpleParquetArchiveBuilder.class);
+
+  // Directory, inside the zip file, that contains the data files
+  static final String PARQUET_DIR = "occurrence.parquet";
+
+  private static final String PARQUET_EXTENSION = ".parquet";
+
+  private static final String ZIP_EXTENSION = ".zip";
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * Zips the data files of sourceFS:sourcePath into targetFS:targetPath in a file called downloadKey.zip.
+   * Hidden files, like _SUCCESS or .crc files, are ignored.
+   */
+  public static void mergeToZip(final FileSystem sourceFS, FileSystem targetFS, String sourcePath,
+                                String targetPath, String downloadKey) throws IOException {
+
+    Path outputPath = new Path(targetPath, downloadKey + ZIP_EXTENSION);
+
+    try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(targetFS.create(outputPath, true),
+                                                                            BUFFER_SIZE))) {
+      zos.setLevel(Deflater.NO_COMPRESSION);
+
+      List<Path> inputs = new ArrayList<>();
+      for (FileStatus fs : sourceFS.listStatus(new Path(sourcePath))) {
+        String name = fs.getPath().getName();
+        if (fs.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+          inputs.add(fs.getPath());
+        }
+      }
+      inputs.sort(Comparator.comparing(Path::getName));
+
+      int fileCount = 0;
+      for (Path input : inputs) {
+        zos.putNextEntry(new ZipEntry(String.format("%s/%06d%s", PARQUET_DIR, fileCount++, PARQUET_EXTENSION)));
+        try (InputStream in = sourceFS.open(input)) {
+          ByteStreams.copy(in, zos);
+        }
+        zos.closeEntry();
+      }
+      LOG.info("Zipped {} Parquet files into {}", fileCount, outputPath);
+
+    } catch (Exception ex) {
+      LOG.error("Error zipping Parquet files", ex);
+      throw Throwables.propagate(ex);
+    }
+  }
+
+  /**
+   * Executes the archive creation process.
+   * The expected parameters are:
+   * 0. sourcePath: HDFS path to the directory that contains the data files.
+   * 1. targetPath: HDFS path where the resulting file will be copied.
+   * 2. downloadKey: occurrence download key.
+   */
+  public static void main(String[] args) throws IOException {
+    Properties properties = PropertiesUtil.loadProperties(DownloadWorkflowModule.CONF_FILE);
+    FileSystem sourceFileSystem = DownloadFileUtils.getHdfs(properties.getProperty(DownloadWorkflowModule.DefaultSettings.NAME_NODE_KEY));
+    mergeToZip(sourceFileSystem,
+               sourceFileSystem,
+               args[0],
+               args[1],
+               args[2]);
+  }
+
+  /**
+   * Private constructor.
+   */
+  private SimpleParquetArchiveBuilder() {
+    //do nothing
+  }
+}
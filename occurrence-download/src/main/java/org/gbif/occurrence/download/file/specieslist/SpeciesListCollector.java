@@ -1,56 +1,312 @@
 package org.gbif.occurrence.download.file.specieslist;
 
 import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.occurrence.download.file.OccurrenceRow;
 import org.gbif.occurrence.download.hive.DownloadTerms;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 
 /**
  * Utility class which collects distinct species info.
+ * Species are grouped by taxon key in an open addressing hash map of primitive keys, the occurrence counts are
+ * stored in a long array and the remaining columns as indexes of a table of interned names, since most of them
+ * (kingdoms, ranks, families...) are shared by many species.
+ * When the number of species exceeds the maximum, the species are spilled to disk as a run sorted by taxon key; runs
+ * are merged by {@link SpeciesListMerger}.
  */
 public class SpeciesListCollector {
 
-  private final Map<String, Map<String, String>> distinctSpeciesRecord = new HashMap<>();
+  // Maximum number of species kept in memory by default, roughly 100 bytes each
+  public static final int DEFAULT_MAX_SPECIES = 500_000;
+
+  // Columns of the species list download
+  static final String[] COLUMNS =
+    DownloadTerms.SPECIES_LIST_DOWNLOAD_TERMS.stream().map(DownloadTerms::simpleName).toArray(String[]::new);
+
+  static final String TAXON_KEY = GbifTerm.taxonKey.simpleName();
+
+  static final String NUMBER_OF_OCCURRENCES = GbifTerm.numberOfOccurrences.simpleName();
+
+  // Columns other than the taxon key and the number of occurrences
+  static final String[] ATTRIBUTES = Arrays.stream(COLUMNS)
+    .filter(column -> !column.equals(TAXON_KEY) && !column.equals(NUMBER_OF_OCCURRENCES))
+    .toArray(String[]::new);
+
+  // Taxon key used for records without taxon key
+  static final long NO_TAXON_KEY = Long.MIN_VALUE;
+
+  private static final int NO_NAME = -1;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final String runFileName;
+
+  private final int maxSpecies;
+
+  private final List<String> runFileNames = new ArrayList<>();
+
+  // hash table, slot -> species index + 1, 0 is an empty slot
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+  // species, stored densely in insertion order
+  private long[] taxonKeys = new long[INITIAL_CAPACITY];
+  private long[] counts = new long[INITIAL_CAPACITY];
+  private int[] attributes = new int[INITIAL_CAPACITY * ATTRIBUTES.length];
+  private int size;
+
+  // interned names
+  private final Map<String, Integer> nameIds = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  private final String[] values = new String[ATTRIBUTES.length];
 
   /**
-   * @return set of records of distinct species.
+   * Creates a collector that keeps all the species in memory.
+   */
+  public SpeciesListCollector() {
+    this(null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a collector that spills the species to files named runFileName + run number when there are more than
+   * maxSpecies.
+   */
+  public SpeciesListCollector(String runFileName, int maxSpecies) {
+    Preconditions.checkArgument(maxSpecies > 0, "maxSpecies must be greater than 0");
+    this.runFileName = runFileName;
+    this.maxSpecies = maxSpecies;
+  }
+
+  /**
+   * @return set of records of distinct species, only species kept in memory are returned.
    */
   public Set<Map<String, String>> getDistinctSpecies() {
-    return new HashSet<>(distinctSpeciesRecord.values());
+    Set<Map<String, String>> species = new HashSet<>(size);
+    for (int i = 0; i < size; i++) {
+      species.add(toRecord(i));
+    }
+    return species;
   }
 
   /**
-   * Gets the species record by taxon key.
+   * Gets the species record by taxon key, only species kept in memory are returned.
    */
   public Map<String, String> getByTaxonKey(String taxonKey) {
-    return distinctSpeciesRecord.get(taxonKey);
+    int index = indexOf(parseTaxonKey(taxonKey));
+    return index < 0 ? null : toRecord(index);
+  }
+
+  /**
+   * @return number of species kept in memory
+   */
+  public int size() {
+    return size;
   }
 
   /**
    * group results by taxon key and order them in {@link DownloadTerms} species list download order.
    */
   public void collect(Map<String, String> occurrenceRecord) {
-    String taxonKey = occurrenceRecord.get(GbifTerm.taxonKey.simpleName());
-
-    distinctSpeciesRecord.put(taxonKey, distinctSpeciesRecord.compute(taxonKey, (k, v) -> {
-      //if the values are already there increment
-      if (v != null) {
-        long count = Long.parseLong(v.get(GbifTerm.numberOfOccurrences.simpleName()))
-                     + Long.parseLong(occurrenceRecord.getOrDefault(GbifTerm.numberOfOccurrences.simpleName(), "1"));
-        v.put(GbifTerm.numberOfOccurrences.simpleName(), Long.toString(count));
-        return v;
+    for (int i = 0; i < ATTRIBUTES.length; i++) {
+      values[i] = occurrenceRecord.get(ATTRIBUTES[i]);
+    }
+    collect(occurrenceRecord.get(TAXON_KEY), occurrenceRecord.get(NUMBER_OF_OCCURRENCES));
+  }
+
+  /**
+   * Same as {@link #collect(Map)} for rows of the species list columns.
+   */
+  public void collect(OccurrenceRow occurrenceRow) {
+    for (int i = 0; i < ATTRIBUTES.length; i++) {
+      values[i] = occurrenceRow.get(ATTRIBUTES[i]);
+    }
+    collect(occurrenceRow.get(TAXON_KEY), occurrenceRow.get(NUMBER_OF_OCCURRENCES));
+  }
+
+  /**
+   * Adds the count to the species, the names of the first record of each species are kept.
+   */
+  private void collect(String taxonKeyValue, String countValue) {
+    long taxonKey = parseTaxonKey(taxonKeyValue);
+    long count = countValue == null ? 1L : Long.parseLong(countValue);
+
+    int slot = slot(taxonKey);
+    if (slots[slot] != 0) {
+      counts[slots[slot] - 1] += count;
+      return;
+    }
+
+    if (size == maxSpecies) {
+      try {
+        spill();
+      } catch (IOException ex) {
+        throw Throwables.propagate(ex);
+      }
+      slot = slot(taxonKey);
+    }
+    ensureCapacity();
+    if (slots.length < (size + 1) * 2) {
+      rehash();
+      slot = slot(taxonKey);
+    }
+    taxonKeys[size] = taxonKey;
+    counts[size] = count;
+    int offset = size * ATTRIBUTES.length;
+    for (int i = 0; i < ATTRIBUTES.length; i++) {
+      attributes[offset + i] = nameId(values[i]);
+    }
+    size++;
+    slots[slot] = size;
+  }
+
+  /**
+   * Writes the species kept in memory as a new run and returns the names of all the runs written.
+   */
+  public List<String> finish() throws IOException {
+    if (size > 0 || runFileNames.isEmpty()) {
+      spill();
+    }
+    return Collections.unmodifiableList(runFileNames);
+  }
+
+  /**
+   * Writes the species kept in memory to a run sorted by taxon key and clears the collector.
+   */
+  private void spill() throws IOException {
+    Preconditions.checkState(runFileName != null, "Collector without run file can't spill species");
+    String fileName = runFileName + runFileNames.size();
+    int[] order = IntStream.range(0, size).boxed()
+      .sorted((a, b) -> Long.compare(taxonKeys[a], taxonKeys[b]))
+      .mapToInt(Integer::intValue).toArray();
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+      for (int index : order) {
+        out.writeLong(taxonKeys[index]);
+        out.writeLong(counts[index]);
+        int offset = index * ATTRIBUTES.length;
+        for (int i = 0; i < ATTRIBUTES.length; i++) {
+          SpeciesListMerger.writeName(out, nameOf(attributes[offset + i]));
+        }
+      }
+    }
+    runFileNames.add(fileName);
+    clear();
+  }
+
+  private void clear() {
+    Arrays.fill(slots, 0);
+    size = 0;
+    nameIds.clear();
+    names.clear();
+  }
+
+  private int indexOf(long taxonKey) {
+    return slots[slot(taxonKey)] - 1;
+  }
+
+  /**
+   * Slot of the taxon key, or the empty slot where it must be inserted.
+   */
+  private int slot(long taxonKey) {
+    int mask = slots.length - 1;
+    int slot = mix(taxonKey) & mask;
+    while (slots[slot] != 0 && taxonKeys[slots[slot] - 1] != taxonKey) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private void ensureCapacity() {
+    if (size == taxonKeys.length) {
+      int capacity = taxonKeys.length * 2;
+      taxonKeys = Arrays.copyOf(taxonKeys, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+      attributes = Arrays.copyOf(attributes, capacity * ATTRIBUTES.length);
+    }
+  }
+
+  /**
+   * Doubles the hash table, keeping a load factor of at most 0.5.
+   */
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    for (int i = 0; i < size; i++) {
+      slots[slot(taxonKeys[i])] = i + 1;
+    }
+  }
+
+  private int nameId(String name) {
+    if (name == null) {
+      return NO_NAME;
+    }
+    Integer id = nameIds.get(name);
+    if (id == null) {
+      id = names.size();
+      names.add(name);
+      nameIds.put(name, id);
+    }
+    return id;
+  }
+
+  private String nameOf(int id) {
+    return id == NO_NAME ? null : names.get(id);
+  }
+
+  private static long parseTaxonKey(String taxonKey) {
+    return taxonKey == null ? NO_TAXON_KEY : Long.parseLong(taxonKey);
+  }
+
+  /**
+   * Species record in {@link DownloadTerms} species list download order.
+   */
+  private Map<String, String> toRecord(int index) {
+    String[] speciesAttributes = new String[ATTRIBUTES.length];
+    for (int i = 0; i < ATTRIBUTES.length; i++) {
+      speciesAttributes[i] = nameOf(attributes[index * ATTRIBUTES.length + i]);
+    }
+    String[] row = toRow(taxonKeys[index], counts[index], speciesAttributes);
+    Map<String, String> record = new LinkedHashMap<>();
+    for (int i = 0; i < COLUMNS.length; i++) {
+      record.put(COLUMNS[i], row[i]);
+    }
+    return record;
+  }
+
+  /**
+   * Values of the species in the order of {@link #COLUMNS}.
+   */
+  static String[] toRow(long taxonKey, long count, String[] speciesAttributes) {
+    String[] row = new String[COLUMNS.length];
+    int attribute = 0;
+    for (int i = 0; i < COLUMNS.length; i++) {
+      if (COLUMNS[i].equals(TAXON_KEY)) {
+        row[i] = taxonKey == NO_TAXON_KEY ? null : Long.toString(taxonKey);
+      } else if (COLUMNS[i].equals(NUMBER_OF_OCCURRENCES)) {
+        row[i] = Long.toString(count);
       } else {
-        occurrenceRecord.putIfAbsent(GbifTerm.numberOfOccurrences.simpleName(), Long.toString(1L));
-        // order the results according to download
-        return new LinkedHashMap<>(DownloadTerms.SPECIES_LIST_DOWNLOAD_TERMS.stream()
-                                     .collect(LinkedHashMap::new, (m, val) -> {
-                                       m.put(val.getRight().simpleName(), occurrenceRecord.get(val.getRight().simpleName()));
-                                     }, LinkedHashMap::putAll));
+        row[i] = speciesAttributes[attribute++];
       }
-    }));
+    }
+    return row;
   }
 }
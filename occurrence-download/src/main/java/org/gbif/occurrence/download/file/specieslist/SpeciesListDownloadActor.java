@@ -1,24 +1,24 @@
 package org.gbif.occurrence.download.file.specieslist;
 
-import static org.gbif.occurrence.download.file.OccurrenceMapReader.buildInterpretedOccurrenceMap;
-import java.io.IOException;
+import static org.gbif.occurrence.download.file.OccurrenceMapReader.buildInterpretedOccurrenceRow;
 import java.util.Date;
-import java.util.Map;
 import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.converters.DateConverter;
 import org.gbif.dwc.terms.DcTerm;
 import org.gbif.dwc.terms.GbifTerm;
 import org.gbif.occurrence.download.file.DownloadFileWork;
+import org.gbif.occurrence.download.file.OccurrenceRow;
+import org.gbif.occurrence.download.file.common.ChunkRetryPolicy;
 import org.gbif.occurrence.download.file.common.DatasetUsagesCollector;
 import org.gbif.occurrence.download.file.common.SearchQueryProcessor;
 import org.gbif.occurrence.download.hive.DownloadTerms;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import com.google.common.base.Throwables;
 import akka.actor.UntypedActor;
 
 public class SpeciesListDownloadActor extends UntypedActor {
-  private static final Logger LOG = LoggerFactory.getLogger(SpeciesListDownloadActor.class);
+
+  // Suffix of the files of the sorted species runs
+  private static final String RUN_SUFFIX = ".species";
 
   static {
     // https://issues.apache.org/jira/browse/BEANUTILS-387
@@ -29,7 +29,9 @@ public class SpeciesListDownloadActor extends UntypedActor {
   @Override
   public void onReceive(Object message) throws Exception {
     if (message instanceof DownloadFileWork) {
-      doWork((DownloadFileWork) message);
+      doWork(ChunkRetryPolicy.Attempt.first((DownloadFileWork) message, getSender()));
+    } else if (message instanceof ChunkRetryPolicy.Attempt) {
+      doWork((ChunkRetryPolicy.Attempt) message);
     } else {
       unhandled(message);
     }
@@ -38,33 +40,33 @@ public class SpeciesListDownloadActor extends UntypedActor {
   /**
    * Executes the job.query and creates a data file that will contains the records from job.from to
    * job.to positions.
+   * Failed attempts are retried, the species are collected again on each attempt.
    */
-  private void doWork(DownloadFileWork work) throws IOException {
+  private void doWork(ChunkRetryPolicy.Attempt attempt) throws Exception {
+    ChunkRetryPolicy.execute(getContext(), attempt, () -> collectChunk(attempt.getWork()));
+  }
 
+  /**
+   * Collects the distinct species of a chunk into sorted runs, written next to the job data file.
+   */
+  private static SpeciesListResult collectChunk(DownloadFileWork work) throws Exception {
     DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
-    SpeciesListCollector speciesCollector = new SpeciesListCollector();
-    try {
-      SearchQueryProcessor.processQuery(work, occurrence -> {
-        try {
-          Map<String, String> occurrenceRecordMap = buildInterpretedOccurrenceMap(occurrence, DownloadTerms.SPECIES_LIST_TERMS);
-          if (occurrenceRecordMap != null) {
-            // collect usages
-            datasetUsagesCollector.collectDatasetUsage(occurrenceRecordMap.get(GbifTerm.datasetKey.simpleName()),
-                occurrenceRecordMap.get(DcTerm.license.simpleName()));
-            speciesCollector.collect(occurrenceRecordMap);
-          }
-        } catch (Exception e) {
-          getSender().tell(e, getSelf()); // inform our master
-          throw Throwables.propagate(e);
-        }
-      });
+    SpeciesListCollector speciesCollector = new SpeciesListCollector(work.getJobDataFileName() + RUN_SUFFIX,
+                                                                     SpeciesListCollector.DEFAULT_MAX_SPECIES);
+    OccurrenceRow occurrenceRow = new OccurrenceRow(DownloadTerms.SPECIES_LIST_TERMS);
+    SearchQueryProcessor.processQuery(work, occurrence -> {
+      try {
+        buildInterpretedOccurrenceRow(occurrence, occurrenceRow);
+        // collect usages
+        datasetUsagesCollector.collectDatasetUsage(occurrenceRow.get(GbifTerm.datasetKey.simpleName()),
+            occurrenceRow.get(DcTerm.license.simpleName()));
+        speciesCollector.collect(occurrenceRow);
+      } catch (Exception e) {
+        throw Throwables.propagate(e);
+      }
+    });
 
-      getSender().tell(new SpeciesListResult(work, datasetUsagesCollector.getDatasetUsages(), datasetUsagesCollector.getDatasetLicenses(),
-        speciesCollector.getDistinctSpecies()), getSelf());
-    } finally {
-      // Release the lock
-      work.getLock().unlock();
-      LOG.info("Lock released, job detail: {} ", work);
-    }
+    return new SpeciesListResult(work, datasetUsagesCollector.getDatasetUsages(), datasetUsagesCollector.getDatasetLicenses(),
+      speciesCollector.finish());
   }
 }
@@ -1,14 +1,13 @@
 package org.gbif.occurrence.download.file.specieslist;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import javax.inject.Inject;
-import org.apache.commons.io.output.FileWriterWithEncoding;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -24,6 +23,7 @@ import org.gbif.occurrence.download.file.Result;
 import org.gbif.occurrence.download.file.common.DatasetUsagesCollector;
 import org.gbif.occurrence.download.file.common.DownloadCount;
 import org.gbif.occurrence.download.file.common.DownloadFileUtils;
+import org.gbif.occurrence.download.file.common.TsvWriter;
 import org.gbif.occurrence.download.file.simplecsv.SimpleCsvArchiveBuilder;
 import org.gbif.occurrence.download.hive.DownloadTerms;
 import org.gbif.occurrence.download.license.LicenseSelector;
@@ -31,9 +31,6 @@ import org.gbif.occurrence.download.license.LicenseSelectors;
 import org.gbif.utils.file.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.supercsv.io.CsvMapWriter;
-import org.supercsv.io.ICsvMapWriter;
-import org.supercsv.prefs.CsvPreference;
 import com.google.common.base.Throwables;
 
 /**
@@ -46,10 +43,6 @@ public class SpeciesListDownloadAggregator implements DownloadAggregator {
 
   private static final String CSV_EXTENSION = ".csv";
 
-  private static final String[] COLUMNS = DownloadTerms.SPECIES_LIST_DOWNLOAD_TERMS.stream()
-    .map(DownloadTerms::simpleName)
-    .toArray(String[]::new);
-
   private final DownloadJobConfiguration configuration;
   private final WorkflowConfiguration workflowConfiguration;
   private final String outputFileName;
@@ -85,44 +78,42 @@ public class SpeciesListDownloadAggregator implements DownloadAggregator {
   }
 
   /**
-   * Merges the files of each job into a single CSV file.
+   * Merges the species runs of each job into a single CSV file.
    */
   private void mergeResults(List<Result> results) {
     // Results are sorted to respect the original ordering
     Collections.sort(results);
     DatasetUsagesCollector datasetUsagesCollector = new DatasetUsagesCollector();
-    SpeciesListCollector speciesListCollector = new SpeciesListCollector();
+    List<String> speciesRunFileNames = new ArrayList<>();
 
     for (Result result : results) {
       SpeciesListResult speciesResult = (SpeciesListResult) result;
       datasetUsagesCollector.sumUsages(speciesResult.getDatasetUsages());
       datasetUsagesCollector.mergeLicenses(speciesResult.getDatasetLicenses());
-      speciesResult.getDistinctSpecies().iterator().forEachRemaining(speciesListCollector::collect);
+      speciesRunFileNames.addAll(speciesResult.getSpeciesRunFileNames());
     }
-    exportToFile(outputFileName, speciesListCollector);
+    long distinctSpecies = exportToFile(outputFileName, speciesRunFileNames);
     occurrenceDownloadService.createUsages(configuration.getDownloadKey(), datasetUsagesCollector.getDatasetUsages());
     persistDownloadLicense(configuration.getDownloadKey(), datasetUsagesCollector.getDatasetLicenses());
-    DownloadCount.persist(configuration.getDownloadKey(), speciesListCollector.getDistinctSpecies().size(), occurrenceDownloadService);
+    DownloadCount.persist(configuration.getDownloadKey(), distinctSpecies, occurrenceDownloadService);
   }
 
-  private void exportToFile(String outputFileName, SpeciesListCollector speciesListCollector) {
-    try (ICsvMapWriter csvMapWriter =
-        new CsvMapWriter(new FileWriterWithEncoding(outputFileName, StandardCharsets.UTF_8), CsvPreference.TAB_PREFERENCE)) {
-      Set<Map<String, String>> distinctSpecies = speciesListCollector.getDistinctSpecies();
-      distinctSpecies.iterator().forEachRemaining(speciesInfo -> {
-        try {
-          csvMapWriter.write(speciesInfo, COLUMNS);
-        } catch (IOException e) {
-          LOG.error("Error merging results", e);
-          throw Throwables.propagate(e);
-        }
-      });
+  /**
+   * Writes the species of all the runs and deletes the runs.
+   *
+   * @return number of distinct species
+   */
+  private static long exportToFile(String outputFileName, List<String> speciesRunFileNames) {
+    try (TsvWriter writer = new TsvWriter(outputFileName)) {
+      long distinctSpecies = SpeciesListMerger.merge(speciesRunFileNames, writer);
+      speciesRunFileNames.forEach(runFileName -> new File(runFileName).delete());
+      return distinctSpecies;
     } catch (Exception e) {
       LOG.error("Error merging results", e);
       throw Throwables.propagate(e);
     }
   }
-  
+
   /**
    * Persist download license that was assigned to the occurrence download.
    */
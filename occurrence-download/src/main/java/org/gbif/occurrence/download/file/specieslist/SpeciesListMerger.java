@@ -0,0 +1,150 @@
+package org.gbif.occurrence.download.file.specieslist;
+
+import org.gbif.occurrence.download.file.common.TsvWriter;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the sorted runs written by {@link SpeciesListCollector} into the species list file.
+ * The runs are read in parallel, k-way, so only the current species of each run is kept in memory. The counts of a
+ * species found in several runs are added up, and its names are taken from the first run, in the order of the list,
+ * that contains it.
+ */
+public class SpeciesListMerger {
+
+  private static final Comparator<Run> RUN_COMPARATOR =
+    Comparator.comparingLong(Run::getTaxonKey).thenComparingInt(Run::getIndex);
+
+  /**
+   * Hidden constructor.
+   */
+  private SpeciesListMerger() {
+    //empty constructor
+  }
+
+  /**
+   * Writes the species of all the runs, sorted by taxon key, in the columns of the species list download.
+   *
+   * @return number of distinct species written
+   */
+  public static long merge(List<String> runFileNames, TsvWriter writer) throws IOException {
+    PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, runFileNames.size()), RUN_COMPARATOR);
+    List<Run> runs = new ArrayList<>(runFileNames.size());
+    try {
+      for (String runFileName : runFileNames) {
+        Run run = new Run(runs.size(), runFileName);
+        runs.add(run);
+        if (run.next()) {
+          queue.add(run);
+        }
+      }
+
+      long species = 0;
+      while (!queue.isEmpty()) {
+        Run first = queue.poll();
+        long taxonKey = first.getTaxonKey();
+        long count = first.getCount();
+        String[] names = first.getNames().clone();
+        advance(first, queue);
+        while (!queue.isEmpty() && queue.peek().getTaxonKey() == taxonKey) {
+          Run run = queue.poll();
+          count += run.getCount();
+          advance(run, queue);
+        }
+        writer.write(SpeciesListCollector.toRow(taxonKey, count, names));
+        species++;
+      }
+      return species;
+    } finally {
+      for (Run run : runs) {
+        run.close();
+      }
+    }
+  }
+
+  private static void advance(Run run, PriorityQueue<Run> queue) throws IOException {
+    if (run.next()) {
+      queue.add(run);
+    }
+  }
+
+  /**
+   * Writes a nullable name.
+   */
+  static void writeName(DataOutputStream out, String name) throws IOException {
+    out.writeBoolean(name != null);
+    if (name != null) {
+      out.writeUTF(name);
+    }
+  }
+
+  private static String readName(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /**
+   * Cursor over the species of a run.
+   */
+  private static class Run implements Closeable {
+
+    private final int index;
+    private final DataInputStream in;
+    private final String[] names = new String[SpeciesListCollector.ATTRIBUTES.length];
+    private long taxonKey;
+    private long count;
+
+    Run(int index, String fileName) throws IOException {
+      this.index = index;
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+    }
+
+    /**
+     * Reads the next species.
+     *
+     * @return false if the run is exhausted
+     */
+    boolean next() throws IOException {
+      try {
+        taxonKey = in.readLong();
+      } catch (EOFException ex) {
+        return false;
+      }
+      count = in.readLong();
+      for (int i = 0; i < names.length; i++) {
+        names[i] = readName(in);
+      }
+      return true;
+    }
+
+    int getIndex() {
+      return index;
+    }
+
+    long getTaxonKey() {
+      return taxonKey;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    String[] getNames() {
+      return names;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
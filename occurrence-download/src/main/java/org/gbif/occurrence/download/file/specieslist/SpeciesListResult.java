@@ -1,5 +1,6 @@
 package org.gbif.occurrence.download.file.specieslist;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -9,20 +10,21 @@ import org.gbif.occurrence.download.file.Result;
 
 /**
  * 
- * Customizing {@link org.gbif.occurrence.download.file.Result} to add distinct species list.
+ * Customizing {@link org.gbif.occurrence.download.file.Result} to add the files of the distinct species list, sorted runs
+ * written by {@link SpeciesListCollector}.
  *
  */
 public class SpeciesListResult extends Result {
 
-  private final Set<Map<String, String>> distinctSpecies;
+  private final List<String> speciesRunFileNames;
 
   public SpeciesListResult(DownloadFileWork work, Map<UUID, Long> datasetUsages, Set<License> datasetLicenses,
-      Set<Map<String, String>> distinctSpecies) {
+      List<String> speciesRunFileNames) {
     super(work, datasetUsages, datasetLicenses);
-    this.distinctSpecies = distinctSpecies;
+    this.speciesRunFileNames = speciesRunFileNames;
   }
 
-  public Set<Map<String, String>> getDistinctSpecies() {
-    return distinctSpecies;
+  public List<String> getSpeciesRunFileNames() {
+    return speciesRunFileNames;
   }
 }
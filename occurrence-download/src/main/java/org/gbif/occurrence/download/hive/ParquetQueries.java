@@ -0,0 +1,33 @@
+package org.gbif.occurrence.download.hive;
+
+import org.gbif.dwc.terms.Term;
+import org.gbif.occurrence.common.HiveColumnsUtils;
+import org.gbif.occurrence.common.TermUtils;
+
+/**
+ * Utilities related to the actual queries executed at runtime — these functions for generating Parquet downloads.
+ * Columns keep the types of the occurrence table, except dates which are exported as ISO 8601 strings.
+ */
+class ParquetQueries extends TsvQueries {
+
+  @Override
+  String toHiveDataType(Term term) {
+    if (TermUtils.isInterpretedLocalDate(term) || TermUtils.isInterpretedUtcDate(term)) {
+      return HiveDataTypes.TYPE_STRING;
+    }
+    return HiveColumnsUtils.getHiveType(term);
+  }
+
+  @Override
+  String toInterpretedHiveInitializer(Term term) {
+    if (TermUtils.isInterpretedLocalDate(term)) {
+      return toLocalISO8601Initializer(term);
+    } else if (TermUtils.isInterpretedUtcDate(term)) {
+      return toISO8601Initializer(term);
+    } else {
+      return HiveColumns.columnFor(term);
+    }
+  }
+
+  ParquetQueries() {}
+}
@@ -18,6 +18,7 @@ import org.gbif.occurrence.download.file.DownloadMaster;
 import org.gbif.occurrence.download.file.dwca.DwcaDownloadAggregator;
 import org.gbif.occurrence.download.file.simplecsv.SimpleCsvDownloadAggregator;
 import org.gbif.occurrence.download.file.specieslist.SpeciesListDownloadAggregator;
+import org.gbif.occurrence.download.oozie.DownloadCostEstimator;
 import org.gbif.occurrence.download.oozie.DownloadPrepareAction;
 import org.gbif.occurrence.search.es.EsConfig;
 import org.gbif.registry.ws.client.OccurrenceDownloadClient;
@@ -27,14 +28,23 @@ import org.gbif.wrangler.lock.zookeeper.ZookeeperSharedReadWriteMutex;
 import org.gbif.ws.client.ClientFactory;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.Strings;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.elasticsearch.client.sniff.SniffOnFailureListener;
 import org.elasticsearch.client.sniff.Sniffer;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Utility factory class to create instances of common complex objects required by Download Actions.
@@ -43,6 +53,8 @@ import org.elasticsearch.client.sniff.Sniffer;
 @Builder
 public class DownloadWorkflowModule  {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DownloadWorkflowModule.class);
+
   public static final String CONF_FILE = "occurrence-download.properties";
 
   //Prefix for static settings
@@ -66,9 +78,27 @@ public class DownloadWorkflowModule  {
             .smallDownloadLimit(workflowConfiguration.getIntSetting(DefaultSettings.MAX_RECORDS_KEY))
             .workflowConfiguration(workflowConfiguration)
             .occurrenceDownloadService(clientFactory().newInstance(OccurrenceDownloadClient.class))
+            .costEstimator(downloadCostEstimator())
             .build();
   }
 
+  /**
+   * Estimator of the download routes, null if no timings are configured or they can't be read.
+   */
+  public DownloadCostEstimator downloadCostEstimator() {
+    String timings = workflowConfiguration.getSetting(DefaultSettings.ROUTING_TIMINGS_KEY);
+    if (Strings.isNullOrEmpty(timings)) {
+      return null;
+    }
+    try (Reader reader = new InputStreamReader(FileSystem.get(workflowConfiguration.getHadoopConf())
+                                                 .open(new Path(timings)), StandardCharsets.UTF_8)) {
+      return DownloadCostEstimator.fromTsv(reader);
+    } catch (IOException ex) {
+      LOG.warn("Download timings {} can't be read, downloads are routed by record count", timings, ex);
+      return null;
+    }
+  }
+
   /**
    * GBIF Ws client factory.
    */
@@ -269,6 +299,7 @@ public class DownloadWorkflowModule  {
     public static final String MAX_RECORDS_KEY = PROPERTIES_PREFIX + "file.max_records";
     public static final String ZK_LOCK_NAME_KEY = PROPERTIES_PREFIX + "zookeeper.lock_name";
     public static final String MAX_GLOBAL_THREADS_KEY = PROPERTIES_PREFIX + "max_global_threads";
+    public static final String ROUTING_TIMINGS_KEY = PROPERTIES_PREFIX + "routing.timings";
 
     public static final String DOWNLOAD_USER_KEY = PROPERTIES_PREFIX + "ws.username";
     public static final String DOWNLOAD_PASSWORD_KEY = PROPERTIES_PREFIX + "ws.password";
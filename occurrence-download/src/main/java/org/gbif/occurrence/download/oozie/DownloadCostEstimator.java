@@ -0,0 +1,177 @@
+package org.gbif.occurrence.download.oozie;
+
+import org.gbif.api.model.occurrence.DownloadFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Estimates the completion time of a download processed from Elasticsearch (small download) or from Hive (big
+ * download), to process each download through the fastest route.
+ * The estimation of each format and route is a linear model of the work of the download, its number of records times
+ * the complexity of its predicate, fitted to the timings of past downloads.
+ */
+public class DownloadCostEstimator {
+
+  /**
+   * Ways of processing a download.
+   */
+  public enum Route {
+    SMALL, BIG
+  }
+
+  // formats that have a small download route, the others are always processed from Hive
+  private static final Set<DownloadFormat> SMALL_DOWNLOAD_FORMATS =
+    EnumSet.of(DownloadFormat.DWCA, DownloadFormat.SIMPLE_CSV, DownloadFormat.SPECIES_LIST);
+
+  private static final Splitter TAB_SPLITTER = Splitter.on('\t').trimResults();
+
+  private final Map<DownloadFormat, Map<Route, Model>> models = new EnumMap<>(DownloadFormat.class);
+
+  /**
+   * Fits the models of the formats and routes with timings of at least two downloads of different work.
+   */
+  public DownloadCostEstimator(Collection<Timing> timings) {
+    Map<DownloadFormat, Map<Route, List<Timing>>> grouped = new EnumMap<>(DownloadFormat.class);
+    for (Timing timing : timings) {
+      grouped.computeIfAbsent(timing.getFormat(), format -> new EnumMap<>(Route.class))
+        .computeIfAbsent(timing.getRoute(), route -> new ArrayList<>())
+        .add(timing);
+    }
+    grouped.forEach((format, routes) -> routes.forEach((route, routeTimings) -> {
+      Model model = Model.fit(routeTimings);
+      if (model != null) {
+        models.computeIfAbsent(format, f -> new EnumMap<>(Route.class)).put(route, model);
+      }
+    }));
+  }
+
+  /**
+   * Reads the timings of past downloads, one per line with the tab separated columns format, route, records,
+   * complexity and seconds. Empty lines and lines starting with # are ignored.
+   */
+  public static DownloadCostEstimator fromTsv(Reader reader) throws IOException {
+    List<Timing> timings = new ArrayList<>();
+    BufferedReader lines = new BufferedReader(reader);
+    String line;
+    while ((line = lines.readLine()) != null) {
+      if (Strings.isNullOrEmpty(line.trim()) || line.startsWith("#")) {
+        continue;
+      }
+      List<String> columns = TAB_SPLITTER.splitToList(line);
+      if (columns.size() != 5) {
+        throw new IOException("Invalid download timing: " + line);
+      }
+      try {
+        timings.add(Timing.builder()
+                      .format(DownloadFormat.valueOf(columns.get(0)))
+                      .route(Route.valueOf(columns.get(1)))
+                      .records(Long.parseLong(columns.get(2)))
+                      .complexity(Double.parseDouble(columns.get(3)))
+                      .seconds(Double.parseDouble(columns.get(4)))
+                      .build());
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid download timing: " + line, e);
+      }
+    }
+    return new DownloadCostEstimator(timings);
+  }
+
+  /**
+   * Expected completion time of a download, if there are timings of its format and route.
+   */
+  public OptionalDouble expectedSeconds(DownloadFormat format, Route route, long records, double complexity) {
+    Model model = models.getOrDefault(format, new EnumMap<>(Route.class)).get(route);
+    return model == null ? OptionalDouble.empty() : OptionalDouble.of(model.predict(records * complexity));
+  }
+
+  /**
+   * Route with the lowest expected completion time, if both can be estimated.
+   * Downloads of formats without small download route are always big downloads.
+   */
+  public Optional<Route> fastestRoute(DownloadFormat format, long records, double complexity) {
+    if (!SMALL_DOWNLOAD_FORMATS.contains(format)) {
+      return Optional.of(Route.BIG);
+    }
+    OptionalDouble small = expectedSeconds(format, Route.SMALL, records, complexity);
+    OptionalDouble big = expectedSeconds(format, Route.BIG, records, complexity);
+    if (!small.isPresent() || !big.isPresent()) {
+      return Optional.empty();
+    }
+    return Optional.of(small.getAsDouble() <= big.getAsDouble() ? Route.SMALL : Route.BIG);
+  }
+
+  /**
+   * Recorded timing of a past download.
+   */
+  @Data
+  @Builder
+  public static class Timing {
+
+    private final DownloadFormat format;
+
+    private final Route route;
+
+    private final long records;
+
+    // complexity score of the predicate of the download
+    private final double complexity;
+
+    private final double seconds;
+
+    double getWork() {
+      return records * complexity;
+    }
+  }
+
+  /**
+   * Least squares fit of seconds = intercept + slope * work.
+   */
+  private static class Model {
+
+    private final double intercept;
+    private final double slope;
+
+    private Model(double intercept, double slope) {
+      this.intercept = intercept;
+      this.slope = slope;
+    }
+
+    static Model fit(List<Timing> timings) {
+      int n = timings.size();
+      double meanWork = timings.stream().mapToDouble(Timing::getWork).average().orElse(0);
+      double meanSeconds = timings.stream().mapToDouble(Timing::getSeconds).average().orElse(0);
+      double covariance = 0;
+      double variance = 0;
+      for (Timing timing : timings) {
+        covariance += (timing.getWork() - meanWork) * (timing.getSeconds() - meanSeconds);
+        variance += (timing.getWork() - meanWork) * (timing.getWork() - meanWork);
+      }
+      if (n < 2 || variance == 0) {
+        return null;
+      }
+      // noisy timings can't make a download faster with more work
+      double slope = Math.max(0, covariance / variance);
+      return new Model(meanSeconds - slope * meanWork, slope);
+    }
+
+    double predict(double work) {
+      return Math.max(0, intercept + slope * work);
+    }
+  }
+}
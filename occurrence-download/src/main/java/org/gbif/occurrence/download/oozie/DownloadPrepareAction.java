@@ -15,10 +15,12 @@ import org.gbif.api.model.occurrence.DownloadFormat;
 import org.gbif.api.model.occurrence.predicate.Predicate;
 import org.gbif.api.service.registry.OccurrenceDownloadService;
 import org.gbif.occurrence.common.download.DownloadUtils;
+import org.gbif.occurrence.common.download.PredicateRewriter;
 import org.gbif.occurrence.download.conf.WorkflowConfiguration;
 import org.gbif.occurrence.download.inject.DownloadWorkflowModule;
 import org.gbif.occurrence.download.query.EsQueryVisitor;
 import org.gbif.occurrence.download.query.HiveQueryVisitor;
+import org.gbif.occurrence.download.query.PredicateComplexity;
 import org.gbif.occurrence.download.query.QueryBuildingException;
 
 import java.io.Closeable;
@@ -28,6 +30,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
 
 import com.google.common.base.Strings;
@@ -41,7 +44,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 /**
  * This class sets the following parameters required by the download workflow:
  * - is_small_download: define if the occurrence download must be processed as a small(ES) or a big (Hive) download.
- * This parameter is calculated by executing an ElasticSearch query that counts the number of records.
+ * This parameter is calculated by executing an ElasticSearch query that counts the number of records, downloads under
+ * the small download limit are processed through the route with the lowest expected completion time when the
+ * costEstimator can estimate both.
  * - search_query: query to process small download, it's a translation of the predicate filter.
  * - hive_query: query to process big download, it's a translation of the predicate filter.
  * - hive_db: this parameter is read from a properties file.
@@ -89,6 +94,9 @@ public class DownloadPrepareAction implements Closeable {
 
   private final WorkflowConfiguration workflowConfiguration;
 
+  // Optional, without it the downloads under the small download limit are small downloads
+  private final DownloadCostEstimator costEstimator;
+
   /**
    * Entry point: receives as argument the predicate filter and the Oozie workflow id.
    */
@@ -112,6 +120,22 @@ public class DownloadPrepareAction implements Closeable {
     return recordCount != ERROR_COUNT && recordCount <= smallDownloadLimit;
   }
 
+  /**
+   * Determines if a download is processed as a small download, only downloads under the small download limit can be
+   * and they are unless the cost estimator expects them to complete sooner as big downloads.
+   */
+  private boolean isSmallDownload(Predicate predicate, DownloadFormat format, long recordCount) {
+    if (costEstimator == null || !isSmallDownloadCount(recordCount)) {
+      return isSmallDownloadCount(recordCount);
+    }
+    double complexity = PredicateComplexity.of(predicate).getScore();
+    Optional<DownloadCostEstimator.Route> route = costEstimator.fastestRoute(format, recordCount, complexity);
+    LOG.info("Download of {} records with complexity {}, expected seconds small {} big {}", recordCount, complexity,
+             costEstimator.expectedSeconds(format, DownloadCostEstimator.Route.SMALL, recordCount, complexity),
+             costEstimator.expectedSeconds(format, DownloadCostEstimator.Route.BIG, recordCount, complexity));
+    return route.map(DownloadCostEstimator.Route.SMALL::equals).orElse(true);
+  }
+
   /**
    * Update the Oozie workflow data/parameters and persists the records of the occurrence download.
    *
@@ -132,15 +156,18 @@ public class DownloadPrepareAction implements Closeable {
       props.setProperty(DOWNLOAD_TABLE_NAME, downloadKey.replaceAll("-", "_"));
       props.setProperty(HIVE_DB, workflowConfiguration.getHiveDb());
 
-      Predicate predicate = OBJECT_MAPPER.readValue(rawPredicate, Predicate.class);
+      Predicate predicate = PredicateRewriter.rewrite(OBJECT_MAPPER.readValue(rawPredicate, Predicate.class));
       String searchQuery = new EsQueryVisitor().getQuery(predicate);
-      long recordCount = getRecordCount(searchQuery);
-      props.setProperty(IS_SMALL_DOWNLOAD, isSmallDownloadCount(recordCount).toString());
-      if (isSmallDownloadCount(recordCount)) {
+      // a predicate that can't match any record doesn't need to be counted
+      long recordCount = PredicateRewriter.isUnsatisfiable(predicate) ? 0 : getRecordCount(searchQuery);
+      DownloadFormat format = DownloadFormat.valueOf(downloadFormat.trim());
+      boolean isSmallDownload = isSmallDownload(predicate, format, recordCount);
+      props.setProperty(IS_SMALL_DOWNLOAD, Boolean.toString(isSmallDownload));
+      if (isSmallDownload) {
         props.setProperty(SEARCH_QUERY, StringEscapeUtils.escapeXml10(searchQuery));
       }
       props.setProperty(HIVE_QUERY, StringEscapeUtils.escapeXml10(new HiveQueryVisitor().getHiveQuery(predicate)));
-      if (recordCount >= 0 && DownloadFormat.valueOf(downloadFormat.trim()) != DownloadFormat.SPECIES_LIST) {
+      if (recordCount >= 0 && format != DownloadFormat.SPECIES_LIST) {
         updateTotalRecordsCount(downloadKey, recordCount);
       }
 
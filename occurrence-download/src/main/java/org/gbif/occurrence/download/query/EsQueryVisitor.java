@@ -18,17 +18,14 @@ import org.gbif.api.model.occurrence.predicate.Predicate;
 import org.gbif.api.model.occurrence.predicate.SimplePredicate;
 import org.gbif.api.model.occurrence.predicate.WithinPredicate;
 import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.google.common.base.Throwables;
-
 import org.gbif.api.util.VocabularyUtils;
 import org.gbif.api.vocabulary.Country;
+import org.gbif.occurrence.common.download.PredicateType;
 import org.gbif.occurrence.search.es.EsQueryUtils;
 import org.gbif.occurrence.search.es.EsSearchRequestBuilder;
 import org.gbif.occurrence.search.es.OccurrenceEsField;
@@ -297,23 +294,57 @@ public class EsQueryVisitor {
     queryBuilder.filter().add(QueryBuilders.existsQuery(getElasticFieldName(predicate.getParameter())));
   }
 
+  /**
+   * Dispatches a predicate to the visit method of its class.
+   */
   private void visit(Object object, BoolQueryBuilder queryBuilder) throws QueryBuildingException {
-    Method method;
+    PredicateType type = PredicateType.of(object);
     try {
-      method = getClass().getMethod("visit", object.getClass(), BoolQueryBuilder.class);
-    } catch (NoSuchMethodException e) {
-      LOG.warn("Visit method could not be found. That means a unknown Predicate has been passed", e);
-      throw new IllegalArgumentException("Unknown Predicate", e);
-    }
-    try {
-      method.invoke(this, object, queryBuilder);
-    } catch (IllegalAccessException e) {
-      LOG.error("This error shouldn't occur if all visit methods are public. Probably a programming error", e);
-      Throwables.propagate(e);
-    } catch (InvocationTargetException e) {
+      switch (type) {
+        case CONJUNCTION:
+          visit((ConjunctionPredicate) object, queryBuilder);
+          break;
+        case DISJUNCTION:
+          visit((DisjunctionPredicate) object, queryBuilder);
+          break;
+        case EQUALS:
+          visit((EqualsPredicate) object, queryBuilder);
+          break;
+        case GREATER_THAN_OR_EQUALS:
+          visit((GreaterThanOrEqualsPredicate) object, queryBuilder);
+          break;
+        case GREATER_THAN:
+          visit((GreaterThanPredicate) object, queryBuilder);
+          break;
+        case IN:
+          visit((InPredicate) object, queryBuilder);
+          break;
+        case IS_NOT_NULL:
+          visit((IsNotNullPredicate) object, queryBuilder);
+          break;
+        case LESS_THAN_OR_EQUALS:
+          visit((LessThanOrEqualsPredicate) object, queryBuilder);
+          break;
+        case LESS_THAN:
+          visit((LessThanPredicate) object, queryBuilder);
+          break;
+        case LIKE:
+          visit((LikePredicate) object, queryBuilder);
+          break;
+        case NOT:
+          visit((NotPredicate) object, queryBuilder);
+          break;
+        case WITHIN:
+          visit((WithinPredicate) object, queryBuilder);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown Predicate");
+      }
+    } catch (RuntimeException e) {
       LOG.info("Exception thrown while building the query", e);
       throw new QueryBuildingException(e);
     }
   }
 
+
 }
@@ -42,9 +42,8 @@ import org.gbif.dwc.terms.GbifInternalTerm;
 import org.gbif.dwc.terms.GbifTerm;
 import org.gbif.dwc.terms.Term;
 import org.gbif.occurrence.common.HiveColumnsUtils;
+import org.gbif.occurrence.common.download.PredicateType;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -55,15 +54,12 @@ import java.util.Optional;
 import java.util.function.Function;
 
 import com.google.common.base.CharMatcher;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.gbif.occurrence.search.es.OccurrenceEsField;
+import org.gbif.occurrence.search.es.QueryGeometry;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.spatial4j.context.jts.DatelineRule;
-import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
-import org.locationtech.spatial4j.io.WKTReader;
 import org.locationtech.spatial4j.shape.Rectangle;
 import org.locationtech.spatial4j.shape.Shape;
 import org.locationtech.spatial4j.shape.jts.JtsGeometry;
@@ -75,9 +71,8 @@ import org.slf4j.LoggerFactory;
  * object.
  * </p>
  * This is not thread-safe but one instance can be reused. It is package-local and should usually be accessed through
- * {@link org.gbif.api.service.occurrence.DownloadRequestService}. All {@code visit} methods have to be public for the
- * {@link Class#getMethod(String, Class[])} call to work. This is the primary reason for this class being
- * package-local.
+ * {@link org.gbif.api.service.occurrence.DownloadRequestService}. Predicates are dispatched to their {@code visit}
+ * method by their {@link PredicateType}.
  * </p>
  * The only entry point into this class is the {@code getHiveQuery} method!
  */
@@ -430,16 +425,10 @@ public class HiveQueryVisitor {
   }
 
   public void visit(WithinPredicate within) throws QueryBuildingException {
-    JtsSpatialContextFactory spatialContextFactory = new JtsSpatialContextFactory();
-    spatialContextFactory.normWrapLongitude = true;
-    spatialContextFactory.srid = 4326;
-    spatialContextFactory.datelineRule = DatelineRule.ccwRect;
-
-    WKTReader reader = new WKTReader(spatialContextFactory.newSpatialContext(), spatialContextFactory);
-
     try {
       // the geometry must be valid - it was validated in the predicates constructor
-      Shape geometry = reader.parse(within.getGeometry());
+      QueryGeometry queryGeometry = QueryGeometry.of(within.getGeometry());
+      Shape geometry = queryGeometry.getShape();
 
       builder.append('(');
       String withinGeometry;
@@ -447,24 +436,22 @@ public class HiveQueryVisitor {
       // Add an additional filter to a bounding box around any shapes that aren't quadrilaterals, to speed up the query.
       if (geometry instanceof JtsGeometry && ((JtsGeometry) geometry).getGeom().getNumPoints() != 5) {
         // Use the Spatial4J-fixed geometry; this is split into a multipolygon if it crosses the antimeridian.
-        withinGeometry = ((JtsGeometry) geometry).getGeom().toText();
+        withinGeometry = queryGeometry.getShapeWkt();
 
         Rectangle bounds = geometry.getBoundingBox();
         boundingBox(bounds);
         builder.append(CONJUNCTION_OPERATOR);
+
+        // Geometries with many vertices are also filtered by a simplified geometry that contains them.
+        String prefilter = queryGeometry.getPrefilterWkt();
+        if (prefilter != null) {
+          appendContains(prefilter);
+          builder.append(CONJUNCTION_OPERATOR);
+        }
       } else {
         withinGeometry = within.getGeometry();
       }
-      builder.append("contains(\"");
-      builder.append(withinGeometry);
-      builder.append("\", ");
-      builder.append(HiveColumnsUtils.getHiveColumn(DwcTerm.decimalLatitude));
-      builder.append(", ");
-      builder.append(HiveColumnsUtils.getHiveColumn(DwcTerm.decimalLongitude));
-      // Without the "= TRUE", the expression may evaluate to TRUE or FALSE for all records, depending
-      // on the data format (ORC, Avro, Parquet, text) of the table (!).
-      // We could not reproduce the issue on our test cluster, so it seems safest to include this.
-      builder.append(") = TRUE");
+      appendContains(withinGeometry);
 
       builder.append(')');
     } catch (Exception e) {
@@ -472,6 +459,22 @@ public class HiveQueryVisitor {
     }
   }
 
+  /**
+   * Appends a call to the contains function, matching the records whose coordinates are in the geometry.
+   */
+  private void appendContains(String geometry) {
+    builder.append("contains(\"");
+    builder.append(geometry);
+    builder.append("\", ");
+    builder.append(HiveColumnsUtils.getHiveColumn(DwcTerm.decimalLatitude));
+    builder.append(", ");
+    builder.append(HiveColumnsUtils.getHiveColumn(DwcTerm.decimalLongitude));
+    // Without the "= TRUE", the expression may evaluate to TRUE or FALSE for all records, depending
+    // on the data format (ORC, Avro, Parquet, text) of the table (!).
+    // We could not reproduce the issue on our test cluster, so it seems safest to include this.
+    builder.append(") = TRUE");
+  }
+
   /**
    * Given a bounding box, generates greater than / lesser than queries using decimalLatitude and
    * decimalLongitude to form a bounding box.
@@ -681,22 +684,56 @@ public class HiveQueryVisitor {
     return new ConjunctionPredicate(predicates);
   }
 
+  /**
+   * Dispatches a predicate to the visit method of its class.
+   */
   private void visit(Object object) throws QueryBuildingException {
-    Method method = null;
-    try {
-      method = getClass().getMethod("visit", new Class[] {object.getClass()});
-    } catch (NoSuchMethodException e) {
-      LOG.warn("Visit method could not be found. That means a unknown Predicate has been passed", e);
-      throw new IllegalArgumentException("Unknown Predicate", e);
-    }
+    PredicateType type = PredicateType.of(object);
     try {
-      method.invoke(this, object);
-    } catch (IllegalAccessException e) {
-      LOG.error("This error shouldn't occur if all visit methods are public. Probably a programming error", e);
-      Throwables.propagate(e);
-    } catch (InvocationTargetException e) {
+      switch (type) {
+        case CONJUNCTION:
+          visit((ConjunctionPredicate) object);
+          break;
+        case DISJUNCTION:
+          visit((DisjunctionPredicate) object);
+          break;
+        case EQUALS:
+          visit((EqualsPredicate) object);
+          break;
+        case GREATER_THAN_OR_EQUALS:
+          visit((GreaterThanOrEqualsPredicate) object);
+          break;
+        case GREATER_THAN:
+          visit((GreaterThanPredicate) object);
+          break;
+        case IN:
+          visit((InPredicate) object);
+          break;
+        case IS_NOT_NULL:
+          visit((IsNotNullPredicate) object);
+          break;
+        case LESS_THAN_OR_EQUALS:
+          visit((LessThanOrEqualsPredicate) object);
+          break;
+        case LESS_THAN:
+          visit((LessThanPredicate) object);
+          break;
+        case LIKE:
+          visit((LikePredicate) object);
+          break;
+        case NOT:
+          visit((NotPredicate) object);
+          break;
+        case WITHIN:
+          visit((WithinPredicate) object);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown Predicate");
+      }
+    } catch (RuntimeException e) {
       LOG.info("Exception thrown while building the query", e);
       throw new QueryBuildingException(e);
     }
   }
+
 }
@@ -0,0 +1,107 @@
+package org.gbif.occurrence.download.query;
+
+import org.gbif.api.model.occurrence.predicate.CompoundPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.predicate.SimplePredicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.occurrence.common.download.PredicateType;
+
+import com.google.common.base.CharMatcher;
+
+/**
+ * Size of the query built from a predicate, used to estimate how much slower than a match all query it is to evaluate.
+ * Taxon keys and GADM GIDs are counted as the clauses they are expanded into by the query visitors.
+ */
+public class PredicateComplexity {
+
+  // number of classification keys searched for a taxon key
+  private static final int TAXON_KEY_EXPANSION = 10;
+
+  // number of GADM levels searched for a GADM GID
+  private static final int GADM_GID_EXPANSION = 4;
+
+  // relative cost of a clause and of a geometry vertex, per record
+  private static final double CLAUSE_WEIGHT = 0.02;
+  private static final double VERTEX_WEIGHT = 0.002;
+
+  private static final CharMatcher VERTEX_SEPARATOR = CharMatcher.is(',');
+
+  private int clauses;
+  private int vertices;
+
+  private PredicateComplexity() {
+    //do nothing
+  }
+
+  /**
+   * Complexity of a predicate, null predicates match all records.
+   */
+  public static PredicateComplexity of(Predicate predicate) {
+    PredicateComplexity complexity = new PredicateComplexity();
+    if (predicate != null) {
+      complexity.visit(predicate);
+    }
+    return complexity;
+  }
+
+  /**
+   * @return number of clauses of the query, including the ones of expanded parameters
+   */
+  public int getClauses() {
+    return clauses;
+  }
+
+  /**
+   * @return number of vertices of the geometries of the query
+   */
+  public int getVertices() {
+    return vertices;
+  }
+
+  /**
+   * Cost of evaluating the query on a record relative to the cost of reading it, 1 for a match all query.
+   */
+  public double getScore() {
+    return 1 + clauses * CLAUSE_WEIGHT + vertices * VERTEX_WEIGHT;
+  }
+
+  private void visit(Predicate predicate) {
+    switch (PredicateType.of(predicate)) {
+      case CONJUNCTION:
+      case DISJUNCTION:
+        ((CompoundPredicate) predicate).getPredicates().forEach(this::visit);
+        break;
+      case NOT:
+        visit(((NotPredicate) predicate).getPredicate());
+        break;
+      case IN:
+        InPredicate in = (InPredicate) predicate;
+        clauses += in.getValues().size() * expansion(in.getKey());
+        break;
+      case IS_NOT_NULL:
+        clauses++;
+        break;
+      case WITHIN:
+        clauses++;
+        // a WKT geometry has a comma between consecutive vertices and rings
+        vertices += VERTEX_SEPARATOR.countIn(((WithinPredicate) predicate).getGeometry()) + 1;
+        break;
+      default:
+        clauses += expansion(((SimplePredicate) predicate).getKey());
+        break;
+    }
+  }
+
+  private static int expansion(OccurrenceSearchParameter parameter) {
+    if (OccurrenceSearchParameter.TAXON_KEY == parameter) {
+      return TAXON_KEY_EXPANSION;
+    }
+    if (OccurrenceSearchParameter.GADM_GID == parameter) {
+      return GADM_GID_EXPANSION;
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,44 @@
+<#--
+  This is a freemarker template which will generate an HQL script which is run at download time.
+  When run in Hive as a parameterized query, this will create a Parquet table with the simple download columns, typed
+  as in the occurrence table, and the citations table.
+-->
+<#-- Required syntax to escape Hive parameters. Outputs "USE ${hiveDB};" -->
+USE ${r"${hiveDB}"};
+
+CREATE TEMPORARY FUNCTION toISO8601 AS 'org.gbif.occurrence.hive.udf.ToISO8601UDF';
+CREATE TEMPORARY FUNCTION toLocalISO8601 AS 'org.gbif.occurrence.hive.udf.ToLocalISO8601UDF';
+CREATE TEMPORARY FUNCTION contains AS 'org.gbif.occurrence.hive.udf.ContainsUDF';
+CREATE TEMPORARY FUNCTION joinArray AS 'brickhouse.udf.collect.JoinArrayUDF';
+
+-- in case this job is relaunched
+DROP TABLE IF EXISTS ${r"${occurrenceTable}"};
+DROP TABLE IF EXISTS ${r"${occurrenceTable}"}_citation;
+
+-- set Snappy Parquet compression, the files are later added to the zip archive without re-compressing
+SET hive.exec.compress.output=true;
+SET hive.exec.compress.intermediate=true;
+SET parquet.compression=SNAPPY;
+
+CREATE TABLE ${r"${occurrenceTable}"} (
+<#list fields as key, field>
+  `${key?lower_case}` ${field.hiveDataType}<#if key_has_next>,</#if>
+</#list>
+)
+STORED AS PARQUET;
+
+INSERT INTO ${r"${occurrenceTable}"}
+SELECT
+<#list fields as key, field>
+  ${field.hiveField}<#if key_has_next>,</#if>
+</#list>
+FROM occurrence
+WHERE ${r"${whereClause}"};
+
+-- creates the citations table, citation table is not compressed since it is read later from Java as TSV.
+SET mapred.output.compress=false;
+SET hive.exec.compress.intermediate=false;
+SET hive.exec.compress.output=false;
+CREATE TABLE ${r"${occurrenceTable}"}_citation
+ROW FORMAT DELIMITED FIELDS TERMINATED BY '\t'
+AS SELECT datasetkey, count(*) as num_occurrences, license FROM ${r"${occurrenceTable}"} WHERE datasetkey IS NOT NULL GROUP BY datasetkey, license;
@@ -0,0 +1,98 @@
+package org.gbif.occurrence.download.file;
+
+import org.gbif.api.model.occurrence.DownloadFormat;
+import org.gbif.api.vocabulary.License;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the class {@link DownloadManifest}.
+ */
+public class DownloadManifestTest {
+
+  private static final String QUERY = "{\"match_all\":{}}";
+
+  /**
+   * Completed chunks must survive a save/load cycle and be re-usable while their part files are unchanged.
+   */
+  @Test
+  public void testResumeCompletedChunk(@TempDir Path testFolder) throws IOException {
+    File partFile = testFolder.resolve("occurrence0").toFile();
+    Files.write(partFile.toPath(), "1\tAnimalia\n".getBytes(StandardCharsets.UTF_8));
+    UUID datasetKey = UUID.randomUUID();
+
+    DownloadManifest manifest = new DownloadManifest(QUERY, 20, DownloadFormat.SIMPLE_CSV);
+    DownloadManifest.ChunkState completedChunk = new DownloadManifest.ChunkState(0, 0, 10, null);
+    DownloadManifest.ChunkState pendingChunk = new DownloadManifest.ChunkState(1, 10, 20, 1000L);
+    manifest.getChunks().add(completedChunk);
+    manifest.getChunks().add(pendingChunk);
+    completedChunk.complete(new Result(null, Collections.singletonMap(datasetKey, 10L),
+                                       Collections.singleton(License.CC_BY_4_0)),
+                            Collections.singletonList(partFile.getPath()));
+
+    File manifestFile = testFolder.resolve("download.manifest.json").toFile();
+    manifest.save(manifestFile);
+    DownloadManifest loaded = DownloadManifest.load(manifestFile);
+
+    Assertions.assertNotNull(loaded);
+    Assertions.assertTrue(loaded.matches(QUERY, 20, DownloadFormat.SIMPLE_CSV));
+    Assertions.assertFalse(loaded.matches(QUERY, 21, DownloadFormat.SIMPLE_CSV));
+    Assertions.assertTrue(loaded.getChunks().get(0).isReusable());
+    Assertions.assertEquals(Long.valueOf(10L), loaded.getChunks().get(0).getDatasetUsages().get(datasetKey));
+    Assertions.assertFalse(loaded.getChunks().get(1).isReusable());
+    Assertions.assertEquals(Long.valueOf(1000L), loaded.getChunks().get(1).getSearchAfter());
+
+    // a modified part file must be written again
+    Files.write(partFile.toPath(), "2\tPlantae\n".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertFalse(loaded.getChunks().get(0).isReusable());
+  }
+
+  /**
+   * Resuming must keep only the part files of intact chunks: the aggregated output of the failed execution is deleted
+   * and chunks whose part files are missing are processed again.
+   */
+  @Test
+  public void testPrepareResume(@TempDir Path testFolder) throws IOException {
+    File partFile = testFolder.resolve("occurrence0").toFile();
+    Files.write(partFile.toPath(), "1\tAnimalia\n".getBytes(StandardCharsets.UTF_8));
+    File missingPartFile = testFolder.resolve("occurrence1").toFile();
+    File aggregatedFile = testFolder.resolve("0000001-200101000000000.csv").toFile();
+    Files.write(aggregatedFile.toPath(), "1\tAnimalia\n".getBytes(StandardCharsets.UTF_8));
+
+    DownloadManifest manifest = new DownloadManifest(QUERY, 20, DownloadFormat.SIMPLE_CSV);
+    DownloadManifest.ChunkState intactChunk = new DownloadManifest.ChunkState(0, 0, 10, null);
+    DownloadManifest.ChunkState brokenChunk = new DownloadManifest.ChunkState(1, 10, 20, 1000L);
+    manifest.getChunks().add(intactChunk);
+    manifest.getChunks().add(brokenChunk);
+    Result result = new Result(null, Collections.singletonMap(UUID.randomUUID(), 10L),
+                               Collections.singleton(License.CC_BY_4_0));
+    intactChunk.complete(result, Collections.singletonList(partFile.getPath()));
+    Files.write(missingPartFile.toPath(), "2\tPlantae\n".getBytes(StandardCharsets.UTF_8));
+    brokenChunk.complete(result, Collections.singletonList(missingPartFile.getPath()));
+    Files.delete(missingPartFile.toPath());
+
+    manifest.prepareResume(testFolder.toFile());
+
+    Assertions.assertTrue(partFile.exists());
+    Assertions.assertFalse(aggregatedFile.exists());
+    Assertions.assertTrue(intactChunk.isCompleted());
+    Assertions.assertFalse(brokenChunk.isCompleted());
+    Assertions.assertTrue(brokenChunk.getChecksums().isEmpty());
+    Assertions.assertNull(brokenChunk.getDatasetUsages());
+  }
+
+  @Test
+  public void testMissingManifest(@TempDir Path testFolder) {
+    Assertions.assertNull(DownloadManifest.load(testFolder.resolve("none.manifest.json").toFile()));
+  }
+}
@@ -0,0 +1,105 @@
+package org.gbif.occurrence.download.file;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.vocabulary.BasisOfRecord;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.License;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.Term;
+import org.gbif.occurrence.common.TermUtils;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the per-record maps with the reusable {@link OccurrenceRow} used by the download writers.
+ * Run it with the GC profiler ({@code -prof gc}) to compare the allocations per record.
+ * It is not run by the build, run it from the IDE or with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OccurrenceRowBenchmark {
+
+  private static final int NR_OF_OCCURRENCES = 1000;
+
+  private static final String[] INT_COLUMNS =
+    TermUtils.interpretedTerms().stream().map(Term::simpleName).toArray(String[]::new);
+
+  private static final String[] VERB_COLUMNS =
+    TermUtils.verbatimTerms().stream().map(Term::simpleName).toArray(String[]::new);
+
+  private Occurrence[] occurrences;
+
+  private OccurrenceRow interpretedRow;
+
+  private OccurrenceRow verbatimRow;
+
+  @Setup
+  public void setup() {
+    occurrences = new Occurrence[NR_OF_OCCURRENCES];
+    for (int i = 0; i < NR_OF_OCCURRENCES; i++) {
+      Occurrence occurrence = new Occurrence();
+      occurrence.setKey((long) i);
+      occurrence.setBasisOfRecord(BasisOfRecord.PRESERVED_SPECIMEN);
+      occurrence.setScientificName("Puma concolor " + i);
+      occurrence.setCountry(Country.DENMARK);
+      occurrence.setPublishingCountry(Country.DENMARK);
+      occurrence.setKingdomKey(1);
+      occurrence.setTaxonKey(2440897);
+      occurrence.setLastInterpreted(new Date());
+      occurrence.setDecimalLatitude(55.6);
+      occurrence.setDecimalLongitude(12.5);
+      occurrence.setDatasetKey(UUID.randomUUID());
+      occurrence.setLicense(License.CC_BY_4_0);
+      occurrence.setVerbatimField(DwcTerm.institutionCode, "INST");
+      occurrence.setVerbatimField(DwcTerm.catalogNumber, "CAT-" + i);
+      occurrence.setVerbatimField(DwcTerm.scientificName, "Puma concolor " + i);
+      occurrence.setVerbatimField(DwcTerm.locality, "Copenhagen\tHarbour");
+      occurrences[i] = occurrence;
+    }
+    interpretedRow = new OccurrenceRow(INT_COLUMNS);
+    verbatimRow = new OccurrenceRow(VERB_COLUMNS);
+  }
+
+  @Benchmark
+  public void maps(Blackhole blackhole) {
+    for (Occurrence occurrence : occurrences) {
+      blackhole.consume(OccurrenceMapReader.buildInterpretedOccurrenceMap(occurrence));
+      blackhole.consume(OccurrenceMapReader.buildVerbatimOccurrenceMap(occurrence));
+    }
+  }
+
+  @Benchmark
+  public void rows(Blackhole blackhole) {
+    for (Occurrence occurrence : occurrences) {
+      OccurrenceMapReader.buildInterpretedOccurrenceRow(occurrence, interpretedRow);
+      blackhole.consume(interpretedRow.getValues());
+      OccurrenceMapReader.buildVerbatimOccurrenceRow(occurrence, verbatimRow);
+      blackhole.consume(verbatimRow.getValues());
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(OccurrenceRowBenchmark.class.getSimpleName()).build()).run();
+  }
+}
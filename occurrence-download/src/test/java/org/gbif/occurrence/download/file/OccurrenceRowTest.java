@@ -0,0 +1,131 @@
+package org.gbif.occurrence.download.file;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.vocabulary.BasisOfRecord;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.License;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.dwc.terms.Term;
+import org.gbif.occurrence.common.TermUtils;
+import org.gbif.occurrence.download.hive.DownloadTerms;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.io.CsvMapWriter;
+import org.supercsv.io.ICsvListWriter;
+import org.supercsv.io.ICsvMapWriter;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Test cases for the class {@link OccurrenceRow}, rows must produce the same output than the maps built by
+ * {@link OccurrenceMapReader}.
+ */
+public class OccurrenceRowTest {
+
+  private static final String[] INT_COLUMNS =
+    TermUtils.interpretedTerms().stream().map(Term::simpleName).toArray(String[]::new);
+
+  private static final String[] VERB_COLUMNS =
+    TermUtils.verbatimTerms().stream().map(Term::simpleName).toArray(String[]::new);
+
+  private static final String[] SIMPLE_COLUMNS =
+    DownloadTerms.SIMPLE_DOWNLOAD_TERMS.stream().map(DownloadTerms::simpleName).toArray(String[]::new);
+
+  private static Occurrence newOccurrence(long key, String scientificName) {
+    Occurrence occurrence = new Occurrence();
+    occurrence.setKey(key);
+    occurrence.setBasisOfRecord(BasisOfRecord.PRESERVED_SPECIMEN);
+    occurrence.setScientificName(scientificName);
+    occurrence.setCountry(Country.DENMARK);
+    occurrence.setPublishingCountry(Country.DENMARK);
+    occurrence.setKingdomKey(1);
+    occurrence.setTaxonKey(2440897);
+    occurrence.setLastInterpreted(new Date());
+    occurrence.setDecimalLatitude(55.6);
+    occurrence.setDecimalLongitude(12.5);
+    occurrence.setDatasetKey(UUID.randomUUID());
+    occurrence.setLicense(License.CC_BY_4_0);
+    occurrence.setVerbatimField(DwcTerm.institutionCode, "INST\tCODE");
+    occurrence.setVerbatimField(DwcTerm.scientificName, scientificName + " verbatim");
+    occurrence.setVerbatimField(DwcTerm.locality, "Copenhagen\nHarbour");
+    return occurrence;
+  }
+
+  @Test
+  public void interpretedRowTest() throws IOException {
+    OccurrenceRow row = new OccurrenceRow(INT_COLUMNS);
+    for (Occurrence occurrence : new Occurrence[] {newOccurrence(1L, "Puma concolor"), new Occurrence()}) {
+      OccurrenceMapReader.buildInterpretedOccurrenceRow(occurrence, row);
+      Map<String, String> map = OccurrenceMapReader.buildInterpretedOccurrenceMap(occurrence);
+      Assertions.assertEquals(writeMap(map, INT_COLUMNS), writeRow(row));
+    }
+  }
+
+  @Test
+  public void verbatimRowTest() throws IOException {
+    OccurrenceRow row = new OccurrenceRow(VERB_COLUMNS);
+    Occurrence occurrence = newOccurrence(2L, "Puma concolor");
+    OccurrenceMapReader.buildVerbatimOccurrenceRow(occurrence, row);
+    Assertions.assertEquals(writeMap(OccurrenceMapReader.buildVerbatimOccurrenceMap(occurrence), VERB_COLUMNS),
+                            writeRow(row));
+  }
+
+  @Test
+  public void simpleCsvRowTest() throws IOException {
+    OccurrenceRow row = new OccurrenceRow(DownloadTerms.SIMPLE_DOWNLOAD_TERMS);
+    Assertions.assertArrayEquals(SIMPLE_COLUMNS, row.getColumns());
+
+    // the second occurrence has no verbatim scientific name, the value of the first one must not be kept
+    Occurrence withoutVerbatimName = new Occurrence();
+    withoutVerbatimName.setKey(4L);
+    Occurrence[] occurrences = {newOccurrence(3L, "Puma concolor"), withoutVerbatimName};
+    String[] verbatimNames = {"Puma concolor verbatim", null};
+    for (int i = 0; i < occurrences.length; i++) {
+      Occurrence occurrence = occurrences[i];
+      OccurrenceMapReader.buildInterpretedOccurrenceRow(occurrence, row);
+      OccurrenceMapReader.populateVerbatimCsvFields(row, occurrence);
+
+      Map<String, String> map =
+        OccurrenceMapReader.buildInterpretedOccurrenceMap(occurrence, DownloadTerms.SIMPLE_DOWNLOAD_TERMS);
+      OccurrenceMapReader.populateVerbatimCsvFields(map, occurrence);
+
+      Assertions.assertEquals(writeMap(map, SIMPLE_COLUMNS), writeRow(row));
+      Assertions.assertEquals(map.get(GbifTerm.datasetKey.simpleName()), row.get(GbifTerm.datasetKey.simpleName()));
+      Assertions.assertEquals(verbatimNames[i], row.get("verbatimScientificName"));
+    }
+  }
+
+  @Test
+  public void duplicatedColumnsTest() {
+    OccurrenceRow row = new OccurrenceRow(new String[] {"a", "b", "a"});
+    row.put("a", "1");
+    row.put("c", "2");
+    Assertions.assertArrayEquals(new String[] {"1", null, "1"}, row.getValues());
+    row.clear();
+    Assertions.assertArrayEquals(new String[] {null, null, null}, row.getValues());
+  }
+
+  private static String writeMap(Map<String, String> map, String[] columns) throws IOException {
+    StringWriter writer = new StringWriter();
+    try (ICsvMapWriter csvWriter = new CsvMapWriter(writer, CsvPreference.TAB_PREFERENCE)) {
+      csvWriter.write(map, columns);
+    }
+    return writer.toString();
+  }
+
+  private static String writeRow(OccurrenceRow row) throws IOException {
+    StringWriter writer = new StringWriter();
+    try (ICsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.TAB_PREFERENCE)) {
+      csvWriter.write(row.getValues());
+    }
+    return writer.toString();
+  }
+}
@@ -0,0 +1,76 @@
+package org.gbif.occurrence.download.file.archive;
+
+import org.gbif.hadoop.compress.d2.zip.ModalZipOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the class {@link ParallelDeflater}.
+ */
+public class ParallelDeflaterTest {
+
+  /**
+   * Entries deflated in parallel must be readable by java.util.zip, which also verifies the sizes and the CRC32.
+   */
+  @Test
+  public void testPutEntry(@TempDir Path testFolder) throws IOException {
+    Random random = new Random(7);
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    List<File> inputs = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      StringBuilder content = new StringBuilder();
+      for (int line = 0; line < 1000 * i; line++) {
+        content.append(random.nextInt()).append("\tAnimalia\tChordata\n");
+      }
+      byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+      File input = testFolder.resolve("part" + i).toFile();
+      Files.write(input.toPath(), bytes);
+      inputs.add(input);
+      expected.write(bytes);
+    }
+
+    File zipFile = testFolder.resolve("test.zip").toFile();
+    ParallelDeflater deflater = new ParallelDeflater(4, 10000);
+    try (ModalZipOutputStream zos = new ModalZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)))) {
+      deflater.putEntry(zos, "occurrence.txt", inputs, testFolder.toFile());
+      deflater.putEntry(zos, "empty.txt", Collections.emptyList(), testFolder.toFile());
+    }
+
+    try (ZipFile zf = new ZipFile(zipFile)) {
+      ZipEntry entry = zf.getEntry("occurrence.txt");
+      byte[] content = ByteStreams.toByteArray(zf.getInputStream(entry));
+      Assertions.assertArrayEquals(expected.toByteArray(), content);
+      Assertions.assertEquals(content.length, entry.getSize());
+      CRC32 crc = new CRC32();
+      crc.update(content);
+      Assertions.assertEquals(crc.getValue(), entry.getCrc());
+
+      entry = zf.getEntry("empty.txt");
+      Assertions.assertEquals(0, ByteStreams.toByteArray(zf.getInputStream(entry)).length);
+    }
+    // the temporary blocks are deleted
+    String[] files = testFolder.toFile().list();
+    Arrays.sort(files);
+    Assertions.assertArrayEquals(new String[] {"part0", "part1", "part2", "part3", "part4", "test.zip"}, files);
+  }
+}
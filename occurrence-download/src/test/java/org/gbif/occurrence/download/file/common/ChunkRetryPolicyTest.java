@@ -0,0 +1,37 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test cases for the class {@link ChunkRetryPolicy}.
+ */
+public class ChunkRetryPolicyTest {
+
+  @Test
+  public void testBackoff() {
+    assertEquals(1000, ChunkRetryPolicy.backoff(1));
+    assertEquals(2000, ChunkRetryPolicy.backoff(2));
+    assertEquals(16000, ChunkRetryPolicy.backoff(5));
+    // bounded, also for attempts that would overflow the shift
+    assertEquals(30000, ChunkRetryPolicy.backoff(6));
+    assertEquals(30000, ChunkRetryPolicy.backoff(100));
+  }
+
+  @Test
+  public void testAttemptLimit() {
+    ChunkRetryPolicy.Attempt attempt = ChunkRetryPolicy.Attempt.first(null, null);
+    int attempts = 1;
+    while (attempt.canRetry()) {
+      attempt = attempt.next();
+      attempts++;
+      assertEquals(attempts, attempt.getNumber());
+    }
+    assertEquals(ChunkRetryPolicy.MAX_ATTEMPTS, attempts);
+    assertFalse(attempt.canRetry());
+    assertTrue(ChunkRetryPolicy.Attempt.first(null, null).canRetry());
+  }
+}
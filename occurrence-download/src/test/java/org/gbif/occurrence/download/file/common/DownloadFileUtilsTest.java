@@ -0,0 +1,80 @@
+package org.gbif.occurrence.download.file.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the class {@link DownloadFileUtils}.
+ */
+public class DownloadFileUtilsTest {
+
+  /**
+   * Parts must be appended after the current content of the output file, in the order of the list.
+   */
+  @Test
+  public void testMergeAndDelete(@TempDir Path testFolder) throws IOException {
+    byte[] header = "gbifID\tscientificName\n".getBytes(StandardCharsets.UTF_8);
+    File outputFile = testFolder.resolve("occurrence.txt").toFile();
+    Files.write(outputFile.toPath(), header);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(header);
+
+    Random random = new Random(42);
+    List<String> partFileNames = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      // includes empty parts
+      byte[] content = new byte[i % 5 == 0 ? 0 : random.nextInt(200000)];
+      random.nextBytes(content);
+      File partFile = testFolder.resolve("part" + i).toFile();
+      Files.write(partFile.toPath(), content);
+      partFileNames.add(partFile.getAbsolutePath());
+      expected.write(content);
+    }
+
+    DownloadFileUtils.mergeAndDelete(partFileNames, outputFile.getAbsolutePath(), 4);
+
+    Assertions.assertArrayEquals(expected.toByteArray(), Files.readAllBytes(outputFile.toPath()));
+    partFileNames.forEach(partFileName -> Assertions.assertFalse(new File(partFileName).exists()));
+  }
+
+  /**
+   * The output file is created even if there are no parts.
+   */
+  @Test
+  public void testMergeNoParts(@TempDir Path testFolder) throws IOException {
+    File outputFile = testFolder.resolve("occurrence.csv").toFile();
+    DownloadFileUtils.mergeAndDelete(Collections.emptyList(), outputFile.getAbsolutePath());
+    Assertions.assertTrue(outputFile.exists());
+    Assertions.assertEquals(0, outputFile.length());
+  }
+
+  /**
+   * Parts are kept if the merge fails.
+   */
+  @Test
+  public void testMissingPart(@TempDir Path testFolder) throws IOException {
+    File partFile = testFolder.resolve("part0").toFile();
+    Files.write(partFile.toPath(), new byte[] {1, 2, 3});
+    List<String> partFileNames = new ArrayList<>();
+    partFileNames.add(partFile.getAbsolutePath());
+    partFileNames.add(testFolder.resolve("part1").toString());
+
+    Assertions.assertThrows(IOException.class, () -> DownloadFileUtils.mergeAndDelete(partFileNames,
+                                                                                      testFolder.resolve("out")
+                                                                                        .toString()));
+    Assertions.assertTrue(partFile.exists());
+  }
+}
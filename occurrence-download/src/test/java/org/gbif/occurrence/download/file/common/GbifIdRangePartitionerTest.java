@@ -0,0 +1,25 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class GbifIdRangePartitionerTest {
+
+  @Test
+  public void testBoundaries() {
+    assertArrayEquals(new long[]{1, 26, 51, 76, 101},
+                      GbifIdRangePartitioner.calculateBoundaries(1, 100, new double[]{25.2, 50.9, 75.5}));
+  }
+
+  /**
+   * Repeated or out of bounds quantiles must not produce empty ranges.
+   */
+  @Test
+  public void testSkewedBoundaries() {
+    assertArrayEquals(new long[]{10, 11, 13},
+                      GbifIdRangePartitioner.calculateBoundaries(10, 12, new double[]{10, 10.2, 11, 15}));
+    assertArrayEquals(new long[]{5, 6}, GbifIdRangePartitioner.calculateBoundaries(5, 5, new double[]{5, 5, 5}));
+    assertArrayEquals(new long[]{5, 6}, GbifIdRangePartitioner.calculateBoundaries(5, 5, new double[0]));
+  }
+}
@@ -0,0 +1,122 @@
+package org.gbif.occurrence.download.file.common;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link PagePrefetcher}.
+ */
+public class PagePrefetcherTest {
+
+  /**
+   * Source of numbered pages that counts how many have been fetched.
+   */
+  private static class CountingSource implements PagePrefetcher.PageSource<Integer> {
+
+    private final int size;
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    CountingSource(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public Integer next() {
+      return fetched.get() < size ? fetched.getAndIncrement() : null;
+    }
+  }
+
+  @Test
+  public void testPagesInOrder() throws IOException {
+    List<Integer> pages = new ArrayList<>();
+    try (PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(new CountingSource(100), 2)) {
+      Integer page;
+      while ((page = prefetcher.next()) != null) {
+        pages.add(page);
+      }
+      // the end is reported again
+      Assertions.assertNull(prefetcher.next());
+    }
+    Assertions.assertEquals(100, pages.size());
+    for (int i = 0; i < pages.size(); i++) {
+      Assertions.assertEquals(i, pages.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    CountingSource source = new CountingSource(100);
+    try (PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(source, 2)) {
+      Assertions.assertEquals(0, prefetcher.next().intValue());
+      // enough time to fetch all the pages if the fetching didn't wait for the consumer
+      Thread.sleep(200);
+      // 2 waiting pages and 1 waiting to be added
+      Assertions.assertTrue(source.fetched.get() <= 4, "Fetched " + source.fetched.get());
+    }
+  }
+
+  @Test
+  public void testFetchFailure() throws IOException {
+    AtomicInteger fetched = new AtomicInteger();
+    try (PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(() -> {
+      if (fetched.get() == 3) {
+        throw new IOException("Elasticsearch timeout");
+      }
+      return fetched.getAndIncrement();
+    }, 2)) {
+      Assertions.assertEquals(0, prefetcher.next().intValue());
+      Assertions.assertEquals(1, prefetcher.next().intValue());
+      Assertions.assertEquals(2, prefetcher.next().intValue());
+      IOException error = Assertions.assertThrows(IOException.class, prefetcher::next);
+      Assertions.assertEquals("Elasticsearch timeout", error.getMessage());
+      Assertions.assertNull(prefetcher.next());
+    }
+  }
+
+  @Test
+  public void testFetchError() throws IOException {
+    AtomicInteger fetched = new AtomicInteger();
+    try (PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(() -> {
+      if (fetched.get() == 1) {
+        throw new OutOfMemoryError("Page too large");
+      }
+      return fetched.getAndIncrement();
+    }, 2)) {
+      Assertions.assertEquals(0, prefetcher.next().intValue());
+      // the error is rethrown as it is instead of leaving the consumer waiting
+      OutOfMemoryError error = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+        Assertions.assertThrows(OutOfMemoryError.class, prefetcher::next));
+      Assertions.assertEquals("Page too large", error.getMessage());
+      Assertions.assertNull(prefetcher.next());
+    }
+  }
+
+  @Test
+  public void testCloseStopsFetching() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    PagePrefetcher<Integer> prefetcher = new PagePrefetcher<>(() -> {
+      started.countDown();
+      try {
+        // a slow page
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        return 1;
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+        throw new IOException(e);
+      }
+    }, 2);
+    Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+    prefetcher.close();
+    Assertions.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    Assertions.assertNull(prefetcher.next());
+  }
+}
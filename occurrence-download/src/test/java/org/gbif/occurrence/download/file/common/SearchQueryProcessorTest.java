@@ -0,0 +1,180 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.gbif.occurrence.download.file.DownloadFileWork;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test cases of the chunk cursors and the search_after paging of {@link SearchQueryProcessor}, the records are served
+ * by a local HTTP server that stands in for Elasticsearch. The index has the gbifIds 1 to {@link #TOTAL_HITS}, sorted
+ * in descending order like the download queries.
+ */
+public class SearchQueryProcessorTest {
+
+  private static final int TOTAL_HITS = 12000;
+
+  private static final String INDEX = "occurrence";
+
+  private HttpServer server;
+  private RestHighLevelClient esClient;
+
+  // position of the open scroll context
+  private final AtomicInteger scrollPosition = new AtomicInteger();
+  private final AtomicInteger scrollSize = new AtomicInteger();
+  private final AtomicInteger clearedScrolls = new AtomicInteger();
+  // search_after of each search request, null if it located the page by offset
+  private final List<Long> searchAfters = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      String body = new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+      if ("DELETE".equals(exchange.getRequestMethod())) {
+        clearedScrolls.incrementAndGet();
+        respond(exchange, "{\"succeeded\":true,\"num_freed\":1}");
+      } else if (path.endsWith("/_search/scroll")) {
+        respond(exchange, hits(scrollPosition.getAndAdd(scrollSize.get()), scrollSize.get(), false));
+      } else {
+        Map<String, Object> request = XContentHelper.convertToMap(XContentType.JSON.xContent(), body, false);
+        int size = ((Number) request.getOrDefault("size", 10)).intValue();
+        boolean fetchSource = !Boolean.FALSE.equals(request.get("_source"));
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null && query.contains("scroll=")) {
+          scrollSize.set(size);
+          scrollPosition.set(size);
+          respond(exchange, hits(0, size, fetchSource));
+        } else if (request.containsKey("search_after")) {
+          long searchAfter = ((Number) ((List<?>) request.get("search_after")).get(0)).longValue();
+          searchAfters.add(searchAfter);
+          // the next record has the id searchAfter - 1
+          respond(exchange, hits((int) (TOTAL_HITS + 1 - searchAfter), size, fetchSource));
+        } else {
+          searchAfters.add(null);
+          respond(exchange, hits(((Number) request.getOrDefault("from", 0)).intValue(), size, fetchSource));
+        }
+      }
+    });
+    server.start();
+    esClient = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+  }
+
+  @AfterEach
+  public void stopServer() throws IOException {
+    esClient.close();
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, String body) throws IOException {
+    byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(200, response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  /**
+   * Response with the hits from a 0-based position.
+   */
+  private static String hits(int from, int size, boolean fetchSource) {
+    StringBuilder hits = new StringBuilder();
+    for (int position = from; position < Math.min(TOTAL_HITS, from + size); position++) {
+      long id = TOTAL_HITS - position;
+      hits.append(hits.length() > 0 ? "," : "")
+        .append("{\"_index\":\"").append(INDEX).append("\",\"_type\":\"record\",\"_id\":\"").append(id)
+        .append("\",\"_score\":null")
+        .append(fetchSource ? ",\"_source\":{\"gbifId\":\"" + id + "\",\"verbatim\":{\"core\":{}}}" : "")
+        .append(",\"sort\":[").append(id).append("]}");
+    }
+    return "{\"_scroll_id\":\"scroll\",\"took\":1,\"timed_out\":false,"
+           + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+           + "\"hits\":{\"total\":" + TOTAL_HITS + ",\"max_score\":null,\"hits\":[" + hits + "]}}";
+  }
+
+  private List<Long> process(int from, int to, Long searchAfter) {
+    List<Long> keys = new ArrayList<>();
+    DownloadFileWork work = new DownloadFileWork(from, to, searchAfter, "occurrence", 0, null, null, esClient, INDEX);
+    SearchQueryProcessor.processQuery(work, occurrence -> keys.add(occurrence.getKey()));
+    return keys;
+  }
+
+  @Test
+  public void testCalculateCursors() throws IOException {
+    int[] offsets = {0, 3000, 6000, 9000, TOTAL_HITS + 1000};
+    Long[] cursors = SearchQueryProcessor.calculateCursors(esClient, INDEX, null, offsets);
+    // the key of the record right before each offset
+    assertArrayEquals(new Long[] {null, 9001L, 6001L, 3001L, null}, cursors);
+    assertEquals(1, clearedScrolls.get());
+
+    assertArrayEquals(new Long[2], SearchQueryProcessor.calculateCursors(esClient, INDEX, null, new int[] {0, 0}));
+  }
+
+  @Test
+  public void testChunksWithoutGapsOrOverlaps() throws IOException {
+    int[] offsets = {0, 2500, 5000, 7777};
+    Long[] cursors = SearchQueryProcessor.calculateCursors(esClient, INDEX, null, offsets);
+
+    Set<Long> keys = new HashSet<>();
+    for (int i = 0; i < offsets.length; i++) {
+      int to = i + 1 < offsets.length ? offsets[i + 1] : TOTAL_HITS;
+      List<Long> chunk = process(offsets[i], to, cursors[i]);
+      assertEquals(to - offsets[i], chunk.size());
+      // the chunk starts right after its cursor and its records are consecutive
+      for (int j = 0; j < chunk.size(); j++) {
+        assertEquals(TOTAL_HITS - offsets[i] - j, chunk.get(j).longValue());
+      }
+      keys.addAll(chunk);
+    }
+    assertEquals(TOTAL_HITS, keys.size());
+    assertEquals(1L, Collections.min(keys).longValue());
+    assertEquals((long) TOTAL_HITS, Collections.max(keys).longValue());
+  }
+
+  @Test
+  public void testPagesContinueFromLastSortValue() {
+    List<Long> keys = process(0, 1000, null);
+    assertEquals(1000, keys.size());
+    // 300 records per page, only the first page is located by its offset
+    assertEquals(4, searchAfters.size());
+    assertNull(searchAfters.get(0));
+    assertEquals(keys.get(299), searchAfters.get(1));
+    assertEquals(keys.get(599), searchAfters.get(2));
+    assertEquals(keys.get(899), searchAfters.get(3));
+
+    // a chunk without cursor locates its first page by its offset
+    searchAfters.clear();
+    List<Long> chunk = process(500, 700, null);
+    assertEquals(Long.valueOf(TOTAL_HITS - 500), chunk.get(0));
+    assertEquals(Long.valueOf(TOTAL_HITS - 699), chunk.get(199));
+    assertEquals(1, searchAfters.size());
+  }
+}
@@ -0,0 +1,95 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.gbif.occurrence.common.download.DownloadUtils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.io.ICsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Compares the throughput of {@link TsvWriter} and the delimiter cleaning without regular expressions with the
+ * previous SuperCSV writer and regex replacement, writing rows shaped like the interpreted rows of a DwC-A download.
+ * The output is discarded so only the cleaning and encoding are measured.
+ * It is not run by the build, run it from the IDE or with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TsvWriterBenchmark {
+
+  private static final int NR_OF_ROWS = 1000;
+
+  private static final int NR_OF_COLUMNS = 100;
+
+  private String[][] rows;
+
+  @Setup
+  public void setup() {
+    rows = new String[NR_OF_ROWS][NR_OF_COLUMNS];
+    for (int i = 0; i < NR_OF_ROWS; i++) {
+      for (int j = 0; j < NR_OF_COLUMNS; j++) {
+        if (j % 3 == 0) {
+          rows[i][j] = null;
+        } else if (j % 10 == 1) {
+          rows[i][j] = "Copenhagen\tHarbour\nnorth side, \"pier " + i + '"';
+        } else {
+          rows[i][j] = "Puma concolor (Linnaeus, 1771) ñandú " + i;
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void superCsv() throws IOException {
+    String[] cleaned = new String[NR_OF_COLUMNS];
+    try (ICsvListWriter writer = new CsvListWriter(new OutputStreamWriter(NullOutputStream.NULL_OUTPUT_STREAM,
+                                                                          StandardCharsets.UTF_8),
+                                                   CsvPreference.TAB_PREFERENCE)) {
+      for (String[] row : rows) {
+        for (int j = 0; j < row.length; j++) {
+          cleaned[j] = row[j] == null ? null : DownloadUtils.DELIMETERS_MATCH_PATTERN.matcher(row[j]).replaceAll(" ");
+        }
+        writer.write(cleaned);
+      }
+    }
+  }
+
+  @Benchmark
+  public void tsvWriter() throws IOException {
+    String[] cleaned = new String[NR_OF_COLUMNS];
+    try (TsvWriter writer = new TsvWriter(NullOutputStream.NULL_OUTPUT_STREAM)) {
+      for (String[] row : rows) {
+        for (int j = 0; j < row.length; j++) {
+          cleaned[j] = DownloadUtils.cleanDelimiters(row[j]);
+        }
+        writer.write(cleaned);
+      }
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TsvWriterBenchmark.class.getSimpleName()).build()).run();
+  }
+}
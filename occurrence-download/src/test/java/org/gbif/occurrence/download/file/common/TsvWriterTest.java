@@ -0,0 +1,84 @@
+package org.gbif.occurrence.download.file.common;
+
+import org.gbif.utils.file.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Strings;
+import org.apache.commons.io.output.FileWriterWithEncoding;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.io.ICsvListWriter;
+import org.supercsv.prefs.CsvPreference;
+
+/**
+ * Test cases for the class {@link TsvWriter}.
+ */
+public class TsvWriterTest {
+
+  private static final String[][] GOLDEN_ROWS = {
+    {"1", null, "plain"},
+    {"a\tb", "say \"hi\"", "x"},
+    {"l1\r\nl2", "l1\rl2", "l1\nl2"},
+    {"", "ñandú 🐾", " "}
+  };
+
+  /**
+   * The output must match the golden file, that follows the encoding rules of CsvPreference.TAB_PREFERENCE.
+   */
+  @Test
+  public void testGoldenFile(@TempDir Path testFolder) throws IOException {
+    File tsvFile = testFolder.resolve("golden.tsv").toFile();
+    try (TsvWriter writer = new TsvWriter(tsvFile.getAbsolutePath())) {
+      for (String[] row : GOLDEN_ROWS) {
+        writer.write(row);
+      }
+    }
+    Assertions.assertArrayEquals(Files.readAllBytes(FileUtils.getClasspathFile("tsv/golden.tsv").toPath()),
+                                 Files.readAllBytes(tsvFile.toPath()));
+  }
+
+  /**
+   * The output must be byte-identical to the SuperCSV output, including values larger than the buffers, surrogate
+   * pairs split between buffers and malformed characters.
+   */
+  @Test
+  public void testSuperCsvEquivalence(@TempDir Path testFolder) throws IOException {
+    List<String[]> rows = new ArrayList<>();
+    for (String[] row : GOLDEN_ROWS) {
+      rows.add(row);
+    }
+    rows.add(new String[] {"\"", "\"\"", "\r", "\n\r", "\r\r\n", "\t", "end\""});
+    rows.add(new String[] {"lone \uD83D surrogate", "\uDC3E", " \u0085\u0000"});
+    rows.add(new String[] {null});
+    for (int i = 0; i < 5; i++) {
+      // shifts the block boundaries so they fall in different positions of the values
+      rows.add(new String[] {Strings.repeat("x", 65535 + i) + "🐾", Strings.repeat("🐾\t", 40000)});
+    }
+
+    File superCsvFile = testFolder.resolve("supercsv.tsv").toFile();
+    try (ICsvListWriter writer = new CsvListWriter(new FileWriterWithEncoding(superCsvFile, StandardCharsets.UTF_8),
+                                                   CsvPreference.TAB_PREFERENCE)) {
+      for (String[] row : rows) {
+        writer.write(row);
+      }
+    }
+
+    File tsvFile = testFolder.resolve("tsvwriter.tsv").toFile();
+    try (TsvWriter writer = new TsvWriter(tsvFile.getAbsolutePath())) {
+      for (String[] row : rows) {
+        writer.write(row);
+      }
+    }
+
+    Assertions.assertArrayEquals(Files.readAllBytes(superCsvFile.toPath()), Files.readAllBytes(tsvFile.toPath()));
+  }
+}
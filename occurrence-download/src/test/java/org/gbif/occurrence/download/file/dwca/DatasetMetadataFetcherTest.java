@@ -0,0 +1,181 @@
+package org.gbif.occurrence.download.file.dwca;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.service.registry.DatasetService;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for the class {@link DatasetMetadataFetcher}, using a registry mock that holds the first requests until
+ * they are all in flight.
+ */
+public class DatasetMetadataFetcherTest {
+
+  private static final int PARALLELISM = 10;
+
+  /**
+   * DatasetService mock that tracks the peak of concurrent requests.
+   * The first {@link #PARALLELISM} dataset requests wait for each other, so they time out if they aren't concurrent.
+   */
+  private static class Registry {
+
+    private final Map<UUID, Dataset> datasets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final CountDownLatch concurrentRequests = new CountDownLatch(PARALLELISM);
+    private final AtomicBoolean timedOut = new AtomicBoolean();
+    private final DatasetService service = mock(DatasetService.class);
+
+    Registry() {
+      when(service.get(any(UUID.class))).thenAnswer(invocation -> {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+          concurrentRequests.countDown();
+          if (!concurrentRequests.await(10, TimeUnit.SECONDS)) {
+            timedOut.set(true);
+          }
+        } finally {
+          inFlight.decrementAndGet();
+        }
+        return datasets.get(invocation.<UUID>getArgument(0));
+      });
+      when(service.getMetadataDocument(any(UUID.class))).thenAnswer(invocation ->
+        datasets.containsKey(invocation.<UUID>getArgument(0)) ?
+          new ByteArrayInputStream(("<eml>" + invocation.getArgument(0) + "</eml>").getBytes(StandardCharsets.UTF_8)) :
+          null);
+    }
+
+    Dataset add(UUID key) {
+      Dataset dataset = new Dataset();
+      dataset.setKey(key);
+      dataset.setTitle("Dataset " + key);
+      dataset.setModified(new Date(1_000_000L));
+      datasets.put(key, dataset);
+      return dataset;
+    }
+
+    void verifyGetRequests(int requests) {
+      verify(service, times(requests)).get(any(UUID.class));
+    }
+
+    void verifyEmlRequests(int requests) {
+      verify(service, times(requests)).getMetadataDocument(any(UUID.class));
+    }
+  }
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+
+  @AfterEach
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private DatasetMetadataFetcher newFetcher(Registry registry, File cacheDir) {
+    return new DatasetMetadataFetcher(registry.service, cacheDir, executor, 60,
+                                      DatasetMetadataFetcher.newDatasetsCache(60));
+  }
+
+  @Test
+  public void testConcurrentCachedDatasets(@TempDir Path testFolder) throws IOException {
+    Registry registry = new Registry();
+    List<UUID> keys = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      keys.add(registry.add(UUID.randomUUID()).getKey());
+    }
+    UUID missing = UUID.randomUUID();
+    keys.add(missing);
+
+    File cacheDir = testFolder.resolve("cache").toFile();
+    DatasetMetadataFetcher fetcher = newFetcher(registry, cacheDir);
+    Map<UUID, Dataset> datasets = fetcher.getDatasets(keys);
+
+    Assertions.assertEquals(50, datasets.size());
+    Assertions.assertFalse(datasets.containsKey(missing));
+    Assertions.assertEquals(keys.subList(0, 50), new ArrayList<>(datasets.keySet()));
+    Assertions.assertEquals("Dataset " + keys.get(0), datasets.get(keys.get(0)).getTitle());
+    registry.verifyGetRequests(51);
+    Assertions.assertFalse(registry.timedOut.get(), "Requests are not concurrent");
+    Assertions.assertEquals(PARALLELISM, registry.peakInFlight.get());
+
+    // in-memory cache, returned instances are copies
+    datasets.get(keys.get(0)).setTitle("modified");
+    Map<UUID, Dataset> cached = fetcher.getDatasets(keys.subList(0, 50));
+    registry.verifyGetRequests(51);
+    Assertions.assertEquals("Dataset " + keys.get(0), cached.get(keys.get(0)).getTitle());
+
+    // on-disk cache, used by a new instance
+    Assertions.assertEquals(50, newFetcher(registry, cacheDir).getDatasets(keys.subList(0, 50)).size());
+    registry.verifyGetRequests(51);
+  }
+
+  @Test
+  public void testCachedEmlFiles(@TempDir Path testFolder) throws IOException {
+    Registry registry = new Registry();
+    Dataset dataset = registry.add(UUID.randomUUID());
+    File cacheDir = testFolder.resolve("cache").toFile();
+    File emlDir = Files.createDirectory(testFolder.resolve("dataset")).toFile();
+
+    DatasetMetadataFetcher fetcher = newFetcher(registry, cacheDir);
+    fetcher.copyEmlFiles(Collections.singletonList(dataset), emlDir);
+    File emlFile = new File(emlDir, dataset.getKey() + ".xml");
+    Assertions.assertEquals("<eml>" + dataset.getKey() + "</eml>",
+                            new String(Files.readAllBytes(emlFile.toPath()), StandardCharsets.UTF_8));
+    registry.verifyEmlRequests(1);
+
+    // same modified date, the cached document is used
+    Assertions.assertTrue(emlFile.delete());
+    newFetcher(registry, cacheDir).copyEmlFiles(Collections.singletonList(dataset), emlDir);
+    Assertions.assertTrue(emlFile.exists());
+    registry.verifyEmlRequests(1);
+
+    // the dataset changed, the document is fetched again and the previous version is deleted
+    dataset.setModified(new Date(2_000_000L));
+    fetcher.copyEmlFiles(Collections.singletonList(dataset), emlDir);
+    registry.verifyEmlRequests(2);
+    Assertions.assertFalse(new File(cacheDir, dataset.getKey() + "-1000000.xml").exists());
+    Assertions.assertTrue(new File(cacheDir, dataset.getKey() + "-2000000.xml").exists());
+
+    // a download still using the previous version fetches it again without deleting the newer one
+    dataset.setModified(new Date(1_000_000L));
+    Assertions.assertTrue(emlFile.delete());
+    fetcher.copyEmlFiles(Collections.singletonList(dataset), emlDir);
+    Assertions.assertTrue(emlFile.exists());
+    registry.verifyEmlRequests(3);
+    Assertions.assertTrue(new File(cacheDir, dataset.getKey() + "-2000000.xml").exists());
+
+    // datasets without EML are skipped
+    Dataset withoutEml = new Dataset();
+    withoutEml.setKey(UUID.randomUUID());
+    fetcher.copyEmlFiles(Collections.singletonList(withoutEml), emlDir);
+    Assertions.assertFalse(new File(emlDir, withoutEml.getKey() + ".xml").exists());
+  }
+}
@@ -0,0 +1,129 @@
+package org.gbif.occurrence.download.file.dwca;
+
+import org.gbif.api.model.occurrence.Download;
+import org.gbif.api.model.occurrence.DownloadFormat;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.service.registry.DatasetService;
+import org.gbif.api.service.registry.OccurrenceDownloadService;
+import org.gbif.api.vocabulary.License;
+import org.gbif.occurrence.common.download.DownloadUtils;
+import org.gbif.occurrence.download.conf.WorkflowConfiguration;
+import org.gbif.occurrence.download.file.DownloadJobConfiguration;
+import org.gbif.occurrence.download.inject.DownloadWorkflowModule;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for the class {@link DwcaArchiveBuilder}, building the archive of a small download in the local
+ * filesystem with registry mocks.
+ */
+public class DwcaArchiveBuilderTest {
+
+  private static final String DOWNLOAD_KEY = "0000001-200101000000000";
+
+  private static final UUID DATASET_KEY = UUID.randomUUID();
+
+  private static DatasetService datasetService() {
+    DatasetService datasetService = mock(DatasetService.class);
+    when(datasetService.get(any(UUID.class))).thenAnswer(invocation -> {
+      Dataset dataset = new Dataset();
+      dataset.setKey(invocation.getArgument(0));
+      dataset.setTitle("Dataset " + invocation.getArgument(0));
+      dataset.setLicense(License.CC_BY_4_0);
+      dataset.setModified(new Date(1_000_000L));
+      return dataset;
+    });
+    when(datasetService.getMetadataDocument(any(UUID.class))).thenAnswer(invocation -> new ByteArrayInputStream(
+      ("<eml>" + invocation.getArgument(0) + "</eml>").getBytes(StandardCharsets.UTF_8)));
+    return datasetService;
+  }
+
+  private static OccurrenceDownloadService occurrenceDownloadService() {
+    Download download = new Download();
+    download.setKey(DOWNLOAD_KEY);
+    download.setCreated(new Date());
+    download.setLicense(License.CC_BY_4_0);
+    OccurrenceDownloadService occurrenceDownloadService = mock(OccurrenceDownloadService.class);
+    when(occurrenceDownloadService.get(DOWNLOAD_KEY)).thenReturn(download);
+    return occurrenceDownloadService;
+  }
+
+  /**
+   * The archive must be written to the given path and contain the data files, the descriptor and the metadata.
+   */
+  @Test
+  public void testBuildSmallArchive(@TempDir Path testFolder) throws IOException {
+    String tmpDir = testFolder.toFile().getAbsolutePath();
+    Properties settings = new Properties();
+    settings.setProperty(DownloadWorkflowModule.DefaultSettings.NAME_NODE_KEY, "file:///");
+    settings.setProperty(DownloadWorkflowModule.DefaultSettings.TMP_DIR_KEY, tmpDir);
+    settings.setProperty(DownloadWorkflowModule.DefaultSettings.HDFS_OUTPUT_PATH_KEY, tmpDir + "/unused");
+    settings.setProperty(DownloadWorkflowModule.DefaultSettings.DOWNLOAD_LINK_KEY,
+                         "http://localhost/occurrence/download/" + DownloadUtils.DOWNLOAD_ID_PLACEHOLDER + ".zip");
+    WorkflowConfiguration workflowConfiguration = new WorkflowConfiguration(settings);
+    DownloadJobConfiguration configuration = new DownloadJobConfiguration.Builder()
+      .withDownloadKey(DOWNLOAD_KEY)
+      .withIsSmallDownload(true)
+      .withSourceDir(tmpDir)
+      .withDownloadFormat(DownloadFormat.DWCA)
+      .build();
+
+    // files written by the download actors and aggregator
+    File archiveDir = new File(tmpDir, DOWNLOAD_KEY);
+    Files.createDirectories(archiveDir.toPath());
+    byte[] occurrences = "gbifID\tscientificName\n1\tPuma concolor\n".getBytes(StandardCharsets.UTF_8);
+    Files.write(new File(configuration.getInterpretedDataFileName()).toPath(), occurrences);
+    Files.write(new File(configuration.getVerbatimDataFileName()).toPath(), new byte[0]);
+    Files.write(new File(configuration.getMultimediaDataFileName()).toPath(), new byte[0]);
+    Files.write(new File(configuration.getCitationDataFileName()).toPath(),
+                (DATASET_KEY + "\t1\n").getBytes(StandardCharsets.UTF_8));
+
+    FileSystem fs = FileSystem.getLocal(new Configuration()).getRawFileSystem();
+    File zipFile = testFolder.resolve("output").resolve(DOWNLOAD_KEY + ".zip").toFile();
+    new DwcaArchiveBuilder(datasetService(), occurrenceDownloadService(), fs, fs, archiveDir, null, configuration,
+                           workflowConfiguration)
+      .buildArchive(new org.apache.hadoop.fs.Path(zipFile.getAbsolutePath()));
+
+    Assertions.assertTrue(zipFile.exists());
+    Assertions.assertFalse(new File(zipFile.getPath() + ".part").exists());
+    Assertions.assertFalse(archiveDir.exists());
+    try (ZipFile zip = new ZipFile(zipFile)) {
+      Set<String> entries = zip.stream().map(java.util.zip.ZipEntry::getName).collect(Collectors.toSet());
+      Assertions.assertEquals(ImmutableSet.of(DwcDownloadsConstants.INTERPRETED_FILENAME,
+                                              DwcDownloadsConstants.VERBATIM_FILENAME,
+                                              DwcDownloadsConstants.MULTIMEDIA_FILENAME,
+                                              DwcDownloadsConstants.CITATIONS_FILENAME,
+                                              DwcDownloadsConstants.RIGHTS_FILENAME,
+                                              DwcDownloadsConstants.METADATA_FILENAME,
+                                              DwcDownloadsConstants.DESCRIPTOR_FILENAME,
+                                              "dataset/" + DATASET_KEY + ".xml"), entries);
+      try (InputStream in = zip.getInputStream(zip.getEntry(DwcDownloadsConstants.INTERPRETED_FILENAME))) {
+        Assertions.assertArrayEquals(occurrences, ByteStreams.toByteArray(in));
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package org.gbif.occurrence.download.file.simpleavro;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the class {@link AvroBlockMerger}.
+ */
+public class AvroBlockMergerTest {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("occurrence").fields()
+    .requiredLong("gbifid")
+    .optionalString("scientificname")
+    .endRecord();
+
+  /**
+   * Blocks of deflate files are copied, blocks of other codecs are recompressed; the records must keep their order.
+   */
+  @Test
+  public void testMerge(@TempDir Path testFolder) throws IOException {
+    List<GenericRecord> expected = new ArrayList<>();
+    List<org.apache.hadoop.fs.Path> inputs = new ArrayList<>();
+    CodecFactory[] codecs = {CodecFactory.deflateCodec(9), CodecFactory.nullCodec(), CodecFactory.snappyCodec(),
+      CodecFactory.deflateCodec(1), CodecFactory.nullCodec()};
+    for (int i = 0; i < codecs.length; i++) {
+      File file = testFolder.resolve("part-" + i + ".avro").toFile();
+      expected.addAll(writeAvro(file, SCHEMA, codecs[i], i * 10_000L, 5_000));
+      inputs.add(new org.apache.hadoop.fs.Path(file.getAbsolutePath()));
+    }
+    // file without blocks
+    File empty = testFolder.resolve("empty.avro").toFile();
+    writeAvro(empty, SCHEMA, CodecFactory.deflateCodec(-1), 0, 0);
+    inputs.add(2, new org.apache.hadoop.fs.Path(empty.getAbsolutePath()));
+
+    File merged = testFolder.resolve("merged.avro").toFile();
+    try (OutputStream out = new FileOutputStream(merged)) {
+      new AvroBlockMerger(-1, 2).merge(FileSystem.getLocal(new Configuration()), inputs, out);
+    }
+
+    List<GenericRecord> records = new ArrayList<>();
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(merged, new GenericDatumReader<>())) {
+      Assertions.assertEquals(SCHEMA, reader.getSchema());
+      Assertions.assertEquals(DataFileConstants.DEFLATE_CODEC, reader.getMetaString(DataFileConstants.CODEC));
+      reader.forEach(records::add);
+    }
+    Assertions.assertEquals(expected, records);
+  }
+
+  /**
+   * Files with different schemas can't be merged.
+   */
+  @Test
+  public void testSchemaMismatch(@TempDir Path testFolder) throws IOException {
+    File first = testFolder.resolve("first.avro").toFile();
+    writeAvro(first, SCHEMA, CodecFactory.deflateCodec(-1), 0, 10);
+    File second = testFolder.resolve("second.avro").toFile();
+    Schema other = SchemaBuilder.record("occurrence").fields().requiredLong("gbifid").endRecord();
+    writeAvro(second, other, CodecFactory.deflateCodec(-1), 0, 10);
+
+    File merged = testFolder.resolve("merged.avro").toFile();
+    try (OutputStream out = new FileOutputStream(merged)) {
+      Assertions.assertThrows(IOException.class, () -> new AvroBlockMerger().merge(
+        FileSystem.getLocal(new Configuration()),
+        Arrays.asList(new org.apache.hadoop.fs.Path(first.getAbsolutePath()),
+                      new org.apache.hadoop.fs.Path(second.getAbsolutePath())),
+        out));
+    }
+  }
+
+  /**
+   * Writes records with consecutive ids in small blocks.
+   */
+  private static List<GenericRecord> writeAvro(File file, Schema schema, CodecFactory codec, long firstId,
+                                               int records) throws IOException {
+    List<GenericRecord> written = new ArrayList<>();
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+      writer.setCodec(codec);
+      writer.setSyncInterval(DataFileConstants.MIN_SYNC_INTERVAL);
+      writer.create(schema, file);
+      for (long id = firstId; id < firstId + records; id++) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("gbifid", id);
+        if (schema.getField("scientificname") != null) {
+          record.put("scientificname", id % 3 == 0 ? null : "Puma concolor " + id);
+        }
+        writer.append(record);
+        written.add(record);
+      }
+    }
+    return written;
+  }
+}
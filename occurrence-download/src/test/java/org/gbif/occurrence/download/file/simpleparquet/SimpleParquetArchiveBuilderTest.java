@@ -0,0 +1,112 @@
+package org.gbif.occurrence.download.file.simpleparquet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the class {@link SimpleParquetArchiveBuilder}, the Parquet files of the Hive table are replaced by
+ * files written locally.
+ */
+public class SimpleParquetArchiveBuilderTest {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("occurrence").fields()
+    .requiredLong("gbifid")
+    .optionalString("scientificname")
+    .optionalDouble("decimallatitude")
+    .endRecord();
+
+  @Test
+  public void testMergeToZip(@TempDir Path testFolder) throws IOException {
+    Path tableDir = Files.createDirectory(testFolder.resolve("table"));
+    List<GenericRecord> expected = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      expected.addAll(writeParquet(tableDir.resolve("00000" + i + "_0").toFile(), i * 1_000L, 1_000));
+    }
+    // Hadoop markers must be ignored
+    Files.createFile(tableDir.resolve("_SUCCESS"));
+    Files.createFile(tableDir.resolve(".000000_0.crc"));
+
+    Path targetDir = Files.createDirectory(testFolder.resolve("target"));
+    SimpleParquetArchiveBuilder.mergeToZip(FileSystem.getLocal(new Configuration()),
+                                           FileSystem.getLocal(new Configuration()),
+                                           tableDir.toString(),
+                                           targetDir.toString(),
+                                           "0000001-200101000000000");
+
+    List<GenericRecord> records = new ArrayList<>();
+    List<String> entryNames = new ArrayList<>();
+    try (ZipFile zipFile = new ZipFile(targetDir.resolve("0000001-200101000000000.zip").toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        entryNames.add(entry.getName());
+        File extracted = testFolder.resolve(entryNames.size() + ".parquet").toFile();
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          Files.copy(in, extracted.toPath());
+        }
+        records.addAll(readParquet(extracted));
+      }
+    }
+    Assertions.assertEquals(3, entryNames.size());
+    Assertions.assertEquals("occurrence.parquet/000000.parquet", entryNames.get(0));
+    Assertions.assertEquals("occurrence.parquet/000002.parquet", entryNames.get(2));
+    Assertions.assertEquals(expected, records);
+  }
+
+  /**
+   * Writes records with consecutive ids using Snappy compression, as Hive does.
+   */
+  private static List<GenericRecord> writeParquet(File file, long firstId, int records) throws IOException {
+    List<GenericRecord> written = new ArrayList<>();
+    try (ParquetWriter<GenericRecord> writer =
+           AvroParquetWriter.<GenericRecord>builder(new org.apache.hadoop.fs.Path(file.getAbsolutePath()))
+             .withSchema(SCHEMA)
+             .withCompressionCodec(CompressionCodecName.SNAPPY)
+             .build()) {
+      for (long id = firstId; id < firstId + records; id++) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("gbifid", id);
+        record.put("scientificname", id % 3 == 0 ? null : "Puma concolor " + id);
+        record.put("decimallatitude", id % 5 == 0 ? null : id / 100d);
+        writer.write(record);
+        written.add(record);
+      }
+    }
+    return written;
+  }
+
+  private static List<GenericRecord> readParquet(File file) throws IOException {
+    List<GenericRecord> records = new ArrayList<>();
+    try (ParquetReader<GenericRecord> reader =
+           AvroParquetReader.<GenericRecord>builder(new org.apache.hadoop.fs.Path(file.getAbsolutePath())).build()) {
+      GenericRecord record;
+      while ((record = reader.read()) != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+}
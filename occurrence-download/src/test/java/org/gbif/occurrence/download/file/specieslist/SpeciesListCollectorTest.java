@@ -2,17 +2,24 @@ package org.gbif.occurrence.download.file.specieslist;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
 
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.occurrence.download.file.common.TsvWriter;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class SpeciesListCollectorTest {
 
@@ -58,6 +65,47 @@ public class SpeciesListCollectorTest {
     assertEquals(collector.getByTaxonKey("2").get(GbifTerm.numberOfOccurrences.simpleName()), "100");
   }
 
+  /**
+   * Species spilled to several runs must be merged into the same list as species collected in memory.
+   */
+  @Test
+  public void testSpillAndMerge(@TempDir Path testFolder) throws IOException {
+    Random random = new Random(7);
+    SpeciesListCollector inMemory = new SpeciesListCollector(testFolder.resolve("memory").toString(),
+                                                             Integer.MAX_VALUE);
+    SpeciesListCollector spilled = new SpeciesListCollector(testFolder.resolve("spilled").toString(), 100);
+    SpeciesListCollector otherChunk = new SpeciesListCollector(testFolder.resolve("other").toString(), 100);
+    for (int i = 0; i < 5000; i++) {
+      long taxonKey = (i * 7919L) % 1000;
+      Map<String, String> speciesRecord = buildTestRecord(Long.toString(taxonKey), (long) random.nextInt(5));
+      speciesRecord.put(DwcTerm.scientificName.simpleName(), "Species " + taxonKey);
+      speciesRecord.put(DwcTerm.kingdom.simpleName(), taxonKey % 2 == 0 ? "Animalia" : null);
+      inMemory.collect(new HashMap<>(speciesRecord));
+      (i % 2 == 0 ? spilled : otherChunk).collect(speciesRecord);
+    }
+    // no taxon key
+    inMemory.collect(buildTestRecord(null, null));
+    otherChunk.collect(buildTestRecord(null, null));
+
+    List<String> runs = new ArrayList<>(spilled.finish());
+    runs.addAll(otherChunk.finish());
+    List<String> singleRun = inMemory.finish();
+    assertEquals(1, singleRun.size());
+
+    File expected = testFolder.resolve("expected.tsv").toFile();
+    File merged = testFolder.resolve("merged.tsv").toFile();
+    long species;
+    try (TsvWriter writer = new TsvWriter(expected.getAbsolutePath())) {
+      species = SpeciesListMerger.merge(singleRun, writer);
+    }
+    try (TsvWriter writer = new TsvWriter(merged.getAbsolutePath())) {
+      assertEquals(species, SpeciesListMerger.merge(runs, writer));
+    }
+    assertEquals(1001, species);
+    assertEquals(new String(Files.readAllBytes(expected.toPath()), StandardCharsets.UTF_8),
+                 new String(Files.readAllBytes(merged.toPath()), StandardCharsets.UTF_8));
+  }
+
   /**
    * Creates test records using taxonKey and numOfOccurrences values.
    */
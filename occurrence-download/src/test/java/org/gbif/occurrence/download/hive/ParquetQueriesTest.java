@@ -0,0 +1,81 @@
+package org.gbif.occurrence.download.hive;
+
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.ImmutableMap;
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link ParquetQueries} and the simple Parquet download query generated with it.
+ */
+public class ParquetQueriesTest {
+
+  private static final ParquetQueries PARQUET_QUERIES = new ParquetQueries();
+
+  /**
+   * Columns keep the types of the occurrence table, except dates which are converted to ISO 8601 strings.
+   */
+  @Test
+  public void testSelectFields() {
+    Map<String, InitializableField> fields = PARQUET_QUERIES.selectSimpleDownloadFields(true);
+
+    Assertions.assertEquals(GbifTerm.gbifID.simpleName(), fields.keySet().iterator().next());
+    assertField(fields, DwcTerm.eventDate.simpleName(), "toLocalISO8601(eventdate) AS eventdate", "STRING");
+    assertField(fields, DwcTerm.dateIdentified.simpleName(), "toLocalISO8601(dateidentified) AS dateidentified",
+                "STRING");
+    assertField(fields, GbifTerm.lastInterpreted.simpleName(), "toISO8601(lastinterpreted) AS lastinterpreted",
+                "STRING");
+    assertField(fields, DwcTerm.year.simpleName(), "year", "INT");
+    assertField(fields, DwcTerm.decimalLatitude.simpleName(), "decimallatitude", "DOUBLE");
+    assertField(fields, GbifTerm.issue.simpleName(), "issue", "ARRAY<STRING>");
+    assertField(fields, GbifTerm.mediaType.simpleName(), "mediatype", "ARRAY<STRING>");
+    assertField(fields, "v_" + DwcTerm.scientificName.simpleName(), "v_scientificname", "STRING");
+
+    // without initializers dates are selected as they are stored
+    Assertions.assertEquals("eventdate",
+                            PARQUET_QUERIES.selectSimpleDownloadFields(false)
+                              .get(DwcTerm.eventDate.simpleName()).getHiveField());
+  }
+
+  /**
+   * The generated table definition and select must list every column with its type and initializer.
+   */
+  @Test
+  public void testGeneratedQuery() throws IOException, TemplateException {
+    Configuration cfg = new Configuration();
+    cfg.setTemplateLoader(new ClassTemplateLoader(GenerateHQL.class, "/templates"));
+    StringWriter out = new StringWriter();
+    cfg.getTemplate("simple-parquet-download/execute-simple-parquet-query.ftl")
+      .process(ImmutableMap.of("fields", PARQUET_QUERIES.selectSimpleDownloadFields(true)), out);
+    String hql = out.toString();
+
+    Assertions.assertTrue(hql.contains("`gbifid` BIGINT,"), hql);
+    Assertions.assertTrue(hql.contains("`eventdate` STRING,"), hql);
+    Assertions.assertTrue(hql.contains("`issue` ARRAY<STRING>"), hql);
+    Assertions.assertTrue(hql.contains("`v_scientificname` STRING,"), hql);
+    Assertions.assertTrue(hql.contains("STORED AS PARQUET;"), hql);
+    Assertions.assertTrue(hql.contains("toLocalISO8601(eventdate) AS eventdate,"), hql);
+    Assertions.assertTrue(hql.contains("toISO8601(lastinterpreted) AS lastinterpreted,"), hql);
+    // the last column and the last selected field are not followed by a comma
+    Assertions.assertFalse(Pattern.compile(",\\s*\\)\\s*STORED AS PARQUET").matcher(hql).find(), hql);
+    Assertions.assertFalse(Pattern.compile(",\\s*FROM occurrence").matcher(hql).find(), hql);
+  }
+
+  private static void assertField(Map<String, InitializableField> fields, String key, String hiveField,
+                                  String hiveDataType) {
+    InitializableField field = fields.get(key);
+    Assertions.assertNotNull(field, key);
+    Assertions.assertEquals(hiveField, field.getHiveField(), key);
+    Assertions.assertEquals(hiveDataType, field.getHiveDataType(), key);
+  }
+}
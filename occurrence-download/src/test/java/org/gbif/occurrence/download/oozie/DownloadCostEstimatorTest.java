@@ -0,0 +1,105 @@
+package org.gbif.occurrence.download.oozie;
+
+import org.gbif.api.model.occurrence.DownloadFormat;
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.occurrence.download.oozie.DownloadCostEstimator.Route;
+import org.gbif.occurrence.download.query.PredicateComplexity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the routing of downloads with the timings recorded in src/test/resources/timings.
+ */
+public class DownloadCostEstimatorTest {
+
+  private static DownloadCostEstimator estimator;
+
+  @BeforeAll
+  public static void loadTimings() throws IOException {
+    try (Reader reader = Resources.asCharSource(Resources.getResource("timings/download-timings.tsv"),
+                                                StandardCharsets.UTF_8).openStream()) {
+      estimator = DownloadCostEstimator.fromTsv(reader);
+    }
+  }
+
+  /**
+   * Regular polygon around 0,0 with the number of vertices.
+   */
+  private static String polygon(int vertices) {
+    StringBuilder wkt = new StringBuilder("POLYGON ((");
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      wkt.append(i == 0 ? "" : ", ")
+        .append(String.format(Locale.ENGLISH, "%.6f %.6f", 10 * Math.cos(angle), 10 * Math.sin(angle)));
+    }
+    return wkt.append("))").toString();
+  }
+
+  private static Optional<Route> fastestRoute(Predicate predicate, long records) {
+    return estimator.fastestRoute(DownloadFormat.DWCA, records, PredicateComplexity.of(predicate).getScore());
+  }
+
+  @Test
+  public void testCheapQueryIsSmallDownload() {
+    Predicate datasetKey =
+      new EqualsPredicate(OccurrenceSearchParameter.DATASET_KEY, "7ddf754f-d193-4cc9-b351-99906754a03b", false);
+    Assertions.assertEquals(Optional.of(Route.SMALL), fastestRoute(datasetKey, 150_000));
+  }
+
+  @Test
+  public void testGeometryQueryIsBigDownload() {
+    Predicate geometry = new ConjunctionPredicate(Arrays.asList(
+      new EqualsPredicate(OccurrenceSearchParameter.DATASET_KEY, "7ddf754f-d193-4cc9-b351-99906754a03b", false),
+      new WithinPredicate(polygon(2000))));
+    Assertions.assertEquals(Optional.of(Route.BIG), fastestRoute(geometry, 150_000));
+    // few records are still faster from Elasticsearch
+    Assertions.assertEquals(Optional.of(Route.SMALL), fastestRoute(geometry, 10_000));
+  }
+
+  @Test
+  public void testExpectedSeconds() {
+    // the small route starts sooner, the big one processes more records per second
+    double small = estimator.expectedSeconds(DownloadFormat.DWCA, Route.SMALL, 0, 1).getAsDouble();
+    double big = estimator.expectedSeconds(DownloadFormat.DWCA, Route.BIG, 0, 1).getAsDouble();
+    Assertions.assertTrue(small < big);
+    Assertions.assertEquals(60, small, 15);
+    Assertions.assertEquals(600, big, 30);
+    Assertions.assertEquals(160, estimator.expectedSeconds(DownloadFormat.DWCA, Route.SMALL, 100_000, 1).getAsDouble(),
+                            20);
+  }
+
+  @Test
+  public void testMissingTimings() {
+    // no timings of big SIMPLE_CSV downloads
+    Assertions.assertEquals(Optional.empty(), estimator.fastestRoute(DownloadFormat.SIMPLE_CSV, 10_000, 1));
+    Assertions.assertTrue(estimator.expectedSeconds(DownloadFormat.SIMPLE_CSV, Route.SMALL, 10_000, 1).isPresent());
+    Assertions.assertFalse(estimator.expectedSeconds(DownloadFormat.SIMPLE_CSV, Route.BIG, 10_000, 1).isPresent());
+    Assertions.assertEquals(Optional.empty(), estimator.fastestRoute(DownloadFormat.SPECIES_LIST, 10_000, 1));
+
+    // formats without small downloads
+    Assertions.assertEquals(Optional.of(Route.BIG), estimator.fastestRoute(DownloadFormat.SIMPLE_AVRO, 10, 1));
+  }
+
+  @Test
+  public void testInvalidTimings() {
+    Assertions.assertThrows(IOException.class,
+                            () -> DownloadCostEstimator.fromTsv(new StringReader("DWCA\tSMALL\t100\t1.0\n")));
+    Assertions.assertThrows(IOException.class,
+                            () -> DownloadCostEstimator.fromTsv(new StringReader("DWCA\tMEDIUM\t100\t1.0\t10\n")));
+  }
+}
@@ -739,6 +739,18 @@ public class EsQueryVisitorTest {
     Assertions.assertNotNull(query);
   }
 
+  @Test
+  public void testAntimeridianWithinPredicate() throws QueryBuildingException {
+    // A clockwise polygon around Taveuni, Fiji, as Wicket draws it. Elasticsearch takes it to cross the antimeridian
+    // only if its ring keeps this orientation.
+    final String wkt = "POLYGON((179.85168 -16.72643, 179.78577 -16.82899, 179.87915 -17.12058, -179.89838 -17.12845, -179.75006 -16.86054, -179.8764 -16.60277, 179.85168 -16.72643))";
+    String query = visitor.getQuery(new WithinPredicate(wkt)).replaceAll("\\s", "");
+    Assertions.assertTrue(query.contains("\"orientation\":\"right\",\"coordinates\":[[[179.85168,-16.72643]," +
+                                         "[179.78577,-16.82899],[179.87915,-17.12058],[-179.89838,-17.12845]," +
+                                         "[-179.75006,-16.86054],[-179.8764,-16.60277],[179.85168,-16.72643]]]"),
+                          query);
+  }
+
   @Test
   public void testComplexPredicateOne() throws QueryBuildingException {
     Predicate p1 = new EqualsPredicate(PARAM, "value_1", false);
@@ -23,12 +23,14 @@ import org.gbif.api.vocabulary.Language;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 import com.google.common.collect.Lists;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class HiveQueryVisitorTest {
@@ -283,6 +285,21 @@ public class HiveQueryVisitorTest {
     assertEquals(query, "((decimallatitude >= 63.3980322 AND decimallatitude <= 66.5371808 AND decimallongitude >= -24.5319933 AND decimallongitude <= -13.4948065) AND contains(\"" + wkt + "\", decimallatitude, decimallongitude) = TRUE)");
   }
 
+  @Test
+  public void testDetailedWithinPredicate() throws QueryBuildingException {
+    // a circle with thousands of vertices is first filtered by a simplified polygon
+    StringBuilder wkt = new StringBuilder("POLYGON ((");
+    for (int i = 0; i <= 5000; i++) {
+      double angle = 2 * Math.PI * (i % 5000) / 5000;
+      wkt.append(i == 0 ? "" : ", ").append(String.format(Locale.ENGLISH, "%.8f %.8f", 10 * Math.cos(angle),
+                                                          10 * Math.sin(angle)));
+    }
+    wkt.append("))");
+    String query = visitor.getHiveQuery(new WithinPredicate(wkt.toString()));
+    assertTrue(query.startsWith("((decimallatitude >= -10.0 AND decimallatitude <= 10.0 AND decimallongitude >= -10.0 AND decimallongitude <= 10.0) AND contains(\"POLYGON (("));
+    assertEquals(2, query.split("contains\\(").length - 1);
+  }
+
   @Test
   public void testAntimeridianWithinPredicate() throws Exception {
     // A rectangle over the Bering sea, shouldn't have any bounding box added
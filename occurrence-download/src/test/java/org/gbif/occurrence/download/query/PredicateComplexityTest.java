@@ -0,0 +1,54 @@
+package org.gbif.occurrence.download.query;
+
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.IsNotNullPredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.WithinPredicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link PredicateComplexity}.
+ */
+public class PredicateComplexityTest {
+
+  @Test
+  public void testMatchAll() {
+    PredicateComplexity complexity = PredicateComplexity.of(null);
+    Assertions.assertEquals(0, complexity.getClauses());
+    Assertions.assertEquals(0, complexity.getVertices());
+    Assertions.assertEquals(1, complexity.getScore());
+  }
+
+  @Test
+  public void testExpandedParameters() {
+    PredicateComplexity complexity = PredicateComplexity.of(new ConjunctionPredicate(Arrays.asList(
+      new EqualsPredicate(OccurrenceSearchParameter.TAXON_KEY, "212", false),
+      new InPredicate(OccurrenceSearchParameter.GADM_GID, Arrays.asList("DNK", "SWE"), false),
+      new NotPredicate(new IsNotNullPredicate(OccurrenceSearchParameter.RECORDED_BY)),
+      new DisjunctionPredicate(Arrays.asList(
+        new EqualsPredicate(OccurrenceSearchParameter.YEAR, "2000", false),
+        new InPredicate(OccurrenceSearchParameter.MONTH, Arrays.asList("1", "2", "3"), false))))));
+    Assertions.assertEquals(10 + 2 * 4 + 1 + 1 + 3, complexity.getClauses());
+    Assertions.assertEquals(0, complexity.getVertices());
+  }
+
+  @Test
+  public void testGeometry() {
+    PredicateComplexity square = PredicateComplexity.of(new WithinPredicate("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"));
+    Assertions.assertEquals(1, square.getClauses());
+    Assertions.assertEquals(5, square.getVertices());
+
+    PredicateComplexity holes = PredicateComplexity.of(new WithinPredicate(
+      "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 4, 4 4, 4 2, 2 2))"));
+    Assertions.assertEquals(10, holes.getVertices());
+    Assertions.assertTrue(holes.getScore() > square.getScore());
+  }
+}
@@ -0,0 +1,47 @@
+package org.gbif.occurrence.download.query;
+
+import org.gbif.api.model.occurrence.predicate.Predicate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.CharMatcher;
+import com.google.common.io.Resources;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Golden output tests of the query visitors, the predicates of src/test/resources/predicates are shaped as those of
+ * download requests and the expected queries are stored next to them, .hql for Hive and .es.json for Elasticsearch.
+ */
+public class PredicateCorpusTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @ParameterizedTest
+  @ValueSource(strings = {"and_in", "complex_and_not", "complex_not_or", "complex_within", "not_and", "passer_in_gb",
+    "taxa_countries_years", "taxon_not_basis_of_record", "year_ranges"})
+  public void testHiveQuery(String name) throws IOException, QueryBuildingException {
+    Assertions.assertEquals(expected(name + ".hql"), new HiveQueryVisitor().getHiveQuery(predicate(name)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"and_in", "complex_and_not", "complex_not_or", "complex_within", "not_and"})
+  public void testEsQuery(String name) throws IOException, QueryBuildingException {
+    Assertions.assertEquals(expected(name + ".es.json"), new EsQueryVisitor().getQuery(predicate(name)));
+  }
+
+  private static Predicate predicate(String name) throws IOException {
+    return MAPPER.readValue(Resources.getResource("predicates/" + name + ".json"), Predicate.class);
+  }
+
+  /**
+   * Expected query, without the line break that ends the file.
+   */
+  private static String expected(String file) throws IOException {
+    return CharMatcher.is('\n')
+      .trimTrailingFrom(Resources.toString(Resources.getResource("predicates/" + file), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,79 @@
+package org.gbif.occurrence.download.query;
+
+import org.gbif.api.model.occurrence.predicate.ConjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.LikePredicate;
+import org.gbif.api.model.occurrence.predicate.NotPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the query building of large predicates, like those of downloads with thousands of catalogue numbers.
+ * It is not run by the build, run it from the IDE or with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PredicateVisitorBenchmark {
+
+  @Param({"100", "5000"})
+  private int size;
+
+  private Predicate predicate;
+
+  @Setup
+  public void setup() {
+    // Equals predicates on alternating parameters can't be merged into IN predicates
+    List<Predicate> children = new ArrayList<>(size);
+    List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      OccurrenceSearchParameter parameter =
+        i % 2 == 0 ? OccurrenceSearchParameter.CATALOG_NUMBER : OccurrenceSearchParameter.INSTITUTION_CODE;
+      children.add(new EqualsPredicate(parameter, "value_" + i, false));
+      values.add("value_" + i);
+    }
+    predicate = new ConjunctionPredicate(Lists.<Predicate>newArrayList(
+      new DisjunctionPredicate(children),
+      new InPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, values, false),
+      new NotPredicate(new LikePredicate(OccurrenceSearchParameter.COLLECTION_CODE, "value_%", false))));
+  }
+
+  @Benchmark
+  public String hiveQuery() throws QueryBuildingException {
+    return new HiveQueryVisitor().getHiveQuery(predicate);
+  }
+
+  @Benchmark
+  public String esQuery() throws QueryBuildingException {
+    return new EsQueryVisitor().getQuery(predicate);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PredicateVisitorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
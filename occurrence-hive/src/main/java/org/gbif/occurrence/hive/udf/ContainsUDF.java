@@ -1,9 +1,15 @@
 package org.gbif.occurrence.hive.udf;
 
 import java.text.ParseException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import com.google.common.collect.Maps;
+import com.google.common.annotations.VisibleForTesting;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.locationtech.spatial4j.exception.InvalidShapeException;
 import org.locationtech.spatial4j.io.WKTReader;
 import org.apache.hadoop.hive.ql.exec.Description;
@@ -14,6 +20,7 @@ import org.locationtech.spatial4j.context.jts.DatelineRule;
 import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
 import org.locationtech.spatial4j.shape.Point;
 import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
 import org.locationtech.spatial4j.shape.jts.JtsShapeFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +36,9 @@ import org.slf4j.LoggerFactory;
  *
  * Therefore, such polygons (e.g a rough polygon of the Pacific Ocean) should have interpolated points added by the
  * client.
+ *
+ * Parsed geometries are kept in a small LRU cache and prepared (indexed) once, so testing a coordinate against a
+ * polygon of thousands of vertices doesn't scan all its edges.
  */
 /*
  * Interpolating here would be rather difficult — the WKTReader doesn't give access to the coordinates until the
@@ -39,8 +49,18 @@ public class ContainsUDF extends UDF {
 
   private static final Logger LOG = LoggerFactory.getLogger(ContainsUDF.class);
 
+  // a query usually has a single geometry, but a join can give a different one per row
+  @VisibleForTesting
+  static final int MAX_CACHED_GEOMETRIES = 100;
+
   private final WKTReader wktReader;
-  private final Map<String, Shape> geometryCache = Maps.newHashMap();
+  private final Map<String, CachedGeometry> geometryCache =
+    new LinkedHashMap<String, CachedGeometry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedGeometry> eldest) {
+        return size() > MAX_CACHED_GEOMETRIES;
+      }
+    };
   private final BooleanWritable isContained = new BooleanWritable();
 
   private final JtsShapeFactory shapeFactory;
@@ -67,16 +87,14 @@ public class ContainsUDF extends UDF {
         return isContained;
       }
       String geoWKTStr = geometryAsWKT.toString();
-      Shape geom = geometryCache.get(geoWKTStr);
+      CachedGeometry geom = geometryCache.get(geoWKTStr);
       if (geom == null) {
-        geom = wktReader.read(geoWKTStr);
+        geom = new CachedGeometry(wktReader.read(geoWKTStr));
         geometryCache.put(geoWKTStr, geom);
       }
 
       // support any geometry - up to the user to make a sensible query
-      Point point = shapeFactory.pointXY(longitude, latitude);
-
-      isContained.set(geom.relate(point).intersects());
+      isContained.set(geom.intersects(longitude, latitude));
 
     } catch (ParseException | InvalidShapeException e) {
       LOG.error("Invalid geometry received: {}", geometryAsWKT.toString(), e);
@@ -86,4 +104,47 @@ public class ContainsUDF extends UDF {
 
     return isContained;
   }
+
+  @VisibleForTesting
+  int cachedGeometries() {
+    return geometryCache.size();
+  }
+
+  /**
+   * A parsed geometry. JTS geometries, already split at the antimeridian by Spatial4J, are tested against their
+   * envelope and then against their prepared geometry, which indexes the edges; other shapes like rectangles are
+   * cheap enough to be tested by Spatial4J.
+   */
+  private class CachedGeometry {
+
+    private final Shape shape;
+    private final Envelope envelope;
+    private final PreparedGeometry prepared;
+
+    CachedGeometry(Shape shape) {
+      this.shape = shape;
+      if (shape instanceof JtsGeometry) {
+        Geometry geometry = ((JtsGeometry) shape).getGeom();
+        envelope = geometry.getEnvelopeInternal();
+        prepared = PreparedGeometryFactory.prepare(geometry);
+      } else {
+        envelope = null;
+        prepared = null;
+      }
+    }
+
+    /**
+     * Points on the boundary intersect the geometry, as they did with Spatial4J.
+     */
+    boolean intersects(double longitude, double latitude) {
+      if (prepared == null) {
+        Point point = shapeFactory.pointXY(longitude, latitude);
+        return shape.relate(point).intersects();
+      }
+      if (!envelope.intersects(longitude, latitude)) {
+        return false;
+      }
+      return prepared.intersects(prepared.getGeometry().getFactory().createPoint(new Coordinate(longitude, latitude)));
+    }
+  }
 }
@@ -0,0 +1,92 @@
+package org.gbif.occurrence.hive.udf;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Text;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the evaluation of the contains UDF on rows of a query with a detailed polygon, compared to testing each
+ * coordinate against the unprepared geometry.
+ * It is not run by the build, run it from the IDE or with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContainsUDFBenchmark {
+
+  private static final int ROWS = 1000;
+
+  @Param({"100", "5000", "50000"})
+  private int vertices;
+
+  private Text wkt;
+  private Geometry geometry;
+  private ContainsUDF udf;
+  private final double[] latitudes = new double[ROWS];
+  private final double[] longitudes = new double[ROWS];
+  private final GeometryFactory factory = new GeometryFactory();
+
+  @Setup
+  public void setup() throws ParseException {
+    String polygon = ContainsUDFTest.wavyPolygon(vertices);
+    wkt = new Text(polygon);
+    geometry = new WKTReader().read(polygon);
+    udf = new ContainsUDF();
+    // most rows around the polygon, as with a bounding box query, and some far away
+    Random random = new Random(42);
+    for (int i = 0; i < ROWS; i++) {
+      double spread = i % 10 == 0 ? 180 : 20;
+      latitudes[i] = Math.max(-90, Math.min(90, (random.nextDouble() * 2 - 1) * spread));
+      longitudes[i] = (random.nextDouble() * 2 - 1) * spread;
+    }
+  }
+
+  @Benchmark
+  public int udf() {
+    int contained = 0;
+    for (int i = 0; i < ROWS; i++) {
+      if (udf.evaluate(wkt, latitudes[i], longitudes[i]).get()) {
+        contained++;
+      }
+    }
+    return contained;
+  }
+
+  @Benchmark
+  public int unprepared() {
+    int contained = 0;
+    for (int i = 0; i < ROWS; i++) {
+      if (geometry.intersects(factory.createPoint(new Coordinate(longitudes[i], latitudes[i])))) {
+        contained++;
+      }
+    }
+    return contained;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ContainsUDFBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -2,6 +2,10 @@ package org.gbif.occurrence.hive.udf;
 
 import org.apache.hadoop.io.Text;
 import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.WKTReader;
 
 import static org.junit.Assert.*;
 
@@ -74,6 +78,58 @@ public class ContainsUDFTest {
     assertFalse(contains("POLYGON ((-78.13477 -50.88867, -78.13477 49.13086, 105.0293 49.13086, 105.0293 -50.88867, -78.13477 -50.88867))", 10.0, 10.0));
   }
 
+  @Test
+  public void evaluateLargePolygonTest() throws Exception {
+    String wkt = wavyPolygon(5000);
+    Geometry polygon = new WKTReader().read(wkt);
+    GeometryFactory factory = new GeometryFactory();
+
+    // the same UDF evaluates all the rows of a query
+    ContainsUDF udf = new ContainsUDF();
+    Text geom = new Text(wkt);
+    for (double latitude = -20; latitude <= 20; latitude += 0.37) {
+      for (double longitude = -20; longitude <= 20; longitude += 0.41) {
+        boolean expected = polygon.intersects(factory.createPoint(new Coordinate(longitude, latitude)));
+        assertEquals(latitude + " " + longitude, expected, udf.evaluate(geom, latitude, longitude).get());
+      }
+    }
+    // vertices are on the boundary
+    assertTrue(udf.evaluate(geom, 0.0, 15.0).get());
+    assertEquals(1, udf.cachedGeometries());
+  }
+
+  @Test
+  public void evaluateCacheIsBoundedTest() {
+    ContainsUDF udf = new ContainsUDF();
+    for (int i = 0; i < ContainsUDF.MAX_CACHED_GEOMETRIES * 2; i++) {
+      // the same polygon shifted north
+      double shift = i / 10.0;
+      Text geom = new Text("POLYGON ((30 " + (10 + shift) + ", 10 " + (20 + shift) + ", 20 " + (40 + shift) + ", 40 "
+                           + (40 + shift) + ", 30 " + (10 + shift) + "))");
+      assertTrue(udf.evaluate(geom, 30.0 + shift, 20.0).get());
+    }
+    assertEquals(ContainsUDF.MAX_CACHED_GEOMETRIES, udf.cachedGeometries());
+    // geometries evicted from the cache are parsed again
+    assertTrue(udf.evaluate(new Text("POLYGON ((30 10.0, 10 20.0, 20 40.0, 40 40.0, 30 10.0))"), 30.0, 20.0).get());
+    assertFalse(udf.evaluate(new Text("POLYGON ((30 10.0, 10 20.0, 20 40.0, 40 40.0, 30 10.0))"), 45.0, 20.0).get());
+  }
+
+  /**
+   * Polygon around 0,0 with vertices alternating between radius 10 and 15, like the detailed outline of a country.
+   */
+  static String wavyPolygon(int vertices) {
+    StringBuilder wkt = new StringBuilder("POLYGON ((");
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      double radius = i % 2 == 0 ? 15 : 10;
+      if (i > 0) {
+        wkt.append(", ");
+      }
+      wkt.append(radius * Math.cos(angle)).append(' ').append(radius * Math.sin(angle));
+    }
+    return wkt.append("))").toString();
+  }
+
   private boolean contains(String geom, Double latitude, Double longitude) {
     return new ContainsUDF().evaluate(new Text(geom), latitude, longitude).get();
   }
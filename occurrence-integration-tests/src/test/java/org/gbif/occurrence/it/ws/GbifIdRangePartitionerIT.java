@@ -0,0 +1,86 @@
+package org.gbif.occurrence.ws.it;
+
+import org.gbif.occurrence.download.file.DownloadFileWork;
+import org.gbif.occurrence.download.file.common.GbifIdRangePartitioner;
+import org.gbif.occurrence.download.file.common.SearchQueryProcessor;
+import org.gbif.occurrence.test.extensions.ElasticsearchInitializer;
+import org.gbif.occurrence.test.servers.EsManageServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Tests the split of small downloads in gbifId ranges against the embedded Elasticsearch.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@SpringBootTest(
+  classes = OccurrenceWsItConfiguration.class,
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GbifIdRangePartitionerIT {
+
+  // Number of records in occurrences-test.json
+  private static final int NR_OF_RECORDS = 10;
+
+  @RegisterExtension static ElasticsearchInitializer elasticsearchInitializer = ElasticsearchInitializer.builder().testDataFile("classpath:occurrences-test.json").build();
+
+  private final EsManageServer esServer;
+
+  @Autowired
+  public GbifIdRangePartitionerIT(EsManageServer esServer) {
+    this.esServer = esServer;
+  }
+
+  @Test
+  public void testPartitionsAreDisjoint() throws IOException {
+    List<GbifIdRangePartitioner.GbifIdRange> ranges =
+      GbifIdRangePartitioner.partition(esServer.getRestClient(), esServer.getIndexName(), null, 3);
+
+    Assertions.assertFalse(ranges.isEmpty());
+    Assertions.assertEquals(NR_OF_RECORDS, ranges.stream().mapToLong(GbifIdRangePartitioner.GbifIdRange::getCount).sum());
+    for (int i = 1; i < ranges.size(); i++) {
+      // descending order, no overlaps
+      Assertions.assertTrue(ranges.get(i).getUpperKey() <= ranges.get(i - 1).getLowerKey());
+    }
+  }
+
+  @Test
+  public void testReadPartitions() throws IOException {
+    List<GbifIdRangePartitioner.GbifIdRange> ranges =
+      GbifIdRangePartitioner.partition(esServer.getRestClient(), esServer.getIndexName(), null, 4);
+
+    List<Long> keys = new ArrayList<>();
+    int from = 0;
+    for (int i = 0; i < ranges.size(); i++) {
+      GbifIdRangePartitioner.GbifIdRange range = ranges.get(i);
+      int to = from + (int) range.getCount();
+      DownloadFileWork work = new DownloadFileWork(from, to, range.getUpperKey(), "occurrence", i, null, null,
+                                                   esServer.getRestClient(), esServer.getIndexName());
+      List<Long> rangeKeys = new ArrayList<>();
+      SearchQueryProcessor.processQuery(work, occurrence -> rangeKeys.add(occurrence.getKey()));
+
+      Assertions.assertEquals(range.getCount(), rangeKeys.size());
+      rangeKeys.forEach(key -> Assertions.assertTrue(key >= range.getLowerKey() && key < range.getUpperKey()));
+      keys.addAll(rangeKeys);
+      from = to;
+    }
+
+    // all records are read once and in descending order
+    Assertions.assertEquals(NR_OF_RECORDS, keys.size());
+    for (int i = 1; i < keys.size(); i++) {
+      Assertions.assertTrue(keys.get(i) < keys.get(i - 1));
+    }
+  }
+}
@@ -3,9 +3,13 @@ package org.gbif.occurrence.search;
 import org.gbif.api.model.occurrence.Occurrence;
 import org.gbif.api.model.occurrence.VerbatimOccurrence;
 
+import java.util.List;
+
 public interface OccurrenceGetByKey {
 
   Occurrence get(Long key);
 
   VerbatimOccurrence getVerbatim(Long key);
+
+  List<Occurrence> getAll(List<Long> keys);
 }
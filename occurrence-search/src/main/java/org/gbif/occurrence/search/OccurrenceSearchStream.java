@@ -0,0 +1,30 @@
+package org.gbif.occurrence.search;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Search service that hands the results of a query to a consumer, a page at a time, instead of building a response.
+ */
+public interface OccurrenceSearchStream {
+
+  /**
+   * Passes the occurrences matching the request, from its offset and up to its limit, to the consumer in pages.
+   *
+   * @return number of occurrences passed to the consumer
+   * @throws IOException if the consumer fails
+   */
+  long streamSearch(OccurrenceSearchRequest request, PageConsumer consumer) throws IOException;
+
+  /**
+   * Receives the pages of occurrences, in order.
+   */
+  @FunctionalInterface
+  interface PageConsumer {
+
+    void accept(List<Occurrence> page) throws IOException;
+  }
+}
@@ -0,0 +1,150 @@
+package org.gbif.occurrence.search.clb;
+
+import org.gbif.api.model.checklistbank.NameUsageMatch;
+import org.gbif.api.model.checklistbank.NameUsageMatch.MatchType;
+import org.gbif.api.service.checklistbank.NameUsageMatchingService;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exact backbone matches of the scientific names of search requests.
+ * The names of a request that are not cached are matched concurrently, and the request only waits for them up to a
+ * latency budget. Names without an exact match are cached as well, but failed matches are not.
+ * A name that isn't matched within the budget is left unresolved for that request, its match continues in the
+ * background and is cached for the next requests.
+ */
+@Component
+public class ScientificNameMatchCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScientificNameMatchCache.class);
+
+  private static final long DEFAULT_MAX_SIZE = 10000;
+  private static final Duration DEFAULT_EXPIRE_AFTER = Duration.ofHours(1);
+  private static final Duration DEFAULT_LATENCY_BUDGET = Duration.ofSeconds(5);
+  private static final int DEFAULT_THREADS = 10;
+
+  private final ScientificNameMatcher matcher;
+  private final long latencyBudgetNanos;
+  private final ExecutorService executor;
+  // usage key of the exact match of a name, empty if the name doesn't have an exact match
+  private final Cache<String, CompletableFuture<Optional<Integer>>> matches;
+
+  @Autowired
+  public ScientificNameMatchCache(
+    NameUsageMatchingService nameUsageMatchingService,
+    @Value("${occurrence.search.names.cache.max_size:10000}") long maxSize,
+    @Value("${occurrence.search.names.cache.expire_after:PT1H}") String expireAfter,
+    @Value("${occurrence.search.names.latency_budget:PT5S}") String latencyBudget,
+    @Value("${occurrence.search.names.threads:10}") int threads
+  ) {
+    this(ScientificNameMatcher.of(nameUsageMatchingService), maxSize, Duration.parse(expireAfter),
+         Duration.parse(latencyBudget), threads);
+  }
+
+  /**
+   * Cache of the matches of the name usage matching service with the default settings.
+   */
+  public ScientificNameMatchCache(NameUsageMatchingService nameUsageMatchingService) {
+    this(ScientificNameMatcher.of(nameUsageMatchingService), DEFAULT_MAX_SIZE, DEFAULT_EXPIRE_AFTER,
+         DEFAULT_LATENCY_BUDGET, DEFAULT_THREADS);
+  }
+
+  /**
+   * @param matcher       matcher of the names that are not cached
+   * @param maxSize       maximum number of cached names
+   * @param expireAfter   time a match is cached
+   * @param latencyBudget maximum time a request waits for the matches of its names
+   * @param threads       maximum number of names matched concurrently
+   */
+  public ScientificNameMatchCache(ScientificNameMatcher matcher, long maxSize, Duration expireAfter,
+                                  Duration latencyBudget, int threads) {
+    this.matcher = matcher;
+    latencyBudgetNanos = latencyBudget.toNanos();
+    ThreadPoolExecutor threadPool =
+      new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                             new ThreadFactoryBuilder().setNameFormat("name-matcher-%d").setDaemon(true).build());
+    // idle instances don't keep threads
+    threadPool.allowCoreThreadTimeOut(true);
+    executor = threadPool;
+    matches = CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(expireAfter.toMillis(), TimeUnit.MILLISECONDS)
+      .build();
+  }
+
+  /**
+   * Exact matches of the names resolved within the latency budget.
+   *
+   * @return the usage key of the exact match of each resolved name, empty if it doesn't have an exact match, without
+   * the names that couldn't be resolved
+   */
+  public Map<String, Optional<Integer>> exactMatches(Collection<String> names) {
+    Map<String, CompletableFuture<Optional<Integer>>> pending = new LinkedHashMap<>();
+    names.forEach(name -> pending.computeIfAbsent(name, this::match));
+
+    long deadline = System.nanoTime() + latencyBudgetNanos;
+    Map<String, Optional<Integer>> resolved = new LinkedHashMap<>();
+    for (Map.Entry<String, CompletableFuture<Optional<Integer>>> match : pending.entrySet()) {
+      try {
+        long remaining = Math.max(0, deadline - System.nanoTime());
+        resolved.put(match.getKey(), match.getValue().get(remaining, TimeUnit.NANOSECONDS));
+      } catch (TimeoutException e) {
+        LOG.warn("Scientific name {} not matched within {} ms", match.getKey(),
+                 TimeUnit.NANOSECONDS.toMillis(latencyBudgetNanos));
+      } catch (ExecutionException e) {
+        LOG.warn("Scientific name {} couldn't be matched", match.getKey(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return resolved;
+  }
+
+  /**
+   * Cached or started match of a name.
+   */
+  private CompletableFuture<Optional<Integer>> match(String name) {
+    CompletableFuture<Optional<Integer>> cached = matches.getIfPresent(name);
+    if (cached != null && cached.isCompletedExceptionally()) {
+      // failed matches are tried again by the next requests
+      matches.asMap().remove(name, cached);
+    }
+    try {
+      return matches.get(name, () -> CompletableFuture.supplyAsync(() -> exactMatch(name), executor));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private Optional<Integer> exactMatch(String name) {
+    NameUsageMatch nameUsageMatch = matcher.match(name);
+    if (nameUsageMatch != null && nameUsageMatch.getMatchType() == MatchType.EXACT) {
+      return Optional.ofNullable(nameUsageMatch.getUsageKey());
+    }
+    return Optional.empty();
+  }
+}
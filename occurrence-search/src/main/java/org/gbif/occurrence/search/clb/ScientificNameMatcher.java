@@ -0,0 +1,23 @@
+package org.gbif.occurrence.search.clb;
+
+import org.gbif.api.model.checklistbank.NameUsageMatch;
+import org.gbif.api.service.checklistbank.NameUsageMatchingService;
+
+/**
+ * Matches scientific names of search requests to usages of the backbone taxonomy.
+ */
+@FunctionalInterface
+public interface ScientificNameMatcher {
+
+  /**
+   * Strict match of a scientific name, without rank or classification.
+   */
+  NameUsageMatch match(String scientificName);
+
+  /**
+   * Matcher that calls the name usage matching service.
+   */
+  static ScientificNameMatcher of(NameUsageMatchingService nameUsageMatchingService) {
+    return scientificName -> nameUsageMatchingService.match(scientificName, null, null, true, false);
+  }
+}
@@ -0,0 +1,178 @@
+package org.gbif.occurrence.search.es;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.function.Function;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Parses the dates returned by Elasticsearch.
+ * The ISO 8601 shapes of the occurrence index, i.e.: dates, local date-times and date-times with offset, with or
+ * without fractions of a second, and the epoch milliseconds are parsed by hand, any other text is parsed by a fallback
+ * function. Local date-times are in UTC.
+ * Date-times are cached, since the timestamps of crawling and interpretation are repeated by all the records of a
+ * dataset.
+ */
+class EsDateParser implements Function<String, Date> {
+
+  private static final long SECONDS_PER_DAY = 86400L;
+
+  // 2019-04-15
+  private static final int DATE_LENGTH = 10;
+
+  // 2019-04-15T17:17:48
+  private static final int DATE_TIME_LENGTH = 19;
+
+  // longer numbers are epoch milliseconds, shorter are years
+  private static final int MIN_EPOCH_MILLIS_LENGTH = 10;
+
+  private static final int MAX_EPOCH_MILLIS_LENGTH = 18;
+
+  private static final int CACHE_SIZE = 10000;
+
+  private final Function<String, Date> fallback;
+
+  // date-time text -> epoch milliseconds, Dates are mutable so they are not shared
+  private final Cache<String, Long> dateTimes = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+  /**
+   * @param fallback parser of the text in other formats
+   */
+  EsDateParser(Function<String, Date> fallback) {
+    this.fallback = fallback;
+  }
+
+  @Override
+  public Date apply(String dateAsString) {
+    if (Strings.isNullOrEmpty(dateAsString)) {
+      return null;
+    }
+    if (dateAsString.length() <= DATE_LENGTH) {
+      return toDate(dateAsString);
+    }
+    Long millis = dateTimes.getIfPresent(dateAsString);
+    if (millis == null) {
+      Date date = toDate(dateAsString);
+      if (date == null) {
+        return null;
+      }
+      millis = date.getTime();
+      dateTimes.put(dateAsString, millis);
+    }
+    return new Date(millis);
+  }
+
+  private Date toDate(String dateAsString) {
+    long millis = parseIso(dateAsString);
+    return millis != Long.MIN_VALUE ? new Date(millis) : fallback.apply(dateAsString);
+  }
+
+  /**
+   * Epoch milliseconds of the text in one of the common shapes.
+   *
+   * @return the milliseconds or Long.MIN_VALUE if the text has another shape or isn't a valid date
+   */
+  @VisibleForTesting
+  static long parseIso(String text) {
+    int length = text.length();
+    if (length >= MIN_EPOCH_MILLIS_LENGTH && length <= MAX_EPOCH_MILLIS_LENGTH && digits(text, 0, length) >= 0) {
+      return Long.parseLong(text);
+    }
+    if (length < DATE_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-') {
+      return Long.MIN_VALUE;
+    }
+    int year = (int) digits(text, 0, 4);
+    int month = (int) digits(text, 5, 7);
+    int day = (int) digits(text, 8, 10);
+    // the year 0 is handled by the fallback
+    if (year <= 0 || month < 0 || day < 0) {
+      return Long.MIN_VALUE;
+    }
+    long epochDay;
+    try {
+      epochDay = LocalDate.of(year, month, day).toEpochDay();
+    } catch (DateTimeException e) {
+      return Long.MIN_VALUE;
+    }
+    if (length == DATE_LENGTH) {
+      return epochDay * SECONDS_PER_DAY * 1000;
+    }
+
+    if (length < DATE_TIME_LENGTH || text.charAt(10) != 'T' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+      return Long.MIN_VALUE;
+    }
+    int hour = (int) digits(text, 11, 13);
+    int minute = (int) digits(text, 14, 16);
+    int second = (int) digits(text, 17, 19);
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return Long.MIN_VALUE;
+    }
+
+    // fraction of a second, truncated to milliseconds
+    int pos = DATE_TIME_LENGTH;
+    int millis = 0;
+    if (pos < length && text.charAt(pos) == '.') {
+      int start = ++pos;
+      while (pos < length && isDigit(text.charAt(pos))) {
+        if (pos - start < 3) {
+          millis = millis * 10 + text.charAt(pos) - '0';
+        }
+        pos++;
+      }
+      int fractionDigits = pos - start;
+      if (fractionDigits == 0 || fractionDigits > 9) {
+        return Long.MIN_VALUE;
+      }
+      for (int i = fractionDigits; i < 3; i++) {
+        millis *= 10;
+      }
+    }
+
+    // offset, Z or +HH:mm
+    int offsetSeconds = 0;
+    if (pos < length) {
+      char sign = text.charAt(pos);
+      if (sign == 'Z' && pos + 1 == length) {
+        offsetSeconds = 0;
+      } else if ((sign == '+' || sign == '-') && pos + 6 == length && text.charAt(pos + 3) == ':') {
+        int offsetHours = (int) digits(text, pos + 1, pos + 3);
+        int offsetMinutes = (int) digits(text, pos + 4, pos + 6);
+        if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+          return Long.MIN_VALUE;
+        }
+        offsetSeconds = (sign == '-' ? -1 : 1) * (offsetHours * 3600 + offsetMinutes * 60);
+      } else {
+        return Long.MIN_VALUE;
+      }
+    }
+
+    long seconds = epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+    return seconds * 1000 + millis;
+  }
+
+  /**
+   * Value of the digits between start and end.
+   *
+   * @return the value or -1 if there are other characters
+   */
+  private static long digits(String text, int start, int end) {
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      value = value * 10 + c - '0';
+    }
+    return value;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
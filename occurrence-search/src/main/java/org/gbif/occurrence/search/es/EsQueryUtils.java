@@ -73,7 +73,10 @@ public class EsQueryUtils {
               + "[yyyy-MM-dd'T'HH:mm:ss][yyyy-MM-dd'T'HH:mm:ss XXX][yyyy-MM-dd'T'HH:mm:ssXXX][yyyy-MM-dd'T'HH:mm:ss]"
               + "[yyyy-MM-dd'T'HH:mm][yyyy-MM-dd][yyyy-MM][yyyy]");
 
-  static final Function<String, Date> STRING_TO_DATE =
+  /**
+   * Parses any of the date formats of the formatter, slow since it tries each format in turn.
+   */
+  static final Function<String, Date> FORMATTER_TO_DATE =
       dateAsString -> {
         if (Strings.isNullOrEmpty(dateAsString)) {
           return null;
@@ -115,6 +118,8 @@ public class EsQueryUtils {
         return dateParsed;
       };
 
+  static final Function<String, Date> STRING_TO_DATE = new EsDateParser(FORMATTER_TO_DATE);
+
   static final Function<String, LocalDateTime> LOWER_BOUND_RANGE_PARSER =
       lowerBound -> {
         if (Strings.isNullOrEmpty(lowerBound) || RANGE_WILDCARD.equalsIgnoreCase(lowerBound)) {
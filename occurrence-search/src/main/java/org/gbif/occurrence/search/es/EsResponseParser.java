@@ -27,8 +27,6 @@ import java.net.URI;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.*;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,8 +47,15 @@ import static org.gbif.occurrence.search.es.OccurrenceEsField.*;
 
 public class EsResponseParser {
 
-  private static final Pattern NESTED_PATTERN = Pattern.compile("^\\w+(\\.\\w+)+$");
-  private static final Predicate<String> IS_NESTED = s -> NESTED_PATTERN.matcher(s).find();
+  // paths of the fields in the source of the hits, split once
+  private static final Map<OccurrenceEsField, FieldPath> FIELD_PATHS = new EnumMap<>(OccurrenceEsField.class);
+
+  static {
+    for (OccurrenceEsField esField : OccurrenceEsField.values()) {
+      FIELD_PATHS.put(esField, new FieldPath(esField.getFieldName()));
+    }
+  }
+
   private static final TermFactory TERM_FACTORY = TermFactory.instance();
 
   private static final Logger LOG = LoggerFactory.getLogger(EsResponseParser.class);
@@ -167,32 +172,39 @@ public class EsResponseParser {
    * Transforms a SearchHit into a suitable Verbatim map of terms.
    */
   public static VerbatimOccurrence toVerbatimOccurrence(SearchHit hit) {
+    return toVerbatimOccurrence(hit.getSourceAsMap());
+  }
+
+  /**
+   * Transforms the source of a document into a suitable Verbatim map of terms.
+   */
+  static VerbatimOccurrence toVerbatimOccurrence(Map<String, Object> source) {
     VerbatimOccurrence vOcc = new VerbatimOccurrence();
-    getValue(hit, PUBLISHING_COUNTRY, v -> Country.fromIsoCode(v.toUpperCase()))
+    getValue(source, PUBLISHING_COUNTRY, v -> Country.fromIsoCode(v.toUpperCase()))
       .ifPresent(vOcc::setPublishingCountry);
-    getValue(hit, DATASET_KEY, UUID::fromString).ifPresent(vOcc::setDatasetKey);
-    getValue(hit, INSTALLATION_KEY, UUID::fromString).ifPresent(vOcc::setInstallationKey);
-    getValue(hit, PUBLISHING_ORGANIZATION_KEY, UUID::fromString)
+    getValue(source, DATASET_KEY, UUID::fromString).ifPresent(vOcc::setDatasetKey);
+    getValue(source, INSTALLATION_KEY, UUID::fromString).ifPresent(vOcc::setInstallationKey);
+    getValue(source, PUBLISHING_ORGANIZATION_KEY, UUID::fromString)
       .ifPresent(vOcc::setPublishingOrgKey);
-    getValue(hit, PROTOCOL, EndpointType::fromString).ifPresent(vOcc::setProtocol);
+    getValue(source, PROTOCOL, EndpointType::fromString).ifPresent(vOcc::setProtocol);
 
-    getListValue(hit, NETWORK_KEY)
+    getListValue(source, NETWORK_KEY)
       .ifPresent(
         v -> vOcc.setNetworkKeys(v.stream().map(UUID::fromString).collect(Collectors.toList())));
-    getValue(hit, CRAWL_ID, Integer::valueOf).ifPresent(vOcc::setCrawlId);
-    getDateValue(hit, LAST_PARSED).ifPresent(vOcc::setLastParsed);
-    getDateValue(hit, LAST_CRAWLED).ifPresent(vOcc::setLastCrawled);
-    getValue(hit, GBIF_ID, Long::valueOf)
+    getValue(source, CRAWL_ID, Integer::valueOf).ifPresent(vOcc::setCrawlId);
+    getDateValue(source, LAST_PARSED).ifPresent(vOcc::setLastParsed);
+    getDateValue(source, LAST_CRAWLED).ifPresent(vOcc::setLastCrawled);
+    getValue(source, GBIF_ID, Long::valueOf)
       .ifPresent(
         id -> {
           vOcc.setKey(id);
           vOcc.getVerbatimFields().put(GbifTerm.gbifID, String.valueOf(id));
         });
     // add verbatim fields
-    Map<String, Object> verbatimData = (Map<String, Object>) hit.getSourceAsMap().get("verbatim");
+    Map<String, Object> verbatimData = (Map<String, Object>) source.get("verbatim");
 
     vOcc.getVerbatimFields().putAll(parseVerbatimTermMap((Map<String, Object>)(verbatimData).get("core")));
-    setIdentifier(hit, vOcc);
+    setIdentifier(source, vOcc);
 
     if (verbatimData.containsKey("extensions" )) {
       vOcc.setExtensions(parseExtensionsMap((Map<String, Object>)verbatimData.get("extensions")));
@@ -241,20 +253,25 @@ public class EsResponseParser {
   }
 
   public static Occurrence toOccurrence(SearchHit hit, boolean excludeInterpreted) {
+    // the source is parsed once and all the fields are read from it
+    return toOccurrence(hit.getSourceAsMap(), excludeInterpreted);
+  }
+
+  static Occurrence toOccurrence(Map<String, Object> source, boolean excludeInterpreted) {
     // create occurrence
     Occurrence occ = new Occurrence();
 
     // set fields
-    setOccurrenceFields(hit, occ);
-    setLocationFields(hit, occ);
-    setTemporalFields(hit, occ);
-    setCrawlingFields(hit, occ);
-    setDatasetFields(hit, occ);
-    setTaxonFields(hit, occ);
-    setGrscicollFields(hit, occ);
+    setOccurrenceFields(source, occ);
+    setLocationFields(source, occ);
+    setTemporalFields(source, occ);
+    setCrawlingFields(source, occ);
+    setDatasetFields(source, occ);
+    setTaxonFields(source, occ);
+    setGrscicollFields(source, occ);
 
     // issues
-    getListValue(hit, ISSUE)
+    getListValue(source, ISSUE)
         .ifPresent(
             v ->
                 occ.setIssues(
@@ -264,15 +281,15 @@ public class EsResponseParser {
                       .collect(Collectors.toSet())));
 
     // multimedia extension
-    parseMultimediaItems(hit, occ);
+    parseMultimediaItems(source, occ);
 
-    parseAgentIds(hit, occ);
+    parseAgentIds(source, occ);
 
     // add verbatim fields
-    occ.getVerbatimFields().putAll(extractVerbatimFields(hit, excludeInterpreted));
+    occ.getVerbatimFields().putAll(extractVerbatimFields(source, excludeInterpreted));
     // TODO: add verbatim extensions
 
-    setIdentifier(hit, occ);
+    setIdentifier(source, occ);
 
     return occ;
   }
@@ -282,7 +299,7 @@ public class EsResponseParser {
    * used for "un-starring" a DWCA star record. However, we've exposed it as DcTerm.identifier for a long time in
    * our public API v1, so we continue to do this.
    */
-  private static void setIdentifier(SearchHit hit, VerbatimOccurrence occ) {
+  private static void setIdentifier(Map<String, Object> source, VerbatimOccurrence occ) {
 
     String institutionCode = occ.getVerbatimField(DwcTerm.institutionCode);
     String collectionCode = occ.getVerbatimField(DwcTerm.collectionCode);
@@ -294,29 +311,29 @@ public class EsResponseParser {
     String gbifId = Optional.ofNullable(occ.getKey()).map(x -> Long.toString(x)).orElse("");
     String occId = occ.getVerbatimField(DwcTerm.occurrenceID);
 
-    getStringValue(hit, ID)
+    getStringValue(source, ID)
       .filter(k -> !k.equals(gbifId) && (!Strings.isNullOrEmpty(occId) || !k.equals(triplet)))
       .ifPresent(result -> occ.getVerbatimFields().put(DcTerm.identifier, result));
   }
 
-  private static void setOccurrenceFields(SearchHit hit, Occurrence occ) {
-    getValue(hit, GBIF_ID, Long::valueOf)
+  private static void setOccurrenceFields(Map<String, Object> source, Occurrence occ) {
+    getValue(source, GBIF_ID, Long::valueOf)
         .ifPresent(
             id -> {
               occ.setKey(id);
               occ.getVerbatimFields().put(GbifTerm.gbifID, String.valueOf(id));
             });
-    getValue(hit, BASIS_OF_RECORD, BasisOfRecord::valueOf).ifPresent(occ::setBasisOfRecord);
-    getValue(hit, ESTABLISHMENT_MEANS, EstablishmentMeans::valueOf).ifPresent(occ::setEstablishmentMeans);
-    getValue(hit, LIFE_STAGE, LifeStage::valueOf).ifPresent(occ::setLifeStage);
-    getDateValue(hit, MODIFIED).ifPresent(occ::setModified);
-    getValue(hit, REFERENCES, URI::create).ifPresent(occ::setReferences);
-    getValue(hit, SEX, Sex::valueOf).ifPresent(occ::setSex);
-    getValue(hit, TYPE_STATUS, TypeStatus::valueOf).ifPresent(occ::setTypeStatus);
-    getStringValue(hit, TYPIFIED_NAME).ifPresent(occ::setTypifiedName);
-    getValue(hit, INDIVIDUAL_COUNT, Integer::valueOf).ifPresent(occ::setIndividualCount);
+    getValue(source, BASIS_OF_RECORD, BasisOfRecord::valueOf).ifPresent(occ::setBasisOfRecord);
+    getValue(source, ESTABLISHMENT_MEANS, EstablishmentMeans::valueOf).ifPresent(occ::setEstablishmentMeans);
+    getValue(source, LIFE_STAGE, LifeStage::valueOf).ifPresent(occ::setLifeStage);
+    getDateValue(source, MODIFIED).ifPresent(occ::setModified);
+    getValue(source, REFERENCES, URI::create).ifPresent(occ::setReferences);
+    getValue(source, SEX, Sex::valueOf).ifPresent(occ::setSex);
+    getValue(source, TYPE_STATUS, TypeStatus::valueOf).ifPresent(occ::setTypeStatus);
+    getStringValue(source, TYPIFIED_NAME).ifPresent(occ::setTypifiedName);
+    getValue(source, INDIVIDUAL_COUNT, Integer::valueOf).ifPresent(occ::setIndividualCount);
     // FIXME: should we have a list of identifiers in the schema?
-    getStringValue(hit, IDENTIFIER)
+    getStringValue(source, IDENTIFIER)
         .ifPresent(
             v -> {
               Identifier identifier = new Identifier();
@@ -325,26 +342,26 @@ public class EsResponseParser {
             });
 
     // FIXME: should we have a list in the schema and all the info of the enum?
-    getStringValue(hit, RELATION)
+    getStringValue(source, RELATION)
         .ifPresent(
             v -> {
               OccurrenceRelation occRelation = new OccurrenceRelation();
               occRelation.setId(v);
               occ.setRelations(Collections.singletonList(occRelation));
             });
-    getStringValue(hit, PROJECT_ID).ifPresent(occ::setProjectId);
-    getStringValue(hit, PROGRAMME).ifPresent(occ::setProgrammeAcronym);
+    getStringValue(source, PROJECT_ID).ifPresent(occ::setProjectId);
+    getStringValue(source, PROGRAMME).ifPresent(occ::setProgrammeAcronym);
 
-    getStringValue(hit, SAMPLE_SIZE_UNIT).ifPresent(occ::setSampleSizeUnit);
-    getDoubleValue(hit, SAMPLE_SIZE_VALUE).ifPresent(occ::setSampleSizeValue);
-    getDoubleValue(hit, ORGANISM_QUANTITY).ifPresent(occ::setOrganismQuantity);
-    getStringValue(hit, ORGANISM_QUANTITY_TYPE).ifPresent(occ::setOrganismQuantityType);
-    getDoubleValue(hit, RELATIVE_ORGANISM_QUANTITY).ifPresent(occ::setRelativeOrganismQuantity);
+    getStringValue(source, SAMPLE_SIZE_UNIT).ifPresent(occ::setSampleSizeUnit);
+    getDoubleValue(source, SAMPLE_SIZE_VALUE).ifPresent(occ::setSampleSizeValue);
+    getDoubleValue(source, ORGANISM_QUANTITY).ifPresent(occ::setOrganismQuantity);
+    getStringValue(source, ORGANISM_QUANTITY_TYPE).ifPresent(occ::setOrganismQuantityType);
+    getDoubleValue(source, RELATIVE_ORGANISM_QUANTITY).ifPresent(occ::setRelativeOrganismQuantity);
 
-    getValue(hit, OCCURRENCE_STATUS, OccurrenceStatus::valueOf).ifPresent(occ::setOccurrenceStatus);
+    getValue(source, OCCURRENCE_STATUS, OccurrenceStatus::valueOf).ifPresent(occ::setOccurrenceStatus);
   }
 
-  private static void parseAgentIds(SearchHit hit, Occurrence occ) {
+  private static void parseAgentIds(Map<String, Object> source, Occurrence occ) {
     Function<Map<String, Object>, AgentIdentifier> mapFn = m -> {
       AgentIdentifier ai = new AgentIdentifier();
       extractValue(m, "type", AgentIdentifierType::valueOf).ifPresent(ai::setType);
@@ -352,120 +369,120 @@ public class EsResponseParser {
       return ai;
     };
 
-    getObjectsListValue(hit, RECORDED_BY_ID)
+    getObjectsListValue(source, RECORDED_BY_ID)
       .map(i -> i.stream().map(mapFn).collect(Collectors.toList()))
       .ifPresent(occ::setRecordedByIds);
 
-    getObjectsListValue(hit, IDENTIFIED_BY_ID)
+    getObjectsListValue(source, IDENTIFIED_BY_ID)
       .map(i -> i.stream().map(mapFn).collect(Collectors.toList()))
       .ifPresent(occ::setIdentifiedByIds);
   }
 
-  private static void setTemporalFields(SearchHit hit, Occurrence occ) {
-    getDateValue(hit, DATE_IDENTIFIED).ifPresent(occ::setDateIdentified);
-    getValue(hit, DAY, Integer::valueOf).ifPresent(occ::setDay);
-    getValue(hit, MONTH, Integer::valueOf).ifPresent(occ::setMonth);
-    getValue(hit, YEAR, Integer::valueOf).ifPresent(occ::setYear);
-    getDateValue(hit, EVENT_DATE).ifPresent(occ::setEventDate);
-  }
-
-  private static void setLocationFields(SearchHit hit, Occurrence occ) {
-    getValue(hit, CONTINENT, Continent::valueOf).ifPresent(occ::setContinent);
-    getStringValue(hit, STATE_PROVINCE).ifPresent(occ::setStateProvince);
-    getValue(hit, COUNTRY_CODE, Country::fromIsoCode).ifPresent(occ::setCountry);
-    getDoubleValue(hit, COORDINATE_ACCURACY).ifPresent(occ::setCoordinateAccuracy);
-    getDoubleValue(hit, COORDINATE_PRECISION).ifPresent(occ::setCoordinatePrecision);
-    getDoubleValue(hit, COORDINATE_UNCERTAINTY_IN_METERS).ifPresent(occ::setCoordinateUncertaintyInMeters);
-    getDoubleValue(hit, LATITUDE).ifPresent(occ::setDecimalLatitude);
-    getDoubleValue(hit, LONGITUDE).ifPresent(occ::setDecimalLongitude);
-    getDoubleValue(hit, DEPTH).ifPresent(occ::setDepth);
-    getDoubleValue(hit, DEPTH_ACCURACY).ifPresent(occ::setDepthAccuracy);
-    getDoubleValue(hit, ELEVATION).ifPresent(occ::setElevation);
-    getDoubleValue(hit, ELEVATION_ACCURACY).ifPresent(occ::setElevationAccuracy);
-    getStringValue(hit, WATER_BODY).ifPresent(occ::setWaterBody);
+  private static void setTemporalFields(Map<String, Object> source, Occurrence occ) {
+    getDateValue(source, DATE_IDENTIFIED).ifPresent(occ::setDateIdentified);
+    getValue(source, DAY, Integer::valueOf).ifPresent(occ::setDay);
+    getValue(source, MONTH, Integer::valueOf).ifPresent(occ::setMonth);
+    getValue(source, YEAR, Integer::valueOf).ifPresent(occ::setYear);
+    getDateValue(source, EVENT_DATE).ifPresent(occ::setEventDate);
+  }
+
+  private static void setLocationFields(Map<String, Object> source, Occurrence occ) {
+    getValue(source, CONTINENT, Continent::valueOf).ifPresent(occ::setContinent);
+    getStringValue(source, STATE_PROVINCE).ifPresent(occ::setStateProvince);
+    getValue(source, COUNTRY_CODE, Country::fromIsoCode).ifPresent(occ::setCountry);
+    getDoubleValue(source, COORDINATE_ACCURACY).ifPresent(occ::setCoordinateAccuracy);
+    getDoubleValue(source, COORDINATE_PRECISION).ifPresent(occ::setCoordinatePrecision);
+    getDoubleValue(source, COORDINATE_UNCERTAINTY_IN_METERS).ifPresent(occ::setCoordinateUncertaintyInMeters);
+    getDoubleValue(source, LATITUDE).ifPresent(occ::setDecimalLatitude);
+    getDoubleValue(source, LONGITUDE).ifPresent(occ::setDecimalLongitude);
+    getDoubleValue(source, DEPTH).ifPresent(occ::setDepth);
+    getDoubleValue(source, DEPTH_ACCURACY).ifPresent(occ::setDepthAccuracy);
+    getDoubleValue(source, ELEVATION).ifPresent(occ::setElevation);
+    getDoubleValue(source, ELEVATION_ACCURACY).ifPresent(occ::setElevationAccuracy);
+    getStringValue(source, WATER_BODY).ifPresent(occ::setWaterBody);
 
     Gadm g = new Gadm();
-    getStringValue(hit, GADM_LEVEL_0_GID).ifPresent(gid -> {
+    getStringValue(source, GADM_LEVEL_0_GID).ifPresent(gid -> {
       g.setLevel0(new GadmFeature());
       g.getLevel0().setGid(gid);
     });
-    getStringValue(hit, GADM_LEVEL_1_GID).ifPresent(gid -> {
+    getStringValue(source, GADM_LEVEL_1_GID).ifPresent(gid -> {
       g.setLevel1(new GadmFeature());
       g.getLevel1().setGid(gid);
     });
-    getStringValue(hit, GADM_LEVEL_2_GID).ifPresent(gid -> {
+    getStringValue(source, GADM_LEVEL_2_GID).ifPresent(gid -> {
       g.setLevel2(new GadmFeature());
       g.getLevel2().setGid(gid);
     });
-    getStringValue(hit, GADM_LEVEL_3_GID).ifPresent(gid -> {
+    getStringValue(source, GADM_LEVEL_3_GID).ifPresent(gid -> {
       g.setLevel3(new GadmFeature());
       g.getLevel3().setGid(gid);
     });
-    getStringValue(hit, GADM_LEVEL_0_NAME).ifPresent(name -> g.getLevel0().setName(name));
-    getStringValue(hit, GADM_LEVEL_1_NAME).ifPresent(name -> g.getLevel1().setName(name));
-    getStringValue(hit, GADM_LEVEL_2_NAME).ifPresent(name -> g.getLevel2().setName(name));
-    getStringValue(hit, GADM_LEVEL_3_NAME).ifPresent(name -> g.getLevel3().setName(name));
+    getStringValue(source, GADM_LEVEL_0_NAME).ifPresent(name -> g.getLevel0().setName(name));
+    getStringValue(source, GADM_LEVEL_1_NAME).ifPresent(name -> g.getLevel1().setName(name));
+    getStringValue(source, GADM_LEVEL_2_NAME).ifPresent(name -> g.getLevel2().setName(name));
+    getStringValue(source, GADM_LEVEL_3_NAME).ifPresent(name -> g.getLevel3().setName(name));
 
     occ.setGadm(g);
   }
 
-  private static void setTaxonFields(SearchHit hit, Occurrence occ) {
-    getIntValue(hit, KINGDOM_KEY).ifPresent(occ::setKingdomKey);
-    getStringValue(hit, KINGDOM).ifPresent(occ::setKingdom);
-    getIntValue(hit, PHYLUM_KEY).ifPresent(occ::setPhylumKey);
-    getStringValue(hit, PHYLUM).ifPresent(occ::setPhylum);
-    getIntValue(hit, CLASS_KEY).ifPresent(occ::setClassKey);
-    getStringValue(hit, CLASS).ifPresent(occ::setClazz);
-    getIntValue(hit, ORDER_KEY).ifPresent(occ::setOrderKey);
-    getStringValue(hit, ORDER).ifPresent(occ::setOrder);
-    getIntValue(hit, FAMILY_KEY).ifPresent(occ::setFamilyKey);
-    getStringValue(hit, FAMILY).ifPresent(occ::setFamily);
-    getIntValue(hit, GENUS_KEY).ifPresent(occ::setGenusKey);
-    getStringValue(hit, GENUS).ifPresent(occ::setGenus);
-    getIntValue(hit, SUBGENUS_KEY).ifPresent(occ::setSubgenusKey);
-    getStringValue(hit, SUBGENUS).ifPresent(occ::setSubgenus);
-    getIntValue(hit, SPECIES_KEY).ifPresent(occ::setSpeciesKey);
-    getStringValue(hit, SPECIES).ifPresent(occ::setSpecies);
-    getStringValue(hit, SCIENTIFIC_NAME).ifPresent(occ::setScientificName);
-    getStringValue(hit, SPECIFIC_EPITHET).ifPresent(occ::setSpecificEpithet);
-    getStringValue(hit, INFRA_SPECIFIC_EPITHET).ifPresent(occ::setInfraspecificEpithet);
-    getStringValue(hit, GENERIC_NAME).ifPresent(occ::setGenericName);
-    getStringValue(hit, TAXON_RANK).ifPresent(v -> occ.setTaxonRank(Rank.valueOf(v)));
-    getIntValue(hit, USAGE_TAXON_KEY).ifPresent(occ::setTaxonKey);
-    getIntValue(hit, ACCEPTED_TAXON_KEY).ifPresent(occ::setAcceptedTaxonKey);
-    getStringValue(hit, ACCEPTED_SCIENTIFIC_NAME).ifPresent(occ::setAcceptedScientificName);
-    getValue(hit, TAXONOMIC_STATUS, TaxonomicStatus::valueOf).ifPresent(occ::setTaxonomicStatus);
-  }
-
-  private static void setGrscicollFields(SearchHit hit, Occurrence occ) {
-    getStringValue(hit, INSTITUTION_KEY).ifPresent(occ::setInstitutionKey);
-    getStringValue(hit, COLLECTION_KEY).ifPresent(occ::setCollectionKey);
-  }
-
-  private static void setDatasetFields(SearchHit hit, Occurrence occ) {
-    getValue(hit, PUBLISHING_COUNTRY, v -> Country.fromIsoCode(v.toUpperCase()))
+  private static void setTaxonFields(Map<String, Object> source, Occurrence occ) {
+    getIntValue(source, KINGDOM_KEY).ifPresent(occ::setKingdomKey);
+    getStringValue(source, KINGDOM).ifPresent(occ::setKingdom);
+    getIntValue(source, PHYLUM_KEY).ifPresent(occ::setPhylumKey);
+    getStringValue(source, PHYLUM).ifPresent(occ::setPhylum);
+    getIntValue(source, CLASS_KEY).ifPresent(occ::setClassKey);
+    getStringValue(source, CLASS).ifPresent(occ::setClazz);
+    getIntValue(source, ORDER_KEY).ifPresent(occ::setOrderKey);
+    getStringValue(source, ORDER).ifPresent(occ::setOrder);
+    getIntValue(source, FAMILY_KEY).ifPresent(occ::setFamilyKey);
+    getStringValue(source, FAMILY).ifPresent(occ::setFamily);
+    getIntValue(source, GENUS_KEY).ifPresent(occ::setGenusKey);
+    getStringValue(source, GENUS).ifPresent(occ::setGenus);
+    getIntValue(source, SUBGENUS_KEY).ifPresent(occ::setSubgenusKey);
+    getStringValue(source, SUBGENUS).ifPresent(occ::setSubgenus);
+    getIntValue(source, SPECIES_KEY).ifPresent(occ::setSpeciesKey);
+    getStringValue(source, SPECIES).ifPresent(occ::setSpecies);
+    getStringValue(source, SCIENTIFIC_NAME).ifPresent(occ::setScientificName);
+    getStringValue(source, SPECIFIC_EPITHET).ifPresent(occ::setSpecificEpithet);
+    getStringValue(source, INFRA_SPECIFIC_EPITHET).ifPresent(occ::setInfraspecificEpithet);
+    getStringValue(source, GENERIC_NAME).ifPresent(occ::setGenericName);
+    getStringValue(source, TAXON_RANK).ifPresent(v -> occ.setTaxonRank(Rank.valueOf(v)));
+    getIntValue(source, USAGE_TAXON_KEY).ifPresent(occ::setTaxonKey);
+    getIntValue(source, ACCEPTED_TAXON_KEY).ifPresent(occ::setAcceptedTaxonKey);
+    getStringValue(source, ACCEPTED_SCIENTIFIC_NAME).ifPresent(occ::setAcceptedScientificName);
+    getValue(source, TAXONOMIC_STATUS, TaxonomicStatus::valueOf).ifPresent(occ::setTaxonomicStatus);
+  }
+
+  private static void setGrscicollFields(Map<String, Object> source, Occurrence occ) {
+    getStringValue(source, INSTITUTION_KEY).ifPresent(occ::setInstitutionKey);
+    getStringValue(source, COLLECTION_KEY).ifPresent(occ::setCollectionKey);
+  }
+
+  private static void setDatasetFields(Map<String, Object> source, Occurrence occ) {
+    getValue(source, PUBLISHING_COUNTRY, v -> Country.fromIsoCode(v.toUpperCase()))
         .ifPresent(occ::setPublishingCountry);
-    getValue(hit, DATASET_KEY, UUID::fromString).ifPresent(occ::setDatasetKey);
-    getValue(hit, INSTALLATION_KEY, UUID::fromString).ifPresent(occ::setInstallationKey);
-    getValue(hit, PUBLISHING_ORGANIZATION_KEY, UUID::fromString)
+    getValue(source, DATASET_KEY, UUID::fromString).ifPresent(occ::setDatasetKey);
+    getValue(source, INSTALLATION_KEY, UUID::fromString).ifPresent(occ::setInstallationKey);
+    getValue(source, PUBLISHING_ORGANIZATION_KEY, UUID::fromString)
         .ifPresent(occ::setPublishingOrgKey);
-    getValue(hit, LICENSE, v -> License.fromString(v).orElse(null)).ifPresent(occ::setLicense);
-    getValue(hit, PROTOCOL, EndpointType::fromString).ifPresent(occ::setProtocol);
-    getValue(hit, HOSTING_ORGANIZATION_KEY, UUID::fromString).ifPresent(occ::setHostingOrganizationKey);
+    getValue(source, LICENSE, v -> License.fromString(v).orElse(null)).ifPresent(occ::setLicense);
+    getValue(source, PROTOCOL, EndpointType::fromString).ifPresent(occ::setProtocol);
+    getValue(source, HOSTING_ORGANIZATION_KEY, UUID::fromString).ifPresent(occ::setHostingOrganizationKey);
 
-    getListValue(hit, NETWORK_KEY)
+    getListValue(source, NETWORK_KEY)
         .ifPresent(
             v -> occ.setNetworkKeys(v.stream().map(UUID::fromString).collect(Collectors.toList())));
   }
 
-  private static void setCrawlingFields(SearchHit hit, Occurrence occ) {
-    getValue(hit, CRAWL_ID, Integer::valueOf).ifPresent(occ::setCrawlId);
-    getDateValue(hit, LAST_INTERPRETED).ifPresent(occ::setLastInterpreted);
-    getDateValue(hit, LAST_PARSED).ifPresent(occ::setLastParsed);
-    getDateValue(hit, LAST_CRAWLED).ifPresent(occ::setLastCrawled);
+  private static void setCrawlingFields(Map<String, Object> source, Occurrence occ) {
+    getValue(source, CRAWL_ID, Integer::valueOf).ifPresent(occ::setCrawlId);
+    getDateValue(source, LAST_INTERPRETED).ifPresent(occ::setLastInterpreted);
+    getDateValue(source, LAST_PARSED).ifPresent(occ::setLastParsed);
+    getDateValue(source, LAST_CRAWLED).ifPresent(occ::setLastCrawled);
   }
 
-  private static void parseMultimediaItems(SearchHit hit, Occurrence occ) {
+  private static void parseMultimediaItems(Map<String, Object> source, Occurrence occ) {
 
     Function<Map<String, Object>, MediaObject> mapFn = m -> {
       MediaObject mediaObject = new MediaObject();
@@ -493,60 +510,50 @@ public class EsResponseParser {
       return mediaObject;
     };
 
-    getObjectsListValue(hit, MEDIA_ITEMS)
+    getObjectsListValue(source, MEDIA_ITEMS)
       .map(i -> i.stream().map(mapFn).collect(Collectors.toList()))
       .ifPresent(occ::setMedia);
   }
 
-  private static Optional<String> getStringValue(SearchHit hit, OccurrenceEsField esField) {
-    return getValue(hit, esField, Function.identity());
+  private static Optional<String> getStringValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return getValue(source, esField, Function.identity());
   }
 
-  private static Optional<Integer> getIntValue(SearchHit hit, OccurrenceEsField esField) {
-    return getValue(hit, esField, Integer::valueOf);
+  private static Optional<Integer> getIntValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return getValue(source, esField, Integer::valueOf);
   }
 
-  private static Optional<Double> getDoubleValue(SearchHit hit, OccurrenceEsField esField) {
-    return getValue(hit, esField, Double::valueOf);
+  private static Optional<Double> getDoubleValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return getValue(source, esField, Double::valueOf);
   }
 
-  private static Optional<Date> getDateValue(SearchHit hit, OccurrenceEsField esField) {
-    return getValue(hit, esField, STRING_TO_DATE);
+  private static Optional<Date> getDateValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return getValue(source, esField, STRING_TO_DATE);
   }
 
-  private static Optional<List<String>> getListValue(SearchHit hit, OccurrenceEsField esField) {
-    return Optional.ofNullable(hit.getSourceAsMap().get(esField.getFieldName()))
+  private static Optional<List<String>> getListValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return Optional.ofNullable(source.get(esField.getFieldName()))
         .map(v -> (List<String>) v)
         .filter(v -> !v.isEmpty());
   }
 
-  private static Optional<Map<String,Object>> getMapValue(SearchHit hit, OccurrenceEsField esField) {
-    return Optional.ofNullable(hit.getSourceAsMap().get(esField.getFieldName()))
+  private static Optional<Map<String,Object>> getMapValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return Optional.ofNullable(source.get(esField.getFieldName()))
         .map(v -> (Map<String,Object>) v)
         .filter(v -> !v.keySet().isEmpty());
   }
 
-  private static Optional<List<Map<String, Object>>> getObjectsListValue(SearchHit hit, OccurrenceEsField esField) {
-    return Optional.ofNullable(hit.getSourceAsMap().get(esField.getFieldName()))
+  private static Optional<List<Map<String, Object>>> getObjectsListValue(Map<String, Object> source, OccurrenceEsField esField) {
+    return Optional.ofNullable(source.get(esField.getFieldName()))
         .map(v -> (List<Map<String, Object>>) v)
         .filter(v -> !v.isEmpty());
   }
 
-  private static <T> Optional<T> getValue(SearchHit hit, OccurrenceEsField esField, Function<String, T> mapper) {
-    String fieldName = esField.getFieldName();
-    Map<String, Object> fields = hit.getSourceAsMap();
-    if (IS_NESTED.test(esField.getFieldName())) {
-      // take all paths till the field name
-      String[] paths = esField.getFieldName().split("\\.");
-      for (int i = 0; i < paths.length - 1 && fields.containsKey(paths[i]); i++) {
-        // update the fields with the current path
-        fields = (Map<String, Object>) fields.get(paths[i]);
-      }
-      // the last path is the field name
-      fieldName = paths[paths.length - 1];
-    }
-
-    return extractValue(fields, fieldName, mapper);
+  private static <T> Optional<T> getValue(Map<String, Object> source, OccurrenceEsField esField,
+                                          Function<String, T> mapper) {
+    FieldPath path = FIELD_PATHS.get(esField);
+    Map<String, Object> fields = path.parent(source);
+    return fields == null ? Optional.empty() : extractValue(fields, path.name, mapper);
   }
 
   private static <T> Optional<T> extractValue(Map<String, Object> fields, String fieldName, Function<String, T> mapper) {
@@ -567,8 +574,8 @@ public class EsResponseParser {
     return extractValue(fields, fieldName, Function.identity());
   }
 
-  private static Map<Term, String> extractVerbatimFields(SearchHit hit, boolean excludeInterpreted) {
-    Map<String, Object> verbatimFields = (Map<String, Object>) hit.getSourceAsMap().get("verbatim");
+  private static Map<Term, String> extractVerbatimFields(Map<String, Object> source, boolean excludeInterpreted) {
+    Map<String, Object> verbatimFields = (Map<String, Object>) source.get("verbatim");
     Map<String, String> verbatimCoreFields = (Map<String, String>) verbatimFields.get("core");
     Stream<AbstractMap.SimpleEntry<Term, String>> termMap =
     verbatimCoreFields.entrySet().stream()
@@ -579,6 +586,34 @@ public class EsResponseParser {
     return termMap.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
   }
 
+  /**
+   * Path of a field in the source of a hit, e.g.: gbifClassification.usage.key, split into the names of the objects
+   * that contain the field and the name of the field.
+   */
+  private static class FieldPath {
+
+    private final String[] parents;
+    private final String name;
+
+    FieldPath(String fieldName) {
+      String[] paths = fieldName.split("\\.");
+      parents = Arrays.copyOf(paths, paths.length - 1);
+      name = paths[paths.length - 1];
+    }
+
+    /**
+     * Object that contains the field. Missing objects of the path are skipped, and the field looked up in the last
+     * object found.
+     */
+    Map<String, Object> parent(Map<String, Object> source) {
+      Map<String, Object> fields = source;
+      for (int i = 0; i < parents.length && fields != null && fields.containsKey(parents[i]); i++) {
+        fields = (Map<String, Object>) fields.get(parents[i]);
+      }
+      return fields;
+    }
+  }
+
   /**
    * Re-maps terms to handle Unknown terms.
    * This has to be done because Pipelines preserve Unknown terms and do not add the URI for unknown terms.
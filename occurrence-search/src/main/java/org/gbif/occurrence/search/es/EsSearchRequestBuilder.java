@@ -31,8 +31,6 @@ import org.elasticsearch.search.suggest.SuggestBuilders;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 
 import static org.gbif.api.util.SearchTypeValidator.isRange;
 import static org.gbif.occurrence.search.es.EsQueryUtils.*;
@@ -388,13 +386,18 @@ public class EsSearchRequestBuilder {
   }
 
   public static GeoShapeQueryBuilder buildGeoShapeQuery(String wkt) {
-    Geometry geometry;
+    ShapeBuilder shapeBuilder = QueryGeometry.of(wkt).getShapeBuilder();
+
     try {
-      geometry = new WKTReader().read(wkt);
-    } catch (ParseException e) {
-      throw new IllegalArgumentException(e.getMessage(), e);
+      return QueryBuilders.geoShapeQuery(COORDINATE_SHAPE.getFieldName(), shapeBuilder)
+          .relation(ShapeRelation.WITHIN);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage(), e);
     }
+  }
 
+  /** Elasticsearch shape of a geometry, use {@link QueryGeometry#getShapeBuilder()} to reuse it. */
+  static ShapeBuilder buildShape(Geometry geometry) {
     Function<Polygon, PolygonBuilder> polygonToBuilder =
         polygon -> {
           PolygonBuilder polygonBuilder =
@@ -435,13 +438,7 @@ public class EsSearchRequestBuilder {
     } else {
       throw new IllegalArgumentException(type + " shape is not supported");
     }
-
-    try {
-      return QueryBuilders.geoShapeQuery(COORDINATE_SHAPE.getFieldName(), shapeBuilder)
-          .relation(ShapeRelation.WITHIN);
-    } catch (IOException e) {
-      throw new IllegalStateException(e.getMessage(), e);
-    }
+    return shapeBuilder;
   }
 
   /** Eliminates consecutive duplicates. The order is preserved. */
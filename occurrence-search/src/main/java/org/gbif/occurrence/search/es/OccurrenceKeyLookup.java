@@ -0,0 +1,255 @@
+package org.gbif.occurrence.search.es;
+
+import org.gbif.occurrence.search.SearchException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.gbif.occurrence.search.es.EsQueryUtils.HEADERS;
+
+/**
+ * Looks up the source of occurrences by their GBIF id.
+ * If the documents of the index are stored with the GBIF id as their id, the document type is configured and the
+ * occurrences are read with GET and multi GET requests, which don't have the cost of a search on every shard.
+ * Otherwise, or if the index turns out not to be keyed by GBIF id, e.g.: it's an alias of several indices, the
+ * occurrences are searched by their GBIF ids.
+ * Recently requested occurrences, and the ids that don't exist, are cached. Cached occurrences are revalidated by
+ * reading only their last interpretation date, and read again if they have been interpreted since.
+ */
+class OccurrenceKeyLookup {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OccurrenceKeyLookup.class);
+
+  private static final String GBIF_ID = OccurrenceEsField.GBIF_ID.getFieldName();
+
+  private static final String LAST_INTERPRETED = OccurrenceEsField.LAST_INTERPRETED.getFieldName();
+
+  private static final FetchSourceContext LAST_INTERPRETED_ONLY =
+    new FetchSourceContext(true, new String[] {LAST_INTERPRETED}, null);
+
+  private final RestHighLevelClient esClient;
+  private final String esIndex;
+  // type of the documents keyed by GBIF id, null if the documents are searched
+  private volatile String documentType;
+  // null if the cache is disabled
+  private final LoadingCache<Long, Optional<Map<String, Object>>> cache;
+
+  /**
+   * @param documentType    type of the documents if they are keyed by GBIF id, empty otherwise
+   * @param cacheSize       maximum number of cached occurrences, 0 disables the cache
+   * @param expireAfter     time an occurrence is cached
+   * @param revalidateAfter time after which a cached occurrence is revalidated, zero to never revalidate it
+   */
+  OccurrenceKeyLookup(RestHighLevelClient esClient, String esIndex, String documentType, long cacheSize,
+                      Duration expireAfter, Duration revalidateAfter) {
+    this.esClient = esClient;
+    this.esIndex = esIndex;
+    this.documentType = Strings.emptyToNull(documentType);
+    if (cacheSize <= 0 || expireAfter.isZero() || expireAfter.isNegative()) {
+      cache = null;
+      return;
+    }
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+      .maximumSize(cacheSize)
+      .expireAfterWrite(expireAfter.toMillis(), TimeUnit.MILLISECONDS);
+    if (!revalidateAfter.isZero() && !revalidateAfter.isNegative() && revalidateAfter.compareTo(expireAfter) < 0) {
+      builder.refreshAfterWrite(revalidateAfter.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    cache = builder.build(new CacheLoader<Long, Optional<Map<String, Object>>>() {
+      @Override
+      public Optional<Map<String, Object>> load(Long key) throws IOException {
+        return Optional.ofNullable(read(key, null));
+      }
+
+      @Override
+      public Map<Long, Optional<Map<String, Object>>> loadAll(Iterable<? extends Long> keys) throws IOException {
+        Map<Long, Map<String, Object>> sources = readAll(keys);
+        Map<Long, Optional<Map<String, Object>>> loaded = new HashMap<>();
+        keys.forEach(key -> loaded.put(key, Optional.ofNullable(sources.get(key))));
+        return loaded;
+      }
+
+      @Override
+      public ListenableFuture<Optional<Map<String, Object>>> reload(Long key, Optional<Map<String, Object>> cached)
+        throws IOException {
+        if (cached.isPresent()) {
+          Map<String, Object> current = read(key, LAST_INTERPRETED_ONLY);
+          if (current != null && Objects.equals(current.get(LAST_INTERPRETED), cached.get().get(LAST_INTERPRETED))) {
+            return Futures.immediateFuture(cached);
+          }
+        }
+        return Futures.immediateFuture(load(key));
+      }
+    });
+  }
+
+  /**
+   * Source of the document of an occurrence, it must not be modified.
+   *
+   * @return the source or null if there isn't an occurrence with that key
+   */
+  Map<String, Object> get(Long key) {
+    try {
+      if (cache == null) {
+        return read(key, null);
+      }
+      return cache.getUnchecked(key).orElse(null);
+    } catch (IOException ex) {
+      throw new SearchException(ex);
+    } catch (UncheckedExecutionException ex) {
+      Throwables.propagateIfPossible(ex.getCause());
+      throw new SearchException(ex.getCause());
+    }
+  }
+
+  /**
+   * Sources of the documents of several occurrences, they must not be modified.
+   * The occurrences that are not cached are read together, with a single request if they are all found.
+   *
+   * @return the sources by key, without the keys that don't have an occurrence
+   */
+  Map<Long, Map<String, Object>> getAll(Collection<Long> keys) {
+    try {
+      if (cache == null) {
+        return readAll(keys);
+      }
+      Map<Long, Map<String, Object>> sources = new HashMap<>();
+      cache.getAll(keys).forEach((key, source) -> source.ifPresent(s -> sources.put(key, s)));
+      return sources;
+    } catch (IOException ex) {
+      throw new SearchException(ex);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      Throwables.propagateIfPossible(ex.getCause());
+      throw new SearchException(ex.getCause());
+    }
+  }
+
+  /**
+   * Reads the source of an occurrence, or only the fields of the source context.
+   */
+  private Map<String, Object> read(Long key, FetchSourceContext sourceContext) throws IOException {
+    String type = documentType;
+    if (type != null) {
+      try {
+        GetRequest getRequest = new GetRequest(esIndex, type, key.toString()).fetchSourceContext(sourceContext);
+        GetResponse response = esClient.get(getRequest, HEADERS.get());
+        if (response.isExists() && (sourceContext != null || isDocumentOf(response.getSourceAsMap(), key))) {
+          return response.getSourceAsMap();
+        }
+      } catch (ElasticsearchException ex) {
+        disableGet(ex);
+      }
+    }
+    SearchHit[] hits = search(QueryBuilders.termQuery(GBIF_ID, key), 1, sourceContext);
+    if (hits.length == 0) {
+      return null;
+    }
+    checkNotFoundById(key);
+    Map<String, Object> source = hits[0].getSourceAsMap();
+    return source != null ? source : Collections.emptyMap();
+  }
+
+  /**
+   * Reads the sources of several occurrences with a multi GET request, the ones it doesn't find are searched.
+   */
+  private Map<Long, Map<String, Object>> readAll(Iterable<? extends Long> keys) throws IOException {
+    Set<Long> missing = new LinkedHashSet<>();
+    keys.forEach(missing::add);
+    Map<Long, Map<String, Object>> sources = new HashMap<>();
+    String type = documentType;
+    if (type != null && !missing.isEmpty()) {
+      try {
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        missing.forEach(key -> multiGetRequest.add(new MultiGetRequest.Item(esIndex, type, key.toString())));
+        for (MultiGetItemResponse item : esClient.mget(multiGetRequest, HEADERS.get())) {
+          if (item.isFailed()) {
+            disableGet(item.getFailure().getFailure());
+            break;
+          }
+          Long key = Long.valueOf(item.getId());
+          GetResponse response = item.getResponse();
+          if (response.isExists() && isDocumentOf(response.getSourceAsMap(), key)) {
+            sources.put(key, response.getSourceAsMap());
+            missing.remove(key);
+          }
+        }
+      } catch (ElasticsearchException ex) {
+        disableGet(ex);
+      }
+    }
+    if (!missing.isEmpty()) {
+      for (SearchHit hit : search(QueryBuilders.termsQuery(GBIF_ID, missing), missing.size(), null)) {
+        Map<String, Object> source = hit.getSourceAsMap();
+        Long key = Long.valueOf(String.valueOf(source.get(GBIF_ID)));
+        if (missing.contains(key)) {
+          checkNotFoundById(key);
+          sources.putIfAbsent(key, source);
+        }
+      }
+    }
+    return sources;
+  }
+
+  private SearchHit[] search(QueryBuilder query, int size, FetchSourceContext sourceContext) throws IOException {
+    SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+      .size(size)
+      .query(query)
+      .fetchSource(sourceContext);
+    SearchRequest searchRequest = new SearchRequest().indices(esIndex).source(searchSourceBuilder);
+    SearchHit[] hits = esClient.search(searchRequest, HEADERS.get()).getHits().getHits();
+    return hits != null ? hits : new SearchHit[0];
+  }
+
+  private void disableGet(Exception ex) {
+    LOG.warn("Occurrences can't be read by id from index {}, they will be searched instead", esIndex, ex);
+    documentType = null;
+  }
+
+  /**
+   * An occurrence found by the search that was not found by id means the index is not keyed by GBIF id.
+   */
+  private void checkNotFoundById(Long key) {
+    if (documentType != null) {
+      LOG.warn("Occurrence {} is not stored with its GBIF id in index {}, occurrences will be searched instead",
+               key, esIndex);
+      documentType = null;
+    }
+  }
+
+  private static boolean isDocumentOf(Map<String, Object> source, Long key) {
+    return source != null && key.toString().equals(String.valueOf(source.get(GBIF_ID)));
+  }
+}
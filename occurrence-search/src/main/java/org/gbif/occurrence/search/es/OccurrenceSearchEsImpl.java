@@ -1,7 +1,5 @@
 package org.gbif.occurrence.search.es;
 
-import org.gbif.api.model.checklistbank.NameUsageMatch;
-import org.gbif.api.model.checklistbank.NameUsageMatch.MatchType;
 import org.gbif.api.model.common.search.SearchResponse;
 import org.gbif.api.model.occurrence.Occurrence;
 import org.gbif.api.model.occurrence.VerbatimOccurrence;
@@ -11,16 +9,23 @@ import org.gbif.api.service.checklistbank.NameUsageMatchingService;
 import org.gbif.api.service.occurrence.OccurrenceSearchService;
 import org.gbif.dwc.terms.Term;
 import org.gbif.occurrence.search.OccurrenceGetByKey;
+import org.gbif.occurrence.search.OccurrenceSearchStream;
 import org.gbif.occurrence.search.SearchException;
 import org.gbif.occurrence.search.SearchTermService;
+import org.gbif.occurrence.search.clb.ScientificNameMatchCache;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.validation.constraints.Min;
 
@@ -29,9 +34,7 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.slf4j.Logger;
@@ -44,23 +47,29 @@ import static org.gbif.occurrence.search.es.EsQueryUtils.HEADERS;
 
 /** Occurrence search service. */
 @Component
-public class OccurrenceSearchEsImpl implements OccurrenceSearchService, OccurrenceGetByKey, SearchTermService {
+public class OccurrenceSearchEsImpl implements OccurrenceSearchService, OccurrenceGetByKey, SearchTermService,
+  OccurrenceSearchStream {
 
   private static final Logger LOG = LoggerFactory.getLogger(OccurrenceSearchEsImpl.class);
 
-  private final NameUsageMatchingService nameUsageMatchingService;
+  private final ScientificNameMatchCache scientificNameMatchCache;
   private final RestHighLevelClient esClient;
   private final String esIndex;
   private final int maxLimit;
   private final int maxOffset;
+  private final OccurrenceKeyLookup keyLookup;
 
   @Autowired
   public OccurrenceSearchEsImpl(
       RestHighLevelClient esClient,
-      NameUsageMatchingService nameUsageMatchingService,
+      ScientificNameMatchCache scientificNameMatchCache,
       @Value("${occurrence.search.max.offset}") int maxOffset,
       @Value("${occurrence.search.max.limit}") int maxLimit,
-      @Value("${occurrence.search.es.index}") String esIndex) {
+      @Value("${occurrence.search.es.index}") String esIndex,
+      @Value("${occurrence.search.es.document_type:}") String documentType,
+      @Value("${occurrence.search.cache.max_size:10000}") long cacheSize,
+      @Value("${occurrence.search.cache.expire_after:PT10M}") String cacheExpireAfter,
+      @Value("${occurrence.search.cache.revalidate_after:PT1M}") String cacheRevalidateAfter) {
     Preconditions.checkArgument(maxOffset > 0, "Max offset must be greater than zero");
     Preconditions.checkArgument(maxLimit > 0, "Max limit must be greater than zero");
     this.maxOffset = maxOffset;
@@ -68,44 +77,63 @@ public class OccurrenceSearchEsImpl implements OccurrenceSearchService, Occurren
     this.esIndex = esIndex;
     // create ES client
     this.esClient = esClient;
-    this.nameUsageMatchingService = nameUsageMatchingService;
+    this.scientificNameMatchCache = scientificNameMatchCache;
+    keyLookup = new OccurrenceKeyLookup(esClient, esIndex, documentType, cacheSize, Duration.parse(cacheExpireAfter),
+                                        Duration.parse(cacheRevalidateAfter));
   }
 
-  private <T> T searchByKey(Long key, Function<SearchHit, T> mapper) {
-    //This should be changed to use GetRequest once ElasticSearch stores id correctly
-    SearchRequest searchRequest = new SearchRequest();
-    SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-    searchSourceBuilder.size(1);
-    searchRequest.indices(esIndex);
-    searchSourceBuilder.query(QueryBuilders.termQuery(OccurrenceEsField.GBIF_ID.getFieldName(), key));
-    searchRequest.source(searchSourceBuilder);
-    try {
-      SearchHits hits = esClient.search(searchRequest, HEADERS.get()).getHits();
-      if (hits != null && hits.totalHits > 0) {
-        return mapper.apply(hits.getAt(0));
-      }
-      return null;
-    } catch (IOException ex) {
-      throw new SearchException(ex);
-    }
+  /**
+   * Service that searches occurrences by key and doesn't cache them, scientific names are matched with the default
+   * settings.
+   */
+  public OccurrenceSearchEsImpl(
+      RestHighLevelClient esClient,
+      NameUsageMatchingService nameUsageMatchingService,
+      int maxOffset,
+      int maxLimit,
+      String esIndex) {
+    this(esClient, new ScientificNameMatchCache(nameUsageMatchingService), maxOffset, maxLimit, esIndex, "", 0, "PT0S",
+         "PT0S");
+  }
+
+  private <T> T searchByKey(Long key, Function<Map<String, Object>, T> mapper) {
+    Map<String, Object> source = keyLookup.get(key);
+    return source != null ? mapper.apply(source) : null;
   }
 
   @Override
   public Occurrence get(Long key) {
-    return searchByKey(key, hit -> {
-      Occurrence occurrence = EsResponseParser.toOccurrence(hit, true);
-      Map<Term, String> verbatim = occurrence.getVerbatimFields()
-        .entrySet()
-        .stream()
-        .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-      occurrence.setVerbatimFields(verbatim);
-      return occurrence;
-    });
+    return searchByKey(key, OccurrenceSearchEsImpl::toOccurrence);
+  }
+
+  /**
+   * Occurrences of several keys, read together.
+   *
+   * @return the occurrences in the order of the keys, with null for the keys that don't have an occurrence
+   */
+  @Override
+  public List<Occurrence> getAll(List<Long> keys) {
+    Preconditions.checkArgument(keys.size() <= maxLimit, "Max number of keys is " + maxLimit);
+    Map<Long, Map<String, Object>> sources =
+      keyLookup.getAll(keys.stream().filter(Objects::nonNull).collect(Collectors.toSet()));
+    return keys.stream()
+      .map(key -> key != null && sources.containsKey(key) ? toOccurrence(sources.get(key)) : null)
+      .collect(Collectors.toList());
+  }
+
+  private static Occurrence toOccurrence(Map<String, Object> source) {
+    Occurrence occurrence = EsResponseParser.toOccurrence(source, true);
+    Map<Term, String> verbatim = occurrence.getVerbatimFields()
+      .entrySet()
+      .stream()
+      .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+    occurrence.setVerbatimFields(verbatim);
+    return occurrence;
   }
 
   @Override
   public VerbatimOccurrence getVerbatim(Long key) {
-    return searchByKey(key, EsResponseParser::toVerbatimOccurrence);
+    return searchByKey(key, source -> EsResponseParser.toVerbatimOccurrence(source));
   }
 
   @Override
@@ -148,6 +176,56 @@ public class OccurrenceSearchEsImpl implements OccurrenceSearchService, Occurren
     }
   }
 
+  /**
+   * Pages through the results using the maximum search limit, the request offset plus its limit can't exceed the
+   * maximum offset.
+   */
+  @Override
+  public long streamSearch(OccurrenceSearchRequest request, PageConsumer consumer) throws IOException {
+    Preconditions.checkArgument(
+        request.getOffset() + request.getLimit() <= maxOffset,
+        "Max offset of "
+            + maxOffset
+            + " exceeded: "
+            + request.getOffset()
+            + " + "
+            + request.getLimit());
+
+    if (!hasReplaceableScientificNames(request)) {
+      return 0;
+    }
+
+    // the pages are requested changing the size and offset of the ES request, the caller's request is not modified
+    SearchRequest esRequest = EsSearchRequestBuilder.buildSearchRequest(request, esIndex);
+    long offset = request.getOffset();
+    long end = offset + request.getLimit();
+    long streamed = 0;
+    while (offset < end) {
+      int limit = (int) Math.min(maxLimit, end - offset);
+      esRequest.source().from((int) offset).size(limit);
+      LOG.debug("ES request: {}", esRequest);
+
+      SearchHit[] hits;
+      try {
+        hits = esClient.search(esRequest, HEADERS.get()).getHits().getHits();
+      } catch (IOException e) {
+        LOG.error("Error executing the search operation", e);
+        throw new SearchException(e);
+      }
+      if (hits == null || hits.length == 0) {
+        break;
+      }
+
+      consumer.accept(Stream.of(hits).map(hit -> EsResponseParser.toOccurrence(hit, true)).collect(Collectors.toList()));
+      streamed += hits.length;
+      if (hits.length < limit) {
+        break;
+      }
+      offset += hits.length;
+    }
+    return streamed;
+  }
+
   @Override
   public List<String> suggestCatalogNumbers(String prefix, @Nullable Integer limit) {
     return suggestTermByField(prefix, OccurrenceSearchParameter.CATALOG_NUMBER, limit);
@@ -260,22 +338,27 @@ public class OccurrenceSearchEsImpl implements OccurrenceSearchService, Occurren
   }
 
   /**
-   * Tries to get the corresponding name usage keys from the scientific_name parameter values.
+   * Replaces the scientific_name parameter values that have an exact backbone match by their name usage keys.
+   * Names without an exact match are kept, as are the names that couldn't be matched within the latency budget.
    *
    * @return true: if the request doesn't contain any scientific_name parameter or if any scientific
-   * name was found false: if none scientific name was found
+   * name was found or couldn't be matched, false: if none scientific name was found
    */
   private boolean hasReplaceableScientificNames(OccurrenceSearchRequest request) {
     boolean hasValidReplaces = true;
     if (request.getParameters().containsKey(OccurrenceSearchParameter.SCIENTIFIC_NAME)) {
       hasValidReplaces = false;
       Collection<String> values = request.getParameters().get(OccurrenceSearchParameter.SCIENTIFIC_NAME);
-      for (String value : values) {
-        NameUsageMatch nameUsageMatch = nameUsageMatchingService.match(value, null, null, true, false);
-        if (nameUsageMatch.getMatchType() == MatchType.EXACT) {
+      Map<String, Optional<Integer>> matches = scientificNameMatchCache.exactMatches(values);
+      for (String value : new ArrayList<>(values)) {
+        Optional<Integer> usageKey = matches.get(value);
+        if (usageKey == null) {
+          // unresolved
+          hasValidReplaces = true;
+        } else if (usageKey.isPresent()) {
           hasValidReplaces = true;
           values.remove(value);
-          request.addParameter(OccurrenceSearchParameter.TAXON_KEY, nameUsageMatch.getUsageKey());
+          request.addParameter(OccurrenceSearchParameter.TAXON_KEY, usageKey.get());
         }
       }
     }
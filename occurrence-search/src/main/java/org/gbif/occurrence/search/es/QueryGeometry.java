@@ -0,0 +1,167 @@
+package org.gbif.occurrence.search.es;
+
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.elasticsearch.common.geo.builders.ShapeBuilder;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.locationtech.spatial4j.context.jts.DatelineRule;
+import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
+import org.locationtech.spatial4j.context.jts.JtsSpatialContextFactory;
+import org.locationtech.spatial4j.shape.Shape;
+import org.locationtech.spatial4j.shape.jts.JtsGeometry;
+
+/**
+ * Geometry of a geometry search parameter or of a within predicate, parsed once and cached by its WKT together with
+ * the shapes derived from it for the Elasticsearch and Hive queries, so repeated queries with the same geometry don't
+ * parse, validate or split it again.
+ * The derived shapes are computed the first time they are used.
+ */
+public class QueryGeometry {
+
+  // geometries of the most recent queries
+  private static final int CACHE_SIZE = 1000;
+
+  // the bounding box is a good enough prefilter of geometries with fewer vertices
+  private static final int PREFILTER_MIN_VERTICES = 500;
+
+  // simplification tolerance of the prefilters, relative to the size of the bounding box
+  private static final double PREFILTER_TOLERANCE = 0.002;
+
+  private static final Cache<String, QueryGeometry> CACHE = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+
+  private static final JtsSpatialContextFactory SPATIAL_CONTEXT_FACTORY = new JtsSpatialContextFactory();
+
+  static {
+    SPATIAL_CONTEXT_FACTORY.normWrapLongitude = true;
+    SPATIAL_CONTEXT_FACTORY.srid = 4326;
+    SPATIAL_CONTEXT_FACTORY.datelineRule = DatelineRule.ccwRect;
+  }
+
+  private static final JtsSpatialContext SPATIAL_CONTEXT = SPATIAL_CONTEXT_FACTORY.newSpatialContext();
+
+  private final String wkt;
+  private final Geometry geometry;
+  private final Supplier<ShapeBuilder> shapeBuilder;
+  private final Supplier<Shape> shape;
+  private final Supplier<String> shapeWkt;
+  private final Supplier<String> prefilterWkt;
+
+  private QueryGeometry(String wkt) {
+    this.wkt = wkt;
+    try {
+      geometry = new WKTReader().read(wkt);
+    } catch (ParseException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    shapeBuilder = Suppliers.memoize(() -> EsSearchRequestBuilder.buildShape(geometry));
+    shape = Suppliers.memoize(this::parseShape);
+    shapeWkt = Suppliers.memoize(() -> {
+      Shape parsed = shape.get();
+      return parsed instanceof JtsGeometry ? ((JtsGeometry) parsed).getGeom().toText() : wkt;
+    });
+    prefilterWkt = Suppliers.memoize(this::simplify);
+  }
+
+  /**
+   * Geometry of a WKT text, from the cache if it has been used recently.
+   *
+   * @throws IllegalArgumentException if the WKT can't be parsed
+   */
+  public static QueryGeometry of(String wkt) {
+    try {
+      return CACHE.get(wkt, () -> new QueryGeometry(wkt));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * @return the WKT text of the geometry as given
+   */
+  public String getWkt() {
+    return wkt;
+  }
+
+  /**
+   * @return the JTS geometry, with its rings oriented as written, Elasticsearch takes wide clockwise polygons to
+   * cross the antimeridian
+   */
+  public Geometry getGeometry() {
+    return geometry;
+  }
+
+  /**
+   * @return the Elasticsearch shape of the geometry
+   */
+  public ShapeBuilder getShapeBuilder() {
+    return shapeBuilder.get();
+  }
+
+  /**
+   * @return the Spatial4J shape of the geometry, fixed and split into a multipolygon if it crosses the antimeridian
+   */
+  public Shape getShape() {
+    return shape.get();
+  }
+
+  /**
+   * @return the WKT text of the Spatial4J shape of the geometry
+   */
+  public String getShapeWkt() {
+    return shapeWkt.get();
+  }
+
+  /**
+   * Simplified geometry that contains the Spatial4J shape, it is cheaper to test points against it before testing them
+   * against the shape.
+   *
+   * @return the WKT text of the simplified geometry or null if the shape is simple enough
+   */
+  public String getPrefilterWkt() {
+    return prefilterWkt.get();
+  }
+
+  private Shape parseShape() {
+    try {
+      return new org.locationtech.spatial4j.io.WKTReader(SPATIAL_CONTEXT, SPATIAL_CONTEXT_FACTORY).parse(wkt);
+    } catch (java.text.ParseException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The geometry buffered by twice the tolerance and simplified within the tolerance. The buffer with one segment per
+   * quadrant reaches at least 1.41 times the tolerance past the convex vertices and the simplification moves the
+   * boundary inwards by less than the tolerance, so the result contains all the points of the original geometry. It is
+   * checked anyway, as a prefilter that misses points would silently drop records.
+   */
+  private String simplify() {
+    if (!(shape.get() instanceof JtsGeometry)) {
+      return null;
+    }
+    Geometry splitGeometry = ((JtsGeometry) shape.get()).getGeom();
+    if (splitGeometry.getNumPoints() < PREFILTER_MIN_VERTICES) {
+      return null;
+    }
+    Envelope envelope = splitGeometry.getEnvelopeInternal();
+    double tolerance = Math.max(envelope.getWidth(), envelope.getHeight()) * PREFILTER_TOLERANCE;
+    Geometry simplified = DouglasPeuckerSimplifier.simplify(splitGeometry.buffer(2 * tolerance, 1), tolerance);
+    // not worth an additional test for each point
+    if (simplified.isEmpty() || simplified.getNumPoints() * 4 > splitGeometry.getNumPoints()
+        || !simplified.covers(splitGeometry)) {
+      return null;
+    }
+    return simplified.toText();
+  }
+}
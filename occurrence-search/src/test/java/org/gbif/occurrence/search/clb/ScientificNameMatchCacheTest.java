@@ -0,0 +1,117 @@
+package org.gbif.occurrence.search.clb;
+
+import org.gbif.api.model.checklistbank.NameUsageMatch;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test cases of {@link ScientificNameMatchCache}, matching names with an in-memory matcher that takes a given time to
+ * match each name.
+ */
+public class ScientificNameMatchCacheTest {
+
+  private static final String PUMA_CONCOLOR = "Puma concolor";
+  private static final int PUMA_CONCOLOR_KEY = 2435099;
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  /**
+   * Matcher that matches exactly Puma concolor and the names starting with "name ", using their number as usage key.
+   */
+  private ScientificNameMatcher matcher(long latencyMillis) {
+    return name -> {
+      calls.incrementAndGet();
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      NameUsageMatch match = new NameUsageMatch();
+      if (PUMA_CONCOLOR.equals(name)) {
+        match.setMatchType(NameUsageMatch.MatchType.EXACT);
+        match.setUsageKey(PUMA_CONCOLOR_KEY);
+      } else if (name.startsWith("name ")) {
+        match.setMatchType(NameUsageMatch.MatchType.EXACT);
+        match.setUsageKey(Integer.valueOf(name.substring(5)));
+      } else {
+        match.setMatchType(NameUsageMatch.MatchType.NONE);
+      }
+      return match;
+    };
+  }
+
+  private static ScientificNameMatchCache cache(ScientificNameMatcher matcher, long latencyBudgetMillis) {
+    return new ScientificNameMatchCache(matcher, 100, Duration.ofHours(1), Duration.ofMillis(latencyBudgetMillis), 10);
+  }
+
+  @Test
+  public void testExactMatches() {
+    ScientificNameMatchCache cache = cache(matcher(0), 5000);
+    Map<String, Optional<Integer>> matches = cache.exactMatches(Arrays.asList(PUMA_CONCOLOR, "Puma", PUMA_CONCOLOR));
+    assertEquals(2, matches.size());
+    assertEquals(Optional.of(PUMA_CONCOLOR_KEY), matches.get(PUMA_CONCOLOR));
+    assertEquals(Optional.empty(), matches.get("Puma"));
+    assertEquals(2, calls.get());
+
+    // positive and negative matches are cached
+    assertEquals(matches, cache.exactMatches(Arrays.asList(PUMA_CONCOLOR, "Puma")));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testConcurrentMatches() {
+    ScientificNameMatchCache cache = cache(matcher(200), 5000);
+    List<String> names = IntStream.range(0, 10).mapToObj(i -> "name " + i).collect(Collectors.toList());
+    long start = System.currentTimeMillis();
+    Map<String, Optional<Integer>> matches = cache.exactMatches(names);
+    long elapsed = System.currentTimeMillis() - start;
+    assertEquals(10, matches.size());
+    assertEquals(Optional.of(7), matches.get("name 7"));
+    // one after the other they would take 2 seconds
+    assertTrue(elapsed < 1000, "Matched in " + elapsed + " ms");
+  }
+
+  @Test
+  public void testLatencyBudget() throws InterruptedException {
+    ScientificNameMatchCache cache = cache(matcher(500), 100);
+    long start = System.currentTimeMillis();
+    assertEquals(Collections.emptyMap(), cache.exactMatches(Collections.singletonList(PUMA_CONCOLOR)));
+    assertTrue(System.currentTimeMillis() - start < 400);
+
+    // the match is completed in the background
+    Thread.sleep(600);
+    assertEquals(Optional.of(PUMA_CONCOLOR_KEY),
+                 cache.exactMatches(Collections.singletonList(PUMA_CONCOLOR)).get(PUMA_CONCOLOR));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testFailedMatchesAreNotCached() {
+    AtomicBoolean failing = new AtomicBoolean(true);
+    ScientificNameMatcher matcher = matcher(0);
+    ScientificNameMatchCache cache = cache(name -> {
+      if (failing.getAndSet(false)) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      return matcher.match(name);
+    }, 5000);
+
+    assertEquals(Collections.emptyMap(), cache.exactMatches(Collections.singletonList(PUMA_CONCOLOR)));
+    assertEquals(Optional.of(PUMA_CONCOLOR_KEY),
+                 cache.exactMatches(Collections.singletonList(PUMA_CONCOLOR)).get(PUMA_CONCOLOR));
+  }
+}
@@ -0,0 +1,83 @@
+package org.gbif.occurrence.search.es;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.gbif.occurrence.search.es.EsQueryUtils.FORMATTER_TO_DATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test cases for the class {@link EsDateParser}.
+ */
+public class EsDateParserTest {
+
+  @Test
+  public void testSameAsFormatter() {
+    EsDateParser parser = new EsDateParser(FORMATTER_TO_DATE);
+    String[] dates = {
+      "2019-04-02",
+      "1752-09-14",
+      "2020-02-29",
+      "2019-02-30",
+      "2019-04-15T17:17:48",
+      "2019-04-15T17:17:48.191",
+      "2019-11-12T13:24:56.963591",
+      "2019-04-15T17:17:48Z",
+      "2019-04-15T17:17:48.000Z",
+      "2019-04-15T17:17:48.023+02:00",
+      "2019-04-15T00:17:48.023-05:30",
+      "2019-04-15T17:17:48.191 +02:00",
+      "2019-04-15T17:17",
+      "2019-04",
+      "2019",
+      "0000-01-01T00:00:01.100"
+    };
+    for (String date : dates) {
+      assertEquals(FORMATTER_TO_DATE.apply(date), parser.apply(date), date);
+      // again from the cache
+      assertEquals(FORMATTER_TO_DATE.apply(date), parser.apply(date), date);
+    }
+  }
+
+  @Test
+  public void testParseIso() {
+    assertEquals(Instant.parse("2019-04-15T15:17:48.023Z").toEpochMilli(),
+                 EsDateParser.parseIso("2019-04-15T17:17:48.023+02:00"));
+    assertEquals(Instant.parse("2019-11-12T13:24:56.963Z").toEpochMilli(),
+                 EsDateParser.parseIso("2019-11-12T13:24:56.963591"));
+    assertEquals(1586678663000L, EsDateParser.parseIso("1586678663000"));
+
+    // other shapes and invalid values are left to the fallback
+    assertEquals(Long.MIN_VALUE, EsDateParser.parseIso("2019-04"));
+    assertEquals(Long.MIN_VALUE, EsDateParser.parseIso("2019-02-30"));
+    assertEquals(Long.MIN_VALUE, EsDateParser.parseIso("2019-04-15T25:17:48"));
+    assertEquals(Long.MIN_VALUE, EsDateParser.parseIso("2019-04-15T17:17:48 +02:00"));
+    assertEquals(Long.MIN_VALUE, EsDateParser.parseIso("0000-01-01"));
+  }
+
+  @Test
+  public void testCache() {
+    AtomicInteger fallbacks = new AtomicInteger();
+    EsDateParser parser = new EsDateParser(date -> {
+      fallbacks.incrementAndGet();
+      return FORMATTER_TO_DATE.apply(date);
+    });
+    Date first = parser.apply("2019-04-15T17:17:48.191 +02:00");
+    Date second = parser.apply("2019-04-15T17:17:48.191 +02:00");
+    assertEquals(first, second);
+    assertEquals(1, fallbacks.get());
+
+    // cached dates are not shared
+    assertNotSame(first, second);
+    first.setTime(0);
+    assertEquals(second, parser.apply("2019-04-15T17:17:48.191 +02:00"));
+
+    assertNull(parser.apply(""));
+    assertNull(parser.apply(null));
+  }
+}
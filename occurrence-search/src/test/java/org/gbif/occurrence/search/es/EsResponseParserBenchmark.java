@@ -0,0 +1,65 @@
+package org.gbif.occurrence.search.es;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the conversion of search responses into occurrences, with pages of the hit captured for
+ * {@link EsResponseParserTest}.
+ * The response is parsed again before each invocation, since the hits keep the map of their source once it is read.
+ * It is not run by the build, run it from the IDE or with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EsResponseParserBenchmark {
+
+  @Param({"20", "300"})
+  private int hits;
+
+  private SearchResponse response;
+
+  @Setup(Level.Invocation)
+  public void setup() throws IOException {
+    response = EsResponseParserTest.searchResponse(hits);
+  }
+
+  @Benchmark
+  public List<Occurrence> searchResponse() {
+    return EsResponseParser.buildDownloadResponse(response, new OccurrenceSearchRequest()).getResults();
+  }
+
+  @Benchmark
+  public List<Occurrence> downloadResponse() {
+    return EsResponseParser.buildDownloadResponse(response, new PagingRequest(0, hits)).getResults();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(EsResponseParserBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,143 @@
+package org.gbif.occurrence.search.es;
+
+import org.gbif.api.model.common.paging.PagingRequest;
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+import org.gbif.api.vocabulary.AgentIdentifierType;
+import org.gbif.api.vocabulary.BasisOfRecord;
+import org.gbif.api.vocabulary.Continent;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.MediaType;
+import org.gbif.api.vocabulary.OccurrenceIssue;
+import org.gbif.api.vocabulary.Rank;
+import org.gbif.api.vocabulary.Sex;
+import org.gbif.api.vocabulary.TaxonomicStatus;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import com.google.common.io.Resources;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test cases for the class {@link EsResponseParser}, using a hit captured from the occurrence index.
+ */
+public class EsResponseParserTest {
+
+  /**
+   * Elasticsearch response with the given number of copies of the captured hit.
+   */
+  static SearchResponse searchResponse(int hits) throws IOException {
+    String hit = Resources.toString(Resources.getResource("responses/occurrence-hit.json"), StandardCharsets.UTF_8);
+    StringBuilder json = new StringBuilder("{\"took\":12,\"timed_out\":false,")
+      .append("\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+      .append("\"hits\":{\"total\":").append(hits).append(",\"max_score\":null,\"hits\":[");
+    for (int i = 0; i < hits; i++) {
+      json.append(i > 0 ? "," : "").append(hit);
+    }
+    json.append("]}}");
+    try (XContentParser parser = XContentType.JSON.xContent()
+      .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json.toString())) {
+      return SearchResponse.fromXContent(parser);
+    }
+  }
+
+  @Test
+  public void testSearchResponse() throws IOException {
+    List<Occurrence> results =
+      EsResponseParser.buildDownloadResponse(searchResponse(2), new OccurrenceSearchRequest()).getResults();
+    assertEquals(2, results.size());
+    Occurrence occurrence = results.get(0);
+    assertInterpretedFields(occurrence);
+
+    // interpreted terms are excluded from the verbatim fields of searches
+    assertEquals("42", occurrence.getVerbatimField(DwcTerm.catalogNumber));
+    assertNull(occurrence.getVerbatimField(DwcTerm.decimalLatitude));
+  }
+
+  @Test
+  public void testDownloadResponse() throws IOException {
+    List<Occurrence> results =
+      EsResponseParser.buildDownloadResponse(searchResponse(3), new PagingRequest(0, 3)).getResults();
+    assertEquals(3, results.size());
+    Occurrence occurrence = results.get(2);
+    assertInterpretedFields(occurrence);
+
+    assertEquals("42", occurrence.getVerbatimField(DwcTerm.catalogNumber));
+    assertEquals("55.68", occurrence.getVerbatimField(DwcTerm.decimalLatitude));
+    assertEquals("Copenhagen", occurrence.getVerbatimField(DwcTerm.locality));
+    assertEquals("2005380410", occurrence.getVerbatimField(GbifTerm.gbifID));
+    assertEquals(8, occurrence.getVerbatimFields().size());
+  }
+
+  private static void assertInterpretedFields(Occurrence occurrence) {
+    // top level fields
+    assertEquals(2005380410L, occurrence.getKey().longValue());
+    assertEquals(UUID.fromString("50c9509d-22c7-4a22-a47d-8c48425ef4a7"), occurrence.getDatasetKey());
+    assertEquals(Country.DENMARK, occurrence.getPublishingCountry());
+    assertEquals(BasisOfRecord.PRESERVED_SPECIMEN, occurrence.getBasisOfRecord());
+    assertEquals(Sex.FEMALE, occurrence.getSex());
+    assertEquals(2, occurrence.getIndividualCount().intValue());
+    assertEquals(1, occurrence.getNetworkKeys().size());
+    assertEquals(12, occurrence.getCrawlId().intValue());
+
+    // dates
+    assertEquals(1998, occurrence.getYear().intValue());
+    assertEquals(6, occurrence.getMonth().intValue());
+    assertEquals(17, occurrence.getDay().intValue());
+    assertEquals(Date.from(Instant.parse("1998-06-17T00:00:00Z")), occurrence.getEventDate());
+    assertEquals(Date.from(Instant.parse("2020-04-12T09:04:23Z")), occurrence.getLastCrawled());
+    assertEquals(Date.from(Instant.parse("2020-04-12T10:21:37.184Z")), occurrence.getLastInterpreted());
+
+    // location
+    assertEquals(55.68, occurrence.getDecimalLatitude(), 0);
+    assertEquals(12.57, occurrence.getDecimalLongitude(), 0);
+    assertEquals(Country.DENMARK, occurrence.getCountry());
+    assertEquals(Continent.EUROPE, occurrence.getContinent());
+    assertEquals("DNK.1_1", occurrence.getGadm().getLevel1().getGid());
+    assertEquals("Hovedstaden", occurrence.getGadm().getLevel1().getName());
+    assertNull(occurrence.getGadm().getLevel2());
+
+    // nested classification fields
+    assertEquals(1, occurrence.getKingdomKey().intValue());
+    assertEquals("Aves", occurrence.getClazz());
+    assertEquals(9705453, occurrence.getTaxonKey().intValue());
+    assertEquals(9705453, occurrence.getAcceptedTaxonKey().intValue());
+    assertEquals("Parus major Linnaeus, 1758", occurrence.getScientificName());
+    assertEquals(Rank.SPECIES, occurrence.getTaxonRank());
+    assertEquals("Parus", occurrence.getGenericName());
+    assertEquals("major", occurrence.getSpecificEpithet());
+    assertNull(occurrence.getInfraspecificEpithet());
+    assertNull(occurrence.getSubgenusKey());
+    assertEquals(TaxonomicStatus.ACCEPTED, occurrence.getTaxonomicStatus());
+
+    // lists of values and objects
+    assertEquals(EnumSet.of(OccurrenceIssue.COORDINATE_ROUNDED, OccurrenceIssue.GEODETIC_DATUM_ASSUMED_WGS84),
+                 occurrence.getIssues());
+    assertEquals(AgentIdentifierType.ORCID, occurrence.getRecordedByIds().get(0).getType());
+    assertEquals(MediaType.StillImage, occurrence.getMedia().get(0).getType());
+    assertEquals("image/jpeg", occurrence.getMedia().get(0).getFormat());
+
+    // the id is the catalogue triplet, which is not exposed as identifier
+    assertFalse(occurrence.getVerbatimFields().containsKey(DcTerm.identifier));
+    assertTrue(occurrence.getVerbatimFields().containsKey(DwcTerm.institutionCode));
+  }
+}
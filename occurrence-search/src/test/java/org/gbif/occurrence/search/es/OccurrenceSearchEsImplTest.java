@@ -0,0 +1,239 @@
+package org.gbif.occurrence.search.es;
+
+import org.gbif.api.model.occurrence.Occurrence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test cases of the lookup of occurrences by key of {@link OccurrenceSearchEsImpl}, the occurrence of the captured
+ * hit of {@link EsResponseParserTest} is served by a local HTTP server that stands in for Elasticsearch.
+ */
+public class OccurrenceSearchEsImplTest {
+
+  private static final long KEY = 2005380410L;
+
+  private static final Pattern ID_PATTERN = Pattern.compile("\"_id\"\\s*:\\s*\"(\\d+)\"");
+
+  private HttpServer server;
+  private RestHighLevelClient esClient;
+  private Map<String, Object> source;
+
+  // whether the stand-in stores the occurrence with its GBIF id
+  private volatile boolean keyedById = true;
+
+  private final AtomicInteger getRequests = new AtomicInteger();
+  private final AtomicInteger revalidations = new AtomicInteger();
+  private final AtomicInteger searchRequests = new AtomicInteger();
+  private final AtomicInteger multiGetRequests = new AtomicInteger();
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    String hit = Resources.toString(Resources.getResource("responses/occurrence-hit.json"), StandardCharsets.UTF_8);
+    source = (Map<String, Object>) XContentHelper.convertToMap(XContentType.JSON.xContent(), hit, false).get("_source");
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      if (path.endsWith("/_mget")) {
+        multiGetRequests.incrementAndGet();
+        String request = new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+        StringBuilder docs = new StringBuilder();
+        Matcher ids = ID_PATTERN.matcher(request);
+        while (ids.find()) {
+          boolean found = keyedById && ids.group(1).equals(Long.toString(KEY));
+          docs.append(docs.length() > 0 ? "," : "")
+            .append("{\"_index\":\"occurrence\",\"_type\":\"record\",\"_id\":\"").append(ids.group(1))
+            .append("\",\"_version\":1,\"found\":").append(found)
+            .append(found ? ",\"_source\":" + toJson(source) : "").append("}");
+        }
+        respond(exchange, 200, "{\"docs\":[" + docs + "]}");
+      } else if (path.endsWith("/_search")) {
+        searchRequests.incrementAndGet();
+        String request = new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+        boolean found = request.contains(Long.toString(KEY));
+        respond(exchange, 200, "{\"took\":1,\"timed_out\":false,"
+                               + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                               + "\"hits\":{\"total\":" + (found ? 1 : 0) + ",\"max_score\":null,\"hits\":["
+                               + (found ? hit(source) : "") + "]}}");
+      } else {
+        String query = exchange.getRequestURI().getQuery();
+        boolean revalidation = query != null && query.contains("created");
+        (revalidation ? revalidations : getRequests).incrementAndGet();
+        boolean found = keyedById && path.equals("/occurrence/record/" + KEY);
+        respond(exchange, found ? 200 : 404, "{\"_index\":\"occurrence\",\"_type\":\"record\",\"_id\":\""
+                                             + path.substring(path.lastIndexOf('/') + 1) + "\",\"_version\":1,"
+                                             + "\"found\":" + found
+                                             + (found ? ",\"_source\":" + toJson(source) : "") + "}");
+      }
+    });
+    server.start();
+    esClient = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+  }
+
+  @AfterEach
+  public void stopServer() throws IOException {
+    esClient.close();
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] response = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(status, response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  private static String hit(Map<String, Object> source) throws IOException {
+    return "{\"_index\":\"occurrence\",\"_type\":\"record\",\"_id\":\"" + KEY + "\",\"_score\":1.0,\"_source\":"
+           + toJson(source) + "}";
+  }
+
+  private static String toJson(Map<String, Object> map) throws IOException {
+    try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+      return Strings.toString(builder.map(map));
+    }
+  }
+
+  private OccurrenceSearchEsImpl searchService(String documentType, String revalidateAfter) {
+    return new OccurrenceSearchEsImpl(esClient, null, 1000, 300, "occurrence", documentType, 100, "PT10M",
+                                      revalidateAfter);
+  }
+
+  @Test
+  public void testGetById() {
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT1M");
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertNotNull(searchService.getVerbatim(KEY));
+    assertEquals(1, getRequests.get());
+    assertEquals(0, searchRequests.get());
+  }
+
+  @Test
+  public void testSearchByKey() {
+    OccurrenceSearchEsImpl searchService = searchService("", "PT1M");
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertEquals(0, getRequests.get());
+    assertEquals(1, searchRequests.get());
+  }
+
+  @Test
+  public void testMissingKeyIsCached() {
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT1M");
+    assertNull(searchService.get(1L));
+    assertNull(searchService.get(1L));
+    // not found by id, then searched
+    assertEquals(1, getRequests.get());
+    assertEquals(1, searchRequests.get());
+  }
+
+  @Test
+  public void testIndexNotKeyedById() {
+    keyedById = false;
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT1M");
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertEquals(1, getRequests.get());
+    assertEquals(1, searchRequests.get());
+
+    // other occurrences are searched directly
+    assertNull(searchService.get(1L));
+    assertEquals(1, getRequests.get());
+    assertEquals(2, searchRequests.get());
+  }
+
+  @Test
+  public void testRevalidation() throws InterruptedException {
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT0.1S");
+    Date lastInterpreted = searchService.get(KEY).getLastInterpreted();
+
+    // unchanged, only the last interpretation date is read
+    Thread.sleep(200);
+    assertEquals(lastInterpreted, searchService.get(KEY).getLastInterpreted());
+    assertEquals(1, getRequests.get());
+    assertEquals(1, revalidations.get());
+
+    // interpreted again
+    source.put("created", "2020-05-01T08:00:00.000");
+    Thread.sleep(200);
+    Occurrence occurrence = searchService.get(KEY);
+    assertEquals(2, getRequests.get());
+    assertEquals(2, revalidations.get());
+    assertEquals(EsQueryUtils.STRING_TO_DATE.apply("2020-05-01T08:00:00.000"), occurrence.getLastInterpreted());
+  }
+
+  @Test
+  public void testGetAllById() {
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT1M");
+    List<Occurrence> occurrences = searchService.getAll(Arrays.asList(1L, KEY, null, KEY));
+    assertEquals(4, occurrences.size());
+    assertNull(occurrences.get(0));
+    assertEquals(KEY, occurrences.get(1).getKey().longValue());
+    assertNull(occurrences.get(2));
+    assertEquals(KEY, occurrences.get(3).getKey().longValue());
+    // the missing key is searched
+    assertEquals(1, multiGetRequests.get());
+    assertEquals(1, searchRequests.get());
+
+    // all cached
+    assertEquals(2, searchService.getAll(Arrays.asList(KEY, 1L)).size());
+    assertEquals(KEY, searchService.get(KEY).getKey().longValue());
+    assertEquals(1, multiGetRequests.get());
+    assertEquals(1, searchRequests.get());
+    assertEquals(0, getRequests.get());
+  }
+
+  @Test
+  public void testGetAllBySearch() {
+    OccurrenceSearchEsImpl searchService = searchService("", "PT1M");
+    List<Occurrence> occurrences = searchService.getAll(Arrays.asList(KEY, 1L));
+    assertEquals(KEY, occurrences.get(0).getKey().longValue());
+    assertNull(occurrences.get(1));
+    assertEquals(0, multiGetRequests.get());
+    assertEquals(1, searchRequests.get());
+    assertEquals(Collections.emptyList(), searchService.getAll(Collections.emptyList()));
+  }
+
+  @Test
+  public void testGetAllLimit() {
+    OccurrenceSearchEsImpl searchService = searchService("record", "PT1M");
+    List<Long> keys = LongStream.rangeClosed(1, 301).boxed().collect(Collectors.toList());
+    assertThrows(IllegalArgumentException.class, () -> searchService.getAll(keys));
+  }
+}
@@ -0,0 +1,108 @@
+package org.gbif.occurrence.search.es;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+/** Tests the {@link QueryGeometry}. */
+public class QueryGeometryTest {
+
+  /** Polygon with a wavy border of the number of vertices, counter-clockwise. */
+  private static String wavyPolygon(int vertices) {
+    StringBuilder wkt = new StringBuilder("POLYGON ((");
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      double radius = 10 + Math.sin(5 * angle);
+      wkt.append(i == 0 ? "" : ", ")
+          .append(
+              String.format(
+                  Locale.ENGLISH, "%.8f %.8f", radius * Math.cos(angle), radius * Math.sin(angle)));
+    }
+    return wkt.append("))").toString();
+  }
+
+  /**
+   * Square of side 10 with right-angled notches of the depth along its bottom side and the other sides split in
+   * segments, counter-clockwise.
+   */
+  private static String notchedSquare(double depth) {
+    StringBuilder wkt = new StringBuilder("POLYGON ((0 0");
+    for (int i = 0; i < 250; i++) {
+      double x = i * 0.04;
+      wkt.append(String.format(Locale.ENGLISH, ", %.2f %.2f, %.2f %.2f, %.2f %.2f, %.2f %.2f",
+                               x + 0.01, 0.0, x + 0.01, depth, x + 0.03, depth, x + 0.03, 0.0));
+    }
+    for (int i = 0; i < 100; i++) {
+      wkt.append(String.format(Locale.ENGLISH, ", 10 %.1f", i * 0.1));
+    }
+    for (int i = 0; i < 100; i++) {
+      wkt.append(String.format(Locale.ENGLISH, ", %.1f 10", 10 - i * 0.1));
+    }
+    for (int i = 0; i < 100; i++) {
+      wkt.append(String.format(Locale.ENGLISH, ", 0 %.1f", 10 - i * 0.1));
+    }
+    return wkt.append(", 0 0))").toString();
+  }
+
+  @Test
+  public void cacheTest() {
+    String wkt = "POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))";
+    QueryGeometry geometry = QueryGeometry.of(wkt);
+    Assertions.assertSame(geometry, QueryGeometry.of(new String(wkt)));
+    Assertions.assertSame(geometry.getShapeBuilder(), QueryGeometry.of(wkt).getShapeBuilder());
+    Assertions.assertEquals(wkt, geometry.getWkt());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> QueryGeometry.of("POLYGON ((30 10, 40 40"));
+  }
+
+  @Test
+  public void orientationTest() {
+    // rings are kept as written, the orientation tells Elasticsearch if a polygon crosses the antimeridian
+    Polygon polygon =
+        (Polygon)
+            QueryGeometry.of(
+                    "POLYGON ((30 10, 10 20, 20 40, 40 40, 30 10), (25 25, 30 25, 30 30, 25 30, 25 25))")
+                .getGeometry();
+    Assertions.assertEquals("LINEARRING (30 10, 10 20, 20 40, 40 40, 30 10)", polygon.getExteriorRing().toText());
+    Assertions.assertEquals(
+        "LINEARRING (25 25, 30 25, 30 30, 25 30, 25 25)", polygon.getInteriorRingN(0).toText());
+  }
+
+  @Test
+  public void antimeridianTest() {
+    QueryGeometry geometry =
+        QueryGeometry.of(
+            "POLYGON((179.85168 -16.72643, 179.78577 -16.82899, 179.87915 -17.12058, -179.89838 -17.12845, "
+                + "-179.75006 -16.86054, -179.8764 -16.60277, 179.85168 -16.72643))");
+    Assertions.assertTrue(geometry.getShapeWkt().startsWith("MULTIPOLYGON"));
+    Assertions.assertTrue(
+        geometry.getShape().getBoundingBox().getMinX() > geometry.getShape().getBoundingBox().getMaxX());
+  }
+
+  @Test
+  public void prefilterTest() throws ParseException {
+    // few vertices
+    Assertions.assertNull(QueryGeometry.of(wavyPolygon(100)).getPrefilterWkt());
+
+    QueryGeometry geometry = QueryGeometry.of(wavyPolygon(5000));
+    Geometry prefilter = new WKTReader().read(geometry.getPrefilterWkt());
+    Assertions.assertTrue(prefilter.getNumPoints() * 4 < geometry.getGeometry().getNumPoints());
+    Assertions.assertTrue(prefilter.covers(geometry.getGeometry()));
+  }
+
+  @Test
+  public void prefilterSharpVerticesTest() throws ParseException {
+    // the corners and notches are right angles, which the buffer rounds least
+    for (double depth : new double[] {0.01, 0.02, 0.03}) {
+      QueryGeometry geometry = QueryGeometry.of(notchedSquare(depth));
+      Geometry prefilter = new WKTReader().read(geometry.getPrefilterWkt());
+      Assertions.assertTrue(prefilter.getNumPoints() * 4 < geometry.getGeometry().getNumPoints());
+      Assertions.assertTrue(prefilter.covers(geometry.getGeometry()), "Notches of depth " + depth);
+    }
+  }
+}
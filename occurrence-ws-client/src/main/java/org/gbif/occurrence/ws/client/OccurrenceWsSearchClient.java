@@ -46,6 +46,21 @@ public interface OccurrenceWsSearchClient extends  OccurrenceSearchService {
 
   String SEARCH_PATH ="search/";
 
+  String BATCH_PATH = "batch";
+
+  /**
+   * Gets several occurrences with a single request, at most as many as the search limit.
+   *
+   * @return the occurrences in the order of the keys, with {@code null} for the keys that couldn't be found
+   */
+  @RequestMapping(
+    method = RequestMethod.POST,
+    value = BATCH_PATH,
+    consumes = MediaType.APPLICATION_JSON_VALUE
+  )
+  @ResponseBody
+  List<Occurrence> getAll(@RequestBody List<Long> keys);
+
   @RequestMapping(
     method = RequestMethod.GET,
     value = SEARCH_PATH
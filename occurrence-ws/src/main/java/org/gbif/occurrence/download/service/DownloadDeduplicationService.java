@@ -0,0 +1,113 @@
+package org.gbif.occurrence.download.service;
+
+import org.gbif.api.model.occurrence.Download;
+import org.gbif.api.model.occurrence.DownloadRequest;
+import org.gbif.api.model.occurrence.PredicateDownloadRequest;
+import org.gbif.api.service.registry.OccurrenceDownloadService;
+import org.gbif.occurrence.common.download.PredicateRewriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds recent downloads identical to a new download request, so their result can be reused instead of running the
+ * same workflow again.
+ * Two requests are identical when they have the same creator, format, canonical predicate and data snapshot. The data
+ * snapshot is a configured identity of the data queried by the workflows, changing it stops the reuse of older
+ * downloads. Since the occurrence data is continuously updated, downloads are only reused for a limited time.
+ * The notification addresses aren't part of the identity, the addresses of a request that reuses a download are
+ * notified by {@link DownloadRequestServiceImpl}.
+ */
+@Component
+public class DownloadDeduplicationService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DownloadDeduplicationService.class);
+
+  private static final long MAX_DOWNLOADS = 10000;
+
+  private final OccurrenceDownloadService occurrenceDownloadService;
+  private final String snapshot;
+  private final Set<Download.Status> reusableStatuses;
+  // fingerprint of a request -> key of its download, null if reuse is disabled
+  private final Cache<String, String> downloads;
+
+  @Autowired
+  public DownloadDeduplicationService(OccurrenceDownloadService occurrenceDownloadService,
+                                      @Value("${occurrence.download.reuse.snapshot:${occurrence.download.environment}}")
+                                        String snapshot,
+                                      @Value("${occurrence.download.reuse.max_age:PT1H}") String maxAge,
+                                      @Value("${occurrence.download.reuse.include_running:true}") boolean includeRunning) {
+    this.occurrenceDownloadService = occurrenceDownloadService;
+    this.snapshot = snapshot;
+    reusableStatuses = includeRunning ? EnumSet.of(Download.Status.SUCCEEDED,
+                                                   Download.Status.PREPARING,
+                                                   Download.Status.RUNNING,
+                                                   Download.Status.SUSPENDED)
+                                      : EnumSet.of(Download.Status.SUCCEEDED);
+    Duration maxAgeDuration = Duration.parse(maxAge);
+    downloads = maxAgeDuration.isZero() || maxAgeDuration.isNegative() ? null :
+      CacheBuilder.newBuilder()
+        .maximumSize(MAX_DOWNLOADS)
+        .expireAfterWrite(maxAgeDuration.toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Recent download identical to the request that succeeded or, if allowed, is still running.
+   *
+   * @return the download or null if there isn't a reusable download
+   */
+  public Download findReusableDownload(DownloadRequest request) {
+    if (downloads == null || !(request instanceof PredicateDownloadRequest)) {
+      return null;
+    }
+    String fingerprint = fingerprint(request);
+    String downloadKey = downloads.getIfPresent(fingerprint);
+    if (downloadKey == null) {
+      return null;
+    }
+    Download download = occurrenceDownloadService.get(downloadKey);
+    if (download == null || !reusableStatuses.contains(download.getStatus())) {
+      // failed, cancelled or erased downloads are run again
+      downloads.invalidate(fingerprint);
+      return null;
+    }
+    LOG.info("Reusing download {} for an identical request of user {}", downloadKey, request.getCreator());
+    return download;
+  }
+
+  /**
+   * Registers the download created for a request, so identical requests can reuse it.
+   */
+  public void register(DownloadRequest request, String downloadKey) {
+    if (downloads != null && request instanceof PredicateDownloadRequest) {
+      downloads.put(fingerprint(request), downloadKey);
+    }
+  }
+
+  /**
+   * SHA-256 hash of the creator, format, canonical predicate and data snapshot of a request.
+   */
+  @VisibleForTesting
+  String fingerprint(DownloadRequest request) {
+    String identity = String.join("\n",
+                                  request.getCreator(),
+                                  request.getFormat().name(),
+                                  snapshot,
+                                  PredicateRewriter.canonicalKey(((PredicateDownloadRequest) request).getPredicate()));
+    return Hashing.sha256().hashString(identity, StandardCharsets.UTF_8).toString();
+  }
+}
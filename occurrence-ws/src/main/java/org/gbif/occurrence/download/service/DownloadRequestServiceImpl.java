@@ -22,6 +22,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -103,6 +104,7 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
   private final EmailSender emailSender;
 
   private final DownloadLimitsService downloadLimitsService;
+  private final DownloadDeduplicationService downloadDeduplicationService;
 
   @Autowired
   public DownloadRequestServiceImpl(OozieClient client,
@@ -112,6 +114,7 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
                                     @Value("${occurrence.download.ws.mount}") String wsMountDir,
                                     OccurrenceDownloadService occurrenceDownloadService,
                                     DownloadLimitsService downloadLimitsService,
+                                    DownloadDeduplicationService downloadDeduplicationService,
                                     OccurrenceEmailManager emailManager,
                                     EmailSender emailSender) {
     this.client = client;
@@ -121,6 +124,7 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
     this.occurrenceDownloadService = occurrenceDownloadService;
     this.parametersBuilder = new DownloadWorkflowParametersBuilder(defaultProperties);
     this.downloadLimitsService = downloadLimitsService;
+    this.downloadDeduplicationService = downloadDeduplicationService;
     this.emailManager = emailManager;
     this.emailSender = emailSender;
   }
@@ -154,6 +158,13 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
         throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "A download limitation is exceeded:\n" + exceedComplexityLimit + "\n");
       }
 
+      // identical requests get the recent download instead of running the same workflow again
+      Download reusableDownload = downloadDeduplicationService.findReusableDownload(request);
+      if (reusableDownload != null) {
+        notifyReusedDownload(reusableDownload, request);
+        return reusableDownload.getKey();
+      }
+
       String exceedSimultaneousLimit = downloadLimitsService.exceedsSimultaneousDownloadLimit(request.getCreator());
       if (exceedSimultaneousLimit != null) {
         LOG.info("Download request refused as it would exceed simultaneous limits");
@@ -165,6 +176,7 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
       LOG.debug("Oozie job id is: [{}]", jobId);
       String downloadId = DownloadUtils.workflowToDownloadId(jobId);
       persistDownload(request, downloadId);
+      downloadDeduplicationService.register(request, downloadId);
       return downloadId;
     } catch (OozieClientException e) {
       LOG.error("Failed to create download job", e);
@@ -285,6 +297,36 @@ public class DownloadRequestServiceImpl implements DownloadRequestService, Callb
     return 0L;
   }
 
+  /**
+   * Notifies the addresses of a request answered with an identical download.
+   * Running downloads get the addresses of the request added, so they are notified with the others when the download
+   * completes. Downloads that already succeeded are notified straight away, as a new download would have been.
+   */
+  private void notifyReusedDownload(Download download, DownloadRequest request) {
+    if (!request.getSendNotification()) {
+      return;
+    }
+    if (download.getStatus() == Download.Status.SUCCEEDED) {
+      // the download isn't updated, its request is only replaced to address the email to the new request
+      download.setRequest(request);
+      emailSender.send(emailManager.generateSuccessfulDownloadEmailModel(download, portalUrl));
+      return;
+    }
+    DownloadRequest reusedRequest = download.getRequest();
+    Set<String> addresses = new LinkedHashSet<>();
+    if (reusedRequest.getNotificationAddresses() != null) {
+      addresses.addAll(reusedRequest.getNotificationAddresses());
+    }
+    if (request.getNotificationAddresses() != null) {
+      addresses.addAll(request.getNotificationAddresses());
+    }
+    if (!reusedRequest.getSendNotification() || !addresses.equals(reusedRequest.getNotificationAddresses())) {
+      reusedRequest.setNotificationAddresses(addresses);
+      reusedRequest.setSendNotification(true);
+      occurrenceDownloadService.update(download);
+    }
+  }
+
   /**
    * Persists the download information.
    */
@@ -16,16 +16,16 @@ import org.gbif.api.model.occurrence.predicate.Predicate;
 import org.gbif.api.model.occurrence.predicate.SimplePredicate;
 import org.gbif.api.model.occurrence.predicate.WithinPredicate;
 import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+import org.gbif.occurrence.common.download.PredicateRewriter;
+import org.gbif.occurrence.common.download.PredicateType;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.google.common.base.Throwables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,27 +37,43 @@ public class PredicateOptimizer {
 
   }
 
+  /**
+   * Rewrites the predicate with the rules of {@link PredicateRewriter} and replaces the equals predicates of
+   * disjunctions by in predicates.
+   */
   public static Predicate optimize(Predicate predicate) {
     if (Objects.nonNull(predicate)) {
-      Object v = new PredicateOptimizer().visit(predicate);
-      return v instanceof Predicate ? (Predicate) v : predicate;
+      return new PredicateOptimizer().optimizeChild(PredicateRewriter.rewrite(predicate));
     }
     return predicate;
   }
 
+  /**
+   * Optimized predicate, or the predicate itself if it can't be optimized.
+   */
+  private Predicate optimizeChild(Predicate predicate) {
+    Object v = visit(predicate);
+    return v instanceof Predicate ? (Predicate) v : predicate;
+  }
+
   /**
    * handle conjunction predicate
    *
    * @param predicate conjunction predicate
    */
-  public void visit(ConjunctionPredicate predicate) {
+  public Predicate visit(ConjunctionPredicate predicate) {
     // must query structure is equivalent to AND
-    predicate.getPredicates().forEach(this::visit);
+    return new ConjunctionPredicate(predicate.getPredicates().stream()
+                                      .map(this::optimizeChild)
+                                      .collect(Collectors.toList()));
   }
 
 
-  public Predicate visit(DisjunctionPredicate predicate) {
-    Map<OccurrenceSearchParameter, List<EqualsPredicate>> equalsPredicates = groupEqualsPredicate(predicate);
+  public Predicate visit(DisjunctionPredicate disjunction) {
+    DisjunctionPredicate predicate = new DisjunctionPredicate(disjunction.getPredicates().stream()
+                                                                .map(this::optimizeChild)
+                                                                .collect(Collectors.toList()));
+    Map<EqualsGroup, List<EqualsPredicate>> equalsPredicates = groupEqualsPredicate(predicate);
     if (!equalsPredicates.isEmpty()) {
       List<Predicate> predicates = new ArrayList<>(predicate.getPredicates());
       List<Predicate> exclude = predicates.stream()
@@ -73,22 +89,24 @@ public class PredicateOptimizer {
   /**
    * Checks if a predicate has in grouped and can be replaced later by a InPredicate.
    */
-  private static boolean isReplaceableByInPredicate(Predicate predicate, Map<OccurrenceSearchParameter, List<EqualsPredicate>> equalsPredicatesReplaceableByIn) {
+  private static boolean isReplaceableByInPredicate(Predicate predicate, Map<EqualsGroup, List<EqualsPredicate>> equalsPredicatesReplaceableByIn) {
     if (!equalsPredicatesReplaceableByIn.isEmpty() && predicate instanceof EqualsPredicate) {
       EqualsPredicate equalsPredicate = (EqualsPredicate)predicate;
-      return equalsPredicatesReplaceableByIn.containsKey(equalsPredicate.getKey()) && equalsPredicatesReplaceableByIn.get(equalsPredicate.getKey()).contains(equalsPredicate);
+      List<EqualsPredicate> group = equalsPredicatesReplaceableByIn.get(new EqualsGroup(equalsPredicate));
+      return group != null && group.contains(equalsPredicate);
     }
     return false;
   }
 
   /**
-   * Groups all equals predicates by search parameter.
+   * Groups all equals predicates by search parameter and matchCase, only predicates with the same matchCase can be
+   * merged into the same InPredicate.
    */
-  private static Map<OccurrenceSearchParameter, List<EqualsPredicate>> groupEqualsPredicate(DisjunctionPredicate predicate) {
+  private static Map<EqualsGroup, List<EqualsPredicate>> groupEqualsPredicate(DisjunctionPredicate predicate) {
     return predicate.getPredicates().stream()
       .filter(p -> p instanceof EqualsPredicate)
       .map(p -> (EqualsPredicate)p)
-      .collect(Collectors.groupingBy(EqualsPredicate::getKey))
+      .collect(Collectors.groupingBy(EqualsGroup::new))
       .entrySet().stream()
       .filter( e -> e.getValue().size() > 1).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
   }
@@ -96,13 +114,44 @@ public class PredicateOptimizer {
   /**
    * Transforms the grouped EqualsPredicates into InPredicates.
    */
-  private static List<InPredicate> toInPredicates(Map<OccurrenceSearchParameter, List<EqualsPredicate>> equalPredicates) {
+  private static List<InPredicate> toInPredicates(Map<EqualsGroup, List<EqualsPredicate>> equalPredicates) {
     return equalPredicates.entrySet()
       .stream()
-      .map(e -> new InPredicate(e.getKey(), e.getValue().stream().map(EqualsPredicate::getValue).collect(Collectors.toSet()), false))
+      .map(e -> new InPredicate(e.getKey().key, e.getValue().stream().map(EqualsPredicate::getValue).collect(Collectors.toSet()), e.getKey().matchCase))
       .collect(Collectors.toList());
   }
 
+  /**
+   * Search parameter and matchCase shared by the equals predicates merged into an InPredicate.
+   */
+  private static final class EqualsGroup {
+
+    private final OccurrenceSearchParameter key;
+    private final boolean matchCase;
+
+    private EqualsGroup(EqualsPredicate predicate) {
+      key = predicate.getKey();
+      matchCase = Optional.ofNullable(predicate.isMatchCase()).orElse(Boolean.FALSE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      EqualsGroup that = (EqualsGroup) o;
+      return matchCase == that.matchCase && key == that.key;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, matchCase);
+    }
+  }
+
 
   /**
    * handle IN Predicate
@@ -127,10 +176,9 @@ public class PredicateOptimizer {
    * handles not predicate
    *
    * @param predicate NOT predicate
-   * @param queryBuilder  root query builder
    */
-  public void visit(NotPredicate predicate) {
-    return;
+  public Predicate visit(NotPredicate predicate) {
+    return new NotPredicate(optimizeChild(predicate.getPredicate()));
   }
 
   /**
@@ -215,23 +263,49 @@ public class PredicateOptimizer {
     return;
   }
 
+  /**
+   * Dispatches a predicate to the visit method of its class.
+   *
+   * @return the optimized predicate, or null if the predicate is kept as it is
+   */
   private Object visit(Object object) {
-    Method method;
-    try {
-      method = getClass().getMethod("visit", object.getClass());
-    } catch (NoSuchMethodException e) {
-      LOG.warn("Visit method could not be found. That means a unknown Predicate has been passed", e);
-      throw new IllegalArgumentException("Unknown Predicate", e);
+    switch (PredicateType.of(object)) {
+      case CONJUNCTION:
+        return visit((ConjunctionPredicate) object);
+      case DISJUNCTION:
+        return visit((DisjunctionPredicate) object);
+      case EQUALS:
+        visit((EqualsPredicate) object);
+        return null;
+      case GREATER_THAN_OR_EQUALS:
+        visit((GreaterThanOrEqualsPredicate) object);
+        return null;
+      case GREATER_THAN:
+        visit((GreaterThanPredicate) object);
+        return null;
+      case IN:
+        visit((InPredicate) object);
+        return null;
+      case IS_NOT_NULL:
+        visit((IsNotNullPredicate) object);
+        return null;
+      case LESS_THAN_OR_EQUALS:
+        visit((LessThanOrEqualsPredicate) object);
+        return null;
+      case LESS_THAN:
+        visit((LessThanPredicate) object);
+        return null;
+      case LIKE:
+        visit((LikePredicate) object);
+        return null;
+      case NOT:
+        return visit((NotPredicate) object);
+      case WITHIN:
+        visit((WithinPredicate) object);
+        return null;
+      default:
+        throw new IllegalArgumentException("Unknown Predicate");
     }
-    try {
-      return method.invoke(this, object);
-    } catch (IllegalAccessException e) {
-      LOG.error("This error shouldn't occur if all visit methods are public. Probably a programming error", e);
-      Throwables.propagate(e);
-    } catch (InvocationTargetException e) {
-      LOG.info("Exception thrown while building the query", e);
-      throw new RuntimeException(e);
-    }
-    throw new RuntimeException("Exception thrown while building the query");
   }
+
 }
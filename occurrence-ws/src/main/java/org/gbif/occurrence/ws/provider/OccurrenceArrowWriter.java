@@ -0,0 +1,243 @@
+package org.gbif.occurrence.ws.provider;
+
+import org.gbif.api.model.occurrence.Occurrence;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.dwc.terms.DcTerm;
+import org.gbif.dwc.terms.DwcTerm;
+import org.gbif.dwc.terms.GbifTerm;
+import org.gbif.dwc.terms.Term;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * Writes {@link Occurrence}s as an Apache Arrow IPC stream, a record batch per list of occurrences written.
+ * Only a subset of the interpreted fields is supported, the columns are named after their terms and typed as in the
+ * occurrence model: keys and counts are integers, coordinates doubles and dates UTC timestamps.
+ */
+public class OccurrenceArrowWriter implements Closeable {
+
+  public static final String ARROW_STREAM_VALUE = "application/vnd.apache.arrow.stream";
+
+  // Supported columns, in their default order
+  private static final Map<String, Column> COLUMNS = new LinkedHashMap<>();
+
+  static {
+    int64(GbifTerm.gbifID, Occurrence::getKey);
+    utf8(GbifTerm.datasetKey, Occurrence::getDatasetKey);
+    utf8(GbifTerm.publishingOrgKey, Occurrence::getPublishingOrgKey);
+    utf8(GbifTerm.publishingCountry, o -> iso2(o.getPublishingCountry()));
+    utf8(DwcTerm.basisOfRecord, Occurrence::getBasisOfRecord);
+    utf8(DwcTerm.occurrenceStatus, Occurrence::getOccurrenceStatus);
+    int32(DwcTerm.individualCount, Occurrence::getIndividualCount);
+    utf8(DwcTerm.scientificName, Occurrence::getScientificName);
+    utf8(GbifTerm.acceptedScientificName, Occurrence::getAcceptedScientificName);
+    int32(GbifTerm.taxonKey, Occurrence::getTaxonKey);
+    int32(GbifTerm.acceptedTaxonKey, Occurrence::getAcceptedTaxonKey);
+    utf8(DwcTerm.taxonRank, Occurrence::getTaxonRank);
+    utf8(DwcTerm.kingdom, Occurrence::getKingdom);
+    utf8(DwcTerm.phylum, Occurrence::getPhylum);
+    utf8(DwcTerm.class_, Occurrence::getClazz);
+    utf8(DwcTerm.order, Occurrence::getOrder);
+    utf8(DwcTerm.family, Occurrence::getFamily);
+    utf8(DwcTerm.genus, Occurrence::getGenus);
+    utf8(GbifTerm.species, Occurrence::getSpecies);
+    utf8(DwcTerm.countryCode, o -> iso2(o.getCountry()));
+    utf8(DwcTerm.stateProvince, Occurrence::getStateProvince);
+    float64(DwcTerm.decimalLatitude, Occurrence::getDecimalLatitude);
+    float64(DwcTerm.decimalLongitude, Occurrence::getDecimalLongitude);
+    float64(DwcTerm.coordinateUncertaintyInMeters, Occurrence::getCoordinateUncertaintyInMeters);
+    float64(GbifTerm.elevation, Occurrence::getElevation);
+    float64(GbifTerm.depth, Occurrence::getDepth);
+    timestamp(DwcTerm.eventDate, Occurrence::getEventDate);
+    int32(DwcTerm.year, Occurrence::getYear);
+    int32(DwcTerm.month, Occurrence::getMonth);
+    int32(DwcTerm.day, Occurrence::getDay);
+    utf8(DcTerm.license, Occurrence::getLicense);
+    timestamp(GbifTerm.lastInterpreted, Occurrence::getLastInterpreted);
+  }
+
+  public static final List<String> SUPPORTED_COLUMNS = ImmutableList.copyOf(COLUMNS.keySet());
+
+  private final List<Column> columns;
+
+  private final BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+
+  private final VectorSchemaRoot root;
+
+  private final ArrowStreamWriter writer;
+
+  /**
+   * Starts a stream, with the columns in the order requested, into out.
+   * The output stream is not closed by this writer.
+   *
+   * @throws IllegalArgumentException if a column is not supported
+   */
+  public OccurrenceArrowWriter(List<String> columnNames, OutputStream out) throws IOException {
+    checkColumns(columnNames);
+    columns = columnNames.stream().map(COLUMNS::get).collect(Collectors.toList());
+    root = VectorSchemaRoot.create(new Schema(columns.stream().map(Column::getField).collect(Collectors.toList())),
+                                   allocator);
+    writer = new ArrowStreamWriter(root, null, Channels.newChannel(out));
+    writer.start();
+  }
+
+  /**
+   * Validates the requested columns, so requests can be rejected before the stream starts.
+   *
+   * @throws IllegalArgumentException if the list is empty or a column is not supported
+   */
+  public static void checkColumns(List<String> columnNames) {
+    Preconditions.checkArgument(!columnNames.isEmpty(), "At least one column is required");
+    List<String> unsupported = new ArrayList<>(columnNames);
+    unsupported.removeAll(COLUMNS.keySet());
+    Preconditions.checkArgument(unsupported.isEmpty(), "Unsupported columns %s, supported columns are %s",
+                                unsupported, COLUMNS.keySet());
+    Preconditions.checkArgument(columnNames.stream().distinct().count() == columnNames.size(),
+                                "Duplicated columns in %s", columnNames);
+  }
+
+  /**
+   * Writes the occurrences as a record batch.
+   */
+  public void write(List<Occurrence> occurrences) throws IOException {
+    if (occurrences.isEmpty()) {
+      return;
+    }
+    root.allocateNew();
+    for (int i = 0; i < columns.size(); i++) {
+      FieldVector vector = root.getVector(i);
+      Column column = columns.get(i);
+      for (int row = 0; row < occurrences.size(); row++) {
+        column.set(vector, row, occurrences.get(row));
+      }
+    }
+    root.setRowCount(occurrences.size());
+    writer.writeBatch();
+  }
+
+  /**
+   * Ends the stream and releases the memory of the vectors.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      writer.end();
+    } finally {
+      root.close();
+      allocator.close();
+    }
+  }
+
+  private static String iso2(Country country) {
+    return country == null ? null : country.getIso2LetterCode();
+  }
+
+  private static void utf8(Term term, Function<Occurrence, ?> getter) {
+    COLUMNS.put(term.simpleName(), new Column(term, ArrowType.Utf8.INSTANCE, (vector, row, occurrence) -> {
+      Object value = getter.apply(occurrence);
+      if (value != null) {
+        String string = value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+        ((VarCharVector) vector).setSafe(row, string.getBytes(StandardCharsets.UTF_8));
+      }
+    }));
+  }
+
+  private static void int32(Term term, Function<Occurrence, Integer> getter) {
+    COLUMNS.put(term.simpleName(), new Column(term, new ArrowType.Int(32, true), (vector, row, occurrence) -> {
+      Integer value = getter.apply(occurrence);
+      if (value != null) {
+        ((IntVector) vector).setSafe(row, value);
+      }
+    }));
+  }
+
+  private static void int64(Term term, Function<Occurrence, Long> getter) {
+    COLUMNS.put(term.simpleName(), new Column(term, new ArrowType.Int(64, true), (vector, row, occurrence) -> {
+      Long value = getter.apply(occurrence);
+      if (value != null) {
+        ((BigIntVector) vector).setSafe(row, value);
+      }
+    }));
+  }
+
+  private static void float64(Term term, Function<Occurrence, Double> getter) {
+    COLUMNS.put(term.simpleName(), new Column(term, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE),
+                                              (vector, row, occurrence) -> {
+      Double value = getter.apply(occurrence);
+      if (value != null) {
+        ((Float8Vector) vector).setSafe(row, value);
+      }
+    }));
+  }
+
+  private static void timestamp(Term term, Function<Occurrence, Date> getter) {
+    COLUMNS.put(term.simpleName(), new Column(term, new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"),
+                                              (vector, row, occurrence) -> {
+      Date value = getter.apply(occurrence);
+      if (value != null) {
+        ((TimeStampMilliTZVector) vector).setSafe(row, value.getTime());
+      }
+    }));
+  }
+
+  /**
+   * Sets the value of a row, rows without value are left unset since the vectors are allocated with all the
+   * values null.
+   */
+  @FunctionalInterface
+  private interface Setter {
+
+    void set(FieldVector vector, int row, Occurrence occurrence);
+  }
+
+  /**
+   * Arrow field of a column and how it is set from an occurrence.
+   */
+  private static class Column {
+
+    private final Field field;
+    private final Setter setter;
+
+    Column(Term term, ArrowType type, Setter setter) {
+      field = Field.nullable(term.simpleName(), type);
+      this.setter = setter;
+    }
+
+    Field getField() {
+      return field;
+    }
+
+    void set(FieldVector vector, int row, Occurrence occurrence) {
+      setter.set(vector, row, occurrence);
+    }
+  }
+}
@@ -17,12 +17,17 @@ import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.gbif.ws.paths.OccurrencePaths.FRAGMENT_PATH;
 import static org.gbif.ws.paths.OccurrencePaths.OCCURRENCE_PATH;
@@ -41,21 +46,26 @@ public class OccurrenceResource {
   @VisibleForTesting
   public static final String ANNOSYS_PATH = "annosys";
 
+  public static final String BATCH_PATH = "batch";
+
   private static final Logger LOG = LoggerFactory.getLogger(OccurrenceResource.class);
 
   private final OccurrenceService occurrenceService;
   private final OccurrenceRelationshipService occurrenceRelationshipService;
   private final OccurrenceGetByKey occurrenceGetByKey;
+  private final int maxBatchSize;
 
   @Autowired
   public OccurrenceResource(
     OccurrenceService occurrenceService,
     OccurrenceGetByKey occurrenceGetByKey,
-    OccurrenceRelationshipService occurrenceRelationshipService
+    OccurrenceRelationshipService occurrenceRelationshipService,
+    @Value("${occurrence.search.max.limit}") int maxBatchSize
   ) {
     this.occurrenceService = occurrenceService;
     this.occurrenceGetByKey = occurrenceGetByKey;
     this.occurrenceRelationshipService = occurrenceRelationshipService;
+    this.maxBatchSize = maxBatchSize;
   }
 
   /**
@@ -71,6 +81,21 @@ public class OccurrenceResource {
     return occurrenceGetByKey.get(key);
   }
 
+  /**
+   * This retrieves several Occurrence details by their keys, read together from the occurrence store.
+   *
+   * @param keys Occurrence keys, at most as many as the search limit
+   * @return requested Occurrences in the order of the keys, with null for the keys that could not be found
+   */
+  @PostMapping(value = BATCH_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+  public List<Occurrence> getAll(@RequestBody List<Long> keys) {
+    LOG.debug("Request Occurrences {}:", keys);
+    if (keys.size() > maxBatchSize) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Max number of keys is " + maxBatchSize);
+    }
+    return occurrenceGetByKey.getAll(keys);
+  }
+
   /**
    * This retrieves a single occurrence fragment in its raw form as a string.
    *
@@ -25,13 +25,16 @@ import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
 import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
 import org.gbif.api.service.occurrence.OccurrenceSearchService;
 import org.gbif.api.util.VocabularyUtils;
+import org.gbif.occurrence.search.OccurrenceSearchStream;
 import org.gbif.occurrence.search.SearchTermService;
+import org.gbif.occurrence.ws.provider.OccurrenceArrowWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -39,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.view.RedirectView;
 
 /**
@@ -59,10 +63,14 @@ public class OccurrenceSearchResource {
 
   private final SearchTermService searchTermService;
 
+  private final OccurrenceSearchStream searchStream;
+
   @Autowired
-  public OccurrenceSearchResource(OccurrenceSearchService searchService, SearchTermService searchTermService) {
+  public OccurrenceSearchResource(OccurrenceSearchService searchService, SearchTermService searchTermService,
+                                  OccurrenceSearchStream searchStream) {
     this.searchService = searchService;
     this.searchTermService = searchTermService;
+    this.searchStream = searchStream;
   }
 
   @GetMapping
@@ -217,4 +225,24 @@ public class OccurrenceSearchResource {
         .map(parameter -> searchTermService.searchFieldTerms(query, parameter, limit))
         .orElseThrow(() -> new IllegalArgumentException("Search not supported for term " +  term));
   }
+
+  /**
+   * Experimental: streams the occurrences of a search, from its offset and up to its limit, as Apache Arrow IPC record
+   * batches. The columns are chosen using the column parameter, all the supported columns are returned by default.
+   */
+  @GetMapping(value = "experimental/arrow", produces = OccurrenceArrowWriter.ARROW_STREAM_VALUE)
+  public ResponseEntity<StreamingResponseBody> searchArrow(OccurrenceSearchRequest request,
+                                                           @RequestParam(value = "column", required = false)
+                                                             List<String> columns) {
+    List<String> columnNames = columns == null || columns.isEmpty() ? OccurrenceArrowWriter.SUPPORTED_COLUMNS : columns;
+    OccurrenceArrowWriter.checkColumns(columnNames);
+    LOG.debug("Executing Arrow export, parameters {}, limit {}, offset {}, columns {}", request.getParameters(),
+              request.getLimit(), request.getOffset(), columnNames);
+    StreamingResponseBody body = outputStream -> {
+      try (OccurrenceArrowWriter writer = new OccurrenceArrowWriter(columnNames, outputStream)) {
+        searchStream.streamSearch(request, writer::write);
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(OccurrenceArrowWriter.ARROW_STREAM_VALUE)).body(body);
+  }
 }
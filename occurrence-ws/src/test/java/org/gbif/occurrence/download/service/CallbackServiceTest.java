@@ -87,7 +87,8 @@ public class CallbackServiceTest {
     service =
       new DownloadRequestServiceImpl(
           oozieClient, Maps.newHashMap(), "http://gbif-dev.org/occurrence", "http://localhost:8080/",
-        "", occurrenceDownloadService, downloadLimitsService, emailManager, emailSender);
+        "", occurrenceDownloadService, downloadLimitsService, mock(DownloadDeduplicationService.class), emailManager,
+        emailSender);
   }
 
 
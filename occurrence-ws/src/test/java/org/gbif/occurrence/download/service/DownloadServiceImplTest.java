@@ -8,6 +8,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +43,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -51,6 +54,7 @@ public class DownloadServiceImplTest {
   private static final String JOB_ID = DOWNLOAD_ID + "-oozie-oozi-W";
   private static final OccurrenceSearchParameter PARAM = OccurrenceSearchParameter.CATALOG_NUMBER;
   private static final String TEST_EMAIL = "test@test.gbif.org";
+  private static final String OTHER_EMAIL = "other@test.gbif.org";
 
   @Mock
   private OozieClient oozieClient;
@@ -63,6 +67,10 @@ public class DownloadServiceImplTest {
 
   private DownloadLimitsService downloadLimitsService;
 
+  private OccurrenceEmailManager emailManager;
+
+  private EmailSender emailSender;
+
   private static final Predicate DEFAULT_TEST_PREDICATE = new EqualsPredicate(PARAM, "bar", false);
 
   @BeforeEach
@@ -70,8 +78,12 @@ public class DownloadServiceImplTest {
     props.clear();
     downloadService = mock(OccurrenceDownloadService.class);
     downloadLimitsService = mock(DownloadLimitsService.class);
+    emailManager = mock(OccurrenceEmailManager.class);
+    emailSender = mock(EmailSender.class);
     requestService =
-      new DownloadRequestServiceImpl(oozieClient, props, "", "", "", downloadService, downloadLimitsService, mock(OccurrenceEmailManager.class), mock(EmailSender.class));
+      new DownloadRequestServiceImpl(oozieClient, props, "", "", "", downloadService, downloadLimitsService,
+                                     new DownloadDeduplicationService(downloadService, "test", "PT1H", true),
+                                     emailManager, emailSender);
   }
 
 
@@ -84,6 +96,77 @@ public class DownloadServiceImplTest {
     assertThat(id, equalTo(DOWNLOAD_ID));
   }
 
+  @Test
+  public void testCreateReusesIdenticalDownload() throws OozieClientException {
+    when(oozieClient.run(any(Properties.class))).thenReturn(JOB_ID);
+    DownloadRequest dl = new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", null, true, DownloadFormat.DWCA);
+    assertThat(requestService.create(dl), equalTo(DOWNLOAD_ID));
+
+    // same predicate written differently
+    Download download = mockDownload(DOWNLOAD_ID, "markus");
+    when(downloadService.get(DOWNLOAD_ID)).thenReturn(download);
+    DownloadRequest identical =
+      new PredicateDownloadRequest(new EqualsPredicate(PARAM, "BAR", false), "markus", null, true, DownloadFormat.DWCA);
+    assertThat(requestService.create(identical), equalTo(DOWNLOAD_ID));
+    verify(oozieClient).run(any(Properties.class));
+
+    // other formats and users run a new workflow
+    requestService.create(
+      new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", null, true, DownloadFormat.SIMPLE_CSV));
+    requestService.create(new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "karl", null, true, DownloadFormat.DWCA));
+    verify(oozieClient, times(3)).run(any(Properties.class));
+
+    // failed downloads are run again
+    download.setStatus(Status.FAILED);
+    requestService.create(dl);
+    verify(oozieClient, times(4)).run(any(Properties.class));
+  }
+
+  /**
+   * The addresses of a request reusing a running download are added to the download, to be notified on completion.
+   */
+  @Test
+  public void testReusedRunningDownloadNotifiesNewAddresses() throws OozieClientException {
+    when(oozieClient.run(any(Properties.class))).thenReturn(JOB_ID);
+    DownloadRequest dl =
+      new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", Lists.newArrayList(TEST_EMAIL), true, DownloadFormat.DWCA);
+    assertThat(requestService.create(dl), equalTo(DOWNLOAD_ID));
+
+    Download download = mockRequestDownload(DOWNLOAD_ID, dl);
+    download.setStatus(Status.RUNNING);
+    when(downloadService.get(DOWNLOAD_ID)).thenReturn(download);
+    DownloadRequest identical =
+      new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", Lists.newArrayList(OTHER_EMAIL), true, DownloadFormat.DWCA);
+    assertThat(requestService.create(identical), equalTo(DOWNLOAD_ID));
+
+    verify(downloadService).update(download);
+    assertEquals(ImmutableSet.of(TEST_EMAIL, OTHER_EMAIL), download.getRequest().getNotificationAddresses());
+    verify(emailSender, never()).send(any());
+  }
+
+  /**
+   * A request reusing a download that already succeeded is notified straight away.
+   */
+  @Test
+  public void testReusedSucceededDownloadIsNotified() throws OozieClientException {
+    when(oozieClient.run(any(Properties.class))).thenReturn(JOB_ID);
+    DownloadRequest dl =
+      new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", Lists.newArrayList(TEST_EMAIL), true, DownloadFormat.DWCA);
+    assertThat(requestService.create(dl), equalTo(DOWNLOAD_ID));
+
+    when(downloadService.get(DOWNLOAD_ID)).thenReturn(mockRequestDownload(DOWNLOAD_ID, dl));
+    DownloadRequest identical =
+      new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, "markus", Lists.newArrayList(OTHER_EMAIL), true, DownloadFormat.DWCA);
+    assertThat(requestService.create(identical), equalTo(DOWNLOAD_ID));
+
+    ArgumentCaptor<Download> notified = ArgumentCaptor.forClass(Download.class);
+    verify(emailManager).generateSuccessfulDownloadEmailModel(notified.capture(), any());
+    assertEquals(DOWNLOAD_ID, notified.getValue().getKey());
+    assertEquals(ImmutableSet.of(OTHER_EMAIL), notified.getValue().getRequest().getNotificationAddresses());
+    verify(emailSender).send(any());
+    verify(downloadService, never()).update(any(Download.class));
+  }
+
   @Test
   public void testFailedCreate() throws OozieClientException {
     doThrow(new OozieClientException("foo", "bar")).when(oozieClient).run(any(Properties.class));
@@ -150,7 +233,11 @@ public class DownloadServiceImplTest {
   }
 
   private Download mockDownload(String downloadKey, String creator) {
-    DownloadRequest downloadRequest = new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, creator, null, true, DownloadFormat.DWCA);
+    return mockRequestDownload(downloadKey,
+                               new PredicateDownloadRequest(DEFAULT_TEST_PREDICATE, creator, null, true, DownloadFormat.DWCA));
+  }
+
+  private Download mockRequestDownload(String downloadKey, DownloadRequest downloadRequest) {
     Download download = new Download();
     download.setRequest(downloadRequest);
     download.setKey(downloadKey);
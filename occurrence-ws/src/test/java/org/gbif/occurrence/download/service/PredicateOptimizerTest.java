@@ -0,0 +1,60 @@
+package org.gbif.occurrence.download.service;
+
+import org.gbif.api.model.occurrence.predicate.DisjunctionPredicate;
+import org.gbif.api.model.occurrence.predicate.EqualsPredicate;
+import org.gbif.api.model.occurrence.predicate.InPredicate;
+import org.gbif.api.model.occurrence.predicate.Predicate;
+import org.gbif.api.model.occurrence.search.OccurrenceSearchParameter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link PredicateOptimizer}.
+ */
+public class PredicateOptimizerTest {
+
+  @Test
+  public void testEqualsMergedIntoIn() {
+    Predicate optimized = PredicateOptimizer.optimize(new DisjunctionPredicate(Arrays.asList(
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "A1", false),
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "A2", false))));
+
+    Assertions.assertTrue(optimized instanceof DisjunctionPredicate);
+    List<Predicate> predicates = ((DisjunctionPredicate) optimized).getPredicates();
+    Assertions.assertEquals(1, predicates.size());
+    InPredicate in = (InPredicate) predicates.get(0);
+    Assertions.assertEquals(OccurrenceSearchParameter.CATALOG_NUMBER, in.getKey());
+    Assertions.assertEquals(ImmutableSet.of("A1", "A2"), new HashSet<>(in.getValues()));
+    Assertions.assertFalse(in.isMatchCase());
+  }
+
+  /**
+   * Equals predicates are only merged with predicates of the same matchCase, which is kept by the InPredicate.
+   */
+  @Test
+  public void testMatchCaseKeptWhenMerged() {
+    Predicate optimized = PredicateOptimizer.optimize(new DisjunctionPredicate(Arrays.asList(
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "A1", true),
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "A2", true),
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "b1", false),
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "b2", false),
+      new EqualsPredicate(OccurrenceSearchParameter.CATALOG_NUMBER, "C1", true))));
+
+    List<Predicate> predicates = ((DisjunctionPredicate) optimized).getPredicates();
+    Assertions.assertEquals(2, predicates.size());
+    Map<Boolean, InPredicate> inPredicates = predicates.stream()
+      .map(p -> (InPredicate) p)
+      .collect(Collectors.toMap(InPredicate::isMatchCase, Function.identity()));
+    Assertions.assertEquals(ImmutableSet.of("A1", "A2", "C1"), new HashSet<>(inPredicates.get(true).getValues()));
+    Assertions.assertEquals(ImmutableSet.of("b1", "b2"), new HashSet<>(inPredicates.get(false).getValues()));
+  }
+}
@@ -0,0 +1,201 @@
+package org.gbif.occurrence.ws.provider;
+
+import org.gbif.api.model.occurrence.search.OccurrenceSearchRequest;
+import org.gbif.occurrence.search.es.OccurrenceSearchEsImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the class {@link OccurrenceArrowWriter}, the occurrences are searched in a local HTTP server that
+ * stands in for Elasticsearch and the stream is read back in-process.
+ */
+public class OccurrenceArrowWriterTest {
+
+  private static final int TOTAL_HITS = 650;
+
+  private static final int MAX_LIMIT = 300;
+
+  private static final UUID DATASET_KEY = UUID.fromString("7e380070-f762-11e1-a439-00145eb45e9a");
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private HttpServer server;
+
+  private RestHighLevelClient esClient;
+
+  private final AtomicInteger searchRequests = new AtomicInteger();
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+      searchRequests.incrementAndGet();
+      byte[] response = MAPPER.writeValueAsBytes(searchResponse(request.path("from").asInt(0),
+                                                                request.path("size").asInt(10)));
+      exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.start();
+    esClient = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+  }
+
+  @AfterEach
+  public void stopServer() throws IOException {
+    esClient.close();
+    server.stop(0);
+  }
+
+  /**
+   * Search response of the stand-in, occurrences have consecutive keys starting at 1.
+   */
+  private static Map<String, Object> searchResponse(int from, int size) {
+    List<Map<String, Object>> hits = new ArrayList<>();
+    for (int i = from; i < Math.min(from + size, TOTAL_HITS); i++) {
+      long key = i + 1;
+      Map<String, Object> source = new HashMap<>();
+      source.put("gbifId", key);
+      source.put("datasetKey", DATASET_KEY.toString());
+      source.put("basisOfRecord", "HUMAN_OBSERVATION");
+      source.put("countryCode", "DK");
+      source.put("year", 2000 + i % 20);
+      if (i % 4 != 0) {
+        source.put("decimalLatitude", 55d + i / 1000d);
+      }
+      Map<String, Object> usage = new HashMap<>();
+      usage.put("key", 2435099);
+      usage.put("name", "Puma concolor (Linnaeus, 1771)");
+      source.put("gbifClassification", Collections.singletonMap("usage", usage));
+      source.put("verbatim", Collections.singletonMap("core",
+        Collections.singletonMap("http://rs.tdwg.org/dwc/terms/occurrenceID", "occ-" + key)));
+
+      Map<String, Object> hit = new LinkedHashMap<>();
+      hit.put("_index", "occurrence");
+      hit.put("_type", "record");
+      hit.put("_id", Long.toString(key));
+      hit.put("_score", null);
+      hit.put("_source", source);
+      hits.add(hit);
+    }
+
+    Map<String, Object> hitsObject = new LinkedHashMap<>();
+    hitsObject.put("total", TOTAL_HITS);
+    hitsObject.put("max_score", null);
+    hitsObject.put("hits", hits);
+
+    Map<String, Object> shards = new LinkedHashMap<>();
+    shards.put("total", 1);
+    shards.put("successful", 1);
+    shards.put("skipped", 0);
+    shards.put("failed", 0);
+
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("took", 1);
+    response.put("timed_out", false);
+    response.put("_shards", shards);
+    response.put("hits", hitsObject);
+    return response;
+  }
+
+  @Test
+  public void testStreamSearch() throws IOException {
+    OccurrenceSearchEsImpl searchService = new OccurrenceSearchEsImpl(esClient, null, 1000, MAX_LIMIT, "occurrence");
+    OccurrenceSearchRequest request = new OccurrenceSearchRequest();
+    request.setOffset(10);
+    request.setLimit(700);
+
+    List<String> columns = Arrays.asList("gbifID", "scientificName", "taxonKey", "decimalLatitude", "countryCode");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long streamed;
+    try (OccurrenceArrowWriter writer = new OccurrenceArrowWriter(columns, out)) {
+      streamed = searchService.streamSearch(request, writer::write);
+    }
+    // 640 hits from offset 10, in pages of at most 300
+    Assertions.assertEquals(TOTAL_HITS - 10, streamed);
+    Assertions.assertEquals(3, searchRequests.get());
+    // the caller's request is not modified
+    Assertions.assertEquals(10, request.getOffset());
+    Assertions.assertEquals(700, request.getLimit());
+
+    List<Long> keys = new ArrayList<>();
+    int batches = 0;
+    try (RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      VectorSchemaRoot root = reader.getVectorSchemaRoot();
+      List<String> fieldNames = new ArrayList<>();
+      root.getSchema().getFields().forEach(field -> fieldNames.add(field.getName()));
+      Assertions.assertEquals(columns, fieldNames);
+
+      while (reader.loadNextBatch()) {
+        batches++;
+        BigIntVector gbifId = (BigIntVector) root.getVector("gbifID");
+        VarCharVector scientificName = (VarCharVector) root.getVector("scientificName");
+        IntVector taxonKey = (IntVector) root.getVector("taxonKey");
+        Float8Vector latitude = (Float8Vector) root.getVector("decimalLatitude");
+        VarCharVector countryCode = (VarCharVector) root.getVector("countryCode");
+        for (int row = 0; row < root.getRowCount(); row++) {
+          long key = gbifId.get(row);
+          keys.add(key);
+          Assertions.assertEquals("Puma concolor (Linnaeus, 1771)",
+                                  new String(scientificName.get(row), StandardCharsets.UTF_8));
+          Assertions.assertEquals(2435099, taxonKey.get(row));
+          Assertions.assertEquals("DK", new String(countryCode.get(row), StandardCharsets.UTF_8));
+          if ((key - 1) % 4 == 0) {
+            Assertions.assertTrue(latitude.isNull(row));
+          } else {
+            Assertions.assertEquals(55d + (key - 1) / 1000d, latitude.get(row));
+          }
+        }
+      }
+    }
+    Assertions.assertEquals(3, batches);
+    Assertions.assertEquals(TOTAL_HITS - 10, keys.size());
+    Assertions.assertEquals(11L, keys.get(0).longValue());
+    Assertions.assertEquals((long) TOTAL_HITS, keys.get(keys.size() - 1).longValue());
+  }
+
+  @Test
+  public void testUnsupportedColumns() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> OccurrenceArrowWriter.checkColumns(Arrays.asList("gbifID", "notAColumn")));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> OccurrenceArrowWriter.checkColumns(Arrays.asList("gbifID", "gbifID")));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> OccurrenceArrowWriter.checkColumns(Collections.emptyList()));
+  }
+}